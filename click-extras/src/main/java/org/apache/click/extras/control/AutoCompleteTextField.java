@@ -7,6 +7,7 @@ import org.apache.click.Context;
 import org.apache.click.Control;
 import org.apache.click.ajax.DefaultAjaxBehavior;
 import org.apache.click.control.TextField;
+import org.apache.click.dataprovider.AutoCompleteSource;
 import org.apache.click.element.CssImport;
 import org.apache.click.element.Element;
 import org.apache.click.element.JsImport;
@@ -33,7 +34,7 @@ import java.util.Map.Entry;
  * <h3>AutoCompleteTextField Example</h3>
  *
  * The example below shows how to a create an AutoCompleteTextField. Note how
- * the abstract method <tt>getAutoCompleteList()</tt> is implemented to provide
+ * the method <tt>getAutoCompleteList()</tt> is implemented to provide
  * the list of suggested values.
  *
  * <pre class="prettyprint">
@@ -44,6 +45,19 @@ import java.util.Map.Entry;
  * };
  * form.add(nameField); </pre>
  *
+ * Instead of querying the application for every keystroke of every user, the
+ * suggestions can be provided by a shared {@link AutoCompleteSource}, which
+ * caches, coalesces and incrementally refines the results:
+ *
+ * <pre class="prettyprint">
+ * private static final AutoCompleteSource&lt;String&gt; CUSTOMERS = new AutoCompleteSource&lt;&gt;(
+ *     criteria -&gt; getCustomerService().getCustomerNamesLike(criteria, 10),
+ *     AutoCompleteSource.Match.CONTAINS, 10, Duration.ofMinutes(5));
+ *
+ * AutoCompleteTextField nameField = new AutoCompleteTextField("name");
+ * nameField.setAutoCompleteSource(CUSTOMERS);
+ * form.add(nameField); </pre>
+ *
  * <a name="resources"></a>
  * <h3>CSS and JavaScript resources</h3>
  *
@@ -68,7 +82,7 @@ import java.util.Map.Entry;
  * <a class="external" target="_blank" title="W3C HTML 4.01 Specification"
  *    href="http://www.w3.org/TR/html401/interact/forms.html#h-17.4">INPUT</a>
  */
-public abstract class AutoCompleteTextField extends TextField {
+public class AutoCompleteTextField extends TextField {
   private static final long serialVersionUID = 7930934302698242297L;
 
   /**
@@ -87,6 +101,9 @@ public abstract class AutoCompleteTextField extends TextField {
   /** The Field Ajax Behavior provides autocomplete support. */
   protected Behavior behavior;
 
+  /** The shared source of the suggested values. */
+  protected transient AutoCompleteSource<?> autoCompleteSource;
+
   // Constructors -----------------------------------------------------------
 
   /**
@@ -155,17 +172,47 @@ public abstract class AutoCompleteTextField extends TextField {
   public AutoCompleteTextField() {
   }
 
-  // Abstract Methods -------------------------------------------------------
+  // Public Methods ---------------------------------------------------------
 
   /**
    * Return the list of suggested values for the given search criteria.
+   * <p/>
+   * By default the suggestions are provided by the field
+   * {@link #setAutoCompleteSource(AutoCompleteSource) AutoCompleteSource}.
+   * Override this method to provide the suggestions directly.
    *
    * @param criteria the search criteria
    * @return the list of suggested values for the given search criteria
+   * @throws IllegalStateException if no AutoCompleteSource is set
+   */
+  public List<?> getAutoCompleteList(String criteria) {
+    if (autoCompleteSource == null) {
+      throw new IllegalStateException("AutoCompleteTextField " + getName()
+          + ": set an AutoCompleteSource or override getAutoCompleteList()");
+    }
+    return autoCompleteSource.getAutoCompleteList(criteria);
+  }
+
+  /**
+   * Return the source of the suggested values, or null if
+   * {@link #getAutoCompleteList(String)} is overridden.
+   *
+   * @return the source of the suggested values
    */
-  abstract public List<?> getAutoCompleteList(String criteria);
+  public AutoCompleteSource<?> getAutoCompleteSource() {
+    return autoCompleteSource;
+  }
 
-  // Public Methods ---------------------------------------------------------
+  /**
+   * Set the source of the suggested values. Sources cache and refine the
+   * suggestions of the criteria typed by the users and are usually shared by
+   * all the fields of the same kind.
+   *
+   * @param autoCompleteSource the source of the suggested values
+   */
+  public void setAutoCompleteSource(AutoCompleteSource<?> autoCompleteSource) {
+    this.autoCompleteSource = autoCompleteSource;
+  }
 
   /**
    * Return the JavaScript 'script.aculo.us' Autocompleter initialization
@@ -26,7 +26,6 @@ import org.apache.click.control.Field;
 import org.apache.click.control.Form;
 import org.apache.click.control.HiddenField;
 import org.apache.click.control.Table;
-import org.apache.click.dataprovider.PagingDataProvider;
 import org.apache.click.element.Element;
 import org.apache.click.util.HtmlStringBuffer;
 import org.apache.commons.lang3.StringUtils;
@@ -319,8 +318,15 @@ public class FormTable extends Table {
         if (headElements == null) {
             headElements = super.getHeadElements();
 
-            int firstRow = getFirstRow();
-            int lastRow = getLastRow();
+            int firstRow = 0;
+            int lastRow = 0;
+
+            if (isRowListWindowed()) {
+                lastRow = getRowList().size();
+            } else {
+                firstRow = getFirstRow();
+                lastRow = getLastRow();
+            }
 
             for (int i = 0; i < getColumnList().size(); i++) {
                 Column column = getColumnList().get(i);
@@ -515,7 +521,7 @@ public class FormTable extends Table {
                 int firstRow = 0;
                 int lastRow = 0;
 
-                if (getDataProvider() instanceof PagingDataProvider<?>) {
+                if (isRowListWindowed()) {
                     lastRow = getRowList().size();
                 } else {
                     firstRow = getFirstRow();
@@ -264,6 +264,10 @@ import java.util.StringTokenizer;
 public class Menu extends AbstractControl {
   private static final long serialVersionUID = 2419684128531155382L;
 
+  static {
+    ClickUtils.addRenderToString(Menu.class);// toString() only renders the menu
+  }
+
   /**
    * The menu configuration filename: &nbsp; "<tt>/WEB-INF/menu.xml</tt>".
    */
@@ -321,6 +325,12 @@ public class Menu extends AbstractControl {
   /** The tooltip title attribute. */
   protected String title;
 
+  /** The rendered HTML cache of a root menu created by {@link MenuFactory}. */
+  transient MenuRenderCache renderCache;
+
+  /** The number of changes to a root menu, which invalidate its rendered HTML. */
+  private transient volatile int renderVersion;
+
   // Constructors -----------------------------------------------------------
 
   /**
@@ -1083,6 +1093,7 @@ public class Menu extends AbstractControl {
   public Menu add(Menu menu) {
     getChildren().add(menu);
     menu.setParent(this);
+    invalidateRenderCache();
     return menu;
   }
 
@@ -1131,6 +1142,42 @@ public class Menu extends AbstractControl {
     return root;
   }
 
+  /**
+   * Invalidate the cached HTML of the root menu of this menu. Menus created
+   * by {@link MenuFactory} cache the HTML rendered by {@link #toString()};
+   * adding a submenu invalidates the cached HTML, other changes to a menu
+   * item which was already rendered must call this method.
+   */
+  public void invalidateRenderCache() {
+    Menu root = findRootMenu();
+    root.renderVersion++;
+  }
+
+  /**
+   * Return true if this menu item can be rendered from the HTML cache of
+   * its root menu. The cache is only used if all the menu items of the root
+   * menu can be cached.
+   * <p/>
+   * By default only instances of Menu itself can be cached: subclasses may
+   * override the rendering methods and render request specific content.
+   * Subclasses which render the same HTML for the same user roles, resource
+   * path and locale can override this method to return true.
+   *
+   * @return true if this menu item can be rendered from the HTML cache
+   */
+  protected boolean isRenderCacheable() {
+    return getClass() == Menu.class;
+  }
+
+  /**
+   * Return the number of changes to this root menu.
+   *
+   * @return the render version of this root menu
+   */
+  int getRenderVersion() {
+    return renderVersion;
+  }
+
   /**
    * Return true if this is the root menu, false otherwise.
    *
@@ -1167,6 +1214,9 @@ public class Menu extends AbstractControl {
    * <p/>
    * By having two render modes one can render the entire menu
    * automatically, or render each menu item manually using a Velocity macro.
+   * <p/>
+   * The HTML of a root menu created by {@link MenuFactory} is cached, see
+   * {@link #invalidateRenderCache()}.
    *
    * @see #toString()
    *
@@ -1176,7 +1226,11 @@ public class Menu extends AbstractControl {
   public void render(HtmlStringBuffer buffer) {
     if (isRoot()) {
 
-      renderRootMenu(buffer);
+      if (renderCache != null) {
+        renderCache.render(this, buffer);
+      } else {
+        renderRootMenu(buffer);
+      }
     } else {
 
       if (isSeparator()) {
@@ -15,9 +15,12 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import javax.servlet.ServletContext;
+import java.io.File;
 import java.io.InputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.net.URL;
+import java.net.URLConnection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -114,7 +117,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * <h3><a name="caching"></a>Caching</h3>
  * Loading Menus using {@link #getRootMenu()} will automatically cache the
  * menus for improved performance (technically the menus are only cached when
- * Click is in <tt>production</tt> or <tt>profile</tt> mode).
+ * Click is in <tt>production</tt> or <tt>profile</tt> mode). In
+ * <tt>development</tt> mode cached menus are reloaded when their configuration
+ * file changes.
+ * <p/>
+ * The HTML of cached menus is cached as well, by the menu roles of the user,
+ * the selected menu path and the locale. See
+ * {@link Menu#invalidateRenderCache()} when changing cached menus.
  * <p/>
  * If you want to manage Menu caching yourself, use one of the
  * {@link #getRootMenu(boolean) getRootMenu} methods that accepts a boolean
@@ -144,6 +153,9 @@ public class MenuFactory implements Serializable {
   /** The menu cache. */
   private static final Map<String, Menu> MENU_CACHE = new ConcurrentHashMap<>();
 
+  /** The last modified time of the menu files of menus cached in development mode. */
+  private static final Map<String, Long> MENU_MODIFIED = new ConcurrentHashMap<>();
+
   static {
     DEFAULT_ATTRIBUTES.add("name");
     DEFAULT_ATTRIBUTES.add("label");
@@ -252,7 +264,8 @@ public class MenuFactory implements Serializable {
    * @param fileName the fileName defining the menu definitions
    * @param accessController the menu access controller
    * @param cached return the cached menu if in production or profile mode,
-   * otherwise create and return a new root menu instance
+   * or in development mode if the menu file did not change, otherwise create
+   * and return a new root menu instance
    * @param menuClass the menu class to create new Menu instances from
    * @return the root menu item defined by the fileName under WEB-INF or the
    * classpath
@@ -263,11 +276,26 @@ public class MenuFactory implements Serializable {
       boolean cached,
       Class<? extends Menu> menuClass
   ){
+    ServletContext servletContext = Context.getThreadLocalContext().getServletContext();
+    ConfigService configService = ClickUtils.getConfigService(servletContext);
+    boolean productionMode = configService.isProductionMode() || configService.isProfileMode();
+
+    // In development mode the menu is only cached while the menu file is unchanged
+    long lastModified = cached && !productionMode ? getLastModified(fileName) : 0;
+
     if (cached) {
 
       Menu cachedMenu = retrieveRootMenu(name);
       if (cachedMenu != null) {
-        return cachedMenu;
+        if (productionMode) {
+          return cachedMenu;
+        }
+        Long cachedModified = MENU_MODIFIED.get(name);
+        if (lastModified != 0 && cachedModified != null && cachedModified == lastModified) {
+          return cachedMenu;
+        }
+        // menu file changed: drop the menus rendered from the old file
+        MenuRenderCache.invalidateAll();
       }
     }
 
@@ -277,14 +305,17 @@ public class MenuFactory implements Serializable {
     // menus from multiple threads. CLK-713
     rootMenu.getHeadElements();
 
-    ServletContext servletContext = Context.getThreadLocalContext().getServletContext();
-    ConfigService configService = ClickUtils.getConfigService(servletContext);
-
     if (cached) {
 
-      if (configService.isProductionMode() || configService.isProfileMode()) {
+      if (productionMode) {
         // Cache menu in production modes
+        rootMenu.renderCache = new MenuRenderCache();
+        cacheRootMenu(rootMenu);
+
+      } else if (lastModified != 0) {
+        rootMenu.renderCache = new MenuRenderCache();
         cacheRootMenu(rootMenu);
+        MENU_MODIFIED.put(name, lastModified);
       }
     }
 
@@ -493,6 +524,45 @@ public class MenuFactory implements Serializable {
     return menu;
   }
 
+  /**
+   * Return the last modified time of the given menu configuration file,
+   * resolved like {@link #loadFromMenuXml(String, String, AccessController, Class)
+   * loadFromMenuXml}, or 0 if the time is not known.
+   * <p/>
+   * In development mode cached menus are reloaded when the last modified time
+   * of their configuration file changes. If the time is not known the menus
+   * are not cached in development mode.
+   *
+   * @param fileName the configuration fileName defining the menu definitions
+   * @return the last modified time of the file or 0 if not known
+   */
+  protected long getLastModified (@NonNull String fileName){
+    try {
+      boolean absolute = fileName.startsWith("/");
+      String path = absolute ? fileName : '/'+ fileName;
+      ServletContext servletContext = Context.getThreadLocalContext().getServletContext();
+      URL url = servletContext.getResource(absolute ? path : "/WEB-INF"+ path);
+      if (url == null){
+        url = ClickUtils.getResource(path.substring(1), MenuFactory.class);
+      }
+      if (url == null){
+        return 0;
+      }
+      if ("file".equals(url.getProtocol())){
+        return new File(url.toURI()).lastModified();
+      }
+      URLConnection connection = url.openConnection();
+      connection.setUseCaches(false);
+      try {
+        return connection.getLastModified();
+      } finally {
+        connection.getInputStream().close();
+      }
+    } catch (Exception e){
+      return 0;
+    }
+  }
+
   /**
    * Return the map containing menus cached by name.
    *
@@ -0,0 +1,139 @@
+package org.apache.click.extras.control;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.click.Context;
+import org.apache.click.extras.security.AccessController;
+import org.apache.click.util.HtmlStringBuffer;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the rendered HTML cache of a root {@link Menu} created by
+ * {@link MenuFactory}.
+ * <p/>
+ * The rendered menu depends on the menu items the user may access, the
+ * selected menu item and the locale of the labels and titles. The HTML is
+ * therefore cached by the menu roles the user has (the distinct roles of all
+ * menu items are checked once with the {@link AccessController}, instead of
+ * once per menu item), the request resource path and the request locale.
+ * <p/>
+ * A menu is only rendered from the cache if all its items are
+ * {@link Menu#isRenderCacheable() cacheable} and share the same
+ * AccessController, and if the response does not rewrite URLs with the
+ * session id. Changes to the menu structure made with {@link Menu#add(Menu)}
+ * are detected; other changes to the items of a rendered menu must be
+ * followed by {@link Menu#invalidateRenderCache()}.
+ */
+final class MenuRenderCache {
+  /** The maximum number of cached menu renderings. */
+  static final int MAXIMUM_SIZE = 10_000;
+
+  /** The rendered menus. */
+  private static final Cache<Key,String> HTML = Caffeine.newBuilder()
+      .maximumSize(MAXIMUM_SIZE)
+      .expireAfterAccess(1, TimeUnit.HOURS)
+      .build();
+
+  /** The role list and cacheability of the current menu version. */
+  private volatile State state;
+
+  /**
+   * Render the root menu from the cache, rendering and caching it if not
+   * cached yet.
+   *
+   * @param root the root menu
+   * @param buffer the buffer to render to
+   */
+  void render (Menu root, HtmlStringBuffer buffer){
+    Context context = Context.getThreadLocalContext();
+    State current = getState(root);
+    if (!current.cacheable || isUrlRewritten(context)){
+      root.renderRootMenu(buffer);
+      return;
+    }
+    Key key = new Key(this, current.version, current.access(root.getAccessController(), context.getRequest()),
+        context.getResourcePath(), context.getLocale());
+    buffer.append(HTML.get(key, k->{
+      HtmlStringBuffer html = new HtmlStringBuffer(1024);
+      root.renderRootMenu(html);
+      return html.toString();
+    }));
+  }
+
+  /** Remove all cached menu renderings. */
+  static void invalidateAll (){
+    HTML.invalidateAll();
+  }
+
+  /** @return the number of cached menu renderings */
+  static long size (){
+    HTML.cleanUp();
+    return HTML.estimatedSize();
+  }
+
+  private State getState (Menu root){
+    State current = state;
+    int version = root.getRenderVersion();
+    if (current == null || current.version != version){
+      current = new State(root, version);
+      state = current;
+    }
+    return current;
+  }
+
+  /** Return true if the response adds the session id to URLs. */
+  private static boolean isUrlRewritten (Context context){
+    return !"/".equals(context.getResponse().encodeURL("/"));
+  }
+
+  /** The rendering cache key. The render cache identifies the root menu. */
+  record Key (MenuRenderCache menu, int version, BitSet access, String path, Locale locale) {}
+
+  /** The distinct roles of a menu version and whether it can be cached. */
+  static final class State {
+    final int version;
+    final String[] roles;
+    final boolean cacheable;
+
+    State (Menu root, int version){
+      this.version = version;
+      Set<String> roleSet = new LinkedHashSet<>();
+      AccessController accessController = root.getAccessController();
+      boolean allCacheable = accessController != null;
+      ArrayDeque<Menu> queue = new ArrayDeque<>();
+      queue.add(root);
+      Menu menu;
+      while ((menu = queue.poll()) != null){
+        allCacheable &= menu.isRenderCacheable() && menu.getAccessController() == accessController;
+        if (menu.hasRoles()){
+          roleSet.addAll(menu.getRoles());
+        }
+        if (menu.hasChildren()){
+          queue.addAll(menu.getChildren());
+        }
+      }
+      roles = roleSet.toArray(new String[0]);
+      cacheable = allCacheable;
+    }//new
+
+    /**
+     * Return the menu roles the user has: bit 0 is the access to menu items
+     * without roles, bit <tt>i + 1</tt> the access to <tt>roles[i]</tt>.
+     */
+    BitSet access (AccessController accessController, HttpServletRequest request){
+      BitSet access = new BitSet(roles.length + 1);
+      access.set(0, accessController.hasAccess(request, null));
+      for (int i = 0; i < roles.length; i++){
+        access.set(i + 1, accessController.hasAccess(request, roles[i]));
+      }
+      return access;
+    }
+  }//State
+}
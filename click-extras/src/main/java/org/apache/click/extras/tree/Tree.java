@@ -4,8 +4,10 @@ import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.apache.click.ActionEventDispatcher;
 import org.apache.click.ActionListener;
+import org.apache.click.ActionResult;
 import org.apache.click.Context;
 import org.apache.click.Control;
+import org.apache.click.ajax.DefaultAjaxBehavior;
 import org.apache.click.control.AbstractControl;
 import org.apache.click.control.ActionLink;
 import org.apache.click.control.Decorator;
@@ -22,11 +24,15 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -129,6 +135,17 @@ import java.util.StringTokenizer;
  * &lt;/body&gt;
  * &lt;/html&gt; </pre>
  *
+ * <a name="large-trees"></a>
+ * <h3>Large trees</h3>
+ *
+ * Nodes are looked up by id through an index of the loaded nodes, which is
+ * rebuilt when the tree structure changes. The children of a node can be
+ * loaded on demand with a {@link TreeNodeProvider}, so that only the visible
+ * part of a large tree is built. With JavaScript enabled the whole tree is
+ * rendered by default; enable {@link #setLazyRendering(boolean) lazy rendering}
+ * to only render the expanded nodes and fetch the children of a collapsed node
+ * with an Ajax request when it is expanded in the browser.
+ *
  * <a name="customization"></a>
  * <h3>Tree customization</h3>
  *
@@ -152,12 +169,19 @@ import java.util.StringTokenizer;
 public class Tree extends AbstractControl {
   @Serial private static final long serialVersionUID = 1L;
 
+  static {
+    ClickUtils.addRenderToString(Tree.class);// toString() only renders the tree
+  }
+
   /** The tree's expand/collapse parameter name: <tt>"expandTreeNode"</tt>. */
   public static final String EXPAND_TREE_NODE_PARAM = "expandTreeNode";
 
   /** The tree's select/deselect parameter name: <tt>"selectTreeNode"</tt>. */
   public static final String SELECT_TREE_NODE_PARAM = "selectTreeNode";
 
+  /** The tree's Ajax subtree parameter name: <tt>"subtreeNode"</tt>. */
+  public static final String SUBTREE_NODE_PARAM = "subtreeNode";
+
   /** Indicator for using cookies to implement client side behavior. */
   public final static int JAVASCRIPT_COOKIE_POLICY = 1;
 
@@ -211,6 +235,15 @@ public class Tree extends AbstractControl {
   /** Flag indicates if listeners should be notified of any state changes. */
   private boolean notifyListeners = true;
 
+  /** Specifies if collapsed nodes are fetched with Ajax when expanded. By default this value is false. */
+  private boolean lazyRendering = false;
+
+  /** The id to node index of the loaded nodes. */
+  private transient TreeNodeIndex nodeIndex;
+
+  /** The Ajax subtree URL prefix of the current rendering. */
+  private transient String subtreeHref;
+
   // Public Constructors ----------------------------------------------------
 
   /**
@@ -419,6 +452,42 @@ public class Tree extends AbstractControl {
     }
   }
 
+  /**
+   * Returns if the children of collapsed nodes are fetched with Ajax when the
+   * node is expanded in the browser.
+   *
+   * @return true if lazy rendering is enabled, false otherwise
+   * @see #setLazyRendering(boolean)
+   */
+  public boolean isLazyRendering() {
+    return lazyRendering;
+  }
+
+  /**
+   * Enables lazy rendering of a JavaScript enabled tree.
+   * <p/>
+   * By default a JavaScript enabled tree renders all its nodes, including the
+   * children of collapsed nodes. With lazy rendering only the children of
+   * expanded nodes are rendered. When a collapsed node is expanded in the
+   * browser, its children are fetched with an Ajax request (with the
+   * {@link #getId() tree id} and {@link #SUBTREE_NODE_PARAM} request
+   * parameters) and inserted into the page. Together with a
+   * {@link TreeNodeProvider} only the visible nodes of a large tree are loaded
+   * and rendered.
+   * <p/>
+   * Lazy rendering registers the tree as an Ajax target, so it must be enabled
+   * on every request, e.g. in the page constructor or <tt>onInit</tt> method.
+   *
+   * @param lazyRendering true to enable lazy rendering
+   */
+  public void setLazyRendering(boolean lazyRendering) {
+    this.lazyRendering = lazyRendering;
+    if (lazyRendering && (!hasBehaviors()
+        || getBehaviors().stream().noneMatch(SubtreeBehavior.class::isInstance))) {
+      addBehavior(new SubtreeBehavior());
+    }
+  }
+
   /**
    * Return the CSS "width" style attribute of the tree, or null if not
    * defined.
@@ -638,8 +707,7 @@ public class Tree extends AbstractControl {
    * notify listeners of any change.
    */
   public void expandAll() {
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       boolean oldValue = node.isExpanded();
       node.setExpanded(true);
       if (isNotifyListeners()) {
@@ -654,8 +722,7 @@ public class Tree extends AbstractControl {
    * notify listeners of any change.
    */
   public void collapseAll() {
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       boolean oldValue = node.isExpanded();
       node.setExpanded(false);
       if (isNotifyListeners()) {
@@ -726,8 +793,7 @@ public class Tree extends AbstractControl {
    * notify listeners of any change.
    */
   public void selectAll() {
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       boolean oldValue = node.isSelected();
       node.setSelected(true);
       if (isNotifyListeners()) {
@@ -742,8 +808,7 @@ public class Tree extends AbstractControl {
    * notify listeners of any change.
    */
   public void deselectAll() {
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       boolean oldValue = node.isSelected();
       node.setSelected(false);
       if (isNotifyListeners()) {
@@ -761,8 +826,7 @@ public class Tree extends AbstractControl {
    */
   public List<TreeNode> getExpandedNodes(boolean includeInvisibleNodes) {
     List<TreeNode> currentlyExpanded = new ArrayList<>();
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       if (node.isExpanded())  {
         if (includeInvisibleNodes || isVisible(node)) {
           currentlyExpanded.add(node);
@@ -780,8 +844,7 @@ public class Tree extends AbstractControl {
    */
   public List<TreeNode> getSelectedNodes(boolean includeInvisibleNodes) {
     List<TreeNode> currentlySelected = new ArrayList<>();
-    for (Iterator<TreeNode> it = iterator(); it.hasNext();) {
-      TreeNode node = it.next();
+    for (TreeNode node : getLoadedNodes()) {
       if (node.isSelected()) {
         if (includeInvisibleNodes || isVisible(node)) {
           currentlySelected.add(node);
@@ -829,6 +892,9 @@ public class Tree extends AbstractControl {
 
   /**
    * Finds and returns the first node that matches the id.
+   * <p/>
+   * The node is looked up in the index of the loaded nodes: children which
+   * are not loaded yet by their {@link TreeNodeProvider} are not found.
    *
    * @param id identifier of the node to find
    * @return TreeNode the first node matching the id.
@@ -838,7 +904,8 @@ public class Tree extends AbstractControl {
     if (id == null) {
       throw new IllegalArgumentException("Argument cannot be null.");
     }
-    return find(getRootNode(), id);
+    TreeNodeIndex index = getNodeIndex();
+    return index == null ? null : index.get(id);
   }
 
   /**
@@ -878,6 +945,9 @@ public class Tree extends AbstractControl {
     bindRequestValue();
 
     ActionEventDispatcher.dispatchActionEvent(this, (ActionListener) source->postProcess());
+    if (hasBehaviors()) {
+      ActionEventDispatcher.dispatchAjaxBehaviors(this);
+    }
     return true;
   }
 
@@ -959,6 +1029,7 @@ public class Tree extends AbstractControl {
    */
   @Override
   public void render(HtmlStringBuffer buffer) {
+    subtreeHref = null;
     buffer.elementStart("div");
     buffer.appendAttribute("id", getId());
 
@@ -1004,6 +1075,21 @@ public class Tree extends AbstractControl {
     return buffer.toString();
   }
 
+  /**
+   * Render the children of the specified tree node as they are inserted into
+   * the rendered tree by an Ajax subtree request.
+   *
+   * @see #setLazyRendering(boolean)
+   *
+   * @param buffer the specified buffer to render the subtree to
+   * @param treeNode the node which children are rendered
+   */
+  protected void renderSubtree(HtmlStringBuffer buffer, TreeNode treeNode) {
+    subtreeHref = null;
+    int indentation = treeNode.getLevel() + (isRootNodeDisplayed() ? 1 : 0);
+    renderTree(buffer, treeNode, indentation);
+  }
+
   /**
    * Render the children of the specified tree node as html markup and append
    * the output to the specified buffer.
@@ -1075,8 +1161,9 @@ public class Tree extends AbstractControl {
 
       //If javascript is enabled, the entire tree has to be rendered
       //and sent to the browser. So even if the node is not
-      //expanded, we still render the node's children.
-      return isJavascriptEnabled();
+      //expanded, we still render the node's children, unless they
+      //are fetched with Ajax when the node is expanded.
+      return isJavascriptEnabled() && !isLazyRendering();
     }
   }
 
@@ -1099,6 +1186,11 @@ public class Tree extends AbstractControl {
     if (isJavascriptEnabled()) {
       //hook to insert javascript specific code
       javascriptHandler.getJavascriptRenderer().renderTreeNodeStart(buffer);
+
+      //the children of a collapsed node are fetched when it is expanded
+      if (isLazyRendering() && treeNode.hasChildren() && !shouldRenderChildren(treeNode)) {
+        buffer.appendAttribute("data-subtree", getSubtreeHref(treeNode));
+      }
     }
     buffer.appendAttribute("style", "display:block;");
     buffer.closeTag();
@@ -1245,7 +1337,7 @@ public class Tree extends AbstractControl {
     StringBuilder sb = new StringBuilder();
     if (isExpandedParent(treeNode)) {
       sb.append("expanded");
-    } else if (treeNode.getChildren().size() > 0) {
+    } else if (treeNode.hasChildren()) {
       sb.append("collapsed");
     } else {
       sb.append("leaf");
@@ -1570,8 +1662,50 @@ public class Tree extends AbstractControl {
     return context.getResponse().encodeURL(buffer.toString());
   }
 
+  /**
+   * Return the Ajax request URL of the children of the specified node.
+   *
+   * @param treeNode the node which children are fetched
+   * @return the subtree URL
+   */
+  protected String getSubtreeHref(TreeNode treeNode) {
+    if (subtreeHref == null) {
+      Map<String, String> parameters = new LinkedHashMap<>();
+      parameters.put(getId(), "1");
+      subtreeHref = getHref(parameters) + "&amp;" + SUBTREE_NODE_PARAM + "=";
+    }
+    return subtreeHref + ClickUtils.encodeUrl(treeNode.getId(), Context.getThreadLocalContext());
+  }
+
   // Package Private Methods ------------------------------------------------
 
+  /**
+   * Return the index of the loaded nodes, rebuilding it if the root node or
+   * the tree structure changed.
+   *
+   * @return the node index or null if the tree has no root node
+   */
+  TreeNodeIndex getNodeIndex() {
+    TreeNode root = getRootNode();
+    if (root == null) {
+      return null;
+    }
+    if (nodeIndex == null || !nodeIndex.isCurrent(root)) {
+      nodeIndex = new TreeNodeIndex(root);
+    }
+    return nodeIndex;
+  }
+
+  /**
+   * Return the loaded nodes of the tree in breadth first order.
+   *
+   * @return the loaded nodes
+   */
+  List<TreeNode> getLoadedNodes() {
+    TreeNodeIndex index = getNodeIndex();
+    return index == null ? Collections.emptyList() : index.nodes();
+  }
+
   /**
    * Expand / collapse and select / deselect the tree nodes.
    *
@@ -1620,7 +1754,7 @@ public class Tree extends AbstractControl {
   static class BreadthTreeIterator implements Iterator<TreeNode> {
 
     /**queue for storing node's. */
-    private final List<TreeNode> queue = new ArrayList<>();
+    private final ArrayDeque<TreeNode> queue = new ArrayDeque<>();
 
     /** indicator to iterate collapsed node's. */
     private boolean iterateCollapsedNodes = true;
@@ -1663,29 +1797,15 @@ public class Tree extends AbstractControl {
      * @exception NoSuchElementException iteration has no more node.
      */
     @Override public TreeNode next() {
-      try {
-        //remove from the end of queue
-        TreeNode node = queue.remove(queue.size() - 1);
-        if (node.hasChildren()) {
-          if (iterateCollapsedNodes || node.isExpanded()) {
-            push(node.getChildren());
-          }
-        }
-        return node;
-      } catch (IndexOutOfBoundsException e) {
+      //remove from the head of queue
+      TreeNode node = queue.poll();
+      if (node == null) {
         throw new NoSuchElementException("There is  no more node's to iterate");
       }
-    }
-
-    /**
-     * Pushes the specified list of node's to push on the beginning of the queue.
-     *
-     * @param children list of node's to push on the beginning of the queue
-     */
-    private void push(List<TreeNode> children) {
-      for (TreeNode child : children) {
-        queue.add(0, child); //add to the beginning of queue
+      if ((iterateCollapsedNodes || node.isExpanded()) && node.hasChildren()) {
+        queue.addAll(node.getChildren()); //add to the tail of queue
       }
+      return node;
     }
   }//BreadthTreeIterator
 
@@ -2044,11 +2164,17 @@ public class Tree extends AbstractControl {
     /** Variable holding a javascript renderer. */
     protected JavascriptRenderer javascriptRenderer;
 
-    /** Tracker for the expanded node id's. */
-    private Set<String> expandTracker;
+    /**
+     * Tracker for the expanded nodes, by node index ordinal. The expanded
+     * state itself is kept by the tree nodes.
+     */
+    private BitSet expandTracker;
 
-    /** Tracker for the collapsed node id's. */
-    private Set<String> collapsedTracker;
+    /**
+     * Tracker for the collapsed nodes, by node index ordinal. The expanded
+     * state itself is kept by the tree nodes.
+     */
+    private BitSet collapsedTracker;
 
     /** Value of the cookie responsible for tracking the expanded node id's. */
     private String expandedNodeCookieValue;
@@ -2078,8 +2204,8 @@ public class Tree extends AbstractControl {
       if (expandTracker != null || collapsedTracker != null) {
         return;
       }
-      expandTracker = new HashSet<>();
-      collapsedTracker = new HashSet<>();
+      expandTracker = new BitSet();
+      collapsedTracker = new BitSet();
 
       if (context == null) {
         throw new IllegalArgumentException("context cannot be null");
@@ -2091,15 +2217,24 @@ public class Tree extends AbstractControl {
         return;
       }
 
-      //build hashes of id's for fast lookup
       Set<String> expandHash = asSet(expandedNodeCookieValue, DELIM);
       Set<String> collapsedHash = asSet(collapsedNodeCookieValue, DELIM);
+      loadExpandedChildren(expandHash);
+
+      //map the id's to node ordinals, which are in breadth first order
+      TreeNodeIndex index = getNodeIndex();
+      if (index == null) {
+        return;
+      }
+      BitSet expandBits = index.ordinals(expandHash);
+      BitSet changedBits = index.ordinals(collapsedHash);
+      changedBits.or(expandBits);
 
-      for (Iterator<TreeNode> it = iterator(getRootNode()); it.hasNext();) {
-        TreeNode currentNode = it.next();
+      for (int i = changedBits.nextSetBit(0); i >= 0; i = changedBits.nextSetBit(i + 1)) {
+        TreeNode currentNode = index.get(i);
 
         //If currentNode was expanded by user in browser
-        if (expandHash.contains(currentNode.getId())) {
+        if (expandBits.get(i)) {
 
           //If currentNode's state is collapsed
           if (!currentNode.isExpanded()) {
@@ -2111,9 +2246,9 @@ public class Tree extends AbstractControl {
             //expandTracker via a call to expand(currentNode), because
             //other listeners of the tree will receive the event as well.
             //Instead we update the expandTracker directly.
-            expandTracker.add(currentNode.getId());
+            expandTracker.set(i);
           }
-        } else if (collapsedHash.contains(currentNode.getId())) {
+        } else {
           //If currentNode was collapsed by user in browser
 
           if (currentNode.isExpanded()) {
@@ -2178,7 +2313,7 @@ public class Tree extends AbstractControl {
      * @param oldValue contains the previous value of expanded state
      */
     @Override public void nodeExpanded(Tree tree, TreeNode node, Context context, boolean oldValue) {
-      expandTracker.add(node.getId());
+      track(expandTracker, node, true);
     }
 
     /**
@@ -2192,7 +2327,7 @@ public class Tree extends AbstractControl {
      * @param oldValue contains the previous value of selected state
      */
     @Override public void nodeCollapsed(Tree tree, TreeNode node, Context context, boolean oldValue) {
-      expandTracker.remove(node.getId());
+      track(expandTracker, node, false);
     }
 
     /**
@@ -2272,6 +2407,47 @@ public class Tree extends AbstractControl {
       }
       return set;
     }
+
+    /**
+     * Load the children of the lazily loaded nodes which were expanded in the
+     * browser, so that their expanded descendants are found as well.
+     *
+     * @param ids the expanded node id's
+     */
+    private void loadExpandedChildren(Set<String> ids) {
+      int size;
+      do {
+        TreeNodeIndex index = getNodeIndex();
+        if (index == null) {
+          return;
+        }
+        size = index.size();
+        for (String id : ids) {
+          TreeNode node = index.get(id);
+          if (node != null && !node.isChildrenLoaded()) {
+            node.getChildren();
+          }
+        }
+      } while (getNodeIndex().size() != size);
+    }
+
+    /**
+     * Set or clear the ordinal of the specified node in the tracker.
+     *
+     * @param tracker the node tracker
+     * @param node the tracked node
+     * @param value the new tracker value
+     */
+    private void track(BitSet tracker, TreeNode node, boolean value) {
+      TreeNodeIndex index = getNodeIndex();
+      if (tracker == null || index == null) {
+        return;
+      }
+      int ordinal = index.ordinal(node.getId());
+      if (ordinal >= 0) {
+        tracker.set(ordinal, value);
+      }
+    }
   }
 
   /**
@@ -2601,6 +2777,46 @@ public class Tree extends AbstractControl {
     }
   }
 
+  /**
+   * Renders the children of a collapsed node for an Ajax subtree request of
+   * a lazily rendered tree.
+   *
+   * @see #setLazyRendering(boolean)
+   */
+  protected class SubtreeBehavior extends DefaultAjaxBehavior {
+
+    /**
+     * Return true if the request has the {@link #SUBTREE_NODE_PARAM}
+     * parameter.
+     *
+     * @param context the request context
+     * @return true if the request is an Ajax subtree request
+     */
+    @Override public boolean isAjaxTarget(Context context) {
+      return context.hasRequestParameter(SUBTREE_NODE_PARAM);
+    }
+
+    /**
+     * Render the children of the requested node as HTML.
+     *
+     * @param source the tree
+     * @return the rendered subtree, empty if the node is not found
+     */
+    @Override public ActionResult onAction(Control source) {
+      //action events are not fired for Ajax requests: apply the request state
+      postProcess();
+
+      String id = Context.getThreadLocalContext().getRequestParameter(SUBTREE_NODE_PARAM);
+      TreeNode node = id == null ? null : find(id);
+      if (node == null || !node.hasChildren()) {
+        return new ActionResult("", ActionResult.HTML);
+      }
+      HtmlStringBuffer buffer = new HtmlStringBuffer(getControlSizeEst());
+      renderSubtree(buffer, node);
+      return new ActionResult(buffer.toString(), ActionResult.HTML);
+    }
+  }//SubtreeBehavior
+
   /**
    * Holds information about a selected node's path entry. Each entry corresponds
    * to a specific tree node. The node's id and corresponding entry is stored in a
@@ -36,6 +36,9 @@ import java.util.concurrent.ThreadLocalRandom;
  * the constructors. Id's are generated by an instance of {@link java.util.Random}.
  * The current implementation generates a Long using random.nextLong(). This
  * means a total of 2 <sup>64</sup> numbers can be generated.
+ * <p/>
+ * The children of a node can be loaded on demand by a {@link TreeNodeProvider},
+ * see {@link #setChildProvider(TreeNodeProvider)}.
  */
 public class TreeNode implements Serializable {
   private static final long serialVersionUID = -5820771127721699500L;
@@ -57,6 +60,15 @@ public class TreeNode implements Serializable {
   /** User provided value of this node. */
   private Object value;
 
+  /** Loads the children of this node on demand. */
+  private TreeNodeProvider childProvider;
+
+  /** Indicates if the children of this node were loaded by the child provider. */
+  private boolean childrenLoaded = true;
+
+  /** The number of structure changes of the tree, maintained by the root node. */
+  private transient int structureVersion;
+
   /** Specifies the depth of this tree. */
   private int treeDepth = -1;
 
@@ -176,6 +188,7 @@ public class TreeNode implements Serializable {
    */
   public void setParent(TreeNode parent) {
     this.parent = parent;
+    structureChanged();
   }
 
   /**
@@ -202,7 +215,10 @@ public class TreeNode implements Serializable {
    * @return true if this node is a leaf node, false otherwise.
    */
   public boolean isLeaf() {
-    return getChildren().isEmpty();
+    if (!childrenLoaded) {
+      return !childProvider.hasChildren(this);
+    }
+    return getLoadedChildren().isEmpty();
   }
 
   /**
@@ -224,9 +240,10 @@ public class TreeNode implements Serializable {
     if (this.childrenSupported != childrenSupported) {
       this.childrenSupported = childrenSupported;
       if (!childrenSupported) {
-        for (TreeNode child : getChildren()) {
+        for (TreeNode child : new ArrayList<>(getLoadedChildren())) {
           remove(child);
         }
+        childrenLoaded = true;
       }
     }
   }
@@ -247,14 +264,52 @@ public class TreeNode implements Serializable {
    */
   public void setId(String id) {
     this.id = id;
+    structureChanged();
   }
 
   /**
-   * Returns a unmodifiable list of this nodes children.
+   * Return the provider which loads the children of this node on demand, or
+   * null if the children are added explicitly.
+   *
+   * @return the child provider of this node
+   */
+  public TreeNodeProvider getChildProvider() {
+    return childProvider;
+  }
+
+  /**
+   * Set the provider which loads the children of this node the first time
+   * they are requested, e.g. by {@link #getChildren()}. Children that are
+   * already added are kept.
+   *
+   * @param childProvider the child provider of this node or null
+   */
+  public void setChildProvider(TreeNodeProvider childProvider) {
+    this.childProvider = childProvider;
+    childrenLoaded = childProvider == null || !isChildrenSupported();
+  }
+
+  /**
+   * Returns true if the children of this node are loaded: the node has no
+   * child provider or the provider loaded the children.
+   *
+   * @return true if the children of this node are loaded
+   */
+  public boolean isChildrenLoaded() {
+    return childrenLoaded;
+  }
+
+  /**
+   * Returns a unmodifiable list of this nodes children. If this node has a
+   * {@link #setChildProvider(TreeNodeProvider) child provider} the children
+   * are loaded first.
    *
    * @return the unmodifiable list of children.
    */
   public List<TreeNode> getChildren() {
+    if (!childrenLoaded) {
+      loadChildren();
+    }
     if (children == null) {
       return Collections.emptyList();
     }
@@ -383,6 +438,7 @@ public class TreeNode implements Serializable {
       return;
     }
     getMutableChildren().add(index, child);
+    structureChanged();
   }
 
   /**
@@ -400,6 +456,7 @@ public class TreeNode implements Serializable {
       children = new ArrayList<>();
     }
     getMutableChildren().remove(child);
+    structureChanged();
     child.setParent(null);
   }
 
@@ -583,6 +640,26 @@ public class TreeNode implements Serializable {
     this.expanded = expanded;
   }
 
+  /**
+   * Returns the children of this node without loading them.
+   *
+   * @return the loaded children of this node
+   */
+  List<TreeNode> getLoadedChildren() {
+    return children == null ? Collections.emptyList() : children;
+  }
+
+  /**
+   * Returns the number of structure changes of the tree of this node, if this
+   * node is the root node. Any node added, removed or moved or a node id
+   * change increments the structure version of the root.
+   *
+   * @return the structure version of the tree
+   */
+  int getStructureVersion() {
+    return structureVersion;
+  }
+
   // Private Behavior -------------------------------------------------------
 
   /**
@@ -594,6 +671,31 @@ public class TreeNode implements Serializable {
     return children;
   }
 
+  /**
+   * Load the children of this node with the child provider. Children without
+   * a provider inherit the provider of this node.
+   */
+  private void loadChildren() {
+    childrenLoaded = true;
+    for (TreeNode child : childProvider.loadChildren(this)) {
+      if (child.getChildProvider() == null && child.isChildrenSupported()) {
+        child.setChildProvider(childProvider);
+      }
+      add(child);
+    }
+  }
+
+  /**
+   * Increments the structure version of the root of this node.
+   */
+  private void structureChanged() {
+    TreeNode root = this;
+    while (root.parent != null) {
+      root = root.parent;
+    }
+    root.structureVersion++;
+  }
+
   /**
    * Checks if the specified node is the last child of this node. If this
    * node does not have any children, this method returns false.
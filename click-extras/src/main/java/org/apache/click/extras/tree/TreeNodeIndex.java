@@ -0,0 +1,122 @@
+package org.apache.click.extras.tree;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the id to node index of a {@link Tree}.
+ * <p/>
+ * The index holds the loaded nodes of a tree in breadth first order (the
+ * order of {@link Tree#iterator()}), their position is the node ordinal used
+ * for compact {@link BitSet} node state. Children which were not loaded yet by
+ * their {@link TreeNodeProvider} are not indexed.
+ * <p/>
+ * An index is valid as long as the structure of the tree does not change, see
+ * {@link #isCurrent(TreeNode)}.
+ */
+final class TreeNodeIndex {
+  private final TreeNode root;
+  private final int version;
+  private final TreeNode[] nodes;
+  private final Map<String,Integer> ordinals;
+
+  /**
+   * Index the loaded nodes of the given root.
+   *
+   * @param root the root node
+   */
+  TreeNodeIndex (TreeNode root){
+    this.root = root;
+    this.version = root.getStructureVersion();
+    ordinals = new HashMap<>();
+    ArrayDeque<TreeNode> queue = new ArrayDeque<>();
+    queue.add(root);
+    TreeNode[] list = new TreeNode[16];
+    int size = 0;
+    TreeNode node;
+    while ((node = queue.poll()) != null){
+      ordinals.putIfAbsent(node.getId(), size);
+      if (size == list.length){
+        System.arraycopy(list, 0, list = new TreeNode[size * 2], 0, size);
+      }
+      list[size++] = node;
+      queue.addAll(node.getLoadedChildren());
+    }
+    nodes = new TreeNode[size];
+    System.arraycopy(list, 0, nodes, 0, size);
+  }//new
+
+  /**
+   * Return true if the index is valid for the given root: the root is the
+   * indexed root and the tree structure did not change since indexing.
+   *
+   * @param root the current root node
+   * @return true if the index is valid
+   */
+  boolean isCurrent (TreeNode root){
+    return this.root == root && version == root.getStructureVersion();
+  }
+
+  /** @return the number of indexed nodes */
+  int size (){
+    return nodes.length;
+  }
+
+  /**
+   * @param ordinal the node ordinal
+   * @return the node with the given ordinal
+   */
+  TreeNode get (int ordinal){
+    return nodes[ordinal];
+  }
+
+  /**
+   * Return the first node in breadth first order with the given id.
+   *
+   * @param id the node id
+   * @return the node or null if no loaded node has the id
+   */
+  @Nullable TreeNode get (String id){
+    Integer ordinal = ordinals.get(id);
+    return ordinal == null ? null : nodes[ordinal];
+  }
+
+  /**
+   * @param id the node id
+   * @return the ordinal of the node with the given id or -1
+   */
+  int ordinal (String id){
+    Integer ordinal = ordinals.get(id);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Return the ordinals of the nodes with the given ids. Unknown ids are
+   * ignored.
+   *
+   * @param ids the node ids
+   * @return the node ordinals
+   */
+  BitSet ordinals (Collection<String> ids){
+    BitSet bits = new BitSet(nodes.length);
+    for (String id : ids){
+      int ordinal = ordinal(id);
+      if (ordinal >= 0){
+        bits.set(ordinal);
+      }
+    }
+    return bits;
+  }
+
+  /** @return the indexed nodes in breadth first order */
+  List<TreeNode> nodes (){
+    return Collections.unmodifiableList(Arrays.asList(nodes));
+  }
+}
@@ -0,0 +1,54 @@
+package org.apache.click.extras.tree;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Provides the children of a {@link TreeNode} on demand.
+ * <p/>
+ * A node with a child provider loads its children the first time they are
+ * needed, e.g. when the node is expanded and rendered. Large trees can thus
+ * be built from their root and the visible nodes only:
+ *
+ * <pre class="prettyprint">
+ * TreeNode root = new TreeNode("Categories", "0");
+ * root.setChildProvider(parent -&gt; {
+ *     List&lt;TreeNode&gt; children = new ArrayList&lt;&gt;();
+ *     for (Category category : getCategoryService().getChildren(parent.getId())) {
+ *         children.add(new TreeNode(category.getName(), category.getId().toString(),
+ *             category.hasChildren()));
+ *     }
+ *     return children;
+ * });
+ * tree.setRootNode(root); </pre>
+ *
+ * Loaded children which support children and have no provider of their own
+ * inherit the provider of their parent.
+ *
+ * @see TreeNode#setChildProvider(TreeNodeProvider)
+ * @see Tree#setLazyRendering(boolean)
+ */
+@FunctionalInterface
+public interface TreeNodeProvider extends Serializable {
+
+  /**
+   * Return the children of the given node.
+   *
+   * @param parent the node which children are loaded
+   * @return the children of the node, never null
+   */
+  List<TreeNode> loadChildren (TreeNode parent);
+
+  /**
+   * Return true if the given node, which children are not loaded yet, has
+   * children. This method is used to render the expand / collapse icon of a
+   * node without loading its children. By default every node is assumed to
+   * have children.
+   *
+   * @param parent the node which children are not loaded yet
+   * @return true if the node has children
+   */
+  default boolean hasChildren (TreeNode parent){
+    return true;
+  }
+}
@@ -114,6 +114,25 @@ function handleNodeExpansion(objectArg, event, expandId, iconId) {
         return;
     }
 
+    //the children of a lazily rendered node are fetched when it is first
+    //expanded. The node state is swapped right away (the cookie handler
+    //reads it), the children are shown once they are inserted.
+    var subtreeUrl = span.getAttribute("data-subtree");
+    if(subtreeUrl && !isClassExpanded(span)) {
+        span.removeAttribute("data-subtree");
+        toggleNodeExpansion(span, iconId);
+        loadSubtree(span, subtreeUrl, function() {
+            handleChildMenuIfExists(span, isClassExpanded(span) ? 1 : 0);
+        });
+        return;
+    }
+    toggleNodeExpansion(span, iconId);
+}
+
+/*
+ * Swaps the expand/collapse state of the node.
+ */
+function toggleNodeExpansion(span, iconId) {
     var index = isClassExpanded(span) ? 0 : 1;
 
     var newClassName = expansionArray[1 - index];
@@ -133,6 +152,28 @@ function handleNodeExpansion(objectArg, event, expandId, iconId) {
     handleChildMenuIfExists(span, index);
 }
 
+/*
+ * Fetches the rendered children of a lazily rendered node and appends them
+ * to the node. The callback is invoked once the children are inserted.
+ */
+function loadSubtree(span, url, callback) {
+    var request = new XMLHttpRequest();
+    request.open("GET", url, true);
+    request.setRequestHeader("X-Requested-With", "XMLHttpRequest");
+    request.onreadystatechange = function() {
+        if(request.readyState !== 4) {
+            return;
+        }
+        if(request.status === 200) {
+            span.insertAdjacentHTML("beforeend", request.responseText);
+            callback();
+        } else {
+            span.setAttribute("data-subtree", url);
+        }
+    };
+    request.send(null);
+}
+
 /*
  * Hides or displays the <ul> element
  */
@@ -19,12 +19,16 @@
 package org.apache.click.extras.control;
 
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import junit.framework.TestCase;
 
 import org.apache.click.MockContext;
 import org.apache.click.Page;
 import org.apache.click.control.Form;
+import org.apache.click.control.TextField;
+import org.apache.click.dataprovider.StreamingDataProvider;
 import org.apache.click.element.Element;
 import org.apache.click.util.PageImports;
 
@@ -68,4 +72,60 @@ public class FormTableTest extends TestCase {
         assertTrue(headElements.get(1).toString().contains("/table.css"));
         assertTrue(jsElements.get(0).toString().contains("/control.js"));
     }
+
+    /**
+     * Check that a streaming FormTable processes the rows of a page past the
+     * first one, as the row list only holds the current page.
+     */
+    public void testStreamingDataProviderPaging() {
+        MockContext context = MockContext.initContext();
+        context.getMockRequest().setParameter(Form.FORM_NAME, "table_form");
+        context.getMockRequest().setParameter(FormTable.PAGE, "2");
+        context.getMockRequest().setParameter("name_0", "changed");
+        context.getMockRequest().setParameter("name_9", "changed too");
+
+        FormTable table = new FormTable("table");
+        table.setDataProvider(new StreamingDataProvider<Row>() {
+            public Stream<Row> stream() {
+                return IntStream.range(0, 100).mapToObj(i -> new Row("row" + i));
+            }
+        });
+        table.setPageSize(10);
+        table.addColumn(new FieldColumn("name", new TextField()));
+
+        assertTrue(table.onProcess());
+        assertEquals(2, table.getPageNumber());
+        assertTrue(table.isRowListWindowed());
+        assertEquals(10, table.getRowList().size());
+        assertEquals(100, table.getRowCount());
+        assertEquals("changed", ((Row) table.getRowList().get(0)).getName());
+        assertEquals("row21", ((Row) table.getRowList().get(1)).getName());
+        assertEquals("changed too", ((Row) table.getRowList().get(9)).getName());
+
+        table.getHeadElements();
+        String html = table.toString();
+        assertTrue(html.contains("name=\"name_0\""));
+        assertTrue(html.contains("value=\"changed\""));
+        assertFalse(html.contains("name_10"));
+    }
+
+    /**
+     * Mutable row bean edited by the FormTable field columns.
+     */
+    public static class Row {
+
+        private String name;
+
+        public Row(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
 }
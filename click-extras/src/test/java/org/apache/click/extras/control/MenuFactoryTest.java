@@ -2,6 +2,7 @@ package org.apache.click.extras.control;
 
 import junit.framework.TestCase;
 import org.apache.click.MockContext;
+import org.apache.click.servlet.MockPrincipal;
 
 import java.util.Map;
 
@@ -69,4 +70,45 @@ public class MenuFactoryTest extends TestCase {
     // getRootMenu calls
     assertNotSame(rootMenu, menuFactory.getRootMenu(false));
   }
-}
\ No newline at end of file
+
+  /**
+   * Check that cached menus are rendered from the render cache, by path and
+   * user roles.
+   */
+  public void testMenuRenderCache() {
+    MockContext context = MockContext.initContext(Map.of("mode", "profile"));
+
+    MenuFactory menuFactory = new MenuFactory();
+    Menu rootMenu = menuFactory.getRootMenu("renderCacheMenu", "menu.xml");
+
+    long size = MenuRenderCache.size();
+    String html = rootMenu.toString();
+    assertEquals(size + 1, MenuRenderCache.size());
+    assertEquals(html, rootMenu.toString());
+    assertEquals(size + 1, MenuRenderCache.size());
+
+    // Adding a menu invalidates the rendered menu
+    Menu adminMenu = new Menu("admin");
+    adminMenu.setLabel("Admin Page");
+    adminMenu.setPath("admin.htm");
+    adminMenu.setAccessController(rootMenu.getAccessController());
+    adminMenu.getRoles().add("admin");
+    rootMenu.add(adminMenu);
+    assertFalse(rootMenu.toString().contains("Admin Page"));
+
+    // The menu is rendered by user roles
+    context.getMockRequest().setUserPrincipal(new MockPrincipal("bob", "admin"));
+    assertTrue(rootMenu.toString().contains("Admin Page"));
+
+    // Subclasses are not rendered from the cache
+    Menu myMenu = menuFactory.getRootMenu("renderCacheMyMenu", "menu.xml",
+        rootMenu.getAccessController(), true, MyMenu.class);
+    size = MenuRenderCache.size();
+    assertTrue(myMenu.toString().contains("Hello World"));
+    assertEquals(size, MenuRenderCache.size());
+  }
+
+  public static class MyMenu extends Menu {
+    private static final long serialVersionUID = 1L;
+  }
+}
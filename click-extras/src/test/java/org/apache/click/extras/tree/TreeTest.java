@@ -19,8 +19,15 @@
 package org.apache.click.extras.tree;
 
 import junit.framework.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import org.apache.click.ActionEventDispatcher;
+import org.apache.click.ActionResult;
+import org.apache.click.Behavior;
 import org.apache.click.MockContext;
+import org.apache.click.ajax.DefaultAjaxBehavior;
 import org.apache.click.control.ActionLink;
 import org.apache.click.servlet.MockRequest;
 
@@ -121,6 +128,133 @@ public class TreeTest extends TestCase {
         assertTrue("Expected 4. Found " + result.size(), result.size() == 4);
     }
 
+    /**
+     * Test that find uses an index which follows changes of the tree structure.
+     */
+    public void testFindAfterStructureChange() {
+        assertEquals("3.1.2", tree.find("3.1.2").getId());
+        assertNull(tree.find("4.3"));
+
+        TreeNode node43 = new TreeNode("4.3", "4.3");
+        tree.find("four").add(node43);
+        assertSame(node43, tree.find("4.3"));
+
+        TreeNode node31 = tree.find("3.1");
+        tree.find("three").remove(node31);
+        assertNull(tree.find("3.1"));
+        assertNull(tree.find("3.1.1"));
+
+        node43.setId("4.4");
+        assertNull(tree.find("4.3"));
+        assertSame(node43, tree.find("4.4"));
+    }
+
+    /**
+     * Test that the iterator returns the nodes in breadth first order.
+     */
+    public void testIteratorOrder() {
+        List<String> ids = new ArrayList<String>();
+        for (Iterator<TreeNode> it = tree.iterator(); it.hasNext();) {
+            ids.add(it.next().getId());
+        }
+        assertEquals(Arrays.asList("root", "one", "three", "four", "1.1", "1.2", "2.1",
+            "3.1", "3.2", "3.3", "4.1", "3.1.1", "3.1.2", "3.1.3", "4.1.1", "4.2.1"), ids);
+    }
+
+    /**
+     * Test that the children of a node with a child provider are loaded on demand.
+     */
+    public void testChildProvider() {
+        final List<String> loaded = new ArrayList<String>();
+        TreeNode root = new TreeNode("root", "root");
+        root.setChildProvider(new TreeNodeProvider() {
+            public List<TreeNode> loadChildren(TreeNode parent) {
+                loaded.add(parent.getId());
+                List<TreeNode> children = new ArrayList<TreeNode>();
+                if (parent.getLevel() < 2) {
+                    children.add(new TreeNode("a", parent.getId() + ".a"));
+                    children.add(new TreeNode("b", parent.getId() + ".b"));
+                }
+                return children;
+            }
+        });
+        Tree lazyTree = createTree();
+        lazyTree.setRootNode(root);
+
+        assertFalse(root.isChildrenLoaded());
+        assertTrue(root.hasChildren());
+        assertEquals(0, loaded.size());
+        assertNull(lazyTree.find("root.a"));
+
+        assertEquals(2, root.getChildren().size());
+        assertEquals(Arrays.asList("root"), loaded);
+        TreeNode a = lazyTree.find("root.a");
+        assertNotNull(a);
+        assertSame(root, a.getParent());
+        assertFalse(a.isChildrenLoaded());
+        assertNull(lazyTree.find("root.a.a"));
+
+        lazyTree.expandAll();
+        assertEquals("only the loaded nodes are expanded", 1, loaded.size());
+
+        assertNotNull(lazyTree.find("root.a").getChildren().get(0));
+        assertNotNull(lazyTree.find("root.a.b"));
+        assertTrue(lazyTree.find("root.a.b").getChildren().isEmpty());
+        assertTrue(lazyTree.find("root.a.b").isLeaf());
+        assertEquals(Arrays.asList("root", "root.a", "root.a.b"), loaded);
+    }
+
+    /**
+     * Test that a lazily rendered tree renders the expanded nodes only and
+     * renders the children of a collapsed node for an Ajax subtree request.
+     */
+    public void testLazyRendering() {
+        tree.setJavascriptEnabled(true, Tree.JAVASCRIPT_COOKIE_POLICY);
+        tree.setLazyRendering(true);
+
+        String html = tree.toString();
+        assertTrue(html.contains(">one<"));
+        assertFalse("children of collapsed nodes are not rendered", html.contains(">1.1<"));
+        assertTrue(html.contains("data-subtree=\""));
+        assertTrue(html.contains(Tree.SUBTREE_NODE_PARAM + "=three"));
+
+        MockRequest mockRequest = mockContext.getMockRequest();
+        mockRequest.setHeader("X-Requested-With", "XMLHttpRequest");
+        mockRequest.setParameter(tree.getId(), "1");
+        mockRequest.setParameter(Tree.SUBTREE_NODE_PARAM, "three");
+        assertTrue(tree.isAjaxTarget(mockContext));
+
+        tree.onProcess();
+        mockContext.executeBehaviors();
+        ActionResult result = ActionEventDispatcher.getThreadLocalDispatcher().getActionResult();
+        assertNotNull(result);
+        String subtree = result.getContent();
+        assertTrue(subtree, subtree.startsWith("<ul class=\"level2"));
+        assertTrue(subtree.contains(">3.1<"));
+        assertTrue(subtree.contains(">3.3<"));
+        assertFalse(subtree.contains(">3.1.1<"));
+        assertTrue(subtree.contains(Tree.SUBTREE_NODE_PARAM + "=3.1"));
+    }
+
+    /**
+     * Test that lazy rendering adds one subtree behavior, also when the tree
+     * already has another behavior.
+     */
+    public void testLazyRenderingBehavior() {
+        tree.addBehavior(new DefaultAjaxBehavior());
+        tree.setLazyRendering(true);
+        tree.setLazyRendering(true);
+
+        int subtreeBehaviors = 0;
+        for (Behavior behavior : tree.getBehaviors()) {
+            if (behavior instanceof Tree.SubtreeBehavior) {
+                subtreeBehaviors++;
+            }
+        }
+        assertEquals(1, subtreeBehaviors);
+        assertEquals(2, tree.getBehaviors().size());
+    }
+
     // ------------------------------------------------------ Protected Methods
 
     protected Tree createTree() {
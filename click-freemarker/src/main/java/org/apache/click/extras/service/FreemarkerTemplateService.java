@@ -6,7 +6,6 @@ import freemarker.cache.TemplateLoader;
 import freemarker.cache.WebappTemplateLoader;
 import freemarker.log.Logger;
 import freemarker.template.Configuration;
-import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateExceptionHandler;
 import lombok.Getter;
@@ -165,8 +164,8 @@ public class FreemarkerTemplateService implements TemplateService {
     // Set an error handler that prints errors, so they are readable with an HTML browser
     configuration.setTemplateExceptionHandler(TemplateExceptionHandler.HTML_DEBUG_HANDLER);
 
-    // Use beans wrapper (recommended for most applications)
-    configuration.setObjectWrapper(ObjectWrapper.BEANS_WRAPPER);
+    // Use beans wrapper (recommended for most applications), rendering ${form}, ${table}... directly to the template writer
+    configuration.setObjectWrapper(new RenderableBeansWrapper());
 
     String charset = configService.getCharset();
     if (charset != null){
@@ -84,8 +84,8 @@ public class FreemarkerTemplateServiceSpring extends FreemarkerTemplateService {
     // Set an error handler that prints errors so they are readable with an HTML browser.
     configuration.setTemplateExceptionHandler(TemplateExceptionHandler.HTML_DEBUG_HANDLER);
 
-    // Use beans wrapper (recommended for most applications)
-    configuration.setObjectWrapper(ObjectWrapper.BEANS_WRAPPER);
+    // Use beans wrapper (recommended for most applications), rendering ${form}, ${table}... directly to the template writer
+    configuration.setObjectWrapper(new RenderableBeansWrapper());
 
     configuration.setDefaultEncoding("UTF-8");
 
@@ -0,0 +1,172 @@
+package org.apache.click.extras.service;
+
+import freemarker.core.Environment;
+import freemarker.core.MarkupOutputFormat;
+import freemarker.core.TemplateMarkupOutputModel;
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.ext.beans.StringModel;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import org.apache.click.control.Renderable;
+import org.apache.click.util.ClickUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Provides a FreeMarker BeansWrapper which renders Click controls directly to
+ * the template writer.
+ * <p/>
+ * FreeMarker writes an interpolation such as <tt>${form}</tt> or
+ * <tt>${table}</tt> with the control <tt>toString()</tt> value, which renders
+ * the control into a buffer, copies it into a String and then into the
+ * writer. This wrapper wraps the controls and {@link Renderable}s which
+ * {@link ClickUtils#canRenderTo(Object) can be streamed} as markup output
+ * values, which FreeMarker writes with their output format, so the control
+ * markup is streamed by {@link ClickUtils#renderTo(Object, Writer)}. Other
+ * controls, e.g. Label, are wrapped as before. The wrapped controls keep their
+ * bean properties, e.g. <tt>${form.fields.name}</tt>.
+ * <p/>
+ * As with the FreeMarker <tt>HTML</tt> output format, the legacy escaping
+ * built-ins <tt>?html</tt>, <tt>?xhtml</tt> and <tt>?xml</tt>, e.g. in an
+ * <tt>&lt;#escape x as x?html&gt;</tt> block, leave the streamed controls
+ * markup as is. Use <tt>${form.toString()?html}</tt> to escape it.
+ * <p/>
+ * Controls are only streamed in templates which output format allows mixing
+ * output formats, such as the default undefined output format of
+ * {@link FreemarkerTemplateService}. In templates with an escaping output
+ * format, e.g. <tt>HTML</tt>, controls are wrapped as before, so
+ * <tt>${form?no_esc}</tt> is unchanged.
+ */
+public class RenderableBeansWrapper extends BeansWrapper {
+
+  /** The output format of the streamed controls. */
+  private final RenderableOutputFormat outputFormat = new RenderableOutputFormat(this);
+
+  /**
+   * Create a new wrapper, configured as <tt>ObjectWrapper.BEANS_WRAPPER</tt>.
+   */
+  public RenderableBeansWrapper (){
+    super(Configuration.VERSION_2_3_0);
+  }//new
+
+  /**
+   * Wrap the streamable controls and renderables as markup output values,
+   * other objects as <tt>BeansWrapper</tt> does.
+   *
+   * @param object the object to wrap
+   * @return the template model of the object
+   * @throws TemplateModelException if the object can't be wrapped
+   */
+  @Override
+  public TemplateModel wrap (Object object) throws TemplateModelException {
+    if (ClickUtils.canRenderTo(object) && isStreamable()){
+      return new RenderableModel(object, this);
+    }
+    return super.wrap(object);
+  }
+
+  /** Return true if the current template output format lets streamed controls be written as is. */
+  private static boolean isStreamable (){
+    Environment env = Environment.getCurrentEnvironment();
+    if (env == null){
+      return false;
+    }
+    Template template = env.getCurrentTemplate();
+    return template != null && template.getOutputFormat().isOutputFormatMixingAllowed();
+  }
+
+  /**
+   * A control or markup string, written by its output format. Markup strings
+   * result from the concatenation of controls with strings, e.g.
+   * <tt>"&lt;p&gt;${form}&lt;/p&gt;"</tt>.
+   */
+  public static final class RenderableModel extends StringModel implements TemplateMarkupOutputModel<RenderableModel> {
+    private final RenderableOutputFormat outputFormat;
+
+    RenderableModel (Object object, RenderableBeansWrapper wrapper){
+      super(object, wrapper);
+      this.outputFormat = wrapper.outputFormat;
+    }//new
+
+    @Override
+    public MarkupOutputFormat<RenderableModel> getOutputFormat (){
+      return outputFormat;
+    }
+  }//RenderableModel
+
+  /**
+   * The raw markup output format of the streamed controls: like the templates
+   * it is used in, it does not escape text.
+   */
+  static final class RenderableOutputFormat extends MarkupOutputFormat<RenderableModel> {
+    private final RenderableBeansWrapper wrapper;
+
+    RenderableOutputFormat (RenderableBeansWrapper wrapper){
+      this.wrapper = wrapper;
+    }//new
+
+    @Override public String getName (){ return "ClickRenderable";}
+
+    @Override public String getMimeType (){ return "text/html";}
+
+    @Override public boolean isOutputFormatMixingAllowed (){ return true;}
+
+    @Override public boolean isAutoEscapedByDefault (){ return false;}
+
+    /** The legacy escaping built-ins leave markup as is, e.g. <tt>${form?html}</tt>, as in the HTML output format. */
+    @Override public boolean isLegacyBuiltInBypassed (String builtInName){
+      return "html".equals(builtInName) || "xhtml".equals(builtInName) || "xml".equals(builtInName);
+    }
+
+    @Override
+    public void output (RenderableModel mo, Writer out) throws IOException {
+      Object value = mo.getWrappedObject();
+      if (!ClickUtils.renderTo(value, out)){
+        out.write(value.toString());
+      }
+    }
+
+    @Override
+    public void output (String textToEsc, Writer out) throws IOException {
+      out.write(textToEsc);
+    }
+
+    @Override
+    public RenderableModel fromPlainTextByEscaping (String textToEsc){
+      return fromMarkup(textToEsc);
+    }
+
+    @Override
+    public RenderableModel fromMarkup (String markupText){
+      return new RenderableModel(markupText, wrapper);
+    }
+
+    @Override
+    public String getSourcePlainText (RenderableModel mo){
+      return null;// markup, not plain text
+    }
+
+    @Override
+    public String getMarkupString (RenderableModel mo){
+      return mo.getWrappedObject().toString();
+    }
+
+    @Override
+    public RenderableModel concat (RenderableModel mo1, RenderableModel mo2){
+      return fromMarkup(getMarkupString(mo1) + getMarkupString(mo2));
+    }
+
+    @Override
+    public String escapePlainText (String plainTextContent){
+      return plainTextContent;
+    }
+
+    @Override
+    public boolean isEmpty (RenderableModel mo){
+      return getMarkupString(mo).isEmpty();
+    }
+  }//RenderableOutputFormat
+}
@@ -0,0 +1,37 @@
+package org.apache.click.extras.service;
+
+import org.apache.click.MockContext;
+import org.apache.click.service.TemplateService;
+import org.apache.click.util.Utf8StreamWriter;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.apache.click.util.ClickTestUtils.benchmark;
+
+/**
+ * Compares page rendering through a container like (char buffered, re-encoded)
+ * writer with the streaming {@link Utf8StreamWriter}: time and bytes allocated
+ * per page. Runs with <tt>gradlew test -Pbenchmark</tt>.
+ */
+public class FreemarkerRenderBenchmark {
+
+  @Test public void testRender () throws Exception {
+    MockContext ctx = MockContext.initContext(".");
+    TemplateService ft = new FreemarkerTemplateService();
+    ft.onInit(ctx.getServletContext());
+    Map<String,Object> model = FreemarkerTemplateServiceTest.benchModel();
+    OutputStream out = OutputStream.nullOutputStream();
+
+    for (int round = 0; round < 3; round++){
+      benchmark("FreeMarker char writer", 2_000, ()->
+          FreemarkerTemplateServiceTest.render(ft, "bench.ftl", model, new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+      benchmark("FreeMarker Utf8StreamWriter", 2_000, ()->
+          FreemarkerTemplateServiceTest.render(ft, "bench.ftl", model, Utf8StreamWriter.acquire(out, Utf8StreamWriter.DEFAULT_FLUSH_THRESHOLD, true)));
+    }
+    ft.onDestroy();
+  }
+}
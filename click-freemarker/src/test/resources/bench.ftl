@@ -0,0 +1,14 @@
+<html>
+<head>
+<title>${title}</title>
+<link type="text/css" rel="stylesheet" href="/click/table.css"/>
+</head>
+<body>
+<h1>${title} – ünïcödé</h1>
+<table>
+<#list rows as row>
+<tr><td>${row.id}</td><td>${row.name}</td><td>${row.city}</td><td>${row.email}</td></tr>
+</#list>
+</table>
+</body>
+</html>
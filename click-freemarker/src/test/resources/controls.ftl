@@ -0,0 +1 @@
+<div>${form}</div>${label} ${form.name}
\ No newline at end of file
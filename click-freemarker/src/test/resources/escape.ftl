@@ -0,0 +1 @@
+${streamed}|${form?html}|<#escape x as x?html>${form}</#escape>|${label?html}
\ No newline at end of file
@@ -21,6 +21,7 @@ import org.apache.click.Context;
 import org.apache.click.Control;
 import org.apache.click.Page;
 import org.apache.click.control.Field;
+import org.apache.click.dataprovider.AutoCompleteSource;
 import org.apache.click.element.CssImport;
 import org.apache.click.element.Element;
 import org.apache.click.element.JsImport;
@@ -158,7 +159,7 @@ import java.util.Map;
  *     }
  * } </pre>
  */
-public abstract class JQAutoCompleteBehavior extends JQBehavior {
+public class JQAutoCompleteBehavior extends JQBehavior {
 
     // -------------------------------------------------------------- Constants
 
@@ -186,6 +187,9 @@ public abstract class JQAutoCompleteBehavior extends JQBehavior {
      */
     protected Options autoCompleteOptions;
 
+    /** The shared source of the auto complete suggestions. */
+    protected transient AutoCompleteSource<?> autoCompleteSource;
+
     // ----------------------------------------------------------- Constructors
 
     /**
@@ -291,6 +295,27 @@ public abstract class JQAutoCompleteBehavior extends JQBehavior {
         this.autoCompleteOptions = autoCompleteOptions;
     }
 
+    /**
+     * Return the source of the auto complete suggestions, or null if
+     * {@link #getAutoCompleteList(String)} is overridden.
+     *
+     * @return the source of the auto complete suggestions
+     */
+    public AutoCompleteSource<?> getAutoCompleteSource() {
+        return autoCompleteSource;
+    }
+
+    /**
+     * Set the source of the auto complete suggestions. Sources cache and
+     * refine the suggestions of the criteria typed by the users and are
+     * usually shared by all the behaviors of the same kind.
+     *
+     * @param autoCompleteSource the source of the auto complete suggestions
+     */
+    public void setAutoCompleteSource(AutoCompleteSource<?> autoCompleteSource) {
+        this.autoCompleteSource = autoCompleteSource;
+    }
+
     /**
      * Create a default data model for the Autocomplete {@link #template}.
      *
@@ -388,13 +413,22 @@ public abstract class JQAutoCompleteBehavior extends JQBehavior {
      * When the user enters text into the text field, this method is invoked,
      * passing in the current value of the text field.
      * <p/>
-     * This method must be implemented by users to return the list of suggestions
-     * based on the current text field value, the criteria.
+     * By default the suggestions are provided by the behavior
+     * {@link #setAutoCompleteSource(AutoCompleteSource) AutoCompleteSource}.
+     * Override this method to return the list of suggestions based on the
+     * current text field value, the criteria.
      *
      * @param criteria the search criteria
      * @return the list of auto complete suggestions
+     * @throws IllegalStateException if no AutoCompleteSource is set
      */
-    protected abstract List getAutoCompleteList(String criteria);
+    protected List getAutoCompleteList(String criteria) {
+        if (autoCompleteSource == null) {
+            throw new IllegalStateException("JQAutoCompleteBehavior: set an"
+                + " AutoCompleteSource or override getAutoCompleteList()");
+        }
+        return autoCompleteSource.getAutoCompleteList(criteria);
+    }
 
     @Override
     protected void setupScript(JsScript script, Control source) {
@@ -13,10 +13,12 @@
  */
 package net.sf.click.jquery.util;
 
+import org.apache.click.util.JsonWriter;
+
 /**
  * Provides a JSON literal which renders its value 'as-is', without quotes.
  */
-public class JSONLiteral {
+public class JSONLiteral implements JsonWriter.Literal {
 
     private String value;
 
@@ -1,19 +1,9 @@
 package net.sf.click.jquery.util;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
+import org.apache.click.util.JsonWriter;
+
 import java.io.IOException;
 import java.io.StringReader;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Map;
 
 /**
  * Provides a JSON Writer that will output its content in the JSON format.
@@ -27,249 +17,49 @@ import java.util.Map;
  * down on some extra characters</li>
  * </ul>
  *
+ * The JSON is written by the shared {@link JsonWriter} engine, which caches
+ * the bean properties per class and can write directly to a Writer, see
+ * {@link #write(Object, Appendable)}.
+ *
  * Original code adapter from : http://www.stringtree.org/stringtree-json.html
  */
 public class JSONWriter {
 
-    // -------------------------------------------------------------- variables
-
-    private StringBuilder builder = new StringBuilder();
-
-    private ListStack<Object> calls = new ListStack<Object>();
-
-    private boolean emitClassName = false;
+    private final JsonWriter jsonWriter;
 
     // ----------------------------------------------------------- constructors
 
     public JSONWriter(boolean emitClassName) {
-        this.emitClassName = emitClassName;
+        this.jsonWriter = emitClassName ? new JsonWriter(true) : JsonWriter.DEFAULT;
     }
 
     public JSONWriter() {
+        this.jsonWriter = JsonWriter.DEFAULT;
     }
 
     // --------------------------------------------------------- public methods
 
     public String write(Object object) {
-        builder.setLength(0);
-        value(object);
-        return builder.toString();
-    }
-
-    public String writeFormatted(Object object) {
-        write(object);
-        String json = builder.toString();
-        return formatJson(json);
-    }
-
-    // -------------------------------------------------------- private methods
-
-    @SuppressWarnings("unchecked")
-    private void value(Object object) {
-        if (object == null || cyclic(object)) {
-            add("null");
-        } else {
-            calls.push(object);
-            if (object instanceof Class) {
-                string(object);
-            } else if (object instanceof Boolean) {
-                add(object.toString());
-            } else if (object instanceof Number) {
-                add(object);
-            } else if (object instanceof String) {
-                string(object);
-            } else if (object instanceof Character) {
-                string(object);
-            } else if (object instanceof JSONLiteral) {
-                add(object);
-            } else if (object instanceof Map) {
-                map((Map) object);
-            } else if (object.getClass().isArray()) {
-                array(object);
-            } else if (object instanceof Iterator) {
-                array((Iterator) object);
-            } else if (object instanceof Collection) {
-                array(((Collection) object).iterator());
-            } else {
-                bean(object);
-            }
-            calls.pop();
-        }
-    }
-
-    private boolean cyclic(Object object) {
-        Iterator<Object> it = calls.iterator();
-        while (it.hasNext()) {
-            Object called = it.next();
-            if (object == called) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void bean(Object object) {
-        add("{");
-        BeanInfo info;
-        boolean addedSomething = false;
-        try {
-            info = Introspector.getBeanInfo(object.getClass());
-            PropertyDescriptor[] props = info.getPropertyDescriptors();
-            for (int i = 0; i < props.length; ++i) {
-                PropertyDescriptor prop = props[i];
-                String name = prop.getName();
-                Method accessor = prop.getReadMethod();
-                if ((emitClassName == true || !"class".equals(name)) && accessor
-                    != null) {
-                    if (!accessor.isAccessible()) {
-                        accessor.setAccessible(true);
-                    }
-                    Object value = accessor.invoke(object, (Object[]) null);
-                    if (addedSomething) {
-                        add(',');
-                    }
-                    add(name, value);
-                    addedSomething = true;
-                }
-            }
-            Field[] ff = object.getClass().getFields();
-            for (int i = 0; i < ff.length; ++i) {
-                Field field = ff[i];
-                if (addedSomething) {
-                    add(',');
-                }
-                add(field.getName(), field.get(object));
-                addedSomething = true;
-            }
-        } catch (IllegalAccessException iae) {
-            throw new RuntimeException(iae);
-        } catch (InvocationTargetException ite) {
-            throw new RuntimeException(ite);
-        } catch (IntrospectionException ie) {
-            throw new RuntimeException(ie);
-        }
-        add("}");
-    }
-
-    private void add(String name, Object value) {
-        add('"');
-        add(name);
-        add("\":");
-        value(value);
-    }
-
-    private void map(Map<String, Object> map) {
-        add("{");
-        Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<?, ?> e = (Map.Entry<?, ?>) it.next();
-            value(e.getKey());
-            add(":");
-            value(e.getValue());
-            if (it.hasNext()) {
-                add(',');
-            }
-        }
-        add("}");
-    }
-
-    private void array(Iterator<?> it) {
-        add("[");
-        while (it.hasNext()) {
-            value(it.next());
-            if (it.hasNext()) {
-                add(",");
-            }
-        }
-        add("]");
-    }
-
-    private void array(Object object) {
-        add("[");
-        int length = Array.getLength(object);
-        for (int i = 0; i < length; ++i) {
-            value(Array.get(object, i));
-            if (i < length - 1) {
-                add(',');
-            }
-        }
-        add("]");
-    }
-
-    private void bool(boolean b) {
-        add(b ? "true" : "false");
+        return jsonWriter.write(object);
     }
 
-    private void string(Object obj) {
-        add('"');
-        char prev;
-        String str = obj.toString();
-        int len = str.length();
-        
-        char c = 0;
-        //for (char c : obj.toString().toCharArray()) {
-        for (int i = 0; i < len; i++) {
-            prev = c;
-            c = str.charAt(i);
-            switch (c) {
-                case '\b':
-                    add("\\b");
-                    break;
-                case '\t':
-                    add("\\t");
-                    break;
-                case '\n':
-                    add("\\n");
-                    break;
-                case '\f':
-                    add("\\f");
-                    break;
-                case '\r':
-                    add("\\r");
-                    break;
-                case '\\':
-                    add("\\\\");
-                    break;
-                case '/':
-                    if (prev == '<') {
-                        add("\\/");
-                    } else {
-                        add('/');
-                    }
-                    break;
-                case '"':
-                    add("\\\"");
-                    break;
-                default:
-                    if (Character.isISOControl(c)) {
-                        unicode(c);
-                    } else {
-                        add(c);
-                    }
-                    break;
-            }
-        }
-        add('"');
-    }
-
-    private void add(Object obj) {
-        builder.append(obj);
+    /**
+     * Write the given object as JSON directly to the given output, e.g. the
+     * response Writer.
+     *
+     * @param object the object to write
+     * @param out the output to write to
+     * @throws IOException if the output can't be written
+     */
+    public void write(Object object, Appendable out) throws IOException {
+        jsonWriter.write(object, out);
     }
 
-    private void add(char c) {
-        builder.append(c);
+    public String writeFormatted(Object object) {
+        return formatJson(write(object));
     }
-    static char[] hex = "0123456789ABCDEF".toCharArray();
 
-    private void unicode(char c) {
-        add("\\u");
-        int n = c;
-        for (int i = 0; i < 4; ++i) {
-            int digit = (n & 0xf000) >> 12;
-            add(hex[digit]);
-            n <<= 4;
-        }
-    }
+    // -------------------------------------------------------- private methods
 
     private String formatJson(String json) {
         StringBuilder sb = new StringBuilder(json.length());
@@ -404,70 +194,4 @@ public class JSONWriter {
             sb.append(' ');
         }
     }
-
-    /**
-     * Provides an unsynchronized Stack.
-     */
-    static class ListStack<E> extends ArrayList<E> {
-
-        /** Serialization version indicator. */
-        private static final long serialVersionUID = 1L;
-
-        /**
-         * Creates a new ListStack instance with an initial capacity of 10.
-         */
-        private ListStack() {
-        }
-
-        /**
-         * Create a new ListStack with the given initial capacity.
-         *
-         * @param initialCapacity specify initial capacity of this stack
-         */
-        private ListStack(int initialCapacity) {
-            super(initialCapacity);
-        }
-
-        /**
-         * Pushes the Object onto the top of this stack.
-         *
-         * @param value the Object to push onto this stack
-         * @return the Object pushed on this stack
-         */
-        private Object push(E value) {
-            add(value);
-
-            return value;
-        }
-
-        /**
-         * Removes and return the Object at the top of this stack.
-         *
-         * @return the Object at the top of this stack
-         */
-        private E pop() {
-            E value = peek();
-
-            remove(size() - 1);
-
-            return value;
-        }
-
-        /**
-         * Looks at the Object at the top of this stack without
-         * removing it.
-         *
-         * @return the Object at the top of this stack
-         */
-        private E peek() {
-            int length = size();
-
-            if (length == 0) {
-                return null;
-            }
-
-            return get(length - 1);
-        }
-    }
 }
-
@@ -7,10 +7,13 @@ import org.apache.click.pages.FormPage;
 import org.apache.click.pages.ForwardPage;
 import org.apache.click.pages.RedirectPage;
 import org.apache.click.pages.TestPage;
+import org.apache.click.util.FormatterRegistry;
 
 import java.io.File;
 import java.net.URI;
 import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
 
 /**
  * Sanity tests for MockContainer.
@@ -264,4 +267,21 @@ public class MockContainerTest extends TestCase {
 			fail();
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Check that the thread's cached formats are released after each request.
+	 */
+	public void testFormatsReleased() {
+		MockContainer container = new MockContainer("web").pages("org.apache.click.pages");
+		container.start();
+
+		SimpleDateFormat format = FormatterRegistry.simpleDateFormat("yyyy", Locale.US);
+		assertSame(format, FormatterRegistry.simpleDateFormat("yyyy", Locale.US));
+
+		container.testPage(TestPage.class);
+		assertNotSame(format, FormatterRegistry.simpleDateFormat("yyyy", Locale.US));
+
+		container.stop();
+		FormatterRegistry.clear();
+	}
+}
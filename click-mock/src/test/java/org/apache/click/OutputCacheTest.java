@@ -0,0 +1,142 @@
+package org.apache.click;
+
+import junit.framework.TestCase;
+import org.apache.click.control.AbstractControl;
+import org.apache.click.control.Cacheable;
+import org.apache.click.pages.CachedPage;
+import org.apache.click.service.OutputCache;
+import org.apache.click.servlet.MockPrincipal;
+import org.apache.click.util.HtmlStringBuffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the page output cache of ClickServlet, enabled by the
+ * <tt>output-cache-size</tt> init parameter.
+ */
+public class OutputCacheTest extends TestCase {
+
+	private MockContainer container;
+
+	@Override
+	protected void setUp() {
+		CachedPage.INITS.set(0);
+		container = new MockContainer("web").pages("org.apache.click.pages");
+		container.getServletContext().addInitParameter(OutputCache.OUTPUT_CACHE_SIZE, "1000000");
+		container.start();
+		container.getRequest().setMethod("GET");
+	}
+
+	@Override
+	protected void tearDown() {
+		container.stop();
+	}
+
+	public void testPageIsCached() {
+		container.setParameter("category", "books");
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 1 for books", container.getHtml());
+
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 1 for books", container.getHtml());
+		assertEquals(1, CachedPage.INITS.get());
+		assertEquals(1, container.getClickServlet().getOutputCache().size());
+
+		container.getClickServlet().getOutputCache().invalidate("/cached.htm");
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 2 for books", container.getHtml());
+	}
+
+	public void testCacheKey() {
+		container.setParameter("category", "books");
+		container.testPage(CachedPage.class);
+
+		// Other parameter value
+		container.setParameter("category", "music");
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 2 for music", container.getHtml());
+
+		// Other roles
+		container.getRequest().setUserPrincipal(new MockPrincipal("Bob", "admin"));
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 3 for music", container.getHtml());
+		container.getRequest().setUserPrincipal(new MockPrincipal("Alice", "user"));
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 2 for music", container.getHtml());
+
+		container.setParameter("category", "books");
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 1 for books", container.getHtml());
+		assertEquals(3, CachedPage.INITS.get());
+	}
+
+	public void testUncachedRequests() {
+		// Parameters which are not part of the key, e.g. control events
+		container.setParameter("actionLink", "delete");
+		container.testPage(CachedPage.class);
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 2 for ", container.getHtml());
+		container.getRequest().removeParameter("actionLink");
+
+		// POST requests
+		container.getRequest().setMethod("POST");
+		container.testPage(CachedPage.class);
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 4 for ", container.getHtml());
+		assertEquals(0, container.getClickServlet().getOutputCache().size());
+	}
+
+	public void testErrorResponsesAreNotCached() {
+		container.setParameter("category", "missing");
+		container.testPage(CachedPage.class);
+		container.testPage(CachedPage.class);
+		assertEquals("Rendered 2 for missing", container.getHtml());
+		assertEquals(0, container.getClickServlet().getOutputCache().size());
+	}
+
+	public void testFragmentKey() {
+		OutputCache outputCache = new OutputCache(1000000);
+		CountingControl control = new CountingControl();
+
+		MockContext context = MockContext.initContext("/first.htm");
+		assertEquals("<count>1</count>", outputCache.renderFragment(control, context));
+		assertEquals("<count>1</count>", outputCache.renderFragment(control, context));
+
+		// The control output is cached per page
+		context = MockContext.initContext("/second.htm");
+		assertEquals("<count>2</count>", outputCache.renderFragment(control, context));
+		assertEquals(2, outputCache.size());
+
+		outputCache.invalidate(CountingControl.class.getName());
+		assertEquals(0, outputCache.size());
+	}
+
+	public void testDisabledByDefault() {
+		MockContainer defaultContainer = new MockContainer("web").pages("org.apache.click.pages");
+		defaultContainer.start();
+		assertNull(defaultContainer.getClickServlet().getOutputCache());
+		defaultContainer.stop();
+	}
+
+	/** A cacheable control which renders its number of renderings. */
+	static class CountingControl extends AbstractControl implements Cacheable {
+		private static final long serialVersionUID = 1L;
+
+		final AtomicInteger renders = new AtomicInteger();
+
+		@Override
+		public String getTag() {
+			return "count";
+		}
+
+		@Override
+		public Object getCacheKey() {
+			return "counting";
+		}
+
+		@Override
+		public void render(HtmlStringBuffer buffer) {
+			buffer.append("<count>").append(renders.incrementAndGet()).append("</count>");
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package org.apache.click;
+
+import junit.framework.TestCase;
+import org.apache.click.pages.CachedETagPage;
+import org.apache.click.pages.ETagPage;
+import org.apache.click.service.OutputCache;
+import org.apache.click.servlet.MockResponse;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tests the page ETags and 304 Not Modified responses of ClickServlet.
+ */
+public class PageETagTest extends TestCase {
+
+	private MockContainer container;
+
+	@Override
+	protected void setUp() {
+		ETagPage.version = null;
+		ETagPage.text = "first";
+		container = new MockContainer("web").pages("org.apache.click.pages");
+		container.start();
+		container.getRequest().setMethod("GET");
+	}
+
+	@Override
+	protected void tearDown() {
+		container.stop();
+		ETagPage.version = null;
+	}
+
+	public void testContentETag() {
+		container.testPage(ETagPage.class);
+		assertEquals("ETag page: first", container.getHtml());
+		String etag = container.getResponse().getHeader("ETag");
+		assertTrue(etag, etag.startsWith("W/\""));
+		assertEquals("private, no-cache", container.getResponse().getHeader("Cache-Control"));
+
+		container.getRequest().setHeader("If-None-Match", etag);
+		container.testPage(ETagPage.class);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, container.getResponse().getStatus());
+		assertEquals("", container.getHtml());
+		assertEquals(etag, container.getResponse().getHeader("ETag"));
+
+		// Changed content
+		ETagPage.text = "second";
+		container.testPage(ETagPage.class);
+		assertEquals(HttpServletResponse.SC_OK, container.getResponse().getStatus());
+		assertEquals("ETag page: second", container.getHtml());
+		assertFalse(etag.equals(container.getResponse().getHeader("ETag")));
+	}
+
+	public void testVersionETag() {
+		ETagPage.version = "1";
+		container.testPage(ETagPage.class);
+		assertEquals("ETag page: first", container.getHtml());
+		String etag = container.getResponse().getHeader("ETag");
+
+		// The version ETag does not depend on the content
+		ETagPage.text = "second";
+		container.getRequest().setHeader("If-None-Match", "W/\"other\", " + etag);
+		container.testPage(ETagPage.class);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, container.getResponse().getStatus());
+		assertEquals("", container.getHtml());
+
+		ETagPage.version = "2";
+		container.testPage(ETagPage.class);
+		assertEquals(HttpServletResponse.SC_OK, container.getResponse().getStatus());
+		assertEquals("ETag page: second", container.getHtml());
+	}
+
+	public void testPostIsNotValidated() {
+		container.testPage(ETagPage.class);
+		container.getRequest().setHeader("If-None-Match", container.getResponse().getHeader("ETag"));
+
+		container.getRequest().setMethod("POST");
+		container.testPage(ETagPage.class);
+		assertEquals(HttpServletResponse.SC_OK, container.getResponse().getStatus());
+		assertEquals("ETag page: first", container.getHtml());
+		assertNull(container.getResponse().getHeader("ETag"));
+	}
+
+	public void testCachedVersionETag() {
+		container.stop();
+		container = new MockContainer("web").pages("org.apache.click.pages");
+		container.getServletContext().addInitParameter(OutputCache.OUTPUT_CACHE_SIZE, "1000000");
+		container.start();
+		container.getRequest().setMethod("GET");
+
+		ETagPage.version = "1";
+		container.testPage(CachedETagPage.class);
+		String etag = container.getResponse().getHeader("ETag");
+		assertNotNull(etag);
+
+		// Cache hits send the ETag of the cached version
+		ETagPage.text = "second";
+		container.testPage(CachedETagPage.class);
+		assertEquals("ETag page: first", container.getHtml());
+		assertEquals(etag, container.getResponse().getHeader("ETag"));
+
+		container.getRequest().setHeader("If-None-Match", etag);
+		container.testPage(CachedETagPage.class);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, container.getResponse().getStatus());
+		assertEquals("", container.getHtml());
+	}
+
+	public void testCacheControl() {
+		// Only a no-store Cache-Control header is replaced
+		MockResponse response = new MockResponse();
+		container.getClickServlet().setETagHeader(response, "W/\"1\"");
+		assertNull(response.getHeader("Cache-Control"));
+
+		response.setHeader("Cache-Control", "public, max-age=60");
+		container.getClickServlet().setETagHeader(response, "W/\"1\"");
+		assertEquals("public, max-age=60", response.getHeader("Cache-Control"));
+
+		response.setHeader("Cache-Control", "no-store");
+		container.getClickServlet().setETagHeader(response, "W/\"1\"");
+		assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+	}
+}
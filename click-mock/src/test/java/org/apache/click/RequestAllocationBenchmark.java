@@ -0,0 +1,28 @@
+package org.apache.click;
+
+import junit.framework.TestCase;
+import org.apache.click.pages.FormPage;
+
+import static org.apache.click.util.ClickTestUtils.benchmark;
+
+/**
+ * Measures the time and bytes allocated per request of a form page rendered
+ * through MockContainer, with and without the <tt>request-object-pool</tt>
+ * init parameter. Runs with <tt>gradlew test -Pbenchmark</tt>.
+ */
+public class RequestAllocationBenchmark extends TestCase {
+
+	public void testAllocationPerRequest() throws Exception {
+		for (int round = 0; round < 3; round++) {
+			for (String poolSize : new String[] {"0", "16"}) {
+				MockContainer container = RequestObjectPoolTest.createContainer(poolSize);
+				container.setParameter("myfield", "value");
+				for (int i = 0; i < 200; i++) {
+					container.testPage(FormPage.class);
+				}
+				benchmark("request-object-pool=" + poolSize, 2_000, () -> container.testPage(FormPage.class));
+				container.stop();
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package org.apache.click;
+
+import junit.framework.TestCase;
+import org.apache.click.pages.FormPage;
+
+/**
+ * Tests the request object pool of ClickServlet, enabled by the
+ * <tt>request-object-pool</tt> init parameter.
+ */
+public class RequestObjectPoolTest extends TestCase {
+
+	public void testPooledObjectsAreRecycled() {
+		MockContainer container = createContainer("4");
+		container.testPage(FormPage.class);
+		assertEquals(1, container.getClickServlet().dispatcherPool.size());
+		assertEquals(1, container.getClickServlet().registryPool.size());
+
+		ActionEventDispatcher dispatcher = container.getClickServlet().dispatcherPool.peek();
+		container.testPage(FormPage.class);
+		assertSame(dispatcher, container.getClickServlet().dispatcherPool.peek());
+		assertFalse(dispatcher.hasActionEvents());
+		assertNull(dispatcher.getActionResult());
+		assertNull(dispatcher.prev);
+		container.stop();
+
+		// Disabled by default
+		container = createContainer(null);
+		container.testPage(FormPage.class);
+		assertNull(container.getClickServlet().dispatcherPool);
+		container.stop();
+	}
+
+	public void testPooledRequestsRenderTheSamePage() {
+		String expected = render(null, 3);
+		assertEquals(expected, render("16", 3));
+		assertEquals(expected, render("1", 3));
+	}
+
+	/** Render the form page the given number of times and return the last output. */
+	static String render(String poolSize, int requests) {
+		MockContainer container = createContainer(poolSize);
+		container.setParameter("myfield", "value");
+		for (int i = 0; i < requests; i++) {
+			container.testPage(FormPage.class);
+		}
+		String html = container.getHtml();
+		container.stop();
+		return html;
+	}
+
+	static MockContainer createContainer(String poolSize) {
+		MockContainer container = new MockContainer("web").pages("org.apache.click.pages");
+		if (poolSize != null) {
+			container.getServletContext().addInitParameter(ClickServlet.REQUEST_OBJECT_POOL, poolSize);
+		}
+		container.start();
+		return container;
+	}
+}
@@ -0,0 +1,11 @@
+package org.apache.click.pages;
+
+import org.apache.click.util.OutputCached;
+
+/**
+ * Output cached ETag test page.
+ */
+@OutputCached
+public class CachedETagPage extends ETagPage {
+    private static final long serialVersionUID = 1L;
+}
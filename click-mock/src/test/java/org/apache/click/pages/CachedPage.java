@@ -0,0 +1,29 @@
+package org.apache.click.pages;
+
+import org.apache.click.Page;
+import org.apache.click.util.OutputCached;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Output cached test page.
+ */
+@OutputCached(params = "category", roles = "admin")
+public class CachedPage extends Page {
+    private static final long serialVersionUID = 1L;
+
+    /** The number of page initializations. */
+    public static final AtomicInteger INITS = new AtomicInteger();
+
+    /**
+     * Initialize page.
+     */
+    @Override
+    public void onInit() {
+        addModel("count", INITS.incrementAndGet());
+        addModel("category", getContext().getRequestParameter("category"));
+        if ("missing".equals(getContext().getRequestParameter("category"))) {
+            getContext().getResponse().setStatus(404);
+        }
+    }
+}
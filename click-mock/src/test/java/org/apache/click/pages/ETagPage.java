@@ -0,0 +1,39 @@
+package org.apache.click.pages;
+
+import org.apache.click.Page;
+
+/**
+ * ETag test page: versioned if {@link #version} is set, otherwise with an
+ * ETag computed from the rendered content.
+ */
+public class ETagPage extends Page {
+    private static final long serialVersionUID = 1L;
+
+    /** The page version, or null. */
+    public static volatile String version;
+
+    /** The rendered text. */
+    public static volatile String text = "first";
+
+    /**
+     * Create the page.
+     */
+    public ETagPage() {
+        if (version == null) {
+            setHeader("ETag", ETAG_AUTO);
+        }
+    }
+
+    /**
+     * Initialize page.
+     */
+    @Override
+    public void onInit() {
+        addModel("text", text);
+    }
+
+    @Override
+    public String getETagVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,72 @@
+package org.apache.click.service;
+
+import org.apache.click.control.Renderable;
+import org.apache.click.util.ClickUtils;
+import org.apache.velocity.app.event.ReferenceInsertionEventHandler;
+import org.apache.velocity.context.InternalContextAdapter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Provides a Velocity reference insertion handler which renders Click controls
+ * directly to the template writer.
+ * <p/>
+ * Velocity writes a reference such as <tt>$form</tt> or <tt>$table</tt> with
+ * its <tt>toString()</tt> value, which renders the control into a buffer,
+ * copies it into a String and then into the writer. This handler replaces
+ * controls and {@link Renderable}s by a Velocity
+ * <tt>org.apache.velocity.runtime.Renderable</tt>, which Velocity renders with
+ * the template writer, so the control markup is streamed by
+ * {@link ClickUtils#renderTo(Object, Writer)}.
+ * <p/>
+ * The handler is registered by {@link VelocityTemplateService} with the
+ * <tt>eventhandler.referenceinsertion.class</tt> property. If
+ * <tt>WEB-INF/velocity.properties</tt> sets this property, list this class
+ * first to keep streaming, e.g.:
+ *
+ * <pre class="codeConfig">
+ * eventhandler.referenceinsertion.class=org.apache.click.service.RenderableReferenceHandler,com.mycorp.MyHandler </pre>
+ */
+public class RenderableReferenceHandler implements ReferenceInsertionEventHandler {
+
+  /**
+   * Return a streaming reference for the controls and renderables which
+   * {@link ClickUtils#canRenderTo(Object) can be streamed}, or the given value.
+   *
+   * @param reference the reference literal, e.g. <tt>$form</tt>
+   * @param value the reference value
+   * @return the value to insert
+   */
+  @Override
+  public Object referenceInsert (String reference, Object value){
+    if (ClickUtils.canRenderTo(value)){
+      return new StreamingReference(value);
+    }
+    return value;
+  }
+
+  /**
+   * The reference to a control, rendered to the template writer. If the
+   * control can't be streamed, Velocity writes its <tt>toString()</tt> value.
+   */
+  static final class StreamingReference implements org.apache.velocity.runtime.Renderable {
+    private final Object value;
+
+    StreamingReference (Object value){
+      this.value = value;
+    }//new
+
+    @Override
+    public boolean render (InternalContextAdapter context, Writer writer) throws IOException {
+      if (!context.getAllowRendering()){
+        return true;
+      }
+      return ClickUtils.renderTo(value, writer);
+    }
+
+    @Override public String toString (){
+      return value.toString();
+    }
+  }//StreamingReference
+}
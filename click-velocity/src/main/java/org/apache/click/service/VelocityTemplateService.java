@@ -7,6 +7,7 @@ import org.apache.click.Context;
 import org.apache.click.Page;
 import org.apache.click.util.ClickUtils;
 import org.apache.click.util.ErrorReport;
+import org.apache.click.util.Utf8StreamWriter;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
@@ -75,8 +76,14 @@ import static org.apache.velocity.runtime.RuntimeConstants.RESOURCE_LOADER;
  *
  * velocimacro.library.autoreload=[true|false] <span class="green">#depending on application mode</span>
  * velocimacro.library=click/VM_global_library.vm
+ *
+ * eventhandler.referenceinsertion.class=org.apache.click.service.RenderableReferenceHandler
  * </pre>
  *
+ * The {@link RenderableReferenceHandler} renders controls such as <tt>$form</tt>
+ * directly to the template writer instead of writing their <tt>toString()</tt>
+ * value.
+ *
  * This service uses the Velocity Tools WebappResourceLoader for loading templates.
  * This avoids issues associate with using the Velocity FileResourceLoader on JEE
  * application servers.
@@ -301,6 +308,8 @@ public class VelocityTemplateService implements TemplateService {
     }
 		velProps.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS, Slf4jLogChute.class.getName());
 		velProps.setProperty(RuntimeConstants.DIRECTIVE_IF_TOSTRING_NULLCHECK, "false");
+		// Render $form, $table... directly to the template writer
+		velProps.setProperty(RuntimeConstants.EVENTHANDLER_REFERENCEINSERTION, RenderableReferenceHandler.class.getName());
 
 
 		// Use 'macro.vm' exists set it as default VM library
@@ -367,14 +376,18 @@ public class VelocityTemplateService implements TemplateService {
 			template = charset != null
 					? velocityEngine.getTemplate(templatePath, charset)
 					: velocityEngine.getTemplate(templatePath);
-      velocityWriter = (VelocityWriter) writerPool.get();
+      if (writer instanceof Utf8StreamWriter){// already byte buffered: no second char buffer
+        template.merge(velocityContext, writer);
+      } else {
+        velocityWriter = (VelocityWriter) writerPool.get();
 
-      if (velocityWriter == null)
-        velocityWriter = new VelocityWriter(writer, WRITER_BUFFER_SIZE, true);
-      else
-        velocityWriter.recycle(writer);
+        if (velocityWriter == null)
+          velocityWriter = new VelocityWriter(writer, WRITER_BUFFER_SIZE, true);
+        else
+          velocityWriter.recycle(writer);
 
-      template.merge(velocityContext, velocityWriter);
+        template.merge(velocityContext, velocityWriter);
+      }
 
     } catch (ParseErrorException e){
       printErrorAndThrow(page, writer, velocityWriter, new TemplateException(e, e.getTemplateName(), e.getLineNumber(), e.getColumnNumber()));
@@ -389,8 +402,10 @@ public class VelocityTemplateService implements TemplateService {
         velocityWriter.recycle(null);
         writerPool.put(velocityWriter);
       }
-      writer.flush();
-      writer.close();
+      if (!(writer instanceof Utf8StreamWriter)){// released by the ClickServlet, discarded on error
+        writer.flush();
+        writer.close();
+      }
     }
   }
 
@@ -398,6 +413,9 @@ public class VelocityTemplateService implements TemplateService {
    It is possible that - some output has already been written,
    so we will append the error report to the previous output */
   private void printErrorAndThrow (Page page, Writer writer, VelocityWriter velocityWriter, TemplateException te) throws IOException, TemplateException {
+    if (writer instanceof Utf8StreamWriter){
+      throw te;// the partial page is discarded and the error page rendered instead
+    }
     val errorReport = new ErrorReport(te,
         ((page != null) ? page.getClass() : null),
         configService.isProductionMode(),
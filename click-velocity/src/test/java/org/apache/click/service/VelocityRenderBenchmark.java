@@ -0,0 +1,36 @@
+package org.apache.click.service;
+
+import org.apache.click.MockContext;
+import org.apache.click.util.Utf8StreamWriter;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.apache.click.util.ClickTestUtils.benchmark;
+
+/**
+ * Compares page rendering through a container like (char buffered, re-encoded)
+ * writer with the streaming {@link Utf8StreamWriter}: time and bytes allocated
+ * per page. Runs with <tt>gradlew test -Pbenchmark</tt>.
+ */
+public class VelocityRenderBenchmark {
+
+  @Test public void testRender () throws Exception {
+    MockContext ctx = MockContext.initContext();
+    TemplateService vt = new VelocityTemplateService();
+    vt.onInit(ctx.getServletContext());
+    Map<String,Object> model = VelocityTemplateServiceTest.benchModel();
+    OutputStream out = OutputStream.nullOutputStream();
+
+    for (int round = 0; round < 3; round++){
+      benchmark("Velocity char writer", 2_000, ()->
+          VelocityTemplateServiceTest.render(vt, "bench.htm", model, new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+      benchmark("Velocity Utf8StreamWriter", 2_000, ()->
+          VelocityTemplateServiceTest.render(vt, "bench.htm", model, Utf8StreamWriter.acquire(out, Utf8StreamWriter.DEFAULT_FLUSH_THRESHOLD, true)));
+    }
+    vt.onDestroy();
+  }
+}
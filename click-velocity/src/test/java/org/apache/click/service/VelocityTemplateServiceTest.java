@@ -3,17 +3,32 @@ package org.apache.click.service;
 import org.apache.click.MockContainer;
 import org.apache.click.MockContext;
 import org.apache.click.Page;
+import org.apache.click.control.AbstractControl;
+import org.apache.click.control.Form;
+import org.apache.click.control.Label;
+import org.apache.click.control.TextField;
 import org.apache.click.util.ClickUtils;
+import org.apache.click.util.HtmlStringBuffer;
+import org.apache.click.util.Utf8StreamWriter;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.PrintStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.apache.click.util.ClickTestUtils.deleteDir;
 import static org.apache.click.util.ClickTestUtils.makeTmpDir;
 import static org.apache.click.util.ClickTestUtils.makeXmlStream;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
@@ -90,4 +105,97 @@ public class VelocityTemplateServiceTest {
     vt.onDestroy();
   }
 
-}
\ No newline at end of file
+  @Test public void renderControls () throws Exception {
+    MockContext ctx = MockContext.initContext();
+
+    TemplateService vt = new VelocityTemplateService();
+    vt.onInit(ctx.getServletContext());
+
+    Form form = new Form("form");
+    form.add(new TextField("name"));
+    Label label = new Label("label", "<b>Label</b>");
+    Map<String,Object> model = new HashMap<>();
+    model.put("form", form);
+    model.put("label", label);
+
+    // Controls are streamed by RenderableReferenceHandler, labels are written with toString()
+    StringWriter w = new StringWriter();
+    vt.renderTemplate("controls.htm", model, w);
+    assertEquals("<div>" + form + "</div><b>Label</b> form", w.toString());
+
+    vt.onDestroy();
+  }
+
+  @Test public void renderStreamedControl () throws Exception {
+    MockContext ctx = MockContext.initContext();
+
+    TemplateService vt = new VelocityTemplateService();
+    vt.onInit(ctx.getServletContext());
+
+    // The control is written to the template writer without toString()
+    StringWriter w = new StringWriter();
+    vt.renderTemplate("streamed.htm", Collections.<String,Object>singletonMap("streamed", new StreamedControl()), w);
+    assertEquals("<p><streamed/></p>", w.toString());
+
+    vt.onDestroy();
+  }
+
+  @Test public void renderUtf8StreamWriter () throws Exception {
+    MockContext ctx = MockContext.initContext();
+    TemplateService vt = new VelocityTemplateService();
+    vt.onInit(ctx.getServletContext());
+    Map<String,Object> model = benchModel();
+
+    // The streaming writer writes the same bytes as a container like writer
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    render(vt, "bench.htm", model, new OutputStreamWriter(expected, StandardCharsets.UTF_8));
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    render(vt, "bench.htm", model, Utf8StreamWriter.acquire(actual, Utf8StreamWriter.DEFAULT_FLUSH_THRESHOLD, true));
+    assertTrue(expected.size() > 10_000);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+    vt.onDestroy();
+  }
+
+  /** Render the template and close the writer. */
+  static Writer render (TemplateService ts, String template, Map<String,Object> model, Writer writer) throws Exception {
+    try {
+      ts.renderTemplate(template, model, writer);
+    } finally {
+      writer.close();
+    }
+    return writer;
+  }
+
+  /** The model of the <tt>bench.htm</tt> template: a table of 200 rows with non ASCII text. */
+  static Map<String,Object> benchModel (){
+    List<Map<String,Object>> rows = new ArrayList<>();
+    for (int i = 0; i < 200; i++){
+      Map<String,Object> row = new HashMap<>();
+      row.put("id", i);
+      row.put("name", "Customer Ünïcödé " + i);
+      row.put("city", i % 2 == 0 ? "Berlin" : "Zürich");
+      row.put("email", "customer" + i + "@example.com");
+      rows.add(row);
+    }
+    Map<String,Object> model = new HashMap<>();
+    model.put("title", "Render benchmark");
+    model.put("rows", rows);
+    return model;
+  }
+
+  /** A control which markup can only be streamed: its toString() fails. */
+  public static class StreamedControl extends AbstractControl {
+    static {
+      ClickUtils.addRenderToString(StreamedControl.class);
+    }
+
+    @Override public void render (HtmlStringBuffer buffer){
+      buffer.append("<streamed/>");
+    }
+
+    @Override public String toString (){
+      throw new UnsupportedOperationException("toString");
+    }
+  }//StreamedControl
+}
@@ -27,6 +27,7 @@ import org.apache.click.util.HtmlStringBuffer;
 import org.apache.commons.lang3.ClassUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -64,19 +65,61 @@ import java.util.Set;
  * ActionEventDispatcher. The ClickServlet will subsequently invoke the registered
  * {@link ActionListener#onAction(Control)} method after all the Page controls
  * <tt>onProcess()</tt> method have been invoked.
+ *
+ * <h4>Metrics</h4>
+ * The dispatcher counts the fired action events and the time spent in their
+ * listeners, see {@link #getFiredEventCount()} and {@link #getListenerNanos()}.
+ * To record the listener time per control, override
+ * {@link #actionEventFired(Context, Control, ActionListener, long, boolean)}
+ * in the dispatcher returned by
+ * {@link ClickServlet#createActionEventDispatcher()}.
  */
 public class ActionEventDispatcher {
 
    /** The thread local dispatcher holder. */
   private static final ThreadLocal<ActionEventDispatcher> THREAD_LOCAL_DISPATCHER_STACK = new ThreadLocal<>();
 
+  /** The initial number of action events of the event ring. */
+  static final int INITIAL_EVENT_CAPACITY = 16;
+
+  /** The maximum number of action events of a pooled event ring. */
+  static final int MAX_POOLED_EVENT_CAPACITY = 1024;
+
+  /** The released event ring of the thread, reused by the next dispatcher. */
+  private static final ThreadLocal<Object[]> THREAD_LOCAL_EVENT_POOL = new ThreadLocal<>();
+
+  /** True for the dispatcher classes overriding the deprecated list based fireActionEvents. */
+  private static final ClassValue<Boolean> LIST_DISPATCH = new ClassValue<>(){
+    @Override protected Boolean computeValue (Class<?> type){
+      for (Class<?> c = type; c != ActionEventDispatcher.class; c = c.getSuperclass()){
+        try {
+          c.getDeclaredMethod("fireActionEvents", Context.class, List.class, List.class);
+          return true;
+        } catch (NoSuchMethodException ignore){}
+      }
+      return false;
+    }
+  };
+
   // Variables --------------------------------------------------------------
 
-  /** The list of registered event sources. */
-  List<Control> eventSourceList;
+  /**
+   * The registered action events: a ring of (source, listener) pairs, the
+   * oldest pair at index <tt>2 * eventHead</tt>.
+   */
+  Object[] events;
+
+  /** The ring position of the oldest registered action event. */
+  int eventHead;
+
+  /** The number of registered action events. */
+  int eventCount;
+
+  /** The number of fired action events. */
+  @Getter long firedEventCount;
 
-  /** The list of registered event listeners. */
-  List<ActionListener> eventListenerList;
+  /** The time spent in the fired action listeners in nanoseconds. */
+  @Getter long listenerNanos;
 
   /** The set of Controls with attached AjaxBehaviors. */
   Set<Control> ajaxBehaviorSourceSet;
@@ -178,7 +221,36 @@ public class ActionEventDispatcher {
       return true;
     }
 
-    return fireActionEvents(context, getEventSourceList(), getEventListenerList());
+    if (LIST_DISPATCH.get(getClass())) {
+      List<Control> eventSourceList = getEventSourceList();
+      List<ActionListener> eventListenerList = getEventListenerList();
+      Arrays.fill(events, null);
+      releaseEvents();
+      return fireActionEvents(context, eventSourceList, eventListenerList);
+    }
+
+    boolean continueProcessing = true;
+
+    // Events registered by the listeners are fired by the next invocation
+    for (int i = 0, size = eventCount; i < size; i++) {
+      int slot = eventHead * 2;
+      Control source = (Control) events[slot];
+      ActionListener listener = (ActionListener) events[slot + 1];
+      events[slot] = null;
+      events[slot + 1] = null;
+      eventHead = (eventHead + 1) % (events.length / 2);
+      eventCount--;
+
+      if (!fireTimedActionEvent(context, source, listener)) {
+        continueProcessing = false;
+      }
+    }
+
+    if (eventCount == 0) {
+      releaseEvents();
+    }
+
+    return continueProcessing;
   }
 
   /**
@@ -214,10 +286,14 @@ public class ActionEventDispatcher {
 
   /**
    * Fire the actions for the given listener list and event source list which
-   * return true if the page should continue processing.
+   * return true if the page should continue processing. The fired events are
+   * removed from the lists.
    * <p/>
-   * This method can be overridden if you need to customize the way events
-   * are fired.
+   * If a subclass overrides this method, {@link #fireActionEvents(Context)}
+   * removes the registered events and passes them to this method as lists.
+   *
+   * @deprecated the registered events are kept in a ring buffer, override
+   * {@link #fireActionEvent(Context, Control, ActionListener)} instead
    *
    * @param context the request context
    * @param eventSourceList the list of source controls
@@ -225,6 +301,7 @@ public class ActionEventDispatcher {
    *
    * @return true if the page should continue processing or false otherwise
    */
+  @Deprecated
   protected boolean fireActionEvents(Context context,
       List<Control> eventSourceList, List<ActionListener> eventListenerList) {
 
@@ -234,7 +311,7 @@ public class ActionEventDispatcher {
       Control source = eventSourceList.remove(0);
       ActionListener listener = eventListenerList.remove(0);
 
-      if (!fireActionEvent(context, source, listener)) {
+      if (!fireTimedActionEvent(context, source, listener)) {
         continueProcessing = false;
       }
     }
@@ -259,6 +336,39 @@ public class ActionEventDispatcher {
     return listener.onAction(source);
   }
 
+  /** Fire the action event and record its listener time. */
+  private boolean fireTimedActionEvent (Context context, Control source, ActionListener listener){
+    long start = System.nanoTime();
+    boolean result = fireActionEvent(context, source, listener);
+    long nanos = System.nanoTime() - start;
+
+    firedEventCount++;
+    listenerNanos += nanos;
+    actionEventFired(context, source, listener, nanos, result);
+    return result;
+  }
+
+  /**
+   * Invoked after an action event was fired, with the time spent in
+   * {@link #fireActionEvent(Context, Control, ActionListener)}. This default
+   * implementation logs the event at trace level.
+   * <p/>
+   * This method can be overridden to record the listener time per control.
+   *
+   * @param context the request context
+   * @param source the source control
+   * @param listener the fired listener
+   * @param nanos the listener time in nanoseconds
+   * @param continueProcessing the listener result
+   */
+  protected void actionEventFired (Context context, Control source, ActionListener listener,
+      long nanos, boolean continueProcessing){
+    if (logger.isTraceEnabled()){
+      logger.trace("   invoked: '{}' {} listener : {} ({} µs)", source.getName(),
+          ClassUtils.getShortClassName(source.getClass()), continueProcessing, nanos / 1000);
+    }
+  }
+
   /**
    * Fire the AjaxBehaviors for the given control set and return true if the page
    * should continue processing, false otherwise.
@@ -410,8 +520,41 @@ public class ActionEventDispatcher {
    * @param listener the event action listener
    */
   void registerActionEvent (@NonNull Control source, @NonNull ActionListener listener) {
-    getEventSourceList().add(source);
-    getEventListenerList().add(listener);
+    if (events == null){
+      events = THREAD_LOCAL_EVENT_POOL.get();
+      if (events != null){
+        THREAD_LOCAL_EVENT_POOL.set(null);
+      } else {
+        events = new Object[INITIAL_EVENT_CAPACITY * 2];
+      }
+      eventHead = 0;
+
+    } else if (eventCount * 2 == events.length){
+      // Grow the ring, the oldest event first
+      Object[] grown = new Object[events.length * 2];
+      int headSlot = eventHead * 2;
+      System.arraycopy(events, headSlot, grown, 0, events.length - headSlot);
+      System.arraycopy(events, 0, grown, events.length - headSlot, headSlot);
+      events = grown;
+      eventHead = 0;
+    }
+
+    int slot = ((eventHead + eventCount) % (events.length / 2)) * 2;
+    events[slot] = source;
+    events[slot + 1] = listener;
+    eventCount++;
+  }
+
+  /**
+   * Release the empty event ring to the thread pool.
+   */
+  void releaseEvents () {
+    if (events != null && events.length <= MAX_POOLED_EVENT_CAPACITY * 2){
+      THREAD_LOCAL_EVENT_POOL.set(events);
+    }
+    events = null;
+    eventHead = 0;
+    eventCount = 0;
   }
 
   /**
@@ -429,40 +572,51 @@ public class ActionEventDispatcher {
    * @return true if the dispatcher has any Action Events registered
    */
   boolean hasActionEvents() {
-    return eventListenerList != null && !eventListenerList.isEmpty();
+    return eventCount > 0;
+  }
+
+  /**
+   * Return the number of registered action events.
+   *
+   * @return the number of registered action events
+   */
+  int getActionEventCount() {
+    return eventCount;
   }
 
   /**
-   * Return the list of event listeners.
+   * Return a copy of the registered event listeners.
    *
    * @return list of event listeners
    */
   List<ActionListener> getEventListenerList() {
-    if (eventListenerList == null) {
-      eventListenerList = new ArrayList<ActionListener>();
+    List<ActionListener> list = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      list.add((ActionListener) events[((eventHead + i) % (events.length / 2)) * 2 + 1]);
     }
-    return eventListenerList;
+    return list;
   }
 
   /**
-   * Return the list of event sources.
+   * Return a copy of the registered event sources.
    *
    * @return list of event sources
    */
   List<Control> getEventSourceList() {
-    if (eventSourceList == null) {
-      eventSourceList = new ArrayList<Control>();
+    List<Control> list = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      list.add((Control) events[((eventHead + i) % (events.length / 2)) * 2]);
     }
-    return eventSourceList;
+    return list;
   }
 
   /**
    * Clear the events and behaviors.
    */
   void clear() {
-    if (hasActionEvents()) {
-      getEventSourceList().clear();
-      getEventListenerList().clear();
+    if (events != null) {
+      Arrays.fill(events, null);
+      releaseEvents();
     }
 
     if (hasAjaxBehaviorSourceSet()) {
@@ -471,6 +625,21 @@ public class ActionEventDispatcher {
   }
 
 
+  /**
+   * Reset this dispatcher to its initial state for reuse by another request,
+   * keeping the allocated behavior source set unless it grew large.
+   */
+  void recycle() {
+    if (ajaxBehaviorSourceSet != null && ajaxBehaviorSourceSet.size() > MAX_POOLED_EVENT_CAPACITY) {
+      ajaxBehaviorSourceSet = null;
+    }
+    clear();
+    firedEventCount = 0;
+    listenerNanos = 0;
+    actionResult = null;
+    prev = null;
+  }
+
   /**
    * Return true if a control with AjaxBehaviors was registered, false otherwise.
    *
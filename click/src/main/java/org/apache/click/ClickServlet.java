@@ -2,17 +2,24 @@ package org.apache.click;
 
 import lombok.Getter;
 import lombok.val;
+import org.apache.click.service.ClickResourceService;
 import org.apache.click.service.ConfigService;
 import org.apache.click.service.ConfigService.AutoBinding;
 import org.apache.click.service.LogService;
+import org.apache.click.service.OutputCache;
+import org.apache.click.service.PageBinding;
+import org.apache.click.service.PageBinding.FieldAccessor;
 import org.apache.click.service.PropertyService;
 import org.apache.click.service.ResourceService;
 import org.apache.click.service.TemplateException;
 import org.apache.click.service.XmlConfigService;
 import org.apache.click.util.ClickUtils;
 import org.apache.click.util.ErrorPage;
+import org.apache.click.util.FormatterRegistry;
 import org.apache.click.util.HtmlStringBuffer;
+import org.apache.click.util.OutputCached;
 import org.apache.click.util.PageImports;
+import org.apache.click.util.Utf8StreamWriter;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -30,13 +37,20 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Serial;
+import java.io.StringWriter;
 import java.io.Writer;
-import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Provides the Click application HttpServlet.
@@ -123,6 +137,40 @@ public class ClickServlet extends HttpServlet {
    */
 	protected static final String FORWARD_PAGE = "forward-page";
 
+  /**
+   * The streaming template rendering flush threshold (in bytes) init parameter
+   * name: &nbsp; "<tt>render-stream-buffer</tt>".
+   * <p/>
+   * If set to a positive value, UTF-8 pages are rendered through a thread
+   * confined {@link Utf8StreamWriter} straight to the <tt>ServletOutputStream</tt>
+   * instead of the container <tt>PrintWriter</tt>. Disabled by default.
+   */
+	protected static final String RENDER_STREAM_BUFFER = "render-stream-buffer";
+
+  /**
+   * The streaming template rendering early <tt>&lt;/head&gt;</tt> flush init
+   * parameter name: &nbsp; "<tt>render-flush-head</tt>". Default true.
+   */
+	protected static final String RENDER_FLUSH_HEAD = "render-flush-head";
+
+  /**
+   * The request object pool size init parameter name: &nbsp;
+   * "<tt>request-object-pool</tt>".
+   * <p/>
+   * If set to a positive value, the per request {@link ActionEventDispatcher}
+   * and {@link ControlRegistry} are reset and recycled through bounded pools
+   * of this size instead of being allocated for every request. The pools are
+   * shared by all the request threads, so recycling also works with virtual
+   * threads. Disabled by default.
+   */
+	protected static final String REQUEST_OBJECT_POOL = "request-object-pool";
+
+  /**
+   * The output cache key request attribute of a page which output is not
+   * cached yet: &nbsp; "<tt>click-output-cache-key</tt>".
+   */
+	protected static final String OUTPUT_CACHE_KEY = "click-output-cache-key";
+
   /** The click application configuration service instance. Same as in ServletContext */
   @Getter protected ConfigService configService;
 
@@ -132,6 +180,21 @@ public class ClickServlet extends HttpServlet {
   /** The application resource service. */
   protected ResourceService resourceService;
 
+  /** The streaming template rendering flush threshold in bytes, or 0 if streaming rendering is disabled. */
+  protected int renderStreamBuffer;
+
+  /** True if streaming rendering flushes the response after the page <tt>&lt;/head&gt;</tt>. */
+  protected boolean renderFlushHead = true;
+
+  /** The recycled ActionEventDispatchers, or null if request object pooling is disabled. */
+  protected BlockingQueue<ActionEventDispatcher> dispatcherPool;
+
+  /** The recycled ControlRegistries, or null if request object pooling is disabled. */
+  protected BlockingQueue<ControlRegistry> registryPool;
+
+  /** The page and control output cache, or null if output caching is disabled (see {@link OutputCache#OUTPUT_CACHE_SIZE}). */
+  @Getter protected OutputCache outputCache;
+
   /**
    * Initialize the Click servlet and the Velocity runtime.
    *
@@ -154,6 +217,20 @@ public class ClickServlet extends HttpServlet {
 
       resourceService = configService.getResourceService();
 
+      renderStreamBuffer = (int) ClickUtils.parseLong(getServletContext().getInitParameter(RENDER_STREAM_BUFFER), 0);
+      renderFlushHead = !"false".equalsIgnoreCase(ClickUtils.trim(getServletContext().getInitParameter(RENDER_FLUSH_HEAD)));
+
+      int poolSize = (int) ClickUtils.parseLong(getServletContext().getInitParameter(REQUEST_OBJECT_POOL), 0);
+      if (poolSize > 0){
+        dispatcherPool = new ArrayBlockingQueue<>(poolSize);
+        registryPool = new ArrayBlockingQueue<>(poolSize);
+      }
+
+      long outputCacheSize = ClickUtils.parseLong(getServletContext().getInitParameter(OutputCache.OUTPUT_CACHE_SIZE), 0);
+      if (outputCacheSize > 0){
+        outputCache = new OutputCache(outputCacheSize);
+      }
+
     } catch (Throwable e){
       // In mock mode this exception can occur if click.xml is not available.
       if (getServletContext().getAttribute(MOCK_MODE_ENABLED) != null){
@@ -188,6 +265,10 @@ public class ClickServlet extends HttpServlet {
     } finally {
       // Dereference the application config service
       configService = null;
+      if (outputCache != null) {
+        outputCache.invalidateAll();
+      }
+      FormatterRegistry.clear();
     }
     super.destroy();
   }
@@ -265,17 +346,26 @@ public class ClickServlet extends HttpServlet {
 
     // Handle click page requests
     Page page = null;
+    Context context = null;
+    ActionEventDispatcher eventDispatcher = null;
+    ControlRegistry controlRegistry = null;
     try {
 
-      ActionEventDispatcher eventDispatcher = createActionEventDispatcher();
+      eventDispatcher = dispatcherPool != null ? dispatcherPool.poll() : null;
+      if (eventDispatcher == null) {
+        eventDispatcher = createActionEventDispatcher();
+      }
       // Bind ActionEventDispatcher to current thread
       ActionEventDispatcher.pushThreadLocalDispatcher(eventDispatcher);
 
-      ControlRegistry controlRegistry = createControlRegistry();
+      controlRegistry = registryPool != null ? registryPool.poll() : null;
+      if (controlRegistry == null) {
+        controlRegistry = createControlRegistry();
+      }
       // Bind ControlRegistry to current thread
       ControlRegistry.pushThreadLocalRegistry(controlRegistry);
 
-      Context context = createContext(request, response, isPost);
+      context = createContext(request, response, isPost);
       // Bind context to current thread
       Context.pushThreadLocalContext(context);
 
@@ -324,12 +414,31 @@ public class ClickServlet extends HttpServlet {
           processPageOnDestroy(page, startTime);
         }
       } finally {
+        if (context != null && context.isMultipartRequest()) {
+          // Release uploaded files which were not moved by the page
+          try {
+            configService.getFileUploadService().releaseFileItems(context.getFileItemMap());
+          } catch (RuntimeException e) {
+            logger.error("handleRequest: releaseFileItems", e);
+          }
+        }
         // Only clear the context when running in normal mode.
         if (request.getAttribute(MOCK_MODE_ENABLED) == null) {
           Context.clearThreadLocalContext();
         }
         ControlRegistry.popThreadLocalRegistry();
         ActionEventDispatcher.popThreadLocalDispatcher();
+        // Release the thread's formats, which pin the webapp class loader
+        FormatterRegistry.clear();
+
+        if (dispatcherPool != null && eventDispatcher != null) {
+          eventDispatcher.recycle();
+          dispatcherPool.offer(eventDispatcher);
+        }
+        if (registryPool != null && controlRegistry != null) {
+          controlRegistry.recycle();
+          registryPool.offer(controlRegistry);
+        }
       }
     }
   }
@@ -474,6 +583,10 @@ public class ClickServlet extends HttpServlet {
 
     boolean continueProcessing = performOnSecurityCheck(page, context);
 
+    if (continueProcessing && !errorOccurred && renderCachedPage(page, context)) {
+      return;
+    }
+
     ActionResult actionResult = null;
     if (continueProcessing && !errorOccurred) {
       // Handle page method
@@ -521,6 +634,61 @@ public class ClickServlet extends HttpServlet {
     return continueProcessing;
   }
 
+  /**
+   * Write the cached output of the given {@link OutputCached} page to the
+   * response and return true, skipping the page events, model and template
+   * rendering, or return false if the page output is not cached.
+   * <p/>
+   * If the page output can be cached but is not cached yet, the cache key is
+   * set as the {@link #OUTPUT_CACHE_KEY} request attribute, so
+   * {@link #renderTemplate(Page)} stores the rendered template.
+   * <p/>
+   * The cached output keeps the ETag of the {@link Page#getETagVersion() page version}
+   * it was rendered for, as the page events which may compute the version are
+   * skipped. Otherwise the ETag is computed from the cached output if the page
+   * <tt>ETag</tt> header is {@link Page#ETAG_AUTO}.
+   *
+   * @param page the page which output to write
+   * @param context the request context
+   * @return true if the cached page output was written, false otherwise
+   * @throws IOException if an input or output exception occurred
+   */
+  protected boolean renderCachedPage(Page page, Context context) throws IOException {
+    if (outputCache == null) {
+      return false;
+    }
+    context.getRequest().removeAttribute(OUTPUT_CACHE_KEY);// set by a page forwarding to this page
+
+    OutputCache.Key key = outputCache.getPageKey(page);
+    if (key == null) {
+      return false;
+    }
+    OutputCache.Entry entry = outputCache.get(key);
+    if (entry == null) {
+      context.setRequestAttribute(OUTPUT_CACHE_KEY, key);
+      return false;
+    }
+
+    HttpServletResponse response = context.getResponse();
+    response.setContentType(entry.contentType());
+    response.setCharacterEncoding(entry.characterEncoding());
+    setPageResponseHeaders(response, entry.headers());
+
+    if (entry.etag() != null) {
+      setETagHeader(response, entry.etag());
+      if (isNotModified(context.getRequest(), entry.etag())) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+      }
+    }
+    writeContent(context, entry.content(), entry.etag() == null && isAutoETag(entry.headers()));
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("renderCachedPage: " + page.getPath());
+    }
+    return true;
+  }
+
   /**
    * Perform the page action for the given page and return the action result.
    *
@@ -601,7 +769,7 @@ public class ClickServlet extends HttpServlet {
       for (Control control : controls) {
         int initialListenerCount = 0;
         if (logger.isTraceEnabled()) {
-          initialListenerCount = eventDispatcher.getEventSourceList().size();
+          initialListenerCount = eventDispatcher.getActionEventCount();
         }
 
         boolean onProcessResult = control.onProcess();
@@ -616,7 +784,7 @@ public class ClickServlet extends HttpServlet {
               + controlClassName + ".onProcess() : " + onProcessResult;
           logger.trace(msg);
 
-          if (initialListenerCount != eventDispatcher.getEventSourceList().size()) {
+          if (initialListenerCount != eventDispatcher.getActionEventCount()) {
             logger.trace("   listener was registered while processing control");
           }
         }
@@ -628,7 +796,8 @@ public class ClickServlet extends HttpServlet {
 
         if (logger.isTraceEnabled()) {
           String msg = "   invoked: Control listeners : "
-              + continueProcessing;
+              + continueProcessing + " (" + eventDispatcher.getFiredEventCount()
+              + " events, " + eventDispatcher.getListenerNanos() / 1000 + " µs)";
           logger.trace(msg);
         }
       }
@@ -796,6 +965,13 @@ public class ClickServlet extends HttpServlet {
    * then merges the template with the Context writing the result to the
    * HTTP servlet response.
    * <p/>
+   * If the page returns a {@link Page#getETagVersion() version}, a GET
+   * request which <tt>If-None-Match</tt> header matches the version ETag is
+   * answered with <tt>304 Not Modified</tt> before the template model is
+   * created. If the page <tt>ETag</tt> header is {@link Page#ETAG_AUTO},
+   * the template is rendered into a buffer and the ETag is computed from the
+   * rendered content.
+   * <p/>
    * This method was adapted from org.apache.velocity.servlet.VelocityServlet.
    *
    * @param page the page template to merge
@@ -805,8 +981,6 @@ public class ClickServlet extends HttpServlet {
 
     long startTime = System.currentTimeMillis();
 
-    final Map<String, Object> model = createTemplateModel(page);
-
     Context context = page.getContext();
     HttpServletResponse response = context.getResponse();
 
@@ -814,13 +988,49 @@ public class ClickServlet extends HttpServlet {
 
     response.setCharacterEncoding(page.getCharacterEncoding());
 
-    Writer writer = getWriter(response);
-
     if (page.hasHeaders()) {
       setPageResponseHeaders(response, page.getHeaders());
     }
 
-    configService.getTemplateService().renderTemplate(page, model, writer);
+    String version = context.isGet() ? page.getETagVersion() : null;
+    String etag = null;
+    if (version != null) {
+      etag = createETag(version);
+      setETagHeader(response, etag);
+      if (isNotModified(context.getRequest(), etag)) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        if (logger.isDebugEnabled()) {
+          logger.debug("renderTemplate: " + page.getPath() + " not modified " + etag);
+        }
+        return;
+      }
+    }
+
+    final Map<String, Object> model = createTemplateModel(page);
+
+    boolean autoETag = version == null && context.isGet() && page.hasHeaders() && isAutoETag(page.getHeaders());
+    OutputCache.Key cacheKey = outputCache != null
+        && context.getRequestAttribute(OUTPUT_CACHE_KEY) instanceof OutputCache.Key key ? key : null;
+
+    if (autoETag || cacheKey != null) {
+      StringWriter output = new StringWriter(8192);
+      configService.getTemplateService().renderTemplate(page, model, output);
+      String content = output.toString();
+      if (cacheKey != null && response.getStatus() == HttpServletResponse.SC_OK) {
+        outputCache.putPage(cacheKey, page, content, etag);// not error pages, e.g. a 404 set by onGet()
+      }
+      writeContent(context, content, autoETag);
+
+    } else {
+      Writer writer = getTemplateWriter(response);
+      boolean rendered = false;
+      try {
+        configService.getTemplateService().renderTemplate(page, model, writer);
+        rendered = true;
+      } finally {
+        releaseTemplateWriter(writer, rendered);
+      }
+    }
 
     if (!configService.isProductionMode()) {
       HtmlStringBuffer buffer = new HtmlStringBuffer(50);
@@ -840,6 +1050,91 @@ public class ClickServlet extends HttpServlet {
     }
   }
 
+  /**
+   * Write the rendered page content to the response. If <tt>autoETag</tt> is
+   * true, the weak ETag of the content is sent and a request which
+   * <tt>If-None-Match</tt> header matches it is answered with
+   * <tt>304 Not Modified</tt> without the content.
+   *
+   * @param context the request context
+   * @param content the rendered page content
+   * @param autoETag true if the ETag of the content is sent
+   * @throws IOException if an input or output exception occurred
+   */
+  protected void writeContent(Context context, String content, boolean autoETag) throws IOException {
+    HttpServletResponse response = context.getResponse();
+
+    if (autoETag) {
+      String etag = createETag(content);
+      setETagHeader(response, etag);
+      if (isNotModified(context.getRequest(), etag)) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+      }
+    }
+
+    Writer writer = getTemplateWriter(response);
+    boolean written = false;
+    try {
+      writer.write(content);
+      written = true;
+    } finally {
+      releaseTemplateWriter(writer, written);
+    }
+  }
+
+  /**
+   * Return the weak ETag of the given page version or content: the first
+   * 128 bits of its SHA-256 hash.
+   *
+   * @param value the page version or rendered content
+   * @return the weak ETag of the value
+   */
+  protected String createETag(String value) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + '"';
+  }
+
+  /**
+   * Set the ETag response header. As a response which may not be stored can
+   * not be revalidated, a <tt>no-store</tt> Cache-Control header, such as
+   * the default page headers, is replaced by <tt>private, no-cache</tt>.
+   *
+   * @param response the servlet response
+   * @param etag the ETag of the page
+   */
+  protected void setETagHeader(HttpServletResponse response, String etag) {
+    response.setHeader("ETag", etag);
+
+    String cacheControl = response.getHeader("Cache-Control");
+    if (cacheControl != null && cacheControl.contains("no-store")) {
+      response.setHeader("Cache-Control", "private, no-cache");
+    }
+  }
+
+  /**
+   * Return true if the request <tt>If-None-Match</tt> header matches the
+   * given ETag.
+   *
+   * @param request the servlet request
+   * @param etag the ETag of the page
+   * @return true if a 304 Not Modified response should be sent
+   */
+  protected boolean isNotModified(HttpServletRequest request, String etag) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    return ifNoneMatch != null && ClickResourceService.etagMatches(ifNoneMatch, etag);
+  }
+
+  static boolean isAutoETag(Map<String, Object> headers) {
+    return Page.ETAG_AUTO.equals(headers.get("ETag"));
+  }
+
   /**
    * Render the given page as a JSP to the response.
    *
@@ -1170,41 +1465,37 @@ public class ClickServlet extends HttpServlet {
    * fields with the same name which are "primitive" types. These types
    * include string, numbers and booleans.
    * <p/>
-   * Type conversion is performed using the <tt>TypeConverter</tt>
-   * of the <tt>PropertyService</tt>.
+   * Type conversion is performed by the precomputed converters of the page
+   * {@link PageBinding}, falling back to the <tt>TypeConverter</tt>
+   * of the <tt>PropertyService</tt> for other types and unparsable values.
    *
    * @param page the page whose fields are to be processed
    */
   protected void processPageRequestParams (Page page) {
-    if (configService.getPageFields(page.getClass()).isEmpty()){
+    PageBinding binding = configService.getPageBinding(page.getClass());
+    if (binding == null || !binding.hasRequestParamAccessors()){
       return;
     }
-    ConfigService configService = ClickUtils.getConfigService();
     PropertyService propertyService = configService.getPropertyService();
     HttpServletRequest request = page.getContext().getRequest();
 
     for (Enumeration<?> e = request.getParameterNames(); e.hasMoreElements();) {
       String name = e.nextElement().toString();
+
+      FieldAccessor accessor = binding.getRequestParamAccessor(name);
+      if (accessor == null) {
+        continue;
+      }
       String value = request.getParameter(name);
 
       if (StringUtils.isNotBlank(value)) {
+        // Precomputed conversion, or the PropertyService TypeConverter for anything else
+        if (!accessor.setRequestParam(page, value)) {
+          propertyService.setValue(page, name, value);
+        }
 
-        Field field = configService.getPageField(page.getClass(), name);
-
-        if (field != null) {
-          Class<?> type = field.getType();
-
-          if (type.isPrimitive()
-              || String.class.isAssignableFrom(type)
-              || Number.class.isAssignableFrom(type)
-              || Boolean.class.isAssignableFrom(type)) {
-
-            propertyService.setValue(page, name, value);
-
-            if (logger.isTraceEnabled()){
-              logger.trace("   auto bound variable: " + name + "=" + value);
-            }
-          }
+        if (logger.isTraceEnabled()){
+          logger.trace("   auto bound variable: " + name + "=" + value);
         }
       }
     }
@@ -1332,6 +1623,9 @@ public class ClickServlet extends HttpServlet {
       Object value = entry.getValue();
 
       if (value instanceof String strValue) {
+        if ("ETag".equalsIgnoreCase(name) && Page.ETAG_AUTO.equals(strValue)) {
+          continue;// computed from the rendered page, see writeContent
+        }
         if (!strValue.equalsIgnoreCase("Content-Encoding")) {
           response.setHeader(name, strValue);
         }
@@ -1842,19 +2136,14 @@ public class ClickServlet extends HttpServlet {
    */
   void processPageFields(Page page, FieldCallback callback) {
 
-    Field[] fields = configService.getPageFieldArray(page.getClass());
+    PageBinding binding = configService.getPageBinding(page.getClass());
 
-    if (fields != null) {
-      for (Field field : fields) {
-        try {
-          Object fieldValue = field.get(page);
+    if (binding != null) {
+      for (FieldAccessor accessor : binding.getAccessors()) {
+        Object fieldValue = accessor.get(page);
 
-          if (fieldValue != null) {
-            callback.processField(field.getName(), fieldValue);
-          }
-
-        } catch (Exception e) {
-          throw new RuntimeException(e);
+        if (fieldValue != null) {
+          callback.processField(accessor.getName(), fieldValue);
         }
       }
     }
@@ -1876,6 +2165,56 @@ public class ClickServlet extends HttpServlet {
     }
   }
 
+  /**
+   * Retrieve the writer the page template is rendered to.
+   * <p/>
+   * If streaming rendering is enabled (see {@link #RENDER_STREAM_BUFFER}) and
+   * the response character encoding is UTF-8, this method returns the thread
+   * confined {@link Utf8StreamWriter} writing directly to the response output
+   * stream. Otherwise the {@link #getWriter(HttpServletResponse) response writer}
+   * is returned.
+   *
+   * @param response the servlet response
+   * @return the template writer
+   * @throws IOException if an input or output exception occurred
+   */
+  protected Writer getTemplateWriter (HttpServletResponse response) throws IOException {
+    if (renderStreamBuffer > 0 && isUtf8(response.getCharacterEncoding())) {
+      try {
+        return Utf8StreamWriter.acquire(response.getOutputStream(), renderStreamBuffer, renderFlushHead);
+      } catch (IllegalStateException ignore) {
+        // getWriter() has already been called, e.g. by a Page.onRender
+      }
+    }
+    return getWriter(response);
+  }
+
+  /**
+   * Release the writer returned by {@link #getTemplateWriter(HttpServletResponse)}.
+   * <p/>
+   * The streaming {@link Utf8StreamWriter} is flushed if the page was
+   * rendered. Otherwise its buffered output is discarded, so the response is
+   * not committed by the partial page and the error page can still be
+   * rendered. The container writer is left to the container.
+   *
+   * @param writer the template writer
+   * @param rendered true if the page was rendered, false if rendering failed
+   * @throws IOException if an input or output exception occurred
+   */
+  protected void releaseTemplateWriter (Writer writer, boolean rendered) throws IOException {
+    if (writer instanceof Utf8StreamWriter streamWriter) {
+      if (rendered) {
+        streamWriter.close();// flush and release the thread writer, the stream stays open
+      } else {
+        streamWriter.discard();
+      }
+    }
+  }
+
+  static boolean isUtf8 (String charset) {
+    return "UTF-8".equalsIgnoreCase(charset) || "UTF8".equalsIgnoreCase(charset);
+  }
+
   /**
    * Return a PrintWriter instance for the given response.
    *
@@ -98,6 +98,9 @@ public class ControlRegistry {
   /** The thread local registry holder. */
   private static final ThreadLocal<ControlRegistry> THREAD_LOCAL_REGISTRY_STACK = new ThreadLocal<>();
 
+  /** The maximum size of the collections kept by a recycled registry. */
+  static final int MAX_RECYCLED_SIZE = 256;
+
 
   /** The set of Ajax target controls. */
   Set<Control> ajaxTargetControls;
@@ -217,6 +220,21 @@ public class ControlRegistry {
     }
   }
 
+  /**
+   * Reset this registry to its initial state for reuse by another request,
+   * keeping the allocated collections unless they grew large.
+   */
+  void recycle() {
+    if (ajaxTargetControls != null && ajaxTargetControls.size() > MAX_RECYCLED_SIZE) {
+      ajaxTargetControls = null;
+    }
+    if (interceptors != null && interceptors.size() > MAX_RECYCLED_SIZE) {
+      interceptors = null;
+    }
+    clear();
+    prev = null;
+  }
+
   /**
    * Register the AJAX target control.
    *
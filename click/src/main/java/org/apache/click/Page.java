@@ -142,6 +142,20 @@ public class Page implements Serializable {
    */
 	public static final String PAGE_ACTION = "pageAction";
 
+  /**
+   * The <tt>ETag</tt> header value which enables ETags computed from the
+   * rendered page: &nbsp; "<tt>auto</tt>".
+   * <p/>
+   * If the page <tt>ETag</tt> header is set to this value, e.g. with
+   * <tt>setHeader("ETag", Page.ETAG_AUTO)</tt> or the global
+   * <tt>headers</tt> configuration <tt>ETag=auto</tt>, the ClickServlet
+   * renders the page template into a buffer, sends a weak ETag of the
+   * rendered content and answers matching <tt>If-None-Match</tt> GET
+   * requests with <tt>304 Not Modified</tt> without the response body.
+   * See also {@link #getETagVersion()}.
+   */
+  public static final String ETAG_AUTO = "auto";
+
   // Instance Variables -----------------------------------------------------
 
   /** The list of page controls. */
@@ -453,6 +467,31 @@ public class Page implements Serializable {
     return "text/html";
   }
 
+  /**
+   * Return the version of the page output, or null if the page has no
+   * version. By default this method returns null.
+   * <p/>
+   * If this method returns a version for a GET request, the ClickServlet
+   * sends a weak <tt>ETag</tt> computed from the version and answers the
+   * requests which <tt>If-None-Match</tt> header matches it with
+   * <tt>304 Not Modified</tt>, without creating the template model or
+   * rendering the template. The version must change whenever the page
+   * output changes, for example:
+   *
+   * <pre class="prettyprint">
+   * public String getETagVersion() {
+   *     return catalog.getLastModified() + "-" + getContext().getLocale();
+   * } </pre>
+   *
+   * This method is invoked after the <tt>onRender()</tt> method, and only if
+   * the page template is rendered.
+   *
+   * @return the version of the page output, or null
+   */
+  public String getETagVersion() {
+    return null;
+  }
+
   /**
    * Return the Velocity template formatter object.
    * <p/>
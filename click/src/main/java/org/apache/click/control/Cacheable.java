@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.click.control;
+
+/**
+ * Provides an interface for controls which rendered output can be cached.
+ * <p/>
+ * When a template renders a cacheable control, e.g. <tt>$menu</tt>, the
+ * control output is stored in the application
+ * {@link org.apache.click.service.OutputCache} under the control class, the
+ * page path, the request locale and the {@link #getCacheKey() cache key}, and
+ * reused by the following requests until its {@link #getCacheTtl() time to live}
+ * expires.
+ * The output of the control is not cached when it is rendered by its parent
+ * container or by a JSP.
+ * <p/>
+ * The cache key must identify everything the control output depends on
+ * besides the page and the locale, e.g. the selected item and the user roles
+ * of a menu.
+ */
+public interface Cacheable {
+
+  /**
+   * Return the key of the control output, or null if the output must not
+   * be cached for this request.
+   *
+   * @return the cache key of the control output, or null
+   */
+  Object getCacheKey();
+
+  /**
+   * Return the time to live of the cached output in seconds, default 60.
+   *
+   * @return the time to live in seconds
+   */
+  default int getCacheTtl() {
+    return 60;
+  }
+}
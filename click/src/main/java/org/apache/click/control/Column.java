@@ -1444,10 +1444,29 @@ public class Column implements Serializable {
       Object value1 = column.getProperty(row1);
       Object value2 = column.getProperty(row2);
 
+      return compareValues(value1, null, value2, null, ascendingSort);
+    }
+
+    /**
+     * Compare the given column values. String values are compared token by
+     * token, see {@link #stringCompare(Object, Object)}.
+     *
+     * @param value1 the first value to compare
+     * @param tokens1 the precomputed {@link #tokens(Object) tokens} of value1 or null
+     * @param value2 the second value to compare
+     * @param tokens2 the precomputed tokens of value2 or null
+     * @param ascendingSort 1 for an ascending sort, -1 for a descending sort
+     * @return the comparison result
+     */
+    protected int compareValues(Object value1, String[] tokens1, Object value2, String[] tokens2, int ascendingSort) {
       if (value1 instanceof Comparable && value2 instanceof Comparable) {
 
         if (value1 instanceof String || value2 instanceof String) {
-          return stringCompare(value1, value2)  * ascendingSort;
+          if (tokens1 == null && tokens2 == null) {
+            return stringCompare(value1, value2) * ascendingSort;
+          }
+          return compareTokens(tokens1 != null ? tokens1 : tokens(value1),
+              tokens2 != null ? tokens2 : tokens(value2)) * ascendingSort;
 
         } else {
 
@@ -1482,20 +1501,36 @@ public class Column implements Serializable {
      * @return the string comparison result
      */
     protected int stringCompare(Object value1, Object value2) {
-      String string1 = value1.toString().trim();
-      String string2 = value2.toString().trim();
-
-      StringTokenizer st1 = new StringTokenizer(string1);
-      StringTokenizer st2 = new StringTokenizer(string2);
-
-      String token1;
-      String token2;
+      return compareTokens(tokens(value1), tokens(value2));
+    }
 
-      while (st1.hasMoreTokens()) {
-        token1 = st1.nextToken();
+    /**
+     * Return the whitespace separated tokens of the trimmed value string.
+     *
+     * @param value the value to tokenize
+     * @return the value tokens
+     */
+    static String[] tokens(Object value) {
+      StringTokenizer st = new StringTokenizer(value.toString().trim());
+      String[] tokens = new String[st.countTokens()];
+      for (int i = 0; i < tokens.length; i++) {
+        tokens[i] = st.nextToken();
+      }
+      return tokens;
+    }
 
-        if (st2.hasMoreTokens()) {
-          token2 = st2.nextToken();
+    /**
+     * Perform a token by token comparison of two string values.
+     *
+     * @param tokens1 the tokens of the first value
+     * @param tokens2 the tokens of the second value
+     * @return the comparison result
+     */
+    protected int compareTokens(String[] tokens1, String[] tokens2) {
+      for (int i = 0; i < tokens1.length; i++) {
+        if (i < tokens2.length) {
+          String token1 = tokens1[i];
+          String token2 = tokens2[i];
 
           int comp;
 
@@ -3,11 +3,17 @@ package org.apache.click.control;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.click.Context;
+import org.apache.click.service.StreamedFileItem;
 import org.apache.click.util.HtmlStringBuffer;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serial;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.text.MessageFormat;
 
 /**
@@ -28,6 +34,11 @@ import java.text.MessageFormat;
  * and {@link org.apache.click.service.CommonsFileUploadService#fileSizeMax maximum file size}
  * by configuring {@link org.apache.click.service.CommonsFileUploadService}.
  * <p/>
+ * With the {@link org.apache.click.service.StreamingFileUploadService} files
+ * are streamed into files while the request is parsed; read them with
+ * {@link #getInputStream()} or {@link #getChannel()}, or move them with
+ * <tt>getFileItem().write(file)</tt>.
+ * <p/>
  * Note Browsers enforce the JavaScript <tt>value</tt> property as readonly
  * to prevent script based stealing of users files.
  * <p/>
@@ -167,6 +178,39 @@ public class FileField extends Field {
     return fileItem;
   }
 
+  /**
+   * Return a new stream reading the uploaded file content, or null if no file
+   * was uploaded. The stream must be closed by the caller.
+   *
+   * @return a new stream reading the uploaded content or null
+   * @throws IOException if the uploaded content cannot be read
+   */
+  @Nullable public InputStream getInputStream() throws IOException {
+    return fileItem != null ? fileItem.getInputStream() : null;
+  }
+
+  /**
+   * Return a new channel reading the uploaded file content, or null if no
+   * file was uploaded. The channel must be closed by the caller.
+   * <p/>
+   * Files received by the {@link org.apache.click.service.StreamingFileUploadService}
+   * are read through a {@link java.nio.channels.FileChannel}, which can
+   * {@link java.nio.channels.FileChannel#transferTo transfer} the content
+   * without copying it through the heap.
+   *
+   * @return a new channel reading the uploaded content or null
+   * @throws IOException if the uploaded content cannot be read
+   */
+  @Nullable public ReadableByteChannel getChannel() throws IOException {
+    if (fileItem == null) {
+      return null;
+    }
+    if (fileItem instanceof StreamedFileItem streamedFileItem) {
+      return streamedFileItem.getChannel();
+    }
+    return Channels.newChannel(fileItem.getInputStream());
+  }
+
 
   /**
    * Return the input type: '<tt>file</tt>'.
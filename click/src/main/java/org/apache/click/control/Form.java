@@ -9,7 +9,8 @@ import org.apache.click.element.CssImport;
 import org.apache.click.element.Element;
 import org.apache.click.element.JsImport;
 import org.apache.click.service.FileUploadService;
-import org.apache.click.service.LogService;
+import org.apache.click.service.SessionSubmitTokenService;
+import org.apache.click.service.SubmitTokenService;
 import org.apache.click.util.ClickUtils;
 import org.apache.click.util.ContainerUtils;
 import org.apache.click.util.HtmlStringBuffer;
@@ -26,7 +27,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.UUID;
 
 /**
  Provides a Form control: &nbsp; &lt;form method='post'&gt;.
@@ -2055,8 +2055,9 @@ public class Form extends AbstractContainer implements Stateful {
    submit is valid this method will return true, otherwise set the page to
    redirect to the given redirectPath and return false.
    <p/>
-   This method will add a token to the user's session and a hidden field
-   to the form to validate future submits.
+   This method will add a token to the user's session (see
+   {@link SubmitTokenService}) and a hidden field to the form to validate
+   future submits.
    <p/>
    Form submit checks should be performed before the pages controls are
    processed in the Page onSecurityCheck method. For example:
@@ -2100,8 +2101,9 @@ public class Form extends AbstractContainer implements Stateful {
    is valid this method will return true, otherwise set the page to
    redirect to the given Page class and return false.
    <p/>
-   This method will add a token to the user's session and a hidden field
-   to the form to validate future submits.
+   This method will add a token to the user's session (see
+   {@link SubmitTokenService}) and a hidden field to the form to validate
+   future submits.
    <p/>
    Form submit checks should be performed before the pages controls are
    processed in the Page onSecurityCheck method. For example:
@@ -2152,8 +2154,9 @@ public class Form extends AbstractContainer implements Stateful {
    is valid this method will return true, otherwise the given listener
    object and method will be invoked.
    <p/>
-   This method will add a token to the users session and a hidden field
-   to the form to validate future submit's.
+   This method will add a token to the user's session (see
+   {@link SubmitTokenService}) and a hidden field to the form to validate
+   future submits.
    <p/>
    Form submit checks should be performed before the pages controls are
    processed in the Page onSecurityCheck method. For example:
@@ -2345,7 +2348,8 @@ public class Form extends AbstractContainer implements Stateful {
   /**
    Perform a back button submit check, returning true if the request is
    valid or false otherwise. This method will add a submit check token
-   to the form as a hidden field, and to the session.
+   to the form as a hidden field, and to the session unless the application
+   {@link SubmitTokenService} is stateless.
 
    @return true if the submit is OK or false otherwise
    */
@@ -2375,6 +2379,7 @@ public class Form extends AbstractContainer implements Stateful {
     final HttpServletRequest request = context.getRequest();
     final String submitTokenName =
         SUBMIT_CHECK + getName() + resourcePath;
+    final SubmitTokenService submitTokenService = getSubmitTokenService(context);
 
     boolean isValidSubmit = true;
 
@@ -2386,27 +2391,8 @@ public class Form extends AbstractContainer implements Stateful {
         && request.getMethod().equalsIgnoreCase(getMethod())
         && getName().equals(formName)){
 
-      String submitToken =
-          (String) context.getSessionAttribute(submitTokenName);
-
-      if (submitToken != null){
-        String value = context.getRequestParameter(submitTokenName);
-        if (value == null || value.length() == 0){
-          // CLK-289. If a session attribute exists for the
-          // SUBMIT_CHECK, but no request parameter, we assume the
-          // submission is a duplicate and therefore invalid.
-          LogService logService = ClickUtils.getLogService();
-          logService.warn("    'Redirect After Post' token called '"
-              + submitTokenName + "' is registered in the session, "
-              + "but no matching request parameter was found. "
-              + "(form name: '" + getName()
-              + "'). To protect against a 'duplicate post', "
-              + "Form.onSubmitCheck() will return false.");
-          isValidSubmit = false;
-        } else {
-          isValidSubmit = submitToken.equals(value);
-        }
-      }
+      String value = context.getRequestParameter(submitTokenName);
+      isValidSubmit = submitTokenService.isValidToken(context, submitTokenName, value);
     }
 
     // CLK-267: check against adding a duplicate field
@@ -2417,16 +2403,25 @@ public class Form extends AbstractContainer implements Stateful {
       insertIndexOffset++;
     }
 
-    // Save state info to form and session
-    final String submitToken = UUID.randomUUID().toString();
-    field.setValueObject(submitToken);
-
-    context.setSessionAttribute(submitTokenName, submitToken);
+    // Save state info to form (and session)
+    field.setValueObject(submitTokenService.createToken(context, submitTokenName));
 
     return isValidSubmit;
   }
 
 
+  /**
+   Return the application submit token service of the given request context.
+
+   @param context the request context
+   @return the application submit token service
+   */
+  static SubmitTokenService getSubmitTokenService (Context context) {
+    SubmitTokenService submitTokenService = ClickUtils.getConfigService(context.getServletContext()).getSubmitTokenService();
+    return submitTokenService != null ? submitTokenService : SessionSubmitTokenService.DEFAULT;
+  }
+
+
   /**
    Return the estimated rendered form size in characters.
 
@@ -8,6 +8,7 @@ import org.apache.click.Control;
 import org.apache.click.Stateful;
 import org.apache.click.dataprovider.DataProvider;
 import org.apache.click.dataprovider.PagingDataProvider;
+import org.apache.click.dataprovider.StreamingDataProvider;
 import org.apache.click.element.CssImport;
 import org.apache.click.element.CssStyle;
 import org.apache.click.element.Element;
@@ -24,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Provides a HTML Table control: &lt;table&gt;.
@@ -92,7 +95,9 @@ import java.util.StringTokenizer;
  * from. DataProviders are used to provide data on demand to controls. For very
  * <tt>large data sets</tt> use a {@link org.apache.click.dataprovider.PagingDataProvider}
  * instead. See the section <a href="#large-datasets">large data sets</a> for
- * details.
+ * details. A {@link org.apache.click.dataprovider.StreamingDataProvider} can
+ * stream all rows (e.g. from a database cursor) while the Table only keeps
+ * the rows of the current page.
  *
  * <h3><a name="resources"></a>CSS and JavaScript resources</h3>
  *
@@ -450,6 +455,12 @@ public class Table extends AbstractControl implements Stateful {
    */
   protected List rowList;
 
+  /**
+   * True if the {@link #rowList} only holds the rows of the current page,
+   * streamed from a {@link StreamingDataProvider}.
+   */
+  protected boolean rowListWindowed;
+
   /**
    * The show table banner flag detailing number of rows and current rows
    * displayed.
@@ -1117,6 +1128,21 @@ public class Table extends AbstractControl implements Stateful {
     return rowList;
   }
 
+  /**
+   * Return true if the table row list only holds the rows of the current
+   * page, as loaded by a {@link PagingDataProvider} or streamed from a
+   * {@link StreamingDataProvider}. The rows of a windowed list are indexed
+   * from 0 instead of {@link #getFirstRow()}.
+   * <p/>
+   * The row list is loaded if it has not been already.
+   *
+   * @return true if the table row list only holds the current page rows
+   */
+  public boolean isRowListWindowed() {
+    getRowList();
+    return getDataProvider() instanceof PagingDataProvider || rowListWindowed;
+  }
+
   /**
    * Set the list of table rows. Each row can either be a value object
    * (JavaBean) or an instance of a <tt>Map</tt>.
@@ -1132,6 +1158,7 @@ public class Table extends AbstractControl implements Stateful {
    */
   public void setRowList(List rowList) {
     this.rowList = rowList;
+    this.rowListWindowed = false;
     if (this.rowList == null) {
       this.rowCount = 0;
     } else {
@@ -1651,7 +1678,10 @@ public class Table extends AbstractControl implements Stateful {
 
     List<Object> rowList;
 
-    if (dp != null) {
+    if (dp instanceof StreamingDataProvider<?> streamingDataProvider) {
+      return createStreamingRowList(streamingDataProvider);
+
+    } else if (dp != null) {
 
       boolean isPaginating = dp instanceof PagingDataProvider<?>;
 
@@ -1702,6 +1732,43 @@ public class Table extends AbstractControl implements Stateful {
     return rowList;
   }
 
+  /**
+   * Create a new table row list from the stream of the given data provider.
+   * <p/>
+   * If a {@link #setPageSize(int) page size} is set only the rows of the
+   * current page are kept, from {@link #getFirstRow()} to {@link #getLastRow()}:
+   * the other rows are only counted. If the table is sorted by a column, the
+   * rows are sorted while streaming and at most <tt>getLastRow()</tt> rows
+   * are kept. Without page size all rows are kept.
+   *
+   * @param dataProvider the streaming data provider
+   * @return a new table row list
+   */
+  protected List<Object> createStreamingRowList(StreamingDataProvider<?> dataProvider) {
+    try (Stream<?> stream = dataProvider.stream()) {
+      if (getPageSize() <= 0) {
+        List<Object> rows = stream.collect(Collectors.toCollection(ArrayList::new));
+        this.rowCount = rows.size();
+        return rows;
+      }
+
+      Column sortColumn = null;
+      if (!isSorted() && StringUtils.isNotBlank(getSortedColumn())) {
+        sortColumn = getColumns().get(getSortedColumn());
+      }
+      int firstRow = getFirstRow();
+      TableSorter.Window window = TableSorter.window(stream.iterator(), sortColumn, isSortedAscending(),
+          firstRow, firstRow + getPageSize());
+
+      this.rowCount = window.count();
+      this.rowListWindowed = true;
+      if (sortColumn != null) {
+        setSorted(true);
+      }
+      return window.rows();
+    }
+  }
+
   /**
    * Render the table header row of column names.
    *
@@ -1749,7 +1816,7 @@ public class Table extends AbstractControl implements Stateful {
     int firstRow = 0;
     int lastRow;
 
-    if (getDataProvider() instanceof PagingDataProvider) {
+    if (isRowListWindowed()) {
       lastRow = getRowList().size();
     } else {
       firstRow = getFirstRow();
@@ -2119,6 +2186,9 @@ public class Table extends AbstractControl implements Stateful {
   /**
    * The default row list sorting method, which will sort the row list based
    * on the selected column if the row list is not already sorted.
+   * <p/>
+   * The column value of each row is read once and the rows are sorted by
+   * these precomputed values, in parallel for large row lists.
    */
   @SuppressWarnings("unchecked")
   protected void sortRowList() {
@@ -2126,7 +2196,7 @@ public class Table extends AbstractControl implements Stateful {
 
       Column column = getColumns().get(getSortedColumn());
 
-      getRowList().sort(column.getComparator());
+      TableSorter.sort(getRowList(), column, isSortedAscending());
 
       setSorted(true);
     }
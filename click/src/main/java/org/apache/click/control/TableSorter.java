@@ -0,0 +1,173 @@
+package org.apache.click.control;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Provides the row list sorting of {@link Table}.
+ * <p/>
+ * For columns with the default {@link Column.ColumnComparator} the sort value
+ * of each row is read once (instead of twice per comparison) together with the
+ * tokens of String values, the rows are sorted by these precomputed keys
+ * (with {@link Arrays#parallelSort(Object[], Comparator)} for
+ * {@link #PARALLEL_THRESHOLD} rows or more) and written back to the row list
+ * in sorted order. The order is the same as sorting with the ColumnComparator.
+ * <p/>
+ * Columns with a custom comparator are sorted with the comparator.
+ * <p/>
+ * {@link #window(Iterator, Column, boolean, int, int)} selects the rows of
+ * the current page from streamed rows without retaining the other rows.
+ */
+final class TableSorter {
+  /** The number of rows from which the rows are sorted in parallel. */
+  static final int PARALLEL_THRESHOLD = 8192;
+
+  private TableSorter (){}
+
+  /**
+   * Sort the row list by the given column.
+   *
+   * @param rowList the rows to sort in place
+   * @param column the column to sort by
+   * @param ascending true for ascending order
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static void sort (List rowList, Column column, boolean ascending){
+    Comparator comparator = column.getComparator();
+    if (comparator == null || comparator.getClass() != Column.ColumnComparator.class){
+      rowList.sort(comparator);
+      return;
+    }
+    int size = rowList.size();
+    if (size < 2){
+      return;
+    }
+    Key[] keys = keys(rowList, column);
+    Comparator<Key> keyComparator = keyComparator(column, ascending);
+    if (size >= PARALLEL_THRESHOLD){
+      Arrays.parallelSort(keys, keyComparator);
+    } else {
+      Arrays.sort(keys, keyComparator);
+    }
+
+    ListIterator it = rowList.listIterator();
+    for (Key key : keys){
+      it.next();
+      it.set(key.row);
+    }
+  }
+
+  /**
+   * Return the comparator of the row keys: the ColumnComparator comparison of
+   * the precomputed values or the custom column comparator of the rows.
+   */
+  @SuppressWarnings("unchecked")
+  static Comparator<Key> keyComparator (Column column, boolean ascending){
+    Comparator<Object> comparator = column.getComparator();
+    if (comparator instanceof Column.ColumnComparator columnComparator && comparator.getClass() == Column.ColumnComparator.class){
+      int ascendingSort = ascending ? 1 : -1;
+      return (k1, k2)->columnComparator.compareValues(k1.value, k1.tokens, k2.value, k2.tokens, ascendingSort);
+    }
+    return (k1, k2)->comparator.compare(k1.row, k2.row);
+  }
+
+  /**
+   * Consume the rows and return the rows from index <tt>first</tt> (inclusive)
+   * to <tt>last</tt> (exclusive), sorted by the given column if not null. Only
+   * the window rows (or with sorting, the <tt>last</tt> smallest rows) are
+   * retained while consuming the rows.
+   *
+   * @param rows the rows to consume
+   * @param column the column to sort by or null
+   * @param ascending true for ascending order
+   * @param first the index of the first row to return
+   * @param last the index after the last row to return
+   * @return the row window and the total number of rows
+   */
+  static Window window (Iterator<?> rows, @Nullable Column column, boolean ascending, int first, int last){
+    List<Object> window = new ArrayList<>(Math.max(Math.min(last - first, 1024), 0));
+    int count = 0;
+    if (column == null){
+      while (rows.hasNext()){
+        Object row = rows.next();
+        if (count >= first && count < last){
+          window.add(row);
+        }
+        count++;
+      }
+      return new Window(window, count);
+    }
+
+    // keep the "last" smallest rows: max heap on (key, encounter order) for a stable result
+    boolean precompute = column.getComparator().getClass() == Column.ColumnComparator.class;
+    Comparator<Key> keyComparator = keyComparator(column, ascending);
+    Comparator<Key> stable = (k1, k2)->{
+      int c = keyComparator.compare(k1, k2);
+      return c != 0 ? c : Long.compare(k1.seq, k2.seq);
+    };
+    PriorityQueue<Key> heap = new PriorityQueue<>(Math.max(Math.min(last, 1024), 1), stable.reversed());
+    while (rows.hasNext()){
+      Object row = rows.next();
+      Key key = new Key(row, precompute ? column.getProperty(row) : null);
+      key.seq = count++;
+      if (key.value instanceof String){
+        key.tokens = Column.ColumnComparator.tokens(key.value);
+      }
+      if (heap.size() < last){
+        heap.add(key);
+      } else if (last > 0 && stable.compare(key, heap.peek()) < 0){
+        heap.poll();
+        heap.add(key);
+      }
+    }
+    Key[] keys = heap.toArray(new Key[0]);
+    Arrays.sort(keys, stable);
+    for (int i = first; i < keys.length; i++){
+      window.add(keys[i].row);
+    }
+    return new Window(window, count);
+  }
+
+  /** The rows of a window and the total number of rows. */
+  record Window (List<Object> rows, int count) {}
+
+  /** Extract the sort keys: the column value and the String tokens of each row. */
+  static Key[] keys (List<?> rowList, Column column){
+    Key[] keys = new Key[rowList.size()];
+    boolean hasString = false;
+    int i = 0;
+    for (Object row : rowList){
+      Object value = column.getProperty(row);
+      keys[i++] = new Key(row, value);
+      hasString |= value instanceof String;
+    }
+    if (hasString){// tokens are compared whenever one of the values is a String
+      for (Key key : keys){
+        if (key.value instanceof Comparable){
+          key.tokens = Column.ColumnComparator.tokens(key.value);
+        }
+      }
+    }
+    return keys;
+  }
+
+  /** The precomputed sort key of a row. */
+  static final class Key {
+    final Object row;
+    final Object value;
+    String[] tokens;
+    /** The encounter order of a streamed row. */
+    long seq;
+
+    Key (Object row, Object value){
+      this.row = row;
+      this.value = value;
+    }//new
+  }//Key
+}
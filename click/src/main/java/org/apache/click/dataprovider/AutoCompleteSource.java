@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.click.dataprovider;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Provides the suggestions of auto-complete controls, such as
+ * <tt>AutoCompleteTextField</tt> and <tt>JQAutoCompleteBehavior</tt>, with a
+ * result cache in front of the application data source.
+ * <p/>
+ * The suggestions are loaded by a loader function, for example a database
+ * query, or by an in-memory prefix index (see {@link #of(Collection, int, Duration)}).
+ * Criteria are trimmed and lower cased, the loader is called with the
+ * normalized criteria and must return at most {@link #getLimit() limit}
+ * suggestions matching them according to the source {@link Match}.
+ * <p/>
+ * The source minimizes the loader calls of a user typing:
+ * <ul>
+ * <li>results are cached per criteria for the time to live of the source</li>
+ * <li>concurrent identical queries are coalesced: only the first caller loads
+ * the result, the others wait for it</li>
+ * <li>results are refined incrementally: if the cached result of a shorter
+ * criteria has fewer than <tt>limit</tt> suggestions it holds all matches, so
+ * the result of a longer criteria is filtered from it without loading</li>
+ * </ul>
+ * Sources are thread safe and are usually shared by all users, e.g. held in
+ * a static field:
+ *
+ * <pre class="prettyprint">
+ * private static final AutoCompleteSource&lt;String&gt; CUSTOMERS = new AutoCompleteSource&lt;&gt;(
+ *     criteria -&gt; getCustomerService().getCustomerNamesLike(criteria, 10),
+ *     AutoCompleteSource.Match.CONTAINS, 10, Duration.ofMinutes(5));
+ *
+ * AutoCompleteTextField nameField = new AutoCompleteTextField("name");
+ * nameField.setAutoCompleteSource(CUSTOMERS); </pre>
+ *
+ * The result cache is keyed by criteria only: suggestions which depend on the
+ * user or on other request parameters need one source per user or parameter
+ * value.
+ *
+ * @param <T> the type of the suggestions
+ */
+public class AutoCompleteSource<T> {
+
+    /** The way suggestions match criteria, used to refine cached results. */
+    public enum Match {
+        /** The suggestion text starts with the criteria. */
+        PREFIX,
+        /** The suggestion text contains the criteria. */
+        CONTAINS;
+
+        /**
+         * Return true if the given lower case suggestion text matches the
+         * criteria.
+         *
+         * @param text the lower case suggestion text
+         * @param criteria the normalized criteria
+         * @return true if the text matches the criteria
+         */
+        public boolean matches(String text, String criteria) {
+            return this == PREFIX ? text.startsWith(criteria) : text.contains(criteria);
+        }
+    }
+
+    /** The default maximum number of cached results. */
+    public static final long DEFAULT_CACHE_SIZE = 10_000;
+
+    /** The suggestion loader. */
+    private final Function<String, ? extends List<? extends T>> loader;
+
+    /** The way suggestions match criteria. */
+    private final Match match;
+
+    /** The maximum number of suggestions. */
+    private final int limit;
+
+    /** The suggestion text, matched against the criteria. */
+    private final Function<? super T, String> text;
+
+    /** The cached results by normalized criteria. */
+    private final Cache<String, Result<T>> results;
+
+    /**
+     * Create a source of the suggestions loaded by the given loader, matching
+     * suggestions by their <tt>toString()</tt> text.
+     *
+     * @param loader the loader of the suggestions of a normalized criteria
+     * @param match the way the loaded suggestions match the criteria
+     * @param limit the maximum number of suggestions
+     * @param timeToLive the time to live of cached results
+     */
+    public AutoCompleteSource(@NonNull Function<String, ? extends List<? extends T>> loader,
+        @NonNull Match match, int limit, @NonNull Duration timeToLive) {
+        this(loader, match, limit, timeToLive, DEFAULT_CACHE_SIZE, String::valueOf);
+    }
+
+    /**
+     * Create a source of the suggestions loaded by the given loader.
+     *
+     * @param loader the loader of the suggestions of a normalized criteria
+     * @param match the way the loaded suggestions match the criteria
+     * @param limit the maximum number of suggestions
+     * @param timeToLive the time to live of cached results
+     * @param cacheSize the maximum number of cached results
+     * @param text the suggestion text matched against the criteria
+     */
+    public AutoCompleteSource(@NonNull Function<String, ? extends List<? extends T>> loader,
+        @NonNull Match match, int limit, @NonNull Duration timeToLive, long cacheSize,
+        @NonNull Function<? super T, String> text) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        this.loader = loader;
+        this.match = match;
+        this.limit = limit;
+        this.text = text;
+        this.results = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(timeToLive)
+            .build();
+    }
+
+    /**
+     * Create a source of the given values, using an in-memory prefix index.
+     * The values are ranked by their iteration order, e.g. by popularity: the
+     * suggestions of a prefix are the first <tt>limit</tt> values which text
+     * starts with the prefix.
+     *
+     * @param values the values in rank order
+     * @param limit the maximum number of suggestions
+     * @param timeToLive the time to live of cached results
+     * @param <T> the type of the values
+     * @return a new source of the values
+     */
+    public static <T> AutoCompleteSource<T> of(Collection<? extends T> values, int limit, Duration timeToLive) {
+        PrefixIndex<T> index = new PrefixIndex<>(values, String::valueOf, limit);
+        return new AutoCompleteSource<>(index::find, Match.PREFIX, limit, timeToLive);
+    }
+
+    // Public Methods ---------------------------------------------------------
+
+    /**
+     * Return the suggestions of the given criteria, from the result cache,
+     * refined from the cached result of a shorter criteria or loaded.
+     *
+     * @param criteria the auto-complete criteria, e.g. the field value
+     * @return the unmodifiable list of suggestions, at most {@link #getLimit()}
+     */
+    public List<T> getAutoCompleteList(String criteria) {
+        String key = normalize(criteria);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return results.get(key, this::refineOrLoad).items;
+    }
+
+    /**
+     * Return the maximum number of suggestions.
+     *
+     * @return the maximum number of suggestions
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Return the way suggestions match criteria.
+     *
+     * @return the way suggestions match criteria
+     */
+    public Match getMatch() {
+        return match;
+    }
+
+    /**
+     * Remove all cached results, e.g. after the underlying data changed.
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    /**
+     * Return the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public long size() {
+        results.cleanUp();
+        return results.estimatedSize();
+    }
+
+    // Protected Methods ------------------------------------------------------
+
+    /**
+     * Return the normalized criteria: trimmed and lower cased.
+     *
+     * @param criteria the criteria
+     * @return the normalized criteria
+     */
+    protected String normalize(String criteria) {
+        return criteria == null ? "" : criteria.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Private Methods --------------------------------------------------------
+
+    private Result<T> refineOrLoad(String criteria) {
+        for (int length = criteria.length() - 1; length > 0; length--) {
+            Result<T> shorter = results.getIfPresent(criteria.substring(0, length));
+            if (shorter != null && shorter.complete) {
+                List<T> refined = new ArrayList<>(shorter.items.size());
+                for (T item : shorter.items) {
+                    if (match.matches(text.apply(item).toLowerCase(Locale.ROOT), criteria)) {
+                        refined.add(item);
+                    }
+                }
+                return new Result<>(Collections.unmodifiableList(refined), true);
+            }
+        }
+
+        List<? extends T> loaded = loader.apply(criteria);
+        if (loaded == null) {
+            loaded = Collections.emptyList();
+        }
+        boolean complete = loaded.size() < limit;
+        List<T> items = new ArrayList<>(loaded.subList(0, Math.min(limit, loaded.size())));
+        return new Result<>(Collections.unmodifiableList(items), complete);
+    }
+
+    // Inner Classes ----------------------------------------------------------
+
+    /**
+     * A cached result: the suggestions and whether they are all the matches of
+     * the criteria.
+     */
+    private record Result<T>(List<T> items, boolean complete) {}
+
+    /**
+     * Provides an in-memory prefix index: the values sorted by lower case text,
+     * searched by binary search, with the top ranked matches selected from the
+     * prefix range.
+     *
+     * @param <T> the type of the values
+     */
+    static final class PrefixIndex<T> {
+
+        private final String[] keys;
+        private final int[] ranks;
+        private final List<T> values;
+        private final int limit;
+
+        PrefixIndex(Collection<? extends T> values, Function<? super T, String> text, int limit) {
+            this.values = new ArrayList<>(values);
+            this.limit = limit;
+            int size = this.values.size();
+            Integer[] order = new Integer[size];
+            String[] texts = new String[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+                texts[i] = text.apply(this.values.get(i)).toLowerCase(Locale.ROOT);
+            }
+            Arrays.sort(order, Comparator.comparing((Integer i) -> texts[i]).thenComparingInt(i -> i));
+            keys = new String[size];
+            ranks = new int[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = texts[order[i]];
+                ranks[i] = order[i];
+            }
+        }
+
+        /**
+         * Return the top ranked values which text starts with the given prefix.
+         *
+         * @param prefix the normalized prefix
+         * @return the values in rank order, at most <tt>limit</tt>
+         */
+        List<T> find(String prefix) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            int count = to - from;
+            int[] selected;
+            if (count <= limit) {
+                selected = Arrays.copyOfRange(ranks, from, to);
+            } else {
+                // keep the limit best ranks, the worst kept rank on top
+                PriorityQueue<Integer> top = new PriorityQueue<>(limit, Comparator.reverseOrder());
+                for (int i = from; i < to; i++) {
+                    if (top.size() < limit) {
+                        top.add(ranks[i]);
+                    } else if (ranks[i] < top.peek()) {
+                        top.poll();
+                        top.add(ranks[i]);
+                    }
+                }
+                selected = top.stream().mapToInt(Integer::intValue).toArray();
+            }
+            Arrays.sort(selected);
+            List<T> found = new ArrayList<>(selected.length);
+            for (int rank : selected) {
+                found.add(values.get(rank));
+            }
+            return found;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.click.dataprovider;
+
+import java.util.stream.Stream;
+
+/**
+ * An interface to provide data on demand to controls as a {@link Stream},
+ * for example a database cursor, which is consumed once and closed.
+ * <p/>
+ * Controls supporting streaming only retain the rows they render: a
+ * {@link org.apache.click.control.Table} counts all rows of the stream but
+ * only keeps the rows between {@link org.apache.click.control.Table#getFirstRow()}
+ * and {@link org.apache.click.control.Table#getLastRow()}. If the table is
+ * sorted by a column, at most <tt>getLastRow()</tt> rows are kept while the
+ * stream is consumed.
+ * <p/>
+ * Example usage:
+ *
+ * <pre class="prettyprint">
+ * public class MyPage extends Page {
+ *
+ *     private Table table = new Table("table");
+ *
+ *     public MyPage() {
+ *
+ *         ...
+ *
+ *         table.setDataProvider(new StreamingDataProvider&lt;Customer&gt;() {
+ *
+ *             // Return a stream of customers, closed by the table
+ *             public Stream&lt;Customer&gt; stream() {
+ *
+ *                 return getCustomerService().streamCustomers();
+ *             }
+ *         });
+ *     }
+ * } </pre>
+ */
+public interface StreamingDataProvider<T> extends DataProvider<T> {
+
+    /**
+     * Return a new stream of the data items supplied by the data provider.
+     * The caller closes the stream.
+     *
+     * @return a new stream of the data items
+     */
+    Stream<T> stream();
+
+    /**
+     * Return the data items of a new {@link #stream()}. Please note the
+     * iterator does not close the stream: controls supporting streaming use
+     * {@link #stream()} directly.
+     *
+     * @return the iterable collection of data items supplied by the data provider.
+     */
+    @Override
+    default Iterable<T> getData() {
+        return () -> stream().iterator();
+    }
+}
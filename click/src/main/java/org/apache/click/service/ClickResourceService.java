@@ -1,6 +1,8 @@
 package org.apache.click.service;
 
-import lombok.NonNull;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.click.util.ClickUtils;
 
@@ -8,11 +10,27 @@ import javax.annotation.Nullable;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Provides a default Click static resource service class. This class will
@@ -22,14 +40,54 @@ import java.util.concurrent.ConcurrentHashMap;
  * <p/>
  * This service is useful for application servers which do not allow Click to
  * automatically deploy resources to the web root directory.
+ *
+ * <h3>Caching</h3>
+ * In production and profile modes loaded resources are kept in a bounded,
+ * size weighted cache (init parameter <tt>resource-cache-size</tt> in bytes,
+ * default 64 MB). Each cached resource carries its precomputed MIME type, a
+ * strong <tt>ETag</tt> (content hash) and <tt>Last-Modified</tt> time, so
+ * browser revalidations (<tt>If-None-Match</tt>, <tt>If-Modified-Since</tt>)
+ * are answered with <tt>304 Not Modified</tt> and no body.
+ * <p/>
+ * Compressible resources are stored with a gzip variant (init parameter
+ * <tt>resource-gzip</tt>, default true). Pre-compressed <tt>.br</tt> and
+ * <tt>.gz</tt> files found next to a resource are served to clients
+ * accepting those encodings.
+ * <p/>
+ * Large resources available as files (exploded WAR or <tt>META-INF/resources</tt>
+ * folders on the classpath) are memory-mapped instead of being read onto the
+ * heap. Mapped resources count with their full size towards the cache size,
+ * and are reloaded when their file changes, e.g. during a redeployment.
+ * <p/>
+ * In development mode resources available as files are cached too, and
+ * reloaded when their last modified time or size changes.
  */
 @Slf4j
 public class ClickResourceService implements ResourceService {
-  /** The click resources CACHE !!! CACHE !!!. */
-  final Map<String, byte[]> resourceCache = new ConcurrentHashMap<>();
+  /** The resource cache size init parameter name: &nbsp; "<tt>resource-cache-size</tt>". */
+  public static final String RESOURCE_CACHE_SIZE = "resource-cache-size";
+
+  /** The resource gzip variant init parameter name: &nbsp; "<tt>resource-gzip</tt>". */
+  public static final String RESOURCE_GZIP = "resource-gzip";
+
+  /** The default resource cache size in bytes. */
+  static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+  /** Resource files of this size or larger are memory-mapped. */
+  static final long MAPPED_FILE_THRESHOLD = 256 * 1024;
+
+  /** Resources smaller than this are not worth compressing. */
+  static final int COMPRESS_MIN_SIZE = 1024;
+
+  /** The click resources CACHE !!! CACHE !!!. Weighted by the heap and mapped bytes of each resource. */
+  Cache<String,StaticResource> resourceCache;
+
   /** The application configuration service. */
   private ConfigService configService;
 
+  /** True if a gzip variant is created for compressible resources. */
+  private boolean gzipEnabled = true;
+
   /**
    * @see ResourceService#onInit(ServletContext)
    *
@@ -39,6 +97,14 @@ public class ClickResourceService implements ResourceService {
   @Override
 	public void onInit (ServletContext servletContext) throws IOException {
     configService = ClickUtils.getConfigService(servletContext);
+
+    long cacheSize = ClickUtils.parseLong(servletContext.getInitParameter(RESOURCE_CACHE_SIZE), DEFAULT_CACHE_SIZE);
+    gzipEnabled = !"false".equalsIgnoreCase(ClickUtils.trim(servletContext.getInitParameter(RESOURCE_GZIP)));
+
+    resourceCache = Caffeine.newBuilder()
+        .maximumWeight(cacheSize)
+        .weigher((String path, StaticResource resource)->resource.getWeight())
+        .build();
   }
 
   /**
@@ -46,7 +112,9 @@ public class ClickResourceService implements ResourceService {
    */
   @Override
 	public void onDestroy (){
-    resourceCache.clear();
+    if (resourceCache != null){
+      resourceCache.invalidateAll();
+    }
   }
 
   /**
@@ -74,12 +142,18 @@ public class ClickResourceService implements ResourceService {
 	public void renderResource (HttpServletRequest request, HttpServletResponse response) throws IOException {
     String resourcePath = ClickUtils.getResourcePath(request);
 
-    byte[] resourceData = resourceCache.get(resourcePath);
+    StaticResource resource = resourceCache.getIfPresent(resourcePath);
+
+    if (resource != null && (resource.getMapped() != null || !isCacheMode()) && resource.isModified()){
+      // edited or redeployed file: never serve stale content or a truncated mapping
+      resourceCache.invalidate(resourcePath);
+      resource = null;
+    }
 
-    if (resourceData == null){// Lazily load resource
-      resourceData = loadResourceData(resourcePath);
+    if (resource == null){// Lazily load resource
+      resource = loadResource(resourcePath);
 
-      if (resourceData == null){
+      if (resource == null){
         response.sendError(HttpServletResponse.SC_NOT_FOUND);
 				if (log.isDebugEnabled())
 					log.debug("handleRequest: NOT FOUND {} {} → {}", request.getMethod(), request.getRequestURL(), resourcePath);
@@ -87,103 +161,414 @@ public class ClickResourceService implements ResourceService {
       }
     }
 
-    String mimeType = ClickUtils.getMimeType(resourcePath);
+    // Select the representation: brotli, gzip or identity
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    byte[] body = null;
+    String contentEncoding = null;
+    String etag = resource.getEtag();
+    if (resource.getBrotli() != null && acceptsEncoding(acceptEncoding, "br")){
+      body = resource.getBrotli();
+      contentEncoding = "br";
+      etag = variantEtag(etag, contentEncoding);
+    } else if (resource.getGzip() != null && acceptsEncoding(acceptEncoding, "gzip")){
+      body = resource.getGzip();
+      contentEncoding = "gzip";
+      etag = variantEtag(etag, contentEncoding);
+    }
+
+    response.setHeader("ETag", etag);
+    if (resource.getLastModified() > 0){
+      response.setDateHeader("Last-Modified", resource.getLastModified());
+    }
+    if (resource.hasVariants()){
+      response.setHeader("Vary", "Accept-Encoding");
+    }
+
+    if (isNotModified(request, etag, resource.getLastModified())){
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      if (log.isDebugEnabled())
+        log.debug("handleRequest: NOT MODIFIED {} {} → {} {}", request.getMethod(), request.getRequestURL(), resourcePath, etag);
+      return;
+    }
+
+    String mimeType = resource.getMimeType();
     if (mimeType != null){
       response.setContentType(mimeType);
     }
+    if (contentEncoding != null){
+      response.setHeader("Content-Encoding", contentEncoding);
+    }
 
     if (log.isDebugEnabled())
-      log.debug("handleRequest: {} {} → {}:{} L:{}", request.getMethod(), request.getRequestURL(), resourcePath, mimeType, resourceData.length);
-    // renderResource(response, resourceData)
+      log.debug("handleRequest: {} {} → {}:{} L:{} {}", request.getMethod(), request.getRequestURL(), resourcePath, mimeType,
+          resource.getLength(), contentEncoding != null ? contentEncoding : "");
+
     OutputStream outputStream = null;
     try {
-      response.setContentLength(resourceData.length);
       outputStream = response.getOutputStream();
-      outputStream.write(resourceData);
+
+      if (body != null){
+        response.setContentLength(body.length);
+        outputStream.write(body);
+
+      } else if (resource.getMapped() != null){
+        response.setContentLengthLong(resource.getLength());
+        ByteBuffer buffer = resource.getMapped().duplicate();// thread confined position
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        try {
+          while (buffer.hasRemaining()){
+            channel.write(buffer);
+          }
+        } catch (InternalError e){// the file was truncated while it was written
+          resourceCache.invalidate(resourcePath);
+          throw new IOException("renderResource: mapped file changed: " + resourcePath, e);
+        }
+
+      } else {
+        response.setContentLength(resource.getData().length);
+        outputStream.write(resource.getData());
+      }
     } finally {
       ClickUtils.flush(outputStream);
     }
   }
 
+  /**
+   * Return true if the request validators match the current representation:
+   * <tt>If-None-Match</tt> against the ETag or, if absent,
+   * <tt>If-Modified-Since</tt> against the last modified time.
+   *
+   * @param request the servlet resource request
+   * @param etag the ETag of the selected representation
+   * @param lastModified the resource last modified time or 0 if unknown
+   * @return true if a 304 Not Modified response should be sent
+   */
+  protected boolean isNotModified (HttpServletRequest request, String etag, long lastModified) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null){
+      return etagMatches(ifNoneMatch, etag);
+    }
+    if (lastModified > 0){
+      try {
+        long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        // HTTP dates have a one second resolution
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+      } catch (IllegalArgumentException ignore){}// malformed date → full response
+    }
+    return false;
+  }
+
+  /**
+   * Return true if the If-None-Match header value matches the given ETag
+   * (weak comparison as required for If-None-Match).
+   *
+   * @param ifNoneMatch the If-None-Match header value
+   * @param etag the current ETag
+   * @return true if the header matches the ETag
+   */
+  public static boolean etagMatches (String ifNoneMatch, String etag) {
+    String value = ifNoneMatch.trim();
+    if ("*".equals(value)){
+      return true;
+    }
+    String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+    int start = 0;
+    while (start < value.length()){
+      int end = value.indexOf(',', start);
+      if (end < 0){
+        end = value.length();
+      }
+      String candidate = value.substring(start, end).trim();
+      if (candidate.startsWith("W/")){
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals(opaque)){
+        return true;
+      }
+      start = end + 1;
+    }
+    return false;
+  }
+
+  /**
+   * Return true if the Accept-Encoding header accepts the given encoding
+   * (with a non zero quality).
+   *
+   * @param acceptEncoding the Accept-Encoding header value or null
+   * @param encoding the content coding, e.g. "gzip"
+   * @return true if the encoding is accepted
+   */
+  static boolean acceptsEncoding (@Nullable String acceptEncoding, String encoding) {
+    if (acceptEncoding == null){
+      return false;
+    }
+    for (String token : acceptEncoding.split(",")){
+      String coding = token;
+      String quality = null;
+      int semicolon = token.indexOf(';');
+      if (semicolon >= 0){
+        coding = token.substring(0, semicolon);
+        quality = token.substring(semicolon + 1).trim();
+      }
+      if (coding.trim().equalsIgnoreCase(encoding)){
+        return quality == null || !quality.matches("q\\s*=\\s*0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  /** "abc" + gzip → "abc-gzip" */
+  static String variantEtag (String etag, String encoding) {
+    return etag.substring(0, etag.length() - 1) + '-' + encoding + '"';
+  }
+
   /**
    * Store the resource under the given resource path.
 
-   * ! Only cache in production/profile mode !
+   * ! Only cache in production/profile mode, or files which changes are detected !
    *
    * @param resourcePath the path to store the resource under
-   * @param data the resource byte array
+   * @param resource the loaded resource
    */
-  private void storeResourceData (String resourcePath, @Nullable byte[] data){
-    if (data != null && (configService.isProductionMode() || configService.isProfileMode())){
-      resourceCache.put(resourcePath, data);
+  private void storeResource (String resourcePath, StaticResource resource){
+    if (isCacheMode() || resource.getFile() != null){
+      resourceCache.put(resourcePath, resource);
     }
   }
 
+  /** Return true if all the loaded resources are cached: production or profile mode. */
+  private boolean isCacheMode (){
+    return configService.isProductionMode() || configService.isProfileMode();
+  }
+
   /**
    * Load the resource for the given resourcePath. This method will load the
    * resource from the servlet context, and if not found, load it from the
    * classpath under the folder 'META-INF/resources'.
    *
    * @param resourcePath the path to the resource to load
-   * @return the resource as a byte array
+   * @return the loaded resource or null if not found
    */
   @Nullable
-	private byte[] loadResourceData(String resourcePath) {
+	private StaticResource loadResource (String resourcePath) {
     ServletContext servletContext = configService.getServletContext();
 
-		byte[]resourceData = getServletResourceData(servletContext, resourcePath);
-    if (resourceData != null){
-      storeResourceData(resourcePath, resourceData);
+    URL url = getServletResource(servletContext, resourcePath);
+    boolean servletResource = url != null;
+    if (url == null){
+      url = ClickUtils.getResource("META-INF/resources" + resourcePath, getClass());
+    }
+    if (url == null){
+      return null;
+    }
+
+    try {
+      StaticResource resource = createResource(resourcePath, url, servletResource
+          ? servletContext.getRealPath(resourcePath)
+          : null);
+      storeResource(resourcePath, resource);
+      return resource;
+
+    } catch (IOException e){
+      log.warn("loadResource: failed to read {} @ {}", resourcePath, url, e);
+      return null;
+    }
+  }
+
+  /**
+   * Create the static resource from the given URL: read or map the content,
+   * compute the ETag and the compressed variants.
+   *
+   * @param resourcePath the resource path
+   * @param url the resource URL
+   * @param realPath the servlet context real path of the resource or null
+   * @return the static resource
+   * @throws IOException if the resource can't be read
+   */
+  StaticResource createResource (String resourcePath, URL url, @Nullable String realPath) throws IOException {
+    String mimeType = ClickUtils.getMimeType(resourcePath);
+
+    Path file = toFile(url, realPath);
+    if (file != null && !file.toFile().isFile()){
+      file = null;
+    }
+    // the file time is read first, so a change while loading is detected by isModified
+    long fileModified = file != null ? file.toFile().lastModified() : 0;
+
+    if (file != null && file.toFile().length() >= MAPPED_FILE_THRESHOLD){
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return new StaticResource(null, mapped, file, mimeType, fileModified,
+            loadVariant(url, ".br"), loadVariant(url, ".gz"));
+      }
+    }
 
-    } else {
-      resourceData = getClasspathResourceData("META-INF/resources" + resourcePath);
+    byte[] data;
+    long lastModified;
+    URLConnection connection = url.openConnection();
+    try (InputStream inputStream = connection.getInputStream()){
+      data = inputStream.readAllBytes();// ~ IOUtils.toByteArray(inputStream)
+      lastModified = file != null ? fileModified : connection.getLastModified();
+    }
 
-      if (resourceData != null) {
-        storeResourceData(resourcePath, resourceData);
+    byte[] gzip = loadVariant(url, ".gz");
+    if (gzip == null && gzipEnabled && isCompressible(mimeType) && data.length >= COMPRESS_MIN_SIZE){
+      gzip = gzip(data);
+      if (gzip.length >= data.length){
+        gzip = null;// not worth it
       }
     }
-    return resourceData;
+    return new StaticResource(data, null, file, mimeType, lastModified, loadVariant(url, ".br"), gzip);
   }
 
   /**
-   * Load the resource for the given resourcePath from the servlet context.
+   * Return true if resources of the given MIME type benefit from compression.
    *
-   * @param servletContext the application servlet context
-   * @param resourcePath the path of the resource to load
-   * @return the byte array for the given resource path
+   * @param mimeType the resource MIME type or null
+   * @return true if the MIME type is compressible
+   */
+  protected boolean isCompressible (@Nullable String mimeType) {
+    return mimeType != null && (mimeType.startsWith("text/")
+        || mimeType.contains("javascript")
+        || mimeType.contains("json")
+        || mimeType.contains("xml")
+        || mimeType.equals("image/x-icon")
+        || mimeType.equals("image/vnd.microsoft.icon"));
+  }
+
+  /**
+   * Load the pre-compressed variant of the resource, e.g. <tt>/click/control.js.br</tt>
+   * next to <tt>/click/control.js</tt>.
+   *
+   * @param url the resource URL
+   * @param suffix the variant suffix: ".br" or ".gz"
+   * @return the variant bytes or null if no variant exists
    */
   @Nullable
-	private byte[] getServletResourceData (ServletContext servletContext, String resourcePath) {
-    InputStream inputStream = null;
+  private static byte[] loadVariant (URL url, String suffix) {
     try {
-      inputStream = servletContext.getResourceAsStream(resourcePath);// with starting /
-			if (inputStream == null){ return null; }
-			return inputStream.readAllBytes();// ~ IOUtils.toByteArray(inputStream)
-		} catch (IOException e){
-			log.warn("getServletResourceData: failed to read WEB-INF {} @ {}", resourcePath, servletContext, e);
-			return null;
-    } finally {
-      ClickUtils.close(inputStream);
+      URL variant = new URL(url, url.getPath().substring(url.getPath().lastIndexOf('/') + 1) + suffix);
+      try (InputStream inputStream = variant.openStream()){
+        return inputStream.readAllBytes();
+      }
+    } catch (IOException ignore){// FileNotFoundException: no variant
+      return null;
     }
   }
 
+  @Nullable
+  private static Path toFile (URL url, @Nullable String realPath) {
+    if (realPath != null){
+      return Paths.get(realPath);
+    }
+    if ("file".equals(url.getProtocol())){
+      try {
+        return Paths.get(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException ignore){}
+    }
+    return null;
+  }
+
+  static byte[] gzip (byte[] data) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 3 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bos, 8192)){
+      gzip.write(data);
+    }
+    return bos.toByteArray();
+  }
+
   /**
-   * Load the resource for the given resourcePath from the classpath.
+   * Return the URL of the resource from the servlet context.
    *
+   * @param servletContext the application servlet context
    * @param resourcePath the path of the resource to load
-   * @return the byte array for the given resource path
+   * @return the resource URL or null
    */
   @Nullable
-	private byte[] getClasspathResourceData (@NonNull String resourcePath) {
-		InputStream inputStream = ClickUtils.getResourceAsStream(resourcePath, getClass());
-    if (inputStream == null){ return null; }
-		try {
-			return inputStream.readAllBytes();// ~ IOUtils.toByteArray(inputStream)
+	private static URL getServletResource (ServletContext servletContext, String resourcePath) {
+    try {
+      return servletContext.getResource(resourcePath);// with starting /
 		} catch (IOException e){
-			log.warn("getClasspathResourceData: failed to read classpath {}", resourcePath, e);
+			log.warn("getServletResource: failed to find {} @ {}", resourcePath, servletContext, e);
 			return null;
-    } finally {
-      ClickUtils.close(inputStream);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Provides a loaded static resource: its content (heap bytes or a memory
+   * mapping), precomputed MIME type, strong ETag and compressed variants.
+   */
+  static final class StaticResource {
+    /** The resource content or null if memory-mapped. */
+    @Getter @Nullable private final byte[] data;
+    /** The memory-mapped resource content or null. */
+    @Getter @Nullable private final MappedByteBuffer mapped;
+    /** The resource file or null if the resource is not available as a file, e.g. in a jar. */
+    @Getter @Nullable private final Path file;
+    @Getter @Nullable private final String mimeType;
+    /** The strong ETag of the identity representation. */
+    @Getter private final String etag;
+    @Getter private final long lastModified;
+    @Getter private final long length;
+    @Getter @Nullable private final byte[] brotli;
+    @Getter @Nullable private final byte[] gzip;
+
+    StaticResource (@Nullable byte[] data, @Nullable MappedByteBuffer mapped, @Nullable Path file,
+        @Nullable String mimeType, long lastModified, @Nullable byte[] brotli, @Nullable byte[] gzip) {
+      this.data = data;
+      this.mapped = mapped;
+      this.file = file;
+      this.mimeType = mimeType;
+      this.lastModified = lastModified;
+      this.brotli = brotli;
+      this.gzip = gzip;
+      length = data != null ? data.length : mapped.capacity();
+      etag = computeEtag(data, mapped);
+    }//new
+
+    boolean hasVariants (){
+      return brotli != null || gzip != null;
+    }
+
+    /**
+     * Return true if the resource file was modified, truncated or deleted
+     * since the resource was loaded. Resources without a file are never modified.
+     */
+    boolean isModified (){
+      if (file == null){
+        return false;
+      }
+      File f = file.toFile();
+      return f.lastModified() != lastModified || f.length() != length;
+    }
+
+    /** The heap and mapped bytes held by this resource. */
+    int getWeight (){
+      long weight = 64 + length
+          + (brotli != null ? brotli.length : 0)
+          + (gzip != null ? gzip.length : 0);
+      return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    static String computeEtag (@Nullable byte[] data, @Nullable ByteBuffer mapped) {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e){
+        throw new IllegalStateException(e);
+      }
+      if (data != null){
+        digest.update(data);
+      } else {
+        digest.update(mapped.duplicate());
+      }
+      byte[] hash = digest.digest();
+      return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + '"';
+    }
+
+    @Override public String toString (){
+      return "StaticResource[" + mimeType + ",length=" + length + ",etag=" + etag
+          + (mapped != null ? ",mapped" : "") + (gzip != null ? ",gzip" : "") + (brotli != null ? ",br" : "") + "]";
+    }
+  }
+}
@@ -150,6 +150,42 @@ public interface ConfigService {
    */
   TemplateService getTemplateService();
 
+  /**
+   * Return the application store of the {@link org.apache.click.Stateful}
+   * control state.
+   * <p/>
+   * The default implementation returns the shared {@link SessionStateStore}.
+   *
+   * @return the application state store
+   */
+  default StateStore getStateStore (){
+    return SessionStateStore.DEFAULT;
+  }
+
+  /**
+   * Return the application codec of the objects encoded by
+   * {@link org.apache.click.util.ClickUtils#encode(Object) ClickUtils.encode}.
+   * <p/>
+   * The default implementation returns the shared {@link DeflaterObjectCodec}.
+   *
+   * @return the application object codec
+   */
+  default ObjectCodec getObjectCodec (){
+    return DeflaterObjectCodec.DEFAULT;
+  }
+
+  /**
+   * Return the application service of the
+   * {@link org.apache.click.control.Form} submit check tokens.
+   * <p/>
+   * The default implementation returns the shared {@link SessionSubmitTokenService}.
+   *
+   * @return the application submit token service
+   */
+  default SubmitTokenService getSubmitTokenService (){
+    return SessionSubmitTokenService.DEFAULT;
+  }
+
 
   enum Mode {
     /** The production application mode. */
@@ -322,6 +358,21 @@ public interface ConfigService {
    */
   Field[] getPageFieldArray(Class<? extends Page> pageClass);
 
+  /**
+   * Return the precompiled accessor table of the bindable fields for the given
+   * page class, or null if the page class is not configured.
+   * <p/>
+   * The default implementation builds the table from
+   * {@link #getPageFieldArray(Class)} on the first call and returns it for
+   * the following calls of the page class.
+   *
+   * @param pageClass the page class
+   * @return the page binding for the given page class or null
+   */
+  @Nullable default PageBinding getPageBinding (Class<? extends Page> pageClass){
+    return PageBinding.getCached(pageClass, ()->getPageFieldArray(pageClass));
+  }
+
   /**
    * Return the page not found <tt>Page</tt> <tt>Class</tt>.
    *
@@ -0,0 +1,232 @@
+package org.apache.click.service;
+
+import lombok.Getter;
+import org.apache.click.util.ClickUtils;
+
+import javax.servlet.ServletContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Provides the default {@link ObjectCodec}: Java serialization, compressed
+ * with pooled {@link Deflater}s and decoded through a whitelist
+ * {@link ObjectInputFilter}.
+ * <p/>
+ * Serialized objects smaller than <tt>codec-compress-threshold</tt> bytes
+ * (default 512) are not compressed: for small payloads deflate saves little
+ * and costs most of the encoding time. Larger payloads are deflated with a
+ * <tt>Deflater</tt> / <tt>Inflater</tt> taken from a bounded pool instead of
+ * allocating new native zlib streams per call.
+ * <p/>
+ * Decoding only instantiates classes of the <tt>java.lang</tt>,
+ * <tt>java.util</tt>, <tt>java.math</tt>, <tt>java.time</tt>, <tt>java.sql</tt>
+ * and <tt>java.net</tt> packages, <tt>org.apache.click</tt> and its sub
+ * packages, arrays of those and primitive arrays. Application classes are
+ * allowed with the <tt>codec-allowed</tt> init parameter, a list of
+ * {@link ObjectInputFilter.Config#createFilter(String)} patterns, e.g.
+ * <tt>com.mycorp.domain.*;com.mycorp.dto.**</tt>.
+ * <p/>
+ * Data encoded by the previous GZIP based implementation is still decoded.
+ */
+public class DeflaterObjectCodec implements ObjectCodec {
+  /** The default instance, used when no ConfigService is available. */
+  public static final DeflaterObjectCodec DEFAULT = new DeflaterObjectCodec();
+
+  /** The compression threshold init parameter name: &nbsp; "<tt>codec-compress-threshold</tt>". */
+  public static final String COMPRESS_THRESHOLD = "codec-compress-threshold";
+
+  /** The allowed classes init parameter name: &nbsp; "<tt>codec-allowed</tt>". */
+  public static final String ALLOWED = "codec-allowed";
+
+  /** The default compression threshold in bytes. */
+  public static final int DEFAULT_COMPRESS_THRESHOLD = 512;
+
+  /** The allowed classes and limits. */
+  static final String DEFAULT_FILTER = "maxdepth=64;maxrefs=100000;maxarray=1000000"
+      + ";java.lang.*;java.util.*;java.util.concurrent.*;java.math.*;java.time.*;java.sql.*;java.net.*"
+      + ";org.apache.click.**";
+
+  /** The maximum decoded (inflated) size in bytes. */
+  static final int MAX_DECODED_SIZE = 16 * 1024 * 1024;
+
+  /** Header of the deflated format. Serialized data starts with 0xACED, GZIP with 0x1F8B. */
+  static final byte DEFLATED = 'Z';
+
+  /** The compression threshold in bytes. */
+  @Getter private int compressThreshold = DEFAULT_COMPRESS_THRESHOLD;
+
+  /** The object input filter. */
+  @Getter private ObjectInputFilter filter = createFilter("");
+
+  private final BlockingQueue<Deflater> deflaters;
+  private final BlockingQueue<Inflater> inflaters;
+
+  /** Create a codec with the default settings. */
+  public DeflaterObjectCodec (){
+    int poolSize = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    deflaters = new ArrayBlockingQueue<>(poolSize);
+    inflaters = new ArrayBlockingQueue<>(poolSize);
+  }//new
+
+  /** @see ObjectCodec#onInit(ServletContext) */
+  @Override
+  public void onInit (ServletContext servletContext){
+    compressThreshold = (int) ClickUtils.parseLong(servletContext.getInitParameter(COMPRESS_THRESHOLD), DEFAULT_COMPRESS_THRESHOLD);
+    filter = createFilter(ClickUtils.trim(servletContext.getInitParameter(ALLOWED)));
+  }
+
+  /** @see ObjectCodec#onDestroy() */
+  @Override
+  public void onDestroy (){
+    Deflater deflater;
+    while ((deflater = deflaters.poll()) != null){
+      deflater.end();
+    }
+    Inflater inflater;
+    while ((inflater = inflaters.poll()) != null){
+      inflater.end();
+    }
+  }
+
+  /**
+   * Create the whitelist filter: the default allowed classes, the given
+   * patterns and reject everything else.
+   *
+   * @param allowed additional filter patterns separated by <tt>;</tt>
+   * @return the object input filter
+   */
+  static ObjectInputFilter createFilter (String allowed){
+    String pattern = DEFAULT_FILTER + (allowed.isEmpty() ? "" : ";" + allowed) + ";!*";
+    return ObjectInputFilter.Config.createFilter(pattern);
+  }
+
+  /** @see ObjectCodec#encode(Object) */
+  @Override
+  public byte[] encode (Object object) throws IOException {
+    if (!(object instanceof Serializable)){
+      throw new NotSerializableException(object == null ? "null" : object.getClass().getName());
+    }
+    Bytes serialized = new Bytes(256);
+    try (ObjectOutputStream oos = new ObjectOutputStream(serialized)){
+      oos.writeObject(object);
+    }
+    int len = serialized.size();
+    if (len < compressThreshold){
+      return serialized.toByteArray();
+    }
+
+    Deflater deflater = deflaters.poll();
+    if (deflater == null){
+      deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+    try {
+      deflater.setInput(serialized.array(), 0, len);
+      deflater.finish();
+      Bytes out = new Bytes(len / 2 + 16);
+      out.write(DEFLATED);
+      out.write(len >>> 24);  out.write(len >>> 16);  out.write(len >>> 8);  out.write(len);
+      byte[] chunk = new byte[Math.min(len, 8192)];
+      while (!deflater.finished()){
+        int n = deflater.deflate(chunk);
+        out.write(chunk, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      release(deflater);
+    }
+  }
+
+  /** @see ObjectCodec#decode(byte[]) */
+  @Override
+  public Object decode (byte[] data) throws IOException, ClassNotFoundException {
+    if (data.length < 2){
+      throw new StreamCorruptedException("DeflaterObjectCodec: invalid data length " + data.length);
+    }
+    InputStream in;
+    if (data[0] == DEFLATED){
+      in = new ByteArrayInputStream(inflate(data));
+    } else if (data[0] == (byte) 0x1F && data[1] == (byte) 0x8B){
+      in = new GZIPInputStream(new ByteArrayInputStream(data));// previous format
+    } else {
+      in = new ByteArrayInputStream(data);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(in)){
+      ois.setObjectInputFilter(filter);
+      return ois.readObject();
+    }
+  }
+
+  private byte[] inflate (byte[] data) throws IOException {
+    if (data.length < 6){
+      throw new StreamCorruptedException("DeflaterObjectCodec: truncated data");
+    }
+    int len = (data[1] & 0xFF) << 24 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 8 | (data[4] & 0xFF);
+    if (len < 0 || len > MAX_DECODED_SIZE){
+      throw new StreamCorruptedException("DeflaterObjectCodec: invalid length " + len);
+    }
+    Inflater inflater = inflaters.poll();
+    if (inflater == null){
+      inflater = new Inflater(true);
+    }
+    try {
+      inflater.setInput(data, 5, data.length - 5);
+      byte[] result = new byte[len];
+      int off = 0;
+      while (off < len){
+        int n = inflater.inflate(result, off, len - off);
+        if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())){
+          throw new StreamCorruptedException("DeflaterObjectCodec: truncated data");
+        }
+        off += n;
+      }
+      return result;
+    } catch (DataFormatException e){
+      throw new StreamCorruptedException("DeflaterObjectCodec: " + e.getMessage());
+    } finally {
+      release(inflater);
+    }
+  }
+
+  private void release (Deflater deflater){
+    deflater.reset();
+    if (!deflaters.offer(deflater)){
+      deflater.end();
+    }
+  }
+
+  private void release (Inflater inflater){
+    inflater.reset();
+    if (!inflaters.offer(inflater)){
+      inflater.end();
+    }
+  }
+
+  @Override public String toString (){
+    return "DeflaterObjectCodec[threshold=" + compressThreshold + ",pooled=" + deflaters.size() + "/" + inflaters.size() + "]";
+  }
+
+  /** ByteArrayOutputStream with access to the buffer: no copy before deflating. */
+  static final class Bytes extends ByteArrayOutputStream {
+    Bytes (int size){
+      super(size);
+    }//new
+
+    byte[] array (){
+      return buf;
+    }
+  }//Bytes
+}
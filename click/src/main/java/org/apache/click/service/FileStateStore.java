@@ -0,0 +1,303 @@
+package org.apache.click.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.click.Context;
+import org.apache.click.util.ClickUtils;
+import org.apache.click.util.StateCodec;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Provides a node local, file based {@link StateStore}.
+ * <p/>
+ * The control states of a page are encoded with {@link StateCodec} and written
+ * to one small file per session and page path in the <tt>state-store-dir</tt>
+ * directory (default: <tt>click-state</tt> in the servlet container temp
+ * directory). A file is only rewritten when the encoded state of a control has
+ * changed, and is replaced atomically. Recently used pages are cached in memory.
+ * <p/>
+ * Files not modified for <tt>state-store-ttl</tt> minutes (default 30) are
+ * ignored. They are deleted at startup and, in the background, after every
+ * {@value #PURGE_INTERVAL} file writes.
+ */
+@Slf4j
+public class FileStateStore implements StateStore {
+  /** The state directory init parameter name: &nbsp; "<tt>state-store-dir</tt>". */
+  public static final String STATE_STORE_DIR = "state-store-dir";
+
+  /** The number of file writes between two purges of the expired files. */
+  public static final int PURGE_INTERVAL = 1000;
+
+  private static final int MAGIC = 0x436C5354;// "ClST"
+
+  /** The state directory. */
+  @Getter private Path directory;
+
+  /** The maximum file age in milliseconds. */
+  private long ttl;
+
+  /** The number of file writes since the last purge. */
+  private final AtomicInteger writes = new AtomicInteger();
+
+  /** True while a background purge is running. */
+  private final AtomicBoolean purging = new AtomicBoolean();
+
+  /** Recently used page entries: file → (control name → encoded state). */
+  private final Cache<Path,Map<String,byte[]>> pages = Caffeine.newBuilder()
+      .maximumSize(1000)
+      .expireAfterAccess(5, TimeUnit.MINUTES)
+      .build();
+
+  /** @see StateStore#onInit(ServletContext) */
+  @Override
+  public void onInit (ServletContext servletContext) throws IOException {
+    String dir = ClickUtils.trim(servletContext.getInitParameter(STATE_STORE_DIR));
+    if (!dir.isEmpty()){
+      directory = Paths.get(dir);
+    } else if (servletContext.getAttribute("javax.servlet.context.tempdir") instanceof File tempDir){
+      directory = tempDir.toPath().resolve("click-state");
+    } else {
+      directory = Paths.get(System.getProperty("java.io.tmpdir"), "click-state");
+    }
+    ttl = TimeUnit.MINUTES.toMillis(ClickUtils.parseLong(servletContext.getInitParameter(MemoryStateStore.STATE_STORE_TTL), 30));
+    Files.createDirectories(directory);
+    purge();
+  }
+
+  /** @see StateStore#onDestroy() */
+  @Override
+  public void onDestroy (){
+    pages.invalidateAll();
+  }
+
+  /**
+   * Delete the state files which have expired, and the session directories
+   * left empty.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  public void purge () throws IOException {
+    long expired = System.currentTimeMillis() - ttl;
+    try (Stream<Path> files = Files.walk(directory)){
+      files.sorted(Comparator.reverseOrder()).forEach(f->{// files before their directory
+        try {
+          if (f.toString().endsWith(".state")){
+            if (Files.getLastModifiedTime(f).toMillis() < expired){
+              Files.deleteIfExists(f);
+            }
+          } else if (!f.equals(directory) && Files.isDirectory(f)){
+            try (Stream<Path> entries = Files.list(f)){
+              if (entries.findAny().isEmpty()){
+                Files.deleteIfExists(f);
+              }
+            }
+          }
+        } catch (IOException e){
+          log.debug("purge: {}: {}", f, e.toString());
+        }
+      });
+    }
+  }
+
+  /** Purge the expired files in the background after every {@link #PURGE_INTERVAL} file writes. */
+  private void purgeIfDue (){
+    if (writes.incrementAndGet() < PURGE_INTERVAL || !purging.compareAndSet(false, true)){
+      return;
+    }
+    writes.set(0);
+    ForkJoinPool.commonPool().execute(()->{
+      try {
+        purge();
+      } catch (IOException | UncheckedIOException e){
+        log.warn("purge: can't purge {}: {}", directory, e.toString());
+      } finally {
+        purging.set(false);
+      }
+    });
+  }
+
+  /** @see StateStore#getState(Context, String, String) */
+  @Override @Nullable
+  public Object getState (Context context, String pagePath, String controlName){
+    if (!context.hasSession()){
+      return null;
+    }
+    byte[] data = pages.get(file(context, pagePath), this::load).get(controlName);
+    if (data == null){
+      return null;
+    }
+    try {
+      return StateCodec.decode(data);
+    } catch (IOException e){
+      log.warn("getState: corrupted state of {} on {}: {}", controlName, pagePath, e.toString());
+      return null;
+    }
+  }
+
+  /** @see StateStore#hasState(Context, String) */
+  @Override
+  public boolean hasState (Context context, String pagePath){
+    return context.hasSession() && !pages.get(file(context, pagePath), this::load).isEmpty();
+  }
+
+  /** @see StateStore#saveState(Context, String, String, Object) */
+  @Override
+  public void saveState (Context context, String pagePath, String controlName, @Nullable Object state){
+    if (state == null){
+      removeState(context, pagePath, controlName);
+      return;
+    }
+    byte[] data;
+    try {
+      data = StateCodec.encode(state);
+    } catch (IOException e){
+      throw new IllegalStateException("FileStateStore: can't encode state of "+ controlName +" on "+ pagePath, e);
+    }
+    update(file(context, pagePath), controlName, data);
+  }
+
+  /** @see StateStore#removeState(Context, String, String) */
+  @Override
+  public void removeState (Context context, String pagePath, String controlName){
+    if (!context.hasSession()){
+      return;
+    }
+    update(file(context, pagePath), controlName, null);
+  }
+
+  /** Update the control entry of the page file if it has changed. */
+  private void update (Path file, String controlName, @Nullable byte[] data){
+    pages.asMap().compute(file, (f, entries)->{
+      if (entries == null){
+        entries = load(f);
+      }
+      if (Arrays.equals(entries.get(controlName), data)){
+        return entries;// not dirty
+      }
+      Map<String,byte[]> copy = new HashMap<>(entries);
+      if (data == null){
+        copy.remove(controlName);
+      } else {
+        copy.put(controlName, data);
+      }
+      try {
+        store(f, copy);
+      } catch (IOException e){
+        throw new UncheckedIOException("FileStateStore: can't write "+ f, e);
+      }
+      purgeIfDue();
+      return Collections.unmodifiableMap(copy);
+    });
+  }
+
+  private Map<String,byte[]> load (Path file){
+    try {
+      if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > ttl){
+        Files.deleteIfExists(file);
+        return Collections.emptyMap();
+      }
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+        if (in.readInt() != MAGIC){
+          throw new StreamCorruptedException("bad magic");
+        }
+        int count = in.readInt();
+        Map<String,byte[]> entries = new HashMap<>();
+        for (int i = 0; i < count; i++){
+          String name = in.readUTF();
+          byte[] data = new byte[in.readInt()];
+          in.readFully(data);
+          entries.put(name, data);
+        }
+        return Collections.unmodifiableMap(entries);
+      }
+    } catch (NoSuchFileException e){
+      return Collections.emptyMap();
+    } catch (IOException e){
+      log.warn("load: can't read {}: {}", file, e.toString());
+      return Collections.emptyMap();
+    }
+  }
+
+  private static void store (Path file, Map<String,byte[]> entries) throws IOException {
+    if (entries.isEmpty()){
+      Files.deleteIfExists(file);
+      return;
+    }
+    Files.createDirectories(file.getParent());
+    Path tmp;
+    try {
+      tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    } catch (NoSuchFileException e){// the empty session directory has just been purged
+      Files.createDirectories(file.getParent());
+      tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    }
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))){
+        out.writeInt(MAGIC);
+        out.writeInt(entries.size());
+        for (Map.Entry<String,byte[]> e : entries.entrySet()){
+          out.writeUTF(e.getKey());
+          out.writeInt(e.getValue().length);
+          out.write(e.getValue());
+        }
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e){
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /** Return the state file of the session and page: <tt>dir/hash(sessionId)/hash(pagePath).state</tt>. */
+  private Path file (Context context, String pagePath){
+    return directory.resolve(hash(context.getSession().getId())).resolve(hash(pagePath) + ".state");
+  }
+
+  private static String hash (String s){
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 12);
+    } catch (NoSuchAlgorithmException e){
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override public String toString (){
+    return "FileStateStore[" + directory + "]";
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.click.service;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
@@ -61,4 +62,17 @@ public interface FileUploadService {
      */
      public List<FileItem> parseRequest(HttpServletRequest request) throws FileUploadException;
 
+    /**
+     * Release the FileItems parsed from a request. This method is invoked at
+     * the end of every multipart request.
+     * <p/>
+     * The default implementation does nothing, the FileItems are cleaned up
+     * by their own means (e.g. when garbage collected).
+     *
+     * @param fileItemMap the FileItem arrays of the request keyed on request
+     * parameter name
+     */
+    default void releaseFileItems(Map<String, FileItem[]> fileItemMap) {
+    }
+
 }
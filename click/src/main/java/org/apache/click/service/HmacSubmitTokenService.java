@@ -0,0 +1,199 @@
+package org.apache.click.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.click.Context;
+import org.apache.click.util.ClickUtils;
+
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.ServletContext;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a stateless {@link SubmitTokenService}: submit tokens are signed
+ * with HMAC-SHA256 instead of being stored in the <tt>HttpSession</tt>.
+ * <p/>
+ * A token is <tt>timestamp.nonce.signature</tt>, where the signature covers
+ * the token name (form name and page path), the timestamp and the random
+ * nonce. A submission is valid if the signature matches, the token is not
+ * older than <tt>submit-token-ttl</tt> minutes (default 60) and the token was
+ * not submitted before. Submitted tokens are remembered in a bounded replay
+ * cache of <tt>submit-token-cache-size</tt> entries (default 100000) until
+ * the token expires. A submission without a token is invalid.
+ * <p/>
+ * All nodes of a cluster must share the <tt>submit-token-secret</tt> init
+ * parameter, otherwise a random secret is used and tokens are only valid on
+ * the node which created them. The replay cache is node local: a duplicate
+ * submission routed to another node is only detected if {@link #markUsed}
+ * is overridden to use a shared cache.
+ */
+@Slf4j
+public class HmacSubmitTokenService implements SubmitTokenService {
+  /** The signing secret init parameter name: &nbsp; "<tt>submit-token-secret</tt>". */
+  public static final String SUBMIT_TOKEN_SECRET = "submit-token-secret";
+
+  /** The token lifetime in minutes init parameter name: &nbsp; "<tt>submit-token-ttl</tt>". */
+  public static final String SUBMIT_TOKEN_TTL = "submit-token-ttl";
+
+  /** The replay cache size init parameter name: &nbsp; "<tt>submit-token-cache-size</tt>". */
+  public static final String SUBMIT_TOKEN_CACHE_SIZE = "submit-token-cache-size";
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  /** The signature length in bytes. */
+  private static final int SIGNATURE_LENGTH = 18;
+
+  /** The tolerated clock difference between cluster nodes in milliseconds. */
+  private static final long CLOCK_SKEW = TimeUnit.MINUTES.toMillis(1);
+
+  /** The token lifetime in milliseconds. */
+  @Getter private long ttl = TimeUnit.MINUTES.toMillis(60);
+
+  /** The submitted tokens and their expiry time in milliseconds. */
+  private Cache<String,Long> usedTokens;
+
+  /** The Mac instances of the current secret, per thread. */
+  private volatile ThreadLocal<Mac> macs;
+
+  /** Create a service with a random secret and the default settings. */
+  public HmacSubmitTokenService (){
+    setSecret(randomSecret());
+    usedTokens = newCache(100_000);
+  }//new
+
+  /** @see SubmitTokenService#onInit(ServletContext) */
+  @Override
+  public void onInit (ServletContext servletContext){
+    String secret = ClickUtils.trim(servletContext.getInitParameter(SUBMIT_TOKEN_SECRET));
+    if (secret.isEmpty()){
+      log.info("onInit: no {} defined, submit tokens are only valid on this node", SUBMIT_TOKEN_SECRET);
+    } else {
+      setSecret(secret.getBytes(StandardCharsets.UTF_8));
+    }
+    ttl = TimeUnit.MINUTES.toMillis(ClickUtils.parseLong(servletContext.getInitParameter(SUBMIT_TOKEN_TTL), 60));
+    usedTokens = newCache(ClickUtils.parseLong(servletContext.getInitParameter(SUBMIT_TOKEN_CACHE_SIZE), 100_000));
+  }
+
+  /** @see SubmitTokenService#onDestroy() */
+  @Override
+  public void onDestroy (){
+    usedTokens.invalidateAll();
+  }
+
+  /**
+   * Set the signing secret.
+   *
+   * @param secret the signing secret
+   */
+  public void setSecret (byte[] secret){
+    SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+    macs = ThreadLocal.withInitial(()->newMac(key));
+  }
+
+  /** @see SubmitTokenService#createToken(Context, String) */
+  @Override
+  public String createToken (Context context, String tokenName){
+    byte[] nonce = new byte[12];
+    ThreadLocalRandom.current().nextBytes(nonce);// unique, the signature prevents forgery
+    String payload = Long.toString(System.currentTimeMillis(), 36)
+        + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
+    return payload + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(tokenName, payload));
+  }
+
+  /** @see SubmitTokenService#isValidToken(Context, String, String) */
+  @Override
+  public boolean isValidToken (Context context, String tokenName, @Nullable String token){
+    if (token == null || token.isEmpty()){
+      return false;
+    }
+    int timeEnd = token.indexOf('.');
+    int payloadEnd = token.lastIndexOf('.');
+    if (timeEnd <= 0 || payloadEnd <= timeEnd){
+      return false;
+    }
+    String payload = token.substring(0, payloadEnd);
+    byte[] signature;
+    long time;
+    try {
+      signature = Base64.getUrlDecoder().decode(token.substring(payloadEnd + 1));
+      time = Long.parseLong(token.substring(0, timeEnd), 36);
+    } catch (IllegalArgumentException e){
+      return false;
+    }
+    if (!MessageDigest.isEqual(signature, sign(tokenName, payload))){
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    if (now - time > ttl || time - now > CLOCK_SKEW){
+      return false;
+    }
+    return markUsed(token, time + ttl);
+  }
+
+  /**
+   * Record the submitted token until it expires, returning false if the
+   * token was submitted before.
+   *
+   * @param token the submitted valid token
+   * @param expires the token expiry time in milliseconds
+   * @return true if the token was not submitted before
+   */
+  protected boolean markUsed (String token, long expires){
+    return usedTokens.asMap().putIfAbsent(token, expires) == null;
+  }
+
+  /** @return the number of remembered submitted tokens */
+  public long size (){
+    return usedTokens.estimatedSize();
+  }
+
+  private byte[] sign (String tokenName, String payload){
+    Mac mac = macs.get();
+    mac.update(tokenName.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) '\n');
+    byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    byte[] signature = new byte[SIGNATURE_LENGTH];
+    System.arraycopy(digest, 0, signature, 0, SIGNATURE_LENGTH);
+    return signature;
+  }
+
+  private static Mac newMac (SecretKeySpec key){
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e){
+      throw new IllegalStateException("HmacSubmitTokenService: " + ALGORITHM + " not available", e);
+    }
+  }
+
+  private static Cache<String,Long> newCache (long size){
+    return Caffeine.newBuilder()
+        .maximumSize(size)
+        .expireAfter(Expiry.creating((String token, Long expires)->
+            Duration.ofMillis(Math.max(0, expires - System.currentTimeMillis()))))
+        .build();
+  }
+
+  private static byte[] randomSecret (){
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    return secret;
+  }
+
+  @Override public String toString (){
+    return "HmacSubmitTokenService[ttl=" + ttl + ",used=" + usedTokens.estimatedSize() + "]";
+  }
+}
@@ -2,17 +2,36 @@ package org.apache.click.service;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
 import lombok.val;
 import org.mvel2.MVEL;
 
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.apache.click.util.ClickUtils.SETTER;
+import static org.apache.click.util.ClickUtils.toPropertyName;
 
 /**
  * Provides an MVEL based property services.
+ * <p/>
+ * Simple (<tt>name</tt>) and dotted (<tt>child.name</tt>) property paths are
+ * set through cached setter {@link MethodHandle}s and the String to type
+ * conversion of the page autobinding ({@link PageBinding}), without building
+ * and evaluating an MVEL expression. MVEL is used for everything else:
+ * complex expressions, ambiguous setters, values which need MVEL type
+ * coercion and null intermediate objects.
  *
  * There is perf.comparison of MVEL, OGNL, SpEL and self-made reflection in {@link PropertyServiceBase} in tests!
  */
@@ -23,11 +42,30 @@ public class MVELPropertyService extends PropertyServiceBase {
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build();
 
+  /** Resolved setters keyed by (class, property). {@link Setter#NONE} if MVEL must be used. */
+  final Cache<CacheKey,Setter> SETTER_CACHE = Caffeine.newBuilder()
+      .maximumSize(10_000)
+      .expireAfterAccess(1, TimeUnit.HOURS)
+      .build();
+
+  /** The maximum number of set paths cached per target class. */
+  static final int MAX_PATHS_PER_CLASS = 1000;
+
+  /** Parsed set paths per target class: no allocation for the lookup. */
+  private final ClassValue<Map<String,SetPath>> setPaths = new ClassValue<>(){
+    @Override protected Map<String,SetPath> computeValue (Class<?> type){
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
 
   /** @see PropertyService#onDestroy */
   @Override public void onDestroy (){
     super.onDestroy();
     EXPRESSION_CACHE.invalidateAll();
+    SETTER_CACHE.invalidateAll();
   }
 
 
@@ -39,7 +77,8 @@ public class MVELPropertyService extends PropertyServiceBase {
   }
 
   /**
-   * Set the named property value on the target object using the MVEL library.
+   * Set the named property value on the target object using cached setter
+   * handles, or the MVEL library for complex expressions.
    *
    * @see PropertyService#setValue(Object, String, Object)
    *
@@ -50,6 +89,19 @@ public class MVELPropertyService extends PropertyServiceBase {
   @Override public void setValue (Object target, String name, @Nullable Object newValue){
     if (target == null || name == null){ return;}
 
+    if (!setValueDirect(target, name, newValue)){
+      setValueExpression(target, name, newValue);
+    }
+  }
+
+  /**
+   * Set the named property value on the target object using the MVEL library.
+   *
+   * @param target the target object to set the property of
+   * @param name the name of the property to set
+   * @param newValue the property value to set
+   */
+  protected void setValueExpression (Object target, String name, @Nullable Object newValue){
     // "SomeObj.propertyName = value"
     val expression = "obj."+ name.trim() +"=vvv";
 
@@ -61,4 +113,217 @@ public class MVELPropertyService extends PropertyServiceBase {
 
     MVEL.executeExpression(compiledExpression, vars);
   }
-}
\ No newline at end of file
+
+  /**
+   * Set the value of a simple or dotted property path using the cached setter.
+   *
+   * @param target the target object to set the property of
+   * @param name the name of the property to set
+   * @param newValue the property value to set
+   * @return true if the value was set, false if MVEL must be used
+   */
+  protected boolean setValueDirect (Object target, String name, @Nullable Object newValue){
+    Map<String,SetPath> paths = setPaths.get(target.getClass());
+    SetPath path = paths.get(name);
+    if (path == null){
+      path = new SetPath(name);
+      if (paths.size() < MAX_PATHS_PER_CLASS){
+        paths.put(name, path);
+      }
+    }
+    if (path.complex){
+      return false;
+    }
+
+    Object bean = target;
+    if (path.parent != null){
+      if (target instanceof Map<?,?> map && map.containsKey(path.fullName)){
+        return false;// "a.b" key: MVEL decides
+      }
+      try {
+        bean = path.parent.getValue(this, target);
+      } catch (RuntimeException e){
+        return false;// let MVEL report it
+      }
+      if (bean == null){
+        return false;
+      }
+    }
+
+    if (bean instanceof Map map){
+      @SuppressWarnings("unchecked") Map<Object,Object> m = map;
+      m.put(path.property, newValue);
+      return true;
+    }
+
+    Setter setter = path.setter;// racy but benign: Setter is immutable
+    if (setter == null || setter.beanClass != bean.getClass()){
+      setter = getSetter(bean.getClass(), path.property);
+      path.setter = setter;
+    }
+    return setter.set(bean, newValue);
+  }
+
+  /**
+   * Return the setter of the given property for the given bean class: the only
+   * public one-arg <tt>setName</tt> method or a public non-final field <tt>name</tt>.
+   *
+   * @param beanClass the bean class
+   * @param name the property name
+   * @return the setter or a setter which always defers to MVEL
+   */
+  protected Setter getSetter (Class<?> beanClass, String name){
+    return SETTER_CACHE.get(new CacheKey(beanClass, name), k->resolveSetter(beanClass, name));
+  }
+
+  private static Setter resolveSetter (Class<?> beanClass, String name){
+    if (name.isEmpty()){
+      return new Setter(beanClass, null, null);
+    }
+    String setterName = toPropertyName(SETTER, name);
+    Method setter = null;
+    for (Method m : beanClass.getMethods()){
+      if (m.getParameterCount() == 1 && m.getName().equals(setterName) && !Modifier.isStatic(m.getModifiers())){
+        if (setter != null){
+          return new Setter(beanClass, null, null);// overloaded: MVEL chooses
+        }
+        setter = m;
+      }
+    }
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try {
+      if (setter != null){
+        if (!Modifier.isPublic(setter.getDeclaringClass().getModifiers())){
+          return new Setter(beanClass, null, null);
+        }
+        return new Setter(beanClass, lookup.unreflect(setter).asType(SETTER_TYPE), setter.getParameterTypes()[0]);
+      }
+      Field field = beanClass.getField(name);
+      if (!Modifier.isFinal(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())
+          && Modifier.isPublic(field.getDeclaringClass().getModifiers())){
+        return new Setter(beanClass, lookup.unreflectSetter(field).asType(SETTER_TYPE), field.getType());
+      }
+    } catch (NoSuchFieldException | IllegalAccessException ignore){}
+
+    return new Setter(beanClass, null, null);
+  }
+
+  /**
+   * Provides a parsed property path to set: the parent path and the property name.
+   */
+  static final class SetPath {
+    final String fullName;
+    /** The property name: the last path segment. */
+    final String property;
+    /** The compiled parent path or null for simple names. */
+    @Nullable final CompiledPath parent;
+    /** True if the name is not a plain (dotted) identifier path. */
+    final boolean complex;
+    /** The setter of the last seen bean class. */
+    @Nullable volatile Setter setter;
+
+    SetPath (String name){
+      fullName = name.trim();
+      complex = !isSimplePath(fullName);
+      int i = fullName.lastIndexOf('.');
+      if (i < 0){
+        property = fullName;
+        parent = null;
+      } else {
+        property = fullName.substring(i + 1).trim();
+        parent = new CompiledPath(fullName.substring(0, i).trim());
+      }
+    }//new
+
+    static boolean isSimplePath (String path){
+      boolean start = true;
+      for (int i = 0, len = path.length(); i < len; i++){
+        char c = path.charAt(i);
+        if (c == '.'){
+          if (start){ return false;}// empty segment
+          start = true;
+        } else if (Character.isWhitespace(c)){
+          // allowed around segments, like PropertyServiceBase
+        } else if (start ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)){
+          start = false;
+        } else {
+          return false;
+        }
+      }
+      return !start;
+    }
+
+    @Override public String toString (){
+      return "SetPath[" + fullName + (complex ? ",complex" : "") + "]";
+    }
+  }//SetPath
+
+  /**
+   * Provides the cached setter handle of a single bean property with the
+   * String to property type conversion.
+   */
+  protected static final class Setter {
+    /** The bean class the setter was resolved for. */
+    @Getter private final Class<?> beanClass;
+    /** The setter handle: (Object bean, Object value) → void or null if MVEL must be used. */
+    @Nullable private final MethodHandle handle;
+    /** The property type. */
+    @Nullable private final Class<?> type;
+    /** The boxed property type. */
+    @Nullable private final Class<?> boxedType;
+    /** The String to property type converter or null. */
+    @Nullable private final Function<String,Object> converter;
+
+    Setter (Class<?> beanClass, @Nullable MethodHandle handle, @Nullable Class<?> type){
+      this.beanClass = beanClass;
+      this.handle = handle;
+      this.type = type;
+      boxedType = type == null ? null : MethodType.methodType(type).wrap().returnType();
+      converter = type == null ? null : PageBinding.converterFor(type);
+    }//new
+
+    /** @return true if the property can be set with this setter */
+    public boolean isDirect (){
+      return handle != null;
+    }
+
+    /**
+     * Convert and set the value.
+     *
+     * @param bean the bean, an instance of {@link #getBeanClass()}
+     * @param value the new property value
+     * @return true if the value was set, false if MVEL must be used
+     */
+    boolean set (Object bean, @Nullable Object value){
+      if (handle == null){
+        return false;
+      }
+      Object v = value;
+      if (v == null){
+        if (type.isPrimitive()){
+          return false;
+        }
+      } else if (!boxedType.isInstance(v)){
+        if (converter == null || !(v instanceof String s)){
+          return false;
+        }
+        v = converter.apply(s);
+        if (v == null){
+          return false;
+        }
+      }
+      try {
+        handle.invokeExact(bean, v);
+        return true;
+      } catch (RuntimeException | Error e){
+        throw e;
+      } catch (Throwable e){
+        throw new IllegalArgumentException("setValue: Error setting property of ("+ beanClass.getTypeName() +") "+ bean, e);
+      }
+    }
+
+    @Override public String toString (){
+      return "Setter[" + beanClass.getTypeName() + ":" + (type != null ? type.getTypeName() : "MVEL") + "]";
+    }
+  }//Setter
+}
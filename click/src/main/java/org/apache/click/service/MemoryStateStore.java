@@ -0,0 +1,102 @@
+package org.apache.click.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.click.Context;
+import org.apache.click.util.ClickUtils;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a bounded, node local in-memory {@link StateStore}.
+ * <p/>
+ * Control state is kept outside the <tt>HttpSession</tt>, so it is never
+ * replicated: use it with sticky sessions. Page state maps are keyed by the
+ * session id and page path and are evicted when the store exceeds
+ * <tt>state-store-size</tt> pages (default 10000) or were not accessed for
+ * <tt>state-store-ttl</tt> minutes (default 30).
+ */
+public class MemoryStateStore implements StateStore {
+  /** The maximum number of stored pages init parameter name: &nbsp; "<tt>state-store-size</tt>". */
+  public static final String STATE_STORE_SIZE = "state-store-size";
+
+  /** The idle time in minutes init parameter name: &nbsp; "<tt>state-store-ttl</tt>". */
+  public static final String STATE_STORE_TTL = "state-store-ttl";
+
+  /** The page state maps keyed by <tt>sessionId|pagePath</tt>. */
+  Cache<String,Map<String,Object>> pages;
+
+  /** @see StateStore#onInit(ServletContext) */
+  @Override
+  public void onInit (ServletContext servletContext){
+    long size = ClickUtils.parseLong(servletContext.getInitParameter(STATE_STORE_SIZE), 10_000);
+    long ttl = ClickUtils.parseLong(servletContext.getInitParameter(STATE_STORE_TTL), 30);
+    pages = Caffeine.newBuilder()
+        .maximumSize(size)
+        .expireAfterAccess(ttl, TimeUnit.MINUTES)
+        .build();
+  }
+
+  /** @see StateStore#onDestroy() */
+  @Override
+  public void onDestroy (){
+    if (pages != null){
+      pages.invalidateAll();
+    }
+  }
+
+  /** @see StateStore#getState(Context, String, String) */
+  @Override @Nullable
+  public Object getState (Context context, String pagePath, String controlName){
+    if (!context.hasSession()){
+      return null;
+    }
+    Map<String,Object> pageMap = pages.getIfPresent(key(context, pagePath));
+    return pageMap != null ? pageMap.get(controlName) : null;
+  }
+
+  /** @see StateStore#hasState(Context, String) */
+  @Override
+  public boolean hasState (Context context, String pagePath){
+    return context.hasSession() && pages.getIfPresent(key(context, pagePath)) != null;
+  }
+
+  /** @see StateStore#saveState(Context, String, String, Object) */
+  @Override
+  public void saveState (Context context, String pagePath, String controlName, @Nullable Object state){
+    if (state == null){
+      removeState(context, pagePath, controlName);
+    } else {
+      pages.get(key(context, pagePath), k->new ConcurrentHashMap<>()).put(controlName, state);
+    }
+  }
+
+  /** @see StateStore#removeState(Context, String, String) */
+  @Override
+  public void removeState (Context context, String pagePath, String controlName){
+    if (!context.hasSession()){
+      return;
+    }
+    pages.asMap().computeIfPresent(key(context, pagePath), (k, pageMap)->{
+      pageMap.remove(controlName);
+      return pageMap.isEmpty() ? null : pageMap;
+    });
+  }
+
+  /** @return the number of stored page state maps */
+  public long size (){
+    return pages.estimatedSize();
+  }
+
+  private static String key (Context context, String pagePath){
+    return context.getSession().getId() + '|' + pagePath;
+  }
+
+  @Override public String toString (){
+    return "MemoryStateStore[pages=" + (pages != null ? pages.estimatedSize() : 0) + "]";
+  }
+}
@@ -0,0 +1,57 @@
+package org.apache.click.service;
+
+import javax.servlet.ServletContext;
+import java.io.IOException;
+
+/**
+ * Provides the binary encoding of the <tt>Serializable</tt> objects which
+ * {@link org.apache.click.util.ClickUtils#encode(Object) ClickUtils.encode}
+ * and {@link org.apache.click.util.ClickUtils#decode(String) decode} round-trip
+ * through hidden fields and cookies.
+ * <p/>
+ * Encoded data is untrusted client input when it is decoded: implementations
+ * must restrict the classes they instantiate.
+ *
+ * <h3>Configuration</h3>
+ * The default ObjectCodec is {@link DeflaterObjectCodec}. Use the
+ * <tt>object-codec</tt> init parameter to configure a different implementation.
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * <context-param>
+ *     <param-name>object-codec</param-name>
+ *     <param-value>com.mycorp.service.SignedObjectCodec</param-value>
+ * </context-param>} </pre>
+ */
+public interface ObjectCodec {
+
+  /**
+   * Initialize the ObjectCodec.
+   *
+   * @param servletContext the application servlet context
+   * @throws IOException if an IO error occurs initializing the codec
+   */
+  default void onInit (ServletContext servletContext) throws IOException {}
+
+  /** Destroy the ObjectCodec. */
+  default void onDestroy (){}
+
+  /**
+   * Encode the given <tt>Serializable</tt> object.
+   *
+   * @param object the object to encode
+   * @return the encoded object
+   * @throws IOException if an I/O error occurs
+   */
+  byte[] encode (Object object) throws IOException;
+
+  /**
+   * Decode the object encoded by {@link #encode(Object)}.
+   *
+   * @param data the encoded object
+   * @return the decoded object
+   * @throws IOException if the data is invalid or an object class is not allowed
+   * @throws ClassNotFoundException if an object class could not be found
+   */
+  Object decode (byte[] data) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,193 @@
+package org.apache.click.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.NonNull;
+import lombok.val;
+import org.apache.click.Context;
+import org.apache.click.Page;
+import org.apache.click.control.Cacheable;
+import org.apache.click.util.OutputCached;
+
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Provides the in-memory cache of rendered page and control output.
+ * <p/>
+ * Pages annotated with {@link OutputCached} are cached by the ClickServlet,
+ * {@link Cacheable} controls when a template renders them. The cache is
+ * enabled by the <tt>output-cache-size</tt> init parameter, the maximum size
+ * of the cached output in bytes, and each entry expires after the time to
+ * live of its page or control.
+ * <p/>
+ * Output is not cached when the response encodes the session id in URLs,
+ * as the rendered links would contain the session id of another user.
+ */
+public class OutputCache {
+  /** The output cache size (in bytes) init parameter name: &nbsp; "<tt>output-cache-size</tt>". Disabled by default. */
+  public static final String OUTPUT_CACHE_SIZE = "output-cache-size";
+
+  /** The OutputCached annotation of the page classes, or null. */
+  private static final ClassValue<OutputCached> OUTPUT_CACHED = new ClassValue<>(){
+    @Override protected OutputCached computeValue (Class<?> type){
+      return type.getAnnotation(OutputCached.class);
+    }
+  };
+
+  /** The cache key: the page path or control class, the locale and the request values, including the page path of controls. */
+  public record Key(String path, @Nullable Locale locale, List<Object> values) {}
+
+  /** The cached output, with the content type, character encoding, headers and version ETag of its page. */
+  public record Entry(@Nullable String contentType, @Nullable String characterEncoding,
+      Map<String,Object> headers, String content, @Nullable String etag, int ttl) {
+
+    /** Return the approximate size of the entry in bytes. */
+    int getWeight (){
+      return (int) Math.min(64 + 2L * content.length(), Integer.MAX_VALUE);
+    }
+  }
+
+  /** The cached output. */
+  final Cache<Key,Entry> cache;
+
+  /**
+   * Create a new output cache of the given maximum size.
+   *
+   * @param maximumWeight the maximum size of the cached output in bytes
+   */
+  public OutputCache (long maximumWeight){
+    cache = Caffeine.newBuilder()
+        .maximumWeight(maximumWeight)
+        .weigher((Key key, Entry entry)->entry.getWeight())
+        .expireAfter(Expiry.writing((Key key, Entry entry)->Duration.ofSeconds(entry.ttl())))
+        .build();
+  }//new
+
+  /**
+   * Return the cache key of the given page for the current request, or null
+   * if the page is not annotated with {@link OutputCached} or its output
+   * must not be cached for this request: non GET and forwarded requests,
+   * requests with parameters which are not part of the key and rewritten URLs.
+   *
+   * @param page the page to render
+   * @return the cache key of the page output, or null
+   */
+  @Nullable
+  public Key getPageKey (@NonNull Page page){
+    OutputCached cached = OUTPUT_CACHED.get(page.getClass());
+    if (cached == null || cached.ttl() <= 0){
+      return null;
+    }
+    Context context = page.getContext();
+    if (!context.isGet() || context.isForward() || isUrlRewritten(context)){
+      return null;
+    }
+    HttpServletRequest request = context.getRequest();
+    List<String> params = Arrays.asList(cached.params());
+    for (Enumeration<String> names = request.getParameterNames(); names.hasMoreElements();){
+      if (!params.contains(names.nextElement())){
+        return null;// e.g. a control event or a page action
+      }
+    }
+    val values = new ArrayList<Object>(params.size() + cached.roles().length);
+    for (String param : params){
+      String[] paramValues = request.getParameterValues(param);
+      values.add(paramValues != null ? Arrays.asList(paramValues) : null);
+    }
+    for (String role : cached.roles()){
+      values.add(request.isUserInRole(role));
+    }
+    return new Key(page.getPath(), cached.locale() ? context.getLocale() : null, values);
+  }
+
+  /**
+   * Return the cached output of the given key, or null if not cached.
+   *
+   * @param key the cache key
+   * @return the cached output, or null
+   */
+  @Nullable
+  public Entry get (@NonNull Key key){
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Store the rendered template of the given page under the key returned by
+   * {@link #getPageKey(Page)}. The caller only stores successful
+   * (<tt>200 OK</tt>) responses.
+   * <p/>
+   * Page misses are not coalesced: concurrent requests of the same key each
+   * render the page and the last stored output wins.
+   *
+   * @param key the cache key of the page output
+   * @param page the rendered page
+   * @param content the rendered template
+   * @param etag the ETag of the page {@link Page#getETagVersion() version}, or null
+   */
+  public void putPage (@NonNull Key key, @NonNull Page page, @NonNull String content, @Nullable String etag){
+    OutputCached cached = OUTPUT_CACHED.get(page.getClass());
+    if (cached == null || cached.ttl() <= 0){
+      return;
+    }
+    Map<String,Object> headers = page.hasHeaders()
+        ? Collections.unmodifiableMap(new HashMap<>(page.getHeaders()))
+        : Collections.emptyMap();
+    cache.put(key, new Entry(page.getContentType(), page.getCharacterEncoding(), headers, content, etag, cached.ttl()));
+  }
+
+  /**
+   * Return the output of the given cacheable control: the cached output or
+   * its rendered <tt>toString()</tt> value, which is cached if the control
+   * has a cache key. The output is cached per page, as controls render links
+   * to their page, and is rendered once by concurrent requests.
+   *
+   * @param control the control to render
+   * @param context the request context
+   * @return the control output
+   */
+  public String renderFragment (@NonNull Cacheable control, @NonNull Context context){
+    Object cacheKey = control.getCacheKey();
+    int ttl = control.getCacheTtl();
+    if (cacheKey == null || ttl <= 0 || isUrlRewritten(context)){
+      return control.toString();
+    }
+    val key = new Key(control.getClass().getName(), context.getLocale(), List.of(context.getResourcePath(), cacheKey));
+    return cache.get(key, k->new Entry(null, null, Collections.emptyMap(), control.toString(), null, ttl)).content();
+  }
+
+  /**
+   * Remove the cached output of the given page path, or of the given
+   * cacheable control class name.
+   *
+   * @param path the page path, e.g. <tt>/catalog.htm</tt>
+   */
+  public void invalidate (@NonNull String path){
+    cache.asMap().keySet().removeIf(key->key.path().equals(path));
+  }
+
+  /** Remove all the cached output. */
+  public void invalidateAll (){
+    cache.invalidateAll();
+  }
+
+  /** Return the number of cached entries. */
+  public long size (){
+    return cache.estimatedSize();
+  }
+
+  /** Return true if the response encodes the session id in URLs. */
+  static boolean isUrlRewritten (Context context){
+    return !"/".equals(context.getResponse().encodeURL("/"));
+  }
+}
@@ -0,0 +1,304 @@
+package org.apache.click.service;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Provides a precompiled accessor table for the bindable fields of a Page class.
+ * <p/>
+ * The table is built once per page class (by {@link XmlConfigService} when the
+ * page is mapped) and replaces the per request {@link Field#get(Object)} and
+ * {@link PropertyService#setValue(Object, String, Object)} calls of the page
+ * autobinding with {@link MethodHandle} getters, setters and precomputed
+ * String to field type converters.
+ * <p/>
+ * Request parameters which can't be converted by the precomputed converter
+ * (e.g. a non standard {@link Number} subclass or a malformed value) are left
+ * to the application {@link PropertyService}, so the binding behavior is the
+ * same as with the reflective path.
+ *
+ * @see ConfigService#getPageBinding(Class)
+ */
+@Slf4j
+public final class PageBinding {
+  /** The empty page binding: no bindable fields. */
+  public static final PageBinding EMPTY = new PageBinding(XmlConfigService.EMPTY_FIELD_ARRAY);
+
+  /** The page bindings built by the {@link ConfigService#getPageBinding(Class)} default method, per page class. */
+  private static final ClassValue<AtomicReference<PageBinding>> BINDINGS = new ClassValue<>(){
+    @Override protected AtomicReference<PageBinding> computeValue (Class<?> type){
+      return new AtomicReference<>();
+    }
+  };
+
+  /** The generic getter type: (Object page) → Object. */
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  /** The generic setter type: (Object page, Object value) → void. */
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  /** The accessors of all bindable fields in the {@link ConfigService#getPageFieldArray(Class)} order. */
+  @Getter private final FieldAccessor[] accessors;
+
+  /** The accessors of the fields which can be bound to request parameters, keyed on field name. */
+  private final Map<String,FieldAccessor> requestParamAccessors;
+
+  /**
+   * Create a page binding for the given bindable page fields.
+   *
+   * @param fields the bindable page fields
+   */
+  public PageBinding (@NonNull Field[] fields){
+    accessors = new FieldAccessor[fields.length];
+    Map<String,FieldAccessor> params = new HashMap<>();
+
+    for (int i = 0; i < fields.length; i++){
+      FieldAccessor accessor = new FieldAccessor(fields[i]);
+      accessors[i] = accessor;
+
+      if (accessor.isRequestParamBindable()){
+        params.put(accessor.getName(), accessor);
+      }
+    }
+    requestParamAccessors = params.isEmpty() ? Collections.emptyMap() : params;
+  }//new
+
+  /**
+   * Return the page binding of the given page class, built once from the
+   * given bindable fields, or null if the fields are null (the page class is
+   * not configured).
+   *
+   * @param pageClass the page class
+   * @param fields the supplier of the bindable page fields
+   * @return the page binding of the page class or null
+   */
+  @Nullable
+  static PageBinding getCached (Class<?> pageClass, Supplier<Field[]> fields){
+    AtomicReference<PageBinding> cached = BINDINGS.get(pageClass);
+    PageBinding binding = cached.get();
+    if (binding == null){
+      Field[] fieldArray = fields.get();
+      if (fieldArray == null){
+        return null;
+      }
+      binding = new PageBinding(fieldArray);
+      if (!cached.compareAndSet(null, binding)){
+        binding = cached.get();// built by another thread
+      }
+    }
+    return binding;
+  }
+
+  /**
+   * Return true if the page has fields which can be bound to request parameters.
+   *
+   * @return true if the page has request parameter bindable fields
+   */
+  public boolean hasRequestParamAccessors (){
+    return !requestParamAccessors.isEmpty();
+  }
+
+  /**
+   * Return the accessor of the request parameter bindable field with the
+   * given name, or null if no such field exists.
+   *
+   * @param name the request parameter (field) name
+   * @return the field accessor or null
+   */
+  @Nullable public FieldAccessor getRequestParamAccessor (String name){
+    return requestParamAccessors.get(name);
+  }
+
+  /**
+   * Return the number of bindable fields.
+   *
+   * @return the number of bindable fields
+   */
+  public int size (){
+    return accessors.length;
+  }
+
+  @Override public String toString (){
+    return "PageBinding[fields=" + accessors.length + ",requestParams=" + requestParamAccessors.keySet() + "]";
+  }
+
+  /**
+   * Return true if request parameters are bound to fields of the given type:
+   * primitives, String, Numbers and Booleans.
+   *
+   * @param type the field type
+   * @return true if request parameters are bound to fields of the given type
+   */
+  public static boolean isRequestParamType (Class<?> type){
+    return type.isPrimitive()
+        || String.class.isAssignableFrom(type)
+        || Number.class.isAssignableFrom(type)
+        || Boolean.class.isAssignableFrom(type);
+  }
+
+  /**
+   * Return the precomputed converter of a request parameter String value into
+   * the given field type, or null if the conversion must be performed by the
+   * {@link PropertyService}.
+   * <p/>
+   * A converter returns null if the value can't be converted.
+   *
+   * @param type the field type
+   * @return the String to type converter or null
+   */
+  @Nullable static Function<String,Object> converterFor (Class<?> type){
+    if (type == String.class || type == Object.class || type == CharSequence.class){
+      return s->s;
+    } else if (type == int.class || type == Integer.class){
+      return s->parse(s, Integer::valueOf);
+    } else if (type == long.class || type == Long.class){
+      return s->parse(s, Long::valueOf);
+    } else if (type == boolean.class || type == Boolean.class){
+      return PageBinding::toBoolean;
+    } else if (type == double.class || type == Double.class){
+      return s->parse(s, Double::valueOf);
+    } else if (type == float.class || type == Float.class){
+      return s->parse(s, Float::valueOf);
+    } else if (type == short.class || type == Short.class){
+      return s->parse(s, Short::valueOf);
+    } else if (type == byte.class || type == Byte.class){
+      return s->parse(s, Byte::valueOf);
+    } else if (type == BigDecimal.class || type == Number.class){
+      return s->parse(s, BigDecimal::new);
+    } else if (type == BigInteger.class){
+      return s->parse(s, BigInteger::new);
+    } else {
+      return null;// char, AtomicLong, custom Number etc → PropertyService
+    }
+  }
+
+  @Nullable private static Object parse (String value, Function<String,Object> parser){
+    try {
+      return parser.apply(value.trim());
+    } catch (NumberFormatException e){
+      return null;
+    }
+  }
+
+  @Nullable private static Boolean toBoolean (String value){
+    String s = value.trim();
+    if ("true".equalsIgnoreCase(s) || "on".equalsIgnoreCase(s) || "yes".equalsIgnoreCase(s) || "1".equals(s)){
+      return Boolean.TRUE;
+    } else if ("false".equalsIgnoreCase(s) || "off".equalsIgnoreCase(s) || "no".equalsIgnoreCase(s) || "0".equals(s)){
+      return Boolean.FALSE;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Provides the precompiled accessor of a single bindable page field.
+   */
+  public static final class FieldAccessor {
+    /** The field name. */
+    @Getter private final String name;
+    /** The reflected field. */
+    @Getter private final Field field;
+    /** True if request parameters are bound to this field. */
+    @Getter private final boolean requestParamBindable;
+
+    private final MethodHandle getter;
+    @Nullable private final MethodHandle setter;
+    @Nullable private final Function<String,Object> converter;
+
+    FieldAccessor (Field field){
+      this.field = field;
+      this.name = field.getName();
+
+      Class<?> type = field.getType();
+      requestParamBindable = isRequestParamType(type);
+
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle get;
+      try {
+        get = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+      } catch (IllegalAccessException e){// e.g. public field of a non public class
+        log.debug("FieldAccessor: reflective fallback for {}: {}", field, e.toString());
+        get = null;
+      }
+      getter = get;
+
+      MethodHandle set = null;
+      if (requestParamBindable && !Modifier.isFinal(field.getModifiers())){
+        try {
+          set = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e){
+          log.debug("FieldAccessor: no setter handle for {}: {}", field, e.toString());
+        }
+      }
+      setter = set;
+      converter = set != null ? converterFor(type) : null;
+    }//new
+
+    /**
+     * Return the field value of the given page.
+     *
+     * @param page the page instance
+     * @return the field value
+     * @throws RuntimeException if the field can't be read
+     */
+    @Nullable public Object get (Object page){
+      try {
+        if (getter != null){
+          return (Object) getter.invokeExact(page);
+        }
+        return field.get(page);
+      } catch (RuntimeException | Error e){
+        throw e;
+      } catch (Throwable e){
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Convert the given request parameter value to the field type and set it
+     * on the given page.
+     *
+     * @param page the page instance
+     * @param value the non-blank request parameter value
+     * @return true if the value was set, false if the value must be set using
+     * the {@link PropertyService} instead
+     */
+    public boolean setRequestParam (Object page, String value){
+      if (converter == null){
+        return false;
+      }
+      Object converted = converter.apply(value);
+      if (converted == null){
+        return false;
+      }
+      try {
+        setter.invokeExact(page, converted);
+        return true;
+      } catch (RuntimeException | Error e){
+        throw e;
+      } catch (Throwable e){
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override public String toString (){
+      return "FieldAccessor[" + field + "]";
+    }
+  }//FieldAccessor
+}
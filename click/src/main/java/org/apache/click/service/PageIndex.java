@@ -0,0 +1,335 @@
+package org.apache.click.service;
+
+import lombok.Getter;
+import org.apache.click.Page;
+import org.apache.click.service.ConfigService.AutoBinding;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Provides the build time page index: the page class and the bindable fields
+ * of every page template, precomputed so {@link XmlConfigService} does not
+ * probe the page packages with <tt>Class.forName</tt> for every template at
+ * startup.
+ * <p/>
+ * The index is a UTF-8 text file, by default the classpath resource
+ * <tt>META-INF/click/page-index.txt</tt>. Each line holds a template path, the
+ * page class name (empty if the template has no page class) and the bindable
+ * field names, tab separated:
+ *
+ * <pre>
+ * # Click page index
+ * packages=com.mycorp.pages
+ * /customer/edit-customer.htm  com.mycorp.pages.customer.EditCustomer  customer,id
+ * /help.htm </pre>
+ *
+ * The index is generated from the compiled classes by {@link #main(String[])},
+ * using the XmlConfigService automapping rules, for example with Gradle:
+ *
+ * <pre class="prettyprint">
+ * tasks.register('clickPageIndex', JavaExec) {
+ *   def index = layout.buildDirectory.file('resources/main/META-INF/click/page-index.txt')
+ *   classpath = sourceSets.main.runtimeClasspath
+ *   mainClass = 'org.apache.click.service.PageIndex'
+ *   args index.get().asFile.path, 'com.mycorp.pages', 'src/main/webapp'
+ *   inputs.dir 'src/main/webapp'
+ *   outputs.file index
+ * }
+ * tasks.named('jar') { dependsOn 'clickPageIndex' } </pre>
+ *
+ * The <tt>click</tt> build defines this task as <tt>clickPageIndex</tt>, see
+ * <tt>click/build.gradle</tt>.
+ * <p/>
+ * XmlConfigService only uses an index built for its configured page packages,
+ * and scans the web application if an indexed page class or field no longer
+ * exists. With a valid index the web application templates are not listed,
+ * so templates added after the index was built are not mapped at startup
+ * unless the <tt>page-index-check</tt> init parameter is <tt>true</tt>: then
+ * the templates which the index doesn't list are mapped by the automapping
+ * rules. The development modes still map new templates on first request.
+ * <p/>
+ * The index location is set by the <tt>page-index</tt> init parameter:
+ * a classpath resource, a web application path starting with '<tt>/</tt>' or
+ * <tt>none</tt> to always scan.
+ */
+public final class PageIndex {
+
+  /** The default page index classpath resource: "<tt>META-INF/click/page-index.txt</tt>". */
+  public static final String DEFAULT_RESOURCE = "META-INF/click/page-index.txt";
+
+  static final String HEADER = "# Click page index";
+
+  static final String PACKAGES = "packages=";
+
+  /** The page packages the index was built for. */
+  @Getter private final List<String> packages;
+
+  /** The indexed templates in path order. */
+  @Getter private final List<Entry> entries;
+
+  /**
+   * Create a page index.
+   *
+   * @param packages the page packages the index was built for
+   * @param entries the indexed templates
+   */
+  public PageIndex (List<String> packages, List<Entry> entries){
+    this.packages = List.copyOf(packages);
+    this.entries = List.copyOf(entries);
+  }//new
+
+  /**
+   * An indexed template: its path, page class name, or null if the template
+   * has no page class, and the names of the bindable page fields.
+   */
+  public record Entry(String path, @Nullable String className, List<String> fields) {}
+
+  /**
+   * Return the given templates which this index doesn't list.
+   *
+   * @param templates the template paths of the web application
+   * @return the templates missing from this index
+   */
+  public List<String> getUnlistedTemplates (Collection<String> templates){
+    Set<String> listed = new HashSet<>(entries.size() * 4 / 3 + 1);
+    for (Entry entry : entries){
+      listed.add(entry.path());
+    }
+    List<String> unlisted = new ArrayList<>();
+    for (String template : templates){
+      if (!listed.contains(template)){
+        unlisted.add(template);
+      }
+    }
+    return unlisted;
+  }
+
+  /**
+   * Build the index of the given templates, mapped to page classes by the
+   * automapping rules of the given config service.
+   *
+   * @param config the config service which maps template paths to page classes
+   * @param packages the page packages, in lookup order
+   * @param templates the template paths, e.g. <tt>/customer/edit-customer.htm</tt>
+   * @return the page index
+   */
+  public static PageIndex build (XmlConfigService config, List<String> packages, Collection<String> templates){
+    Map<String,Entry> byPath = new LinkedHashMap<>();
+    List<String> sorted = new ArrayList<>(new TreeSet<>(templates));
+    for (String pagesPackage : packages){
+      for (String template : sorted){
+        add(config, pagesPackage, template, byPath);
+        if (template.startsWith("/click/")){// see XmlConfigService.buildAutoPageMapping
+          add(config, pagesPackage, template.substring(7), byPath);
+        }
+      }
+    }
+    return new PageIndex(packages, new ArrayList<>(byPath.values()));
+  }
+
+  private static void add (XmlConfigService config, String pagesPackage, String path, Map<String,Entry> byPath){
+    Entry entry = byPath.get(path);
+    if (entry != null && entry.className() != null){
+      return;// mapped by a previous package
+    }
+    Class<? extends Page> pageClass = config.getPageClass(path, pagesPackage);
+    if (pageClass != null){
+      List<String> fields = new ArrayList<>();
+      for (Field field : XmlConfigService.getBindablePageFields(pageClass, AutoBinding.DEFAULT)){
+        fields.add(field.getName());
+      }
+      byPath.put(path, new Entry(path, pageClass.getName(), fields));
+
+    } else if (entry == null){
+      byPath.put(path, new Entry(path, null, Collections.emptyList()));
+    }
+  }
+
+  /**
+   * Return the bindable fields of the given page class, resolved by name.
+   *
+   * @param pageClass the page class
+   * @param names the bindable field names
+   * @return the bindable fields
+   * @throws NoSuchFieldException if a field no longer exists
+   */
+  static Field[] resolveFields (Class<?> pageClass, List<String> names) throws NoSuchFieldException {
+    Field[] fields = new Field[names.size()];
+    for (int i = 0; i < fields.length; i++){
+      fields[i] = resolveField(pageClass, names.get(i));
+    }
+    return fields;
+  }
+
+  private static Field resolveField (Class<?> pageClass, String name) throws NoSuchFieldException {
+    try {
+      return pageClass.getField(name);// public fields win, as in getBindablePageFields
+    } catch (NoSuchFieldException ignore){
+      // not public: @Bindable field declared by the page or a parent page
+    }
+    for (Class<?> type = pageClass; type != null && type != Page.class; type = type.getSuperclass()){
+      try {
+        Field field = type.getDeclaredField(name);
+        if (!Modifier.isPublic(field.getModifiers())){
+          field.setAccessible(true);
+        }
+        return field;
+      } catch (NoSuchFieldException ignore){
+        // declared by a parent page
+      }
+    }
+    throw new NoSuchFieldException(pageClass.getName() + "." + name);
+  }
+
+  /**
+   * Read a page index.
+   *
+   * @param reader the index reader
+   * @return the page index
+   * @throws IOException if the index can't be read
+   * @throws IllegalArgumentException if the reader is not a page index
+   */
+  public static PageIndex read (Reader reader) throws IOException {
+    BufferedReader in = new BufferedReader(reader);
+    if (!HEADER.equals(in.readLine())){
+      throw new IllegalArgumentException("not a Click page index");
+    }
+    String packagesLine = in.readLine();
+    if (packagesLine == null || !packagesLine.startsWith(PACKAGES)){
+      throw new IllegalArgumentException("Click page index without packages");
+    }
+    List<String> packages = split(packagesLine.substring(PACKAGES.length()));
+
+    List<Entry> entries = new ArrayList<>();
+    String line;
+    while ((line = in.readLine()) != null){
+      if (line.isEmpty() || line.charAt(0) == '#'){
+        continue;
+      }
+      String[] columns = line.split("\t", -1);
+      String className = columns.length > 1 && !columns[1].isEmpty() ? columns[1] : null;
+      List<String> fields = columns.length > 2 ? split(columns[2]) : Collections.emptyList();
+      entries.add(new Entry(columns[0], className, fields));
+    }
+    return new PageIndex(packages, entries);
+  }
+
+  /**
+   * Write this page index.
+   *
+   * @param out the index writer
+   * @throws IOException if the index can't be written
+   */
+  public void write (Writer out) throws IOException {
+    out.write(HEADER);
+    out.write('\n');
+    out.write(PACKAGES);
+    out.write(String.join(",", packages));
+    out.write('\n');
+    for (Entry entry : entries){
+      out.write(entry.path());
+      if (entry.className() != null){
+        out.write('\t');
+        out.write(entry.className());
+        if (!entry.fields().isEmpty()){
+          out.write('\t');
+          out.write(String.join(",", entry.fields()));
+        }
+      }
+      out.write('\n');
+    }
+  }
+
+  private static List<String> split (String value){
+    List<String> list = new ArrayList<>();
+    for (String s : value.split(",")){
+      s = s.trim();
+      if (!s.isEmpty()){
+        list.add(s);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Return the template paths under the given web application directory,
+   * excluding the <tt>WEB-INF</tt> directory, as seen by
+   * <tt>ServletContext.getResourcePaths</tt>.
+   *
+   * @param config the config service which identifies templates
+   * @param root the web application or <tt>META-INF/resources</tt> directory
+   * @return the template paths
+   */
+  static List<String> listTemplates (XmlConfigService config, Path root){
+    List<String> templates = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(root)){
+      files.filter(Files::isRegularFile).forEach(file->{
+        String path = '/' + root.relativize(file).toString().replace('\\', '/');
+        if (!path.regionMatches(true, 0, "/WEB-INF/", 0, 9) && config.isTemplate(path)){
+          templates.add(path);
+        }
+      });
+    } catch (IOException e){
+      throw new UncheckedIOException(e);
+    }
+    return templates;
+  }
+
+  /**
+   * Generate the page index of the compiled page classes on the classpath.
+   * <p/>
+   * Arguments: the index file to write, the comma separated page packages and
+   * one or more template directories, e.g. <tt>src/main/webapp</tt>.
+   *
+   * @param args the index file, page packages and template directories
+   * @throws IOException if a directory can't be read or the index can't be
+   * written
+   */
+  public static void main (String[] args) throws IOException {
+    if (args.length < 3){
+      System.err.println("Usage: PageIndex <index file> <page packages> <template dir>...");
+      System.exit(2);
+    }
+    XmlConfigService config = new XmlConfigService();
+    List<String> templates = new ArrayList<>();
+    for (String dir : Arrays.asList(args).subList(2, args.length)){
+      Path root = Paths.get(dir);
+      if (Files.isDirectory(root)){
+        templates.addAll(listTemplates(config, root));
+      }
+    }
+    PageIndex index = build(config, split(args[1]), templates);
+
+    Path file = Paths.get(args[0]);
+    if (file.getParent() != null){
+      Files.createDirectories(file.getParent());
+    }
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+      index.write(out);
+    }
+    long pages = index.getEntries().stream().filter(e->e.className() != null).count();
+    System.out.println("PageIndex: " + pages + " pages, " + index.getEntries().size() + " templates → " + file);
+  }
+}
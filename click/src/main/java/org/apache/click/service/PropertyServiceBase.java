@@ -10,11 +10,21 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import javax.servlet.ServletContext;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static org.apache.click.util.ClickUtils.GET_GETTER;
@@ -24,21 +34,53 @@ import static org.apache.click.util.ClickUtils.toPropertyName;
 
 /**
  * Provide REFLECTION-based property getter.
+ * <p/>
+ * Property paths are compiled into chains of {@link MethodHandle} getters,
+ * see {@link #getValue(Object, String)}.
  *
  * !!! Setter removed 2023-01-30 (MVEL, OGNL, SpEL are used for setValue) !!!
  *
  */
 @Slf4j
 public abstract class PropertyServiceBase implements PropertyService {
+  /** The maximum number of compiled paths cached per source class. */
+  static final int MAX_PATHS_PER_CLASS = 1000;
+
   /**
-   Provides a synchronized cache of get_value reflection methods, with support for multiple class loaders.
-   private final ConcurrentMap‹CacheKey,AccessibleObject› GET_METHOD_CLASSLOADER_CACHE = new ConcurrentHashMap<>();
+   * Compiled property paths of every source class, keyed by the full path.
+   * Looking up a compiled path allocates nothing.
+   */
+  protected final ClassValue<Map<String,CompiledPath>> PATH_CACHE = new ClassValue<>(){
+    @Override protected Map<String,CompiledPath> computeValue (Class<?> type){
+      PATH_CLASSES.add(type);
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  /** The source classes of {@link #PATH_CACHE}, removed from it by {@link #onDestroy()}. */
+  private final Set<Class<?>> PATH_CLASSES = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The reflection cache of the previous getter implementation, no longer
+   * used by this class.
+   *
+   * @deprecated property paths are compiled, see {@link #getCompiledPath(Class, String)}
    */
+  @Deprecated
   protected final Cache<CacheKey,AccessibleObject> REFLECTION_CACHE = Caffeine.newBuilder()
       .maximumSize(10_000)
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build();
 
+  /** Resolved segment accessors (including negative results) keyed by (class, property). */
+  protected final Cache<CacheKey,Accessor> ACCESSOR_CACHE = Caffeine.newBuilder()
+      .maximumSize(10_000)
+      .expireAfterAccess(1, TimeUnit.HOURS)
+      .build();
+
+  /** The generic getter type: (Object bean) → Object. */
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
   /**
    * @see PropertyService#onInit(ServletContext)
    *
@@ -49,18 +91,30 @@ public abstract class PropertyServiceBase implements PropertyService {
 
 
   @Override public void onDestroy () {
+    for (Class<?> type : PATH_CLASSES){
+      PATH_CLASSES.remove(type);
+      PATH_CACHE.remove(type);
+    }
+    ACCESSOR_CACHE.invalidateAll();
     REFLECTION_CACHE.invalidateAll();
   }
 
   /**
    * Return the property value for the given object and property name. This
-   * method uses reflection internally to get the property value.
+   * method uses compiled property paths internally to get the property value.
+   * <p/>
+   * The path (e.g. <tt>foo.bar.zoo</tt>) is split once per (source class, path)
+   * and every segment keeps the {@link MethodHandle} getter resolved for the
+   * last seen bean class, so repeated calls (e.g. a Table column for every row)
+   * neither split the path nor look up methods. Missing properties are cached
+   * too. This method is thread-safe.
    * <p/>
-   * This method is thread-safe, and caches reflected accessor methods in an
-   * internal synchronized cache.
+   * If a getter throws an exception, the next getter form is tried (see
+   * {@link #getAccessor(Class, String)}). If no other form returns a value,
+   * an <tt>IllegalArgumentException</tt> caused by the getter exception is thrown.
    * <p/>
-   * If the given source object is a {@link Map} this method will simply
-   * return the value for the given key name.
+   * If the given source object (or any intermediate object) is a {@link Map}
+   * this method will simply return the value for the given key name.
    *
    * @param source the source object
    * @param propertyName the name of the property
@@ -72,99 +126,138 @@ public abstract class PropertyServiceBase implements PropertyService {
     if (source instanceof Map<?,?> map && map.containsKey(name)){
       return map.get(name);
     }
-
-    String basePart = name;
-    String remainingPart = null;
-    int baseIndex = name.indexOf('.');// foo.bar.zoo
-    if (baseIndex >= 0){
-      basePart = name.substring(0, baseIndex).trim(); // foo
-      remainingPart = name.substring(baseIndex + 1).trim(); // bar.zoo
-    }//i found
-
-    Object value = getObjectPropertyValue(source, basePart);
-
-    if (remainingPart == null || value == null){// end of the road²
-      return value;// real value or intermediate null
-
-    } else {
-      return getValue(value, remainingPart);// next object with rest of the path
-    }
+    return getCompiledPath(source.getClass(), name).getValue(this, source);
   }
 
+  /**
+   * Return the cached reflection accessor of the previous getter implementation.
+   *
+   * @param key the cache key
+   * @return the cached accessor, or null
+   * @deprecated property paths are compiled, see {@link #getCompiledPath(Class, String)}
+   */
+  @Deprecated
   protected @Nullable AccessibleObject getCached (CacheKey key){
     return REFLECTION_CACHE.asMap().get(key);
   }
 
   /**
-   * Return the property value for the given object and property name. This
-   * method uses reflection internally to get the property value.
+   * Return the compiled property path for the given source class.
    *
-   * @param source the source object
-   * @param name the name of the property
-   * @return the property value for the given source object and property name
+   * @param sourceClass the class of the source objects
+   * @param path the trimmed property path
+   * @return the compiled path
    */
-  @Nullable protected Object getObjectPropertyValue (Object source, String name){
-    if (source instanceof Map<?,?> map && map.containsKey(name)){
-      return map.get(name);
-    }
-    val methodNameKey = new CacheKey(source, name);
-    // eventually, everything is in the cache
-    val ao = getCached(methodNameKey);
-    if (ao instanceof Method method){
-      try {
-        return method.invoke(source);
-      } catch (Exception e){
-        log.warn("getObjectPropertyValue: failed to invoke cached getter {}={} @ ({}) {}", name, method,
-            methodNameKey.getSourceClass().getTypeName(), source,  e);
-      }
-    } else if (ao instanceof Field f){
-      try {
-        return f.get(source);
-      } catch (Exception e){
-        log.warn("getObjectPropertyValue: failed to get cached field {}={} @ ({}) {}", name, f,
-            methodNameKey.getSourceClass().getTypeName(), source,  e);
+  protected CompiledPath getCompiledPath (Class<?> sourceClass, String path){
+    Map<String,CompiledPath> paths = PATH_CACHE.get(sourceClass);
+    CompiledPath compiledPath = paths.get(path);
+    if (compiledPath == null){
+      compiledPath = new CompiledPath(path);
+      if (paths.size() < MAX_PATHS_PER_CLASS){
+        paths.putIfAbsent(path, compiledPath);
       }
     }
+    return compiledPath;
+  }
 
-    try {
-      return invoke(methodNameKey, toPropertyName(GET_GETTER, name), source);
-    } catch (Exception ignore){}// NoSuchMethodException, InvocationTargetException, IllegalAccessException
+  /**
+   * Return the getter of the given property for the given bean class: <tt>getName</tt>,
+   * <tt>isName</tt>, public field <tt>name</tt> or method <tt>name()</tt> (records,
+   * fluent accessors) in this order. The result is cached, including misses.
+   *
+   * @param beanClass the bean class
+   * @param name the property name
+   * @return the property accessor, {@link Accessor#isMissing() missing} if no getter exists
+   */
+  protected Accessor getAccessor (Class<?> beanClass, String name){
+    return ACCESSOR_CACHE.get(new CacheKey(beanClass, name), k->resolveAccessor(beanClass, name));
+  }
 
-    try {
-      return invoke(methodNameKey, toPropertyName(IS_GETTER, name), source);
-    } catch (Exception ignore){}// NoSuchMethodException, InvocationTargetException, IllegalAccessException
+  private static Accessor resolveAccessor (Class<?> beanClass, String name){
+    List<AccessibleObject> getters = findGetters(beanClass, name);
+    return getters.isEmpty()
+        ? new Accessor(beanClass, null, null)// negative
+        : Accessor.of(beanClass, getters.get(0));
+  }
 
+  /** Return the getter forms of the property in lookup order: getName, isName, field name, name(). */
+  private static List<AccessibleObject> findGetters (Class<?> beanClass, String name){
+    val getters = new ArrayList<AccessibleObject>(4);
+    if (name.isEmpty()){
+      return getters;
+    }
+    addIfFound(getters, findMethod(beanClass, toPropertyName(GET_GETTER, name)));
+    addIfFound(getters, findMethod(beanClass, toPropertyName(IS_GETTER, name)));
     try {
-      return get(methodNameKey, name, source);
-    } catch (Exception ignore){}// NoSuchMethodException, InvocationTargetException, IllegalAccessException
+      getters.add(beanClass.getField(name));
+    } catch (NoSuchFieldException ignore){}
+    addIfFound(getters, findMethod(beanClass, name));// as is ~ fooBar()
+    return getters;
+  }
 
-    // final one - the reporting one
-    try {
-      return invoke(methodNameKey, name, source);// as is ~ fooBar
-    } catch (NoSuchMethodException e){
-      if (source instanceof Map<?,?> map){
-        return null;// in Map such "field" can be easily created
+  private static void addIfFound (List<AccessibleObject> getters, @Nullable Method method){
+    if (method != null){
+      getters.add(method);
+    }
+  }
+
+  /**
+   * Return the value of the next getter form after the getter of the given
+   * accessor threw an exception, as the reflective lookup did: e.g. the
+   * <tt>isName</tt> method or the public field <tt>name</tt> after <tt>getName</tt>.
+   *
+   * @param bean the bean
+   * @param name the property name
+   * @param failed the accessor which getter threw the exception
+   * @param error the getter exception
+   * @return the value of the first getter form after the failed one which does not throw
+   * @throws IllegalArgumentException caused by the getter exception if no other form returns a value
+   */
+  @Nullable protected Object getFallbackValue (Object bean, String name, Accessor failed, Throwable error){
+    Class<?> beanClass = bean.getClass();
+    boolean after = false;
+    for (AccessibleObject getter : findGetters(beanClass, name)){
+      if (!after){
+        after = failed.member != null && isSameGetter(getter, failed.member);
+        continue;
       }
-      throw new IllegalArgumentException("getObjectPropertyValue: No matching getter method found for property '"
-          + name + "' on (" + methodNameKey.getSourceClass().getTypeName()+") "+source,  e);
-    } catch (Exception e) {
-      throw new IllegalArgumentException("getObjectPropertyValue: Error getting property '" + name + "' from ("+
-        methodNameKey.getSourceClass().getTypeName()+") "+source,  e);
+      try {
+        return Accessor.of(beanClass, getter).get(bean);
+      } catch (Error e){
+        throw e;
+      } catch (Throwable ignore){}// next form
     }
+    throw new IllegalArgumentException("getObjectPropertyValue: Error getting property '" + name + "' from ("+
+        beanClass.getTypeName()+") "+bean, error);
   }
 
-  private Object invoke (CacheKey k, String methodName, Object source) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-    Method method = k.sourceClass.getMethod(methodName);// NoSuchMethodException
-    Object returnValue = method.invoke(source);// InvocationTargetException, IllegalAccessException
-    REFLECTION_CACHE.put(k, method);// only if ^^ ok
-    return returnValue;
+  private static boolean isSameGetter (AccessibleObject a, AccessibleObject b){
+    return a.getClass() == b.getClass() && ((Member) a).getName().equals(((Member) b).getName());
   }
 
-  private Object get (CacheKey k, String fieldName, Object source) throws IllegalAccessException, NoSuchFieldException, IllegalArgumentException {
-    Field field = k.sourceClass.getField(fieldName);// NoSuchMethodException
-    Object returnValue = field.get(source);// IllegalAccessException, IllegalArgumentException
-    REFLECTION_CACHE.put(k, field);// only if ^^ ok
-    return returnValue;
+  @Nullable private static Method findMethod (Class<?> beanClass, String methodName){
+    try {
+      Method method = beanClass.getMethod(methodName);
+      return method.getReturnType() != void.class ? method : null;
+    } catch (NoSuchMethodException e){
+      return null;
+    }
+  }
+
+  /**
+   * Return the property value for the given object and property name: the
+   * Map value or the getter value. Subclasses use this method to walk a
+   * property path one segment at a time, e.g. for <tt>setValue</tt>.
+   *
+   * @param source the source object
+   * @param name the name of the property
+   * @return the property value for the given source object and property name
+   */
+  @Nullable protected Object getObjectPropertyValue (Object source, String name){
+    if (source instanceof Map<?,?> map && map.containsKey(name)){
+      return map.get(name);
+    }
+    return getCompiledPath(source.getClass(), name).getValue(this, source);
   }
 
 
@@ -205,6 +298,16 @@ public abstract class PropertyServiceBase implements PropertyService {
       this.sourceClass = source.getClass();  this.property = property;
     }//new
 
+    /**
+     * Constructs a new CacheKey for the given class and property.
+     *
+     * @param sourceClass the class to build the cache key for
+     * @param property the property to build the cache key for
+     */
+    public CacheKey (@NonNull Class<?> sourceClass, @NonNull String property){
+      this.sourceClass = sourceClass;  this.property = property;
+    }//new
+
     /**
      * @see Object#equals(Object)
      *
@@ -234,4 +337,173 @@ public abstract class PropertyServiceBase implements PropertyService {
       return sourceClass.hashCode()*31 + property.hashCode();
     }
   }//CacheKey
+
+  /**
+   * Provides the compiled getter of a single property of a bean class.
+   */
+  protected static final class Accessor {
+    /** The bean class the getter was resolved for. */
+    @Getter private final Class<?> beanClass;
+    /** The getter handle: (Object) → Object or null. */
+    @Nullable private final MethodHandle handle;
+    /** The reflective getter if no handle could be created (e.g. public method of a non-public class). */
+    @Nullable private final AccessibleObject member;
+
+    Accessor (Class<?> beanClass, @Nullable MethodHandle handle, @Nullable AccessibleObject member){
+      this.beanClass = beanClass;  this.handle = handle;  this.member = member;
+    }//new
+
+    static Accessor of (Class<?> beanClass, AccessibleObject member){
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      try {
+        MethodHandle mh;
+        if (member instanceof Method m){
+          if (!Modifier.isPublic(m.getDeclaringClass().getModifiers())){// e.g. HashMap$Node.getKey → Map.Entry.getKey
+            Method publicMethod = findPublicMethod(beanClass, m.getName());
+            if (publicMethod != null){
+              m = publicMethod;
+              member = publicMethod;
+            }
+          }
+          mh = lookup.unreflect(m);
+        } else {
+          mh = lookup.unreflectGetter((Field) member);
+        }
+        if (mh.type().parameterCount() == 0){// static method/field
+          mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        return new Accessor(beanClass, mh.asType(GETTER_TYPE), member);
+      } catch (IllegalAccessException e){
+        return new Accessor(beanClass, null, member);
+      }
+    }
+
+    /** Find the no-args method in a public superclass or interface. */
+    @Nullable static Method findPublicMethod (Class<?> type, String methodName){
+      for (Class<?> t = type; t != null; t = t.getSuperclass()){
+        if (Modifier.isPublic(t.getModifiers())){
+          try {
+            return t.getMethod(methodName);
+          } catch (NoSuchMethodException ignore){}
+        }
+        for (Class<?> i : t.getInterfaces()){
+          Method m = findPublicMethod(i, methodName);
+          if (m != null){
+            return m;
+          }
+        }
+      }
+      return null;
+    }
+
+    /** @return true if the bean class has no such property (negative cache entry) */
+    public boolean isMissing (){
+      return handle == null && member == null;
+    }
+
+    /**
+     * Return the property value of the given bean.
+     *
+     * @param bean the bean, an instance of {@link #getBeanClass()}
+     * @return the property value
+     * @throws Throwable the getter exception
+     */
+    @Nullable public Object get (Object bean) throws Throwable {
+      if (handle != null){
+        return (Object) handle.invokeExact(bean);
+      } else if (member instanceof Method m){
+        try {
+          return m.invoke(bean);
+        } catch (InvocationTargetException e){
+          throw e.getCause();
+        }
+      } else {
+        return ((Field) member).get(bean);
+      }
+    }
+
+    @Override public String toString (){
+      return "Accessor[" + beanClass.getTypeName() + ":" + (member != null ? member : "missing") + "]";
+    }
+  }//Accessor
+
+  /**
+   * Provides a property path split into its segments once. Every segment
+   * keeps the accessor of the last seen bean class (monomorphic inline cache).
+   */
+  protected static final class CompiledPath {
+    /** The trimmed path segments: foo, bar, zoo. */
+    private final String[] names;
+    /** The trimmed remaining path for Map lookups: foo.bar.zoo, bar.zoo, zoo. */
+    private final String[] remainders;
+    /** The last used accessor of every segment. */
+    private final Accessor[] accessors;
+
+    CompiledPath (String path){
+      val names = new ArrayList<String>();
+      val remainders = new ArrayList<String>();
+      String remaining = path;
+      while (true){
+        remainders.add(remaining);
+        int i = remaining.indexOf('.');// foo.bar.zoo
+        if (i < 0){
+          names.add(remaining);
+          break;
+        }
+        names.add(remaining.substring(0, i).trim());// foo
+        remaining = remaining.substring(i + 1).trim();// bar.zoo
+      }
+      this.names = names.toArray(new String[0]);
+      this.remainders = remainders.toArray(new String[0]);
+      accessors = new Accessor[this.names.length];
+    }//new
+
+    @Nullable Object getValue (PropertyServiceBase service, Object source){
+      Object value = source;
+      for (int i = 0; i < names.length; i++){
+        String name = names[i];
+        if (value instanceof Map<?,?> map){
+          String remainder = remainders[i];
+          if (i > 0 && map.containsKey(remainder)){// a.b.c key at any level
+            return map.get(remainder);
+          }
+          if (map.containsKey(name)){
+            value = map.get(name);
+            if (value == null){
+              return null;
+            }
+            continue;
+          }
+        }
+        Class<?> beanClass = value.getClass();
+        Accessor accessor = accessors[i];// racy but benign: Accessor is immutable
+        if (accessor == null || accessor.getBeanClass() != beanClass){
+          accessor = service.getAccessor(beanClass, name);
+          accessors[i] = accessor;
+        }
+        if (accessor.isMissing()){
+          if (value instanceof Map){
+            return null;// in Map such "field" can be easily created
+          }
+          throw new IllegalArgumentException("getObjectPropertyValue: No matching getter method found for property '"
+              + name + "' on (" + beanClass.getTypeName()+") "+value);
+        }
+        try {
+          value = accessor.get(value);
+        } catch (Error e){
+          throw e;
+        } catch (Throwable e){
+          value = service.getFallbackValue(value, name, accessor, e);
+        }
+        if (value == null){
+          return null;// end of the road: intermediate null
+        }
+      }
+      return value;
+    }
+
+    @Override public String toString (){
+      return "CompiledPath" + Arrays.toString(names);
+    }
+  }//CompiledPath
 }
\ No newline at end of file
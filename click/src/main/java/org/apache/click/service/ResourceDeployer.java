@@ -0,0 +1,365 @@
+package org.apache.click.service;
+
+import org.apache.click.util.ClickUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Deploys the resources found under a classpath directory, usually
+ * <tt>META-INF/resources</tt>, to the web application root directory.
+ * <p/>
+ * The classpath jars and directories are scanned in parallel. The CRC-32 and
+ * size of each resource is read from the jar central directory, or computed
+ * for directories, and compared to the manifest of the previous deployment
+ * (<tt>WEB-INF/click-resources.manifest</tt>), so only new and changed
+ * resources are copied, in parallel with {@link Files#copy}.
+ * <p/>
+ * A deployed file is refreshed only if it is unchanged since it was deployed:
+ * files which are not in the manifest, e.g. created by the application to
+ * override a Click resource, or modified after the deployment are never
+ * overwritten. When several jars hold the same resource, the first one on the
+ * classpath is deployed.
+ * <p/>
+ * In adopt mode, <tt>deployFiles=adopt</tt>, the existing files are overwritten
+ * by the first deployment without a manifest, e.g. the resources of an earlier
+ * Click version deployed before the manifest existed. The following
+ * deployments keep the application overrides as usual.
+ */
+final class ResourceDeployer {
+
+  /** The deployment manifest path, relative to the web application root. */
+  static final String MANIFEST = "WEB-INF/click-resources.manifest";
+
+  private final LogService logService;
+
+  private final ClassLoader classLoader;
+
+  /** True if the existing files are overwritten when there is no manifest. */
+  private final boolean adopt;
+
+  /**
+   * Create a resource deployer.
+   *
+   * @param logService the log service
+   * @param classLoader the class loader which resources are deployed
+   */
+  ResourceDeployer (LogService logService, ClassLoader classLoader){
+    this(logService, classLoader, false);
+  }//new
+
+  /**
+   * Create a resource deployer.
+   *
+   * @param logService the log service
+   * @param classLoader the class loader which resources are deployed
+   * @param adopt true to overwrite the existing files when there is no manifest
+   */
+  ResourceDeployer (LogService logService, ClassLoader classLoader, boolean adopt){
+    this.logService = logService;
+    this.classLoader = classLoader;
+    this.adopt = adopt;
+  }//new
+
+  /** A deployable resource: its name, e.g. <tt>META-INF/resources/click/table.css</tt>, and content. */
+  private record Resource(String name, long crc, long size, Content content) {}
+
+  @FunctionalInterface
+  private interface Content {
+    void copyTo (Path target) throws IOException;
+  }
+
+  /** The manifest record of a deployed file: the source checksum and the deployed file state. */
+  record Deployed(long crc, long size, long lastModified) {}
+
+  /**
+   * The deployment statistics.
+   *
+   * @param locations the number of scanned jars and directories
+   * @param resources the number of deployable resources
+   * @param copied the number of copied resources
+   * @param unchanged the number of up-to-date resources, including identical files deployed before the manifest
+   * @param kept the number of existing files kept, as they were not deployed by Click or were modified
+   * @param failed the number of resources which could not be deployed
+   * @param scanMillis the scan time
+   * @param copyMillis the copy time
+   */
+  record Result(int locations, int resources, int copied, int unchanged, int kept, int failed, long scanMillis, long copyMillis) {
+    @Override public String toString (){
+      return resources + " resources from " + locations + " locations: " + copied + " copied, "
+          + unchanged + " unchanged, " + kept + " kept, " + failed + " failed; scan "
+          + scanMillis + " ms, copy " + copyMillis + " ms";
+    }
+  }
+
+  /**
+   * Deploy the resources of the given classpath directory to the given root
+   * directory.
+   *
+   * @param directory the classpath directory, e.g. <tt>META-INF/resources</tt>
+   * @param root the web application root directory
+   * @return the deployment statistics
+   * @throws IOException if the classpath can't be read
+   */
+  Result deploy (String directory, Path root) throws IOException {
+    long start = System.nanoTime();
+    List<URL> urls = Collections.list(classLoader.getResources(directory));
+    List<JarFile> jars = Collections.synchronizedList(new ArrayList<>());
+    try {
+      // Scan in parallel, keep the classpath order: the first resource wins
+      List<List<Resource>> scanned = urls.parallelStream().map(url->scan(url, directory, jars)).toList();
+      Map<String,Resource> resources = new LinkedHashMap<>();
+      for (List<Resource> list : scanned){
+        for (Resource resource : list){
+          resources.putIfAbsent(resource.name(), resource);
+        }
+      }
+      long scanEnd = System.nanoTime();
+
+      Path manifestFile = root.resolve(MANIFEST);
+      Map<String,Deployed> manifest = new ConcurrentHashMap<>(readManifest(manifestFile));
+      boolean overwrite = adopt && !Files.exists(manifestFile);
+      if (overwrite){
+        logService.info("deploy: no " + MANIFEST + ", the existing resources are overwritten");
+      }
+      Map<Outcome,AtomicInteger> outcomes = new EnumMap<>(Outcome.class);
+      for (Outcome outcome : Outcome.values()){
+        outcomes.put(outcome, new AtomicInteger());
+      }
+      int prefix = directory.length() + 1;
+
+      resources.values().parallelStream().forEach(resource->{
+        Outcome outcome;
+        try {
+          outcome = deploy(resource, resource.name().substring(prefix), root, manifest, overwrite);
+        } catch (IOException | UncheckedIOException | SecurityException e){
+          logService.warn("error occurred deploying resource " + resource.name(), e);
+          outcome = Outcome.FAILED;
+        }
+        outcomes.get(outcome).incrementAndGet();
+      });
+
+      if (outcomes.get(Outcome.COPIED).get() + outcomes.get(Outcome.ADOPTED).get() > 0){
+        writeManifest(manifestFile, manifest);
+      }
+      long end = System.nanoTime();
+      return new Result(urls.size(), resources.size(), outcomes.get(Outcome.COPIED).get(),
+          outcomes.get(Outcome.UNCHANGED).get() + outcomes.get(Outcome.ADOPTED).get(),
+          outcomes.get(Outcome.KEPT).get(), outcomes.get(Outcome.FAILED).get(),
+          (scanEnd - start) / 1_000_000, (end - scanEnd) / 1_000_000);
+
+    } finally {
+      for (JarFile jar : jars){
+        ClickUtils.close(jar);
+      }
+    }
+  }
+
+  /** The outcome of the deployment of a resource. */
+  private enum Outcome {COPIED, UNCHANGED, ADOPTED, KEPT, FAILED}
+
+  /**
+   * Deploy the given resource to the given path under the root directory,
+   * unless it is up-to-date or the existing file was not deployed by Click
+   * and is not overwritten.
+   */
+  private Outcome deploy (Resource resource, String path, Path root, Map<String,Deployed> manifest, boolean overwrite) throws IOException {
+    Path target = root.resolve(path);
+    if (Files.exists(target)){
+      Deployed deployed = manifest.get(path);
+      if (deployed == null){
+        // Files deployed before the manifest existed are adopted if identical
+        if (Files.size(target) == resource.size() && crc(Files.readAllBytes(target)) == resource.crc()){
+          manifest.put(path, new Deployed(resource.crc(), resource.size(), Files.getLastModifiedTime(target).toMillis()));
+          return Outcome.ADOPTED;
+        }
+        if (!overwrite){
+          return Outcome.KEPT;// e.g. an application override of a Click resource
+        }
+      } else {
+        if (!isUnchanged(target, deployed)){
+          return Outcome.KEPT;// modified after the deployment
+        }
+        if (deployed.crc() == resource.crc() && deployed.size() == resource.size()){
+          return Outcome.UNCHANGED;
+        }
+      }
+    }
+    copy(resource, target);
+    manifest.put(path, new Deployed(resource.crc(), resource.size(), Files.getLastModifiedTime(target).toMillis()));
+    if (logService.isTraceEnabled()){
+      logService.trace("deployed " + path);
+    }
+    return Outcome.COPIED;
+  }
+
+  private static boolean isUnchanged (Path target, Deployed deployed) throws IOException {
+    return Files.size(target) == deployed.size()
+        && Files.getLastModifiedTime(target).toMillis() == deployed.lastModified();
+  }
+
+  /** Copy the resource through a temporary file, so the target is never seen half written. */
+  private static void copy (Resource resource, Path target) throws IOException {
+    Files.createDirectories(target.getParent());
+    Path tmp = Files.createTempFile(target.getParent(), ".deploy", ".tmp");
+    try {
+      resource.content().copyTo(tmp);
+      try {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e){
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  // Scanning ---------------------------------------------------------------
+
+  private List<Resource> scan (URL url, String directory, List<JarFile> jars){
+    try {
+      if ("file".equals(url.getProtocol())){
+        return scanDirectory(Paths.get(url.toURI()), directory);
+      }
+      if ("jar".equals(url.getProtocol())){
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection jarConnection
+            && "file".equals(jarConnection.getJarFileURL().getProtocol())
+            && url.getPath().indexOf("!/") == url.getPath().lastIndexOf("!/")){// not nested
+          JarFile jar = new JarFile(Paths.get(jarConnection.getJarFileURL().toURI()).toFile());
+          jars.add(jar);
+          return scanJar(jar, directory);
+        }
+      }
+      return scanUrl(url, directory);
+
+    } catch (IOException | URISyntaxException | RuntimeException e){
+      logService.error("could not deploy the resources from the url '" + url
+          + "'. You will need to manually include resources from this url in your application.", e);
+      return Collections.emptyList();
+    }
+  }
+
+  private static List<Resource> scanJar (JarFile jar, String directory){
+    String prefix = directory + '/';
+    List<Resource> resources = new ArrayList<>();
+    Enumeration<JarEntry> entries = jar.entries();
+    while (entries.hasMoreElements()){
+      JarEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (!entry.isDirectory() && name.startsWith(prefix) && name.length() > prefix.length()){
+        resources.add(new Resource(name, entry.getCrc(), entry.getSize(), target->{
+          try (InputStream in = jar.getInputStream(entry)){
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }));
+      }
+    }
+    return resources;
+  }
+
+  private static List<Resource> scanDirectory (Path dir, String directory) throws IOException {
+    List<Resource> resources = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(dir)){
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator){
+        String name = directory + '/' + dir.relativize(file).toString().replace('\\', '/');
+        resources.add(new Resource(name, crc(Files.readAllBytes(file)), Files.size(file),
+            target->Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING)));
+      }
+    }
+    return resources;
+  }
+
+  /** Fallback for other class loader URLs, e.g. nested jars or virtual file systems. */
+  private List<Resource> scanUrl (URL url, String directory) throws IOException {
+    List<Resource> resources = new ArrayList<>();
+    for (String name : new DeployUtils<>(logService).listClassResources(url, directory)){
+      byte[] content;
+      try (InputStream in = ClickUtils.getResourceAsStream(name, ClickUtils.class)){
+        if (in == null){
+          throw new NoSuchFileException(name);
+        }
+        content = in.readAllBytes();
+      }
+      resources.add(new Resource(name, crc(content), content.length,
+          target->Files.copy(new ByteArrayInputStream(content), target, StandardCopyOption.REPLACE_EXISTING)));
+    }
+    return resources;
+  }
+
+  private static long crc (byte[] content){
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    return crc.getValue();
+  }
+
+  // Manifest ---------------------------------------------------------------
+
+  /**
+   * Read the deployment manifest: one <tt>crc size lastModified path</tt> line
+   * per deployed file.
+   */
+  static Map<String,Deployed> readManifest (Path file){
+    Map<String,Deployed> manifest = new LinkedHashMap<>();
+    if (!Files.isRegularFile(file)){
+      return manifest;
+    }
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+      for (String line; (line = in.readLine()) != null;){
+        String[] columns = line.split("\t", 4);
+        if (columns.length == 4 && !line.startsWith("#")){
+          manifest.put(columns[3], new Deployed(Long.parseLong(columns[0], 16), Long.parseLong(columns[1]), Long.parseLong(columns[2])));
+        }
+      }
+    } catch (IOException | NumberFormatException e){
+      return new LinkedHashMap<>();// redeploy unchanged files only
+    }
+    return manifest;
+  }
+
+  static void writeManifest (Path file, Map<String,Deployed> manifest) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tmp = Files.createTempFile(file.getParent(), ".manifest", ".tmp");
+    try {
+      try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)){
+        out.write("# Click deployed resources: crc32 size lastModified path\n");
+        for (Map.Entry<String,Deployed> e : new TreeMap<>(manifest).entrySet()){
+          Deployed d = e.getValue();
+          out.write(Long.toHexString(d.crc()) + '\t' + d.size() + '\t' + d.lastModified() + '\t' + e.getKey() + '\n');
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
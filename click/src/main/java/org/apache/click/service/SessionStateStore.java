@@ -0,0 +1,141 @@
+package org.apache.click.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.click.Context;
+import org.apache.click.util.StateCodec;
+
+import javax.annotation.Nullable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides the default, <tt>HttpSession</tt> based {@link StateStore}.
+ * <p/>
+ * The control states of a page are stored in a {@link PageState} map under the
+ * page path session attribute. The session attribute is only set again (to
+ * force session replication in a cluster) when a control state has actually
+ * changed: the encoded form ({@link StateCodec}) of the last saved state of
+ * each control is kept in a transient field of the page map and compared with
+ * the encoded new state. The page map is serialized with {@link StateCodec}
+ * instead of default Java serialization.
+ */
+@Slf4j
+public class SessionStateStore implements StateStore {
+  /** The shared default instance. */
+  public static final SessionStateStore DEFAULT = new SessionStateStore();
+
+  /** @see StateStore#getState(Context, String, String) */
+  @Override @Nullable
+  public Object getState (Context context, String pagePath, String controlName){
+    Object pageMap = context.getSessionAttribute(pagePath);
+    return pageMap instanceof Map<?,?> map ? map.get(controlName) : null;
+  }
+
+  /** @see StateStore#hasState(Context, String) */
+  @Override
+  public boolean hasState (Context context, String pagePath){
+    return context.getSessionAttribute(pagePath) instanceof Map;
+  }
+
+  /** @see StateStore#saveState(Context, String, String, Object) */
+  @Override
+  public void saveState (Context context, String pagePath, String controlName, @Nullable Object state){
+    Object stored = context.getSessionAttribute(pagePath);
+    PageState pageMap;
+    boolean dirty;
+    if (stored instanceof PageState ps){
+      pageMap = ps;
+      dirty = false;
+    } else {
+      pageMap = new PageState();
+      if (stored instanceof Map<?,?> map){
+        for (Map.Entry<?,?> e : map.entrySet()){
+          pageMap.put(String.valueOf(e.getKey()), e.getValue());
+        }
+      }
+      dirty = stored != null;// replace the legacy map
+    }
+
+    if (state == null){
+      Object pop = pageMap.put(controlName, null);
+      pageMap.snapshots.remove(controlName);
+      dirty |= pop != null;
+    } else {
+      pageMap.put(controlName, state);
+      byte[] snapshot = null;
+      try {
+        snapshot = StateCodec.encode(state);
+      } catch (IOException | RuntimeException e){
+        log.debug("saveState: can't encode state of {} on {}: {}", controlName, pagePath, e.toString());
+      }
+      byte[] previous = snapshot != null ? pageMap.snapshots.put(controlName, snapshot) : pageMap.snapshots.remove(controlName);
+      dirty |= snapshot == null || !Arrays.equals(snapshot, previous);
+    }
+    if (dirty){
+      writePageState(context, pagePath, pageMap);
+    }
+  }
+
+  /** @see StateStore#removeState(Context, String, String) */
+  @Override
+  public void removeState (Context context, String pagePath, String controlName){
+    Object stored = context.getSessionAttribute(pagePath);
+    if (!(stored instanceof Map<?,?> map)){
+      return;
+    }
+    Object pop = map.remove(controlName);
+    if (stored instanceof PageState ps){
+      ps.snapshots.remove(controlName);
+    }
+    if (map.isEmpty()){// If this was the last state for the page, remove the page state map
+      context.removeSessionAttribute(pagePath);
+
+    } else if (pop != null){
+      writePageState(context, pagePath, map);
+    }
+  }
+
+  /**
+   * Set the page state session attribute to force session replication in a
+   * cluster. Invoked only when the page state has changed.
+   *
+   * @param context the request context
+   * @param pagePath the page path the state is stored under
+   * @param pageMap the page state map
+   */
+  protected void writePageState (Context context, String pagePath, Map<?,?> pageMap){
+    context.setSessionAttribute(pagePath, pageMap);
+  }
+
+  @Override public String toString (){
+    return "SessionStateStore";
+  }
+
+  /**
+   * Provides the page state map stored in the session: control name → control state.
+   */
+  public static class PageState extends HashMap<String,Object> implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    /** The encoded last saved state per control name: used for dirty checking. */
+    final transient Map<String,byte[]> snapshots = new HashMap<>();
+
+    /** Create an empty page state map (also used by deserialization). */
+    public PageState (){}//new
+
+    @Override public void writeExternal (ObjectOutput out) throws IOException {
+      StateCodec.writeMap(out, this);
+    }
+
+    @Override public void readExternal (ObjectInput in) throws IOException {
+      for (Map.Entry<Object,Object> e : StateCodec.readMap(in).entrySet()){
+        put((String) e.getKey(), e.getValue());
+      }
+    }
+  }//PageState
+}
@@ -0,0 +1,48 @@
+package org.apache.click.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.click.Context;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Provides the default {@link SubmitTokenService}: the last token of each form
+ * is stored in the <tt>HttpSession</tt> under the token name, and a submission
+ * is valid if it carries the stored token.
+ * <p/>
+ * Every form render writes the session, see {@link HmacSubmitTokenService}
+ * for a service which does not use the session.
+ */
+@Slf4j
+public class SessionSubmitTokenService implements SubmitTokenService {
+  /** The default instance, used when no ConfigService is available. */
+  public static final SessionSubmitTokenService DEFAULT = new SessionSubmitTokenService();
+
+  /** @see SubmitTokenService#isValidToken(Context, String, String) */
+  @Override
+  public boolean isValidToken (Context context, String tokenName, @Nullable String token){
+    String submitToken = (String) context.getSessionAttribute(tokenName);
+    if (submitToken == null){
+      return true;
+    }
+    if (token == null || token.isEmpty()){
+      // CLK-289. If a session attribute exists for the
+      // SUBMIT_CHECK, but no request parameter, we assume the
+      // submission is a duplicate and therefore invalid.
+      log.warn("    'Redirect After Post' token called '{}' is registered in the session, "
+          + "but no matching request parameter was found. To protect against a "
+          + "'duplicate post', Form.onSubmitCheck() will return false.", tokenName);
+      return false;
+    }
+    return submitToken.equals(token);
+  }
+
+  /** @see SubmitTokenService#createToken(Context, String) */
+  @Override
+  public String createToken (Context context, String tokenName){
+    String submitToken = UUID.randomUUID().toString();
+    context.setSessionAttribute(tokenName, submitToken);
+    return submitToken;
+  }
+}
@@ -0,0 +1,89 @@
+package org.apache.click.service;
+
+import org.apache.click.Context;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+import java.io.IOException;
+
+/**
+ * Provides a store for the state of {@link org.apache.click.Stateful} controls.
+ * <p/>
+ * Control state is stored per page path (see {@link Context#getResourcePath()})
+ * and control name. {@link org.apache.click.util.ClickUtils#saveState ClickUtils.saveState},
+ * {@link org.apache.click.util.ClickUtils#restoreState restoreState} and
+ * {@link org.apache.click.util.ClickUtils#removeState removeState} delegate
+ * to the application StateStore.
+ * <p/>
+ * Implementations should only write control state which has changed.
+ *
+ * <h3>Configuration</h3>
+ * The default StateStore is {@link SessionStateStore}, which keeps the state
+ * in the <tt>HttpSession</tt>. Use the <tt>state-store</tt> init parameter to
+ * configure a different store: <tt>session</tt>, <tt>memory</tt>
+ * ({@link MemoryStateStore}), <tt>file</tt> ({@link FileStateStore}) or the
+ * classname of a custom implementation.
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * <context-param>
+ *     <param-name>state-store</param-name>
+ *     <param-value>memory</param-value>
+ * </context-param>} </pre>
+ */
+public interface StateStore {
+
+  /**
+   * Initialize the StateStore.
+   *
+   * @param servletContext the application servlet context
+   * @throws IOException if an IO error occurs initializing the store
+   */
+  default void onInit (ServletContext servletContext) throws IOException {}
+
+  /** Destroy the StateStore. */
+  default void onDestroy (){}
+
+  /**
+   * Return the stored state of the named control or null.
+   *
+   * @param context the request context
+   * @param pagePath the page path the state is stored under
+   * @param controlName the control name
+   * @return the stored control state or null
+   */
+  @Nullable Object getState (Context context, String pagePath, String controlName);
+
+  /**
+   * Return true if any control state is stored under the given page path.
+   * The controls of such a page are restored even if their own state is null.
+   * The default implementation returns true.
+   *
+   * @param context the request context
+   * @param pagePath the page path the state is stored under
+   * @return true if any control state is stored for the page
+   */
+  default boolean hasState (Context context, String pagePath){
+    return true;
+  }
+
+  /**
+   * Store the state of the named control. Implementations should ignore state
+   * equal to the stored state.
+   *
+   * @param context the request context
+   * @param pagePath the page path the state is stored under
+   * @param controlName the control name
+   * @param state the control state, null to clear the stored state
+   */
+  void saveState (Context context, String pagePath, String controlName, @Nullable Object state);
+
+  /**
+   * Remove the stored state of the named control.
+   *
+   * @param context the request context
+   * @param pagePath the page path the state is stored under
+   * @param controlName the control name
+   */
+  void removeState (Context context, String pagePath, String controlName);
+}
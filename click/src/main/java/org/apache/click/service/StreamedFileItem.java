@@ -0,0 +1,260 @@
+package org.apache.click.service;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemHeaders;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Provides the FileItem of a part received by the
+ * {@link StreamingFileUploadService}.
+ * <p/>
+ * Form fields are held in memory. Uploaded files are streamed directly into
+ * a file while the request is parsed: there is no in memory threshold buffer
+ * and {@link #write(File)} moves the file instead of copying it. The content
+ * can be read as a stream or as a channel with {@link #getChannel()}.
+ * <p/>
+ * The file of an uploaded item is deleted at the end of the request unless
+ * it was moved with {@link #write(File)}.
+ */
+public class StreamedFileItem implements FileItem {
+	@Serial private static final long serialVersionUID = 1L;
+
+	private String fieldName;
+	private final String contentType;
+	private boolean formField;
+	private final String fileName;
+	private FileItemHeaders headers;
+
+	/** The form field value, null for uploaded files. */
+	private final byte[] value;
+
+	/** The uploaded file content, null for form fields or after delete. */
+	private transient Path file;
+
+	/** The uploaded file size. */
+	private final long size;
+
+	/**
+	 * Create a form field item.
+	 *
+	 * @param fieldName the form field name
+	 * @param contentType the part content type or null
+	 * @param value the form field value
+	 */
+	public StreamedFileItem (String fieldName, @Nullable String contentType, byte[] value){
+		this.fieldName = fieldName;
+		this.contentType = contentType;
+		this.formField = true;
+		this.fileName = null;
+		this.value = value;
+		this.size = value.length;
+	}//new
+
+	/**
+	 * Create an uploaded file item.
+	 *
+	 * @param fieldName the form field name
+	 * @param contentType the part content type or null
+	 * @param fileName the original file name
+	 * @param file the file holding the uploaded content
+	 * @param size the uploaded content size in bytes
+	 */
+	public StreamedFileItem (String fieldName, @Nullable String contentType, String fileName, Path file, long size){
+		this.fieldName = fieldName;
+		this.contentType = contentType;
+		this.formField = false;
+		this.fileName = fileName;
+		this.value = null;
+		this.file = file;
+		this.size = size;
+	}//new
+
+	/**
+	 * Return the file holding the uploaded content, null for form fields or
+	 * if the item was deleted or moved.
+	 *
+	 * @return the uploaded content file or null
+	 */
+	@Nullable public Path getFile (){
+		return file;
+	}
+
+	/**
+	 * Return a channel reading the content. For uploaded files the channel is
+	 * a {@link FileChannel} supporting {@link FileChannel#transferTo}.
+	 *
+	 * @return a new channel reading the content, which must be closed
+	 * @throws IOException if the content cannot be read
+	 */
+	public ReadableByteChannel getChannel () throws IOException {
+		if (value != null){
+			return Channels.newChannel(new ByteArrayInputStream(value));
+		}
+		return FileChannel.open(requireFile(), StandardOpenOption.READ);
+	}
+
+	@Override public InputStream getInputStream () throws IOException {
+		if (value != null){
+			return new ByteArrayInputStream(value);
+		}
+		return Files.newInputStream(requireFile());
+	}
+
+	@Override public String getContentType (){
+		return contentType;
+	}
+
+	@Override public String getName (){
+		return fileName;
+	}
+
+	@Override public boolean isInMemory (){
+		return value != null;
+	}
+
+	@Override public long getSize (){
+		return size;
+	}
+
+	@Override public byte[] get (){
+		if (value != null){
+			return value.clone();
+		}
+		try {
+			return Files.readAllBytes(requireFile());
+		} catch (IOException e){
+			throw new IllegalStateException("StreamedFileItem: cannot read " + file, e);
+		}
+	}
+
+	@Override public String getString (String encoding) throws UnsupportedEncodingException {
+		return new String(get(), encoding);
+	}
+
+	/**
+	 * Return the content as a string, using the charset of the content type or
+	 * ISO-8859-1 like the Commons FileUpload items.
+	 */
+	@Override public String getString (){
+		String charset = getCharSet();
+		try {
+			return charset != null ? getString(charset) : new String(get(), StandardCharsets.ISO_8859_1);
+		} catch (UnsupportedEncodingException e){
+			return new String(get(), StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	/**
+	 * Move the uploaded file to the given file, or write the form field value
+	 * to it.
+	 *
+	 * @param target the file to write to
+	 * @throws Exception if the file cannot be written
+	 */
+	@Override public void write (File target) throws Exception {
+		if (value != null){
+			Files.write(target.toPath(), value);
+			return;
+		}
+		Path source = requireFile();
+		try {
+			Files.move(source, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e){// other file store or atomic move not supported
+			Files.move(source, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		file = null;
+	}
+
+	/** Delete the uploaded file, if it was not moved. */
+	@Override public void delete (){
+		Path current = file;
+		file = null;
+		if (current != null){
+			try {
+				Files.deleteIfExists(current);
+			} catch (IOException ignore){
+				current.toFile().deleteOnExit();
+			}
+		}
+	}
+
+	@Override public String getFieldName (){
+		return fieldName;
+	}
+
+	@Override public void setFieldName (String name){
+		fieldName = name;
+	}
+
+	@Override public boolean isFormField (){
+		return formField;
+	}
+
+	@Override public void setFormField (boolean state){
+		formField = state;
+	}
+
+	/**
+	 * Not supported: the content is received while parsing the request.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override public OutputStream getOutputStream (){
+		throw new UnsupportedOperationException("StreamedFileItem: content is read-only");
+	}
+
+	@Override public FileItemHeaders getHeaders (){
+		return headers;
+	}
+
+	@Override public void setHeaders (FileItemHeaders headers){
+		this.headers = headers;
+	}
+
+	/**
+	 * Return the charset parameter of the content type.
+	 *
+	 * @return the content charset or null
+	 */
+	@Nullable public String getCharSet (){
+		if (contentType == null){
+			return null;
+		}
+		int i = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+		if (i < 0){
+			return null;
+		}
+		String charset = contentType.substring(i + 8);
+		int end = charset.indexOf(';');
+		return (end < 0 ? charset : charset.substring(0, end)).trim().replace("\"", "");
+	}
+
+	private Path requireFile () throws IOException {
+		Path current = file;
+		if (current == null){
+			throw new IOException("StreamedFileItem: uploaded file " + fileName + " was moved or deleted");
+		}
+		return current;
+	}
+
+	@Override public String toString (){
+		return "StreamedFileItem[" + fieldName + (formField ? "" : "," + fileName + "," + size + " bytes") + "]";
+	}
+}
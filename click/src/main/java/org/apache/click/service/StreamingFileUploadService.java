@@ -0,0 +1,209 @@
+package org.apache.click.service;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.servlet.ServletRequestContext;
+
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a FileUploadService based on the Commons FileUpload streaming API.
+ * <p/>
+ * The request parts are read in one pass: form fields are read into memory,
+ * uploaded files are transferred from the request stream straight into a file
+ * with {@link FileChannel#transferFrom}, without the in memory threshold
+ * buffer and temporary copies of the {@link CommonsFileUploadService}. The
+ * {@link #sizeMax} and {@link #fileSizeMax} limits, or the per request limits
+ * of {@link #getSizeMax(HttpServletRequest)} and
+ * {@link #getFileSizeMax(HttpServletRequest)}, are enforced while streaming:
+ * an oversized upload is aborted as soon as the limit is exceeded.
+ * <p/>
+ * The parsed files are {@link StreamedFileItem}s, which
+ * {@link org.apache.click.control.FileField} can read as a stream or channel
+ * and move to their destination with {@link FileItem#write(java.io.File)}.
+ * Files which are not moved are deleted at the end of the request.
+ * <p/>
+ * To consume uploads while the request is parsed, for example to compute a
+ * digest or to stream into a blob store, override
+ * {@link #receiveFile(HttpServletRequest, FileItemStream, InputStream)}.
+ * <p/>
+ * Configure the service in <tt>click.xml</tt>:
+ * <pre class="prettyprint">
+ * &lt;file-upload-service classname="org.apache.click.service.StreamingFileUploadService"&gt;
+ *	 &lt;property name="sizeMax" value="10485760"/&gt;
+ *	 &lt;property name="fileSizeMax" value="2097152"/&gt;
+ *	 &lt;property name="repository" value="/var/tmp/uploads"/&gt;
+ * &lt;/file-upload-service&gt; </pre>
+ */
+@Getter @Setter
+public class StreamingFileUploadService extends CommonsFileUploadService {
+	/** The maximum number of bytes transferred into a file per call. */
+	private static final long TRANSFER_SIZE = 1L << 20;
+
+	/** The directory of the uploaded files. By default <tt>java.io.tmpdir</tt>. */
+	@Nullable protected String repository;
+
+	/**
+	 * Parse the request parts in one pass, streaming uploaded files into
+	 * files.
+	 *
+	 * @see FileUploadService#parseRequest(HttpServletRequest)
+	 *
+	 * @param request the servlet request
+	 * @return the list of {@link StreamedFileItem} (or custom) instances parsed from the request
+	 * @throws FileUploadException if request cannot be parsed or a size limit is exceeded
+	 */
+	@Override
+	public List<FileItem> parseRequest (@NonNull HttpServletRequest request) throws FileUploadException {
+		ServletFileUpload fileUpload = new ServletFileUpload();
+		long requestSizeMax = getSizeMax(request);
+		if (requestSizeMax > 0){
+			fileUpload.setSizeMax(requestSizeMax);
+		}
+		long requestFileSizeMax = getFileSizeMax(request);
+		if (requestFileSizeMax > 0){
+			fileUpload.setFileSizeMax(requestFileSizeMax);
+		}
+
+		List<FileItem> items = new ArrayList<>();
+		boolean parsed = false;
+		try {
+			FileItemIterator iterator = fileUpload.getItemIterator(new ServletRequestContext(request));
+			while (iterator.hasNext()){
+				FileItemStream part = iterator.next();
+				FileItem item;
+				try (InputStream in = part.openStream()){
+					if (part.isFormField()){
+						item = new StreamedFileItem(part.getFieldName(), part.getContentType(), in.readAllBytes());
+					} else {
+						item = receiveFile(request, part, in);
+					}
+				}
+				if (item != null){
+					item.setHeaders(part.getHeaders());
+					items.add(item);
+				}
+			}
+			parsed = true;
+			return items;
+
+		} catch (FileUploadBase.FileUploadIOException e){
+			// a size limit was exceeded while streaming
+			throw (FileUploadException) e.getCause();
+
+		} catch (IOException e){
+			throw new FileUploadException("Processing of multipart/form-data request failed. " + e.getMessage(), e);
+
+		} finally {
+			if (!parsed){
+				items.forEach(FileItem::delete);
+			}
+		}
+	}
+
+	/**
+	 * Receive an uploaded file while the request is parsed. The stream must
+	 * be consumed before returning, as the next part follows in the request.
+	 * <p/>
+	 * By default the file is transferred into a new file in the
+	 * {@link #getRepository() repository}. Empty file fields (no file
+	 * selected) are received as empty files like in Commons FileUpload.
+	 *
+	 * @param request the servlet request
+	 * @param part the uploaded file part
+	 * @param in the part content, limited to the upload size limits
+	 * @return the file item, or null to skip the part
+	 * @throws IOException if the file cannot be received or a size limit is exceeded
+	 */
+	@Nullable
+	protected FileItem receiveFile (HttpServletRequest request, FileItemStream part, InputStream in) throws IOException {
+		Path file = createFile(request, part);
+		long size = 0;
+		try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)){
+			ReadableByteChannel source = Channels.newChannel(in);
+			long count;
+			while ((count = out.transferFrom(source, size, TRANSFER_SIZE)) > 0){
+				size += count;
+			}
+		} catch (IOException | RuntimeException e){
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		return new StreamedFileItem(part.getFieldName(), part.getContentType(), part.getName(), file, size);
+	}
+
+	/**
+	 * Create the file of an uploaded file part.
+	 *
+	 * @param request the servlet request
+	 * @param part the uploaded file part
+	 * @return the new empty file
+	 * @throws IOException if the file cannot be created
+	 */
+	protected Path createFile (HttpServletRequest request, FileItemStream part) throws IOException {
+		Path dir = repository == null || repository.isBlank()
+				? Paths.get(System.getProperty("java.io.tmpdir"))
+				: Paths.get(repository);
+		return Files.createTempFile(dir, "upload_", ".tmp");
+	}
+
+	/**
+	 * Return the total request maximum size in bytes for the given request,
+	 * by default {@link #sizeMax}.
+	 *
+	 * @param request the servlet request
+	 * @return the request maximum size, 0 or less for no limit
+	 */
+	protected long getSizeMax (HttpServletRequest request){
+		return sizeMax;
+	}
+
+	/**
+	 * Return the maximum individual file size in bytes for the given request,
+	 * by default {@link #fileSizeMax}.
+	 *
+	 * @param request the servlet request
+	 * @return the file maximum size, 0 or less for no limit
+	 */
+	protected long getFileSizeMax (HttpServletRequest request){
+		return fileSizeMax;
+	}
+
+	/**
+	 * Delete the uploaded files which were not moved by the application.
+	 *
+	 * @see FileUploadService#releaseFileItems(Map)
+	 *
+	 * @param fileItemMap the file items of the request
+	 */
+	@Override
+	public void releaseFileItems (Map<String, FileItem[]> fileItemMap){
+		for (FileItem[] fileItems : fileItemMap.values()){
+			for (FileItem fileItem : fileItems){
+				if (fileItem instanceof StreamedFileItem){
+					fileItem.delete();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package org.apache.click.service;
+
+import org.apache.click.Context;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletContext;
+import java.io.IOException;
+
+/**
+ * Provides the submit tokens of the {@link org.apache.click.control.Form}
+ * <tt>onSubmitCheck</tt> methods, which detect duplicate form submissions.
+ * <p/>
+ * For every rendered form a new token is created and added to the form as a
+ * hidden field named after the form and page path. A form submission is valid
+ * if the submitted token was created for the form and was not submitted
+ * before.
+ *
+ * <h3>Configuration</h3>
+ * The default SubmitTokenService is {@link SessionSubmitTokenService}, which
+ * keeps the last token of each form in the <tt>HttpSession</tt>. Use the
+ * <tt>submit-token-service</tt> init parameter to configure a different
+ * service: <tt>session</tt>, <tt>hmac</tt> ({@link HmacSubmitTokenService})
+ * or the classname of a custom implementation.
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * <context-param>
+ *     <param-name>submit-token-service</param-name>
+ *     <param-value>hmac</param-value>
+ * </context-param>} </pre>
+ */
+public interface SubmitTokenService {
+
+  /**
+   * Initialize the SubmitTokenService.
+   *
+   * @param servletContext the application servlet context
+   * @throws IOException if an IO error occurs initializing the service
+   */
+  default void onInit (ServletContext servletContext) throws IOException {}
+
+  /** Destroy the SubmitTokenService. */
+  default void onDestroy (){}
+
+  /**
+   * Return true if the submitted token is valid for a submission of the form
+   * with the given token name.
+   *
+   * @param context the request context
+   * @param tokenName the submit token name: the form name and page path
+   * @param token the submitted token or null
+   * @return true if the form submission is valid
+   */
+  boolean isValidToken (Context context, String tokenName, @Nullable String token);
+
+  /**
+   * Create the token for the next submission of the form with the given
+   * token name.
+   *
+   * @param context the request context
+   * @param tokenName the submit token name: the form name and page path
+   * @return the new submit token
+   */
+  String createToken (Context context, String tokenName);
+}
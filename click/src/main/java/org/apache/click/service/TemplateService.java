@@ -50,6 +50,13 @@ public interface TemplateService {
 
 	/**
 	 * Render the given page to the writer.
+	 * <p/>
+	 * If streaming rendering is enabled the writer is a byte buffered
+	 * {@link org.apache.click.util.Utf8StreamWriter} writing directly to the
+	 * servlet output stream, so implementations should write to it without
+	 * wrapping it in another buffer. This writer is flushed and released by
+	 * the ClickServlet, or discarded if rendering fails: implementations must
+	 * not flush or close it, and must not write an error report to it.
 	 *
 	 * @param page the page template to render
 	 * @param model the model to merge with the template and render
@@ -1,5 +1,7 @@
 package org.apache.click.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import lombok.EqualsAndHashCode;
@@ -22,10 +24,15 @@ import javax.annotation.Nullable;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,6 +40,7 @@ import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -46,6 +54,8 @@ import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.apache.click.util.ClickUtils.trim;
 
@@ -72,7 +82,8 @@ public class XmlConfigService implements ConfigService {
   /** The default common page headers. */
   static final Map<String, Object> DEFAULT_HEADERS;
 
-  private static final Object PAGE_LOAD_LOCK = new Object();
+  /** How long a development mode page lookup miss is remembered before the path is probed again. */
+  static final long NOT_FOUND_PATH_TTL_MILLIS = 2_000;
 
   static {// Initialize the default headers.
     DEFAULT_HEADERS = new HashMap<>();
@@ -87,12 +98,24 @@ public class XmlConfigService implements ConfigService {
   /** The page automapping override page class for path list. */
   final List<ExcludesElm> excludesList = new ArrayList<>();
 
-  /** The map of ClickApp.PageElm keyed on path. */
+  /** The map of ClickApp.PageElm keyed on path. Startup only: frozen into {@link #routes} by onInit. */
   final Map<String,PageElm> pageByPathMap = new HashMap<>();
 
-  /** The map of ClickApp.PageElm keyed on class. */
+  /** The map of ClickApp.PageElm keyed on class. Startup only: frozen into {@link #routes} by onInit. */
   final Map<Class<? extends Page>,Object> pageByClassMap = new HashMap<>();
 
+  /**
+   The immutable page routing index used by all lookups. Development mode page
+   discovery publishes a new copy, so lookups never lock.
+   */
+  final AtomicReference<PageRoutes> routes = new AtomicReference<>(PageRoutes.EMPTY);
+
+  /** Development mode cache of recently probed paths without a page class. */
+  final Cache<String,Boolean> notFoundPaths = Caffeine.newBuilder()
+      .maximumSize(10_000)
+      .expireAfterWrite(NOT_FOUND_PATH_TTL_MILLIS, TimeUnit.MILLISECONDS)
+      .build();
+
   /** The list of page packages. */
   @Getter final Set<String> pagePackages = new LinkedHashSet<>();
 
@@ -167,6 +190,24 @@ public class XmlConfigService implements ConfigService {
 	 */
 	@Getter(onMethod_=@Override) private TemplateService templateService;
 
+  /**
+	 The application StateStore. Default {@link SessionStateStore}
+	 @see ConfigService#getStateStore()
+	 */
+	@Getter(onMethod_=@Override) private StateStore stateStore = SessionStateStore.DEFAULT;
+
+  /**
+	 The application ObjectCodec. Default {@link DeflaterObjectCodec}
+	 @see ConfigService#getObjectCodec()
+	 */
+	@Getter(onMethod_=@Override) private ObjectCodec objectCodec = DeflaterObjectCodec.DEFAULT;
+
+  /**
+	 The application SubmitTokenService. Default {@link SessionSubmitTokenService}
+	 @see ConfigService#getSubmitTokenService()
+	 */
+	@Getter(onMethod_=@Override) private SubmitTokenService submitTokenService = SessionSubmitTokenService.DEFAULT;
+
   /** Flag indicating whether Click is running on Google App Engine. */
 	@Getter private boolean onGoogleAppEngine = false;
 
@@ -205,6 +246,9 @@ public class XmlConfigService implements ConfigService {
 		// Load the error and not-found pages
 		loadDefaultPages();
 
+		// Publish the page routing index
+		routes.set(new PageRoutes(pageByPathMap, pageByClassMap));
+
 		// Load the locale
 		loadLocale();
 
@@ -219,6 +263,15 @@ public class XmlConfigService implements ConfigService {
 
 		// Load the Resource service
 		loadResourceService();
+
+		// Load the control state store
+		loadStateStore();
+
+		// Load the object codec
+		loadObjectCodec();
+
+		// Load the form submit token service
+		loadSubmitTokenService();
   }
 
   /** @see ConfigService#onDestroy() */
@@ -236,6 +289,16 @@ public class XmlConfigService implements ConfigService {
     if (getResourceService() != null){
       getResourceService().onDestroy();
     }
+    if (getStateStore() != null){
+      getStateStore().onDestroy();
+    }
+    if (getObjectCodec() != null){
+      ClickUtils.setObjectCodec(null);
+      getObjectCodec().onDestroy();
+    }
+    if (getSubmitTokenService() != null){
+      getSubmitTokenService().onDestroy();
+    }
   }
 
   /**
@@ -264,14 +327,7 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public boolean isJspPage (String path) {
-    final String buffer;
-    int index = path.lastIndexOf('.');
-    if (index > 0){
-      buffer = path.substring(0, index) +".jsp";
-    } else {
-      buffer = path +".jsp";
-    }
-    return pageByPathMap.containsKey(buffer);
+    return routes.get().isJspPage(path);
   }
 
   /**
@@ -368,53 +424,37 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public Class<? extends Page> getPageClass (String pagePath) {
-    // If in production or profile mode.
-    if (applicationMode == Mode.PROFILE || applicationMode == Mode.PRODUCTION || applicationMode == null){
-      PageElm page = pageByPathMap.get(pagePath);
-      if (page == null){
-        String jspPath = StringUtils.replace(pagePath, ".htm", ".jsp");
-        page = pageByPathMap.get(jspPath);
-      }
-
-      if (page != null){
-        return page.getPageClass();
-      } else {
-        return null;
-      }
-
-    // Else in development, debug or trace mode
-    } else {
-      synchronized (PAGE_LOAD_LOCK){
-        PageElm page = pageByPathMap.get(pagePath);
-        if (page == null){
-          String jspPath = StringUtils.replace(pagePath, ".htm", ".jsp");
-          page = pageByPathMap.get(jspPath);
-        }
-
-        if (page != null){
-          return page.getPageClass();
-        }
-
-        Class<? extends Page> pageClass = null;
-        try {
-          URL resource = servletContext.getResource(pagePath);
-          if (resource != null){
-            for (String pagePackage : pagePackages){
-              pageClass = getPageClass(pagePath, pagePackage);
-              if (pageClass != null){
-                page = new PageElm(pagePath, pageClass, commonHeaders, autoBindingMode);
-                pageByPathMap.put(page.getPath(), page);
-                addToClassMap(page);
-                logService.debug("getPageClass: {} → {}", pagePath, pageClass.getName());
-                break;
-              }
-            }
+    PageElm page = routes.get().getPage(pagePath);
+    if (page != null){
+      return page.getPageClass();
+    }
+    // If in production or profile mode: the routing index is complete
+    if (applicationMode == Mode.PROFILE || applicationMode == Mode.PRODUCTION || applicationMode == null || pagePath == null){
+      return null;
+    }
+    // Else in development, debug or trace mode: try to discover a new page
+    if (notFoundPaths.getIfPresent(pagePath) != null){
+      return null;
+    }
+    Class<? extends Page> pageClass = null;
+    try {
+      URL resource = servletContext.getResource(pagePath);
+      if (resource != null){
+        for (String pagePackage : pagePackages){
+          pageClass = getPageClass(pagePath, pagePackage);
+          if (pageClass != null){
+            val newPage = new PageElm(pagePath, pageClass, commonHeaders, autoBindingMode);
+            // copy-on-write: concurrent discoveries of the same path keep the first published page
+            val published = routes.updateAndGet(r->r.getPage(pagePath) != null ? r : r.withPage(newPage));
+            logService.debug("getPageClass: {} → {}", pagePath, pageClass.getName());
+            return published.getPage(pagePath).getPageClass();
           }
-        } catch (MalformedURLException ignore){
         }
-        return pageClass;
       }
+    } catch (MalformedURLException ignore){
     }
+    notFoundPaths.put(pagePath, Boolean.TRUE);
+    return pageClass;
   }
 
   /**
@@ -427,7 +467,7 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public String getPagePath (Class<? extends Page> pageClass) {
-    Object object = pageByClassMap.get(pageClass);
+    Object object = routes.get().getPageByClass(pageClass);
 
     if (object instanceof PageElm page){
       return page.getPath();
@@ -459,8 +499,9 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public List<Class<? extends Page>> getPageClassList () {
-    val classList = new ArrayList<Class<? extends Page>>(pageByClassMap.size());
-    classList.addAll(pageByClassMap.keySet());
+    val byClass = routes.get().byClass;
+    val classList = new ArrayList<Class<? extends Page>>(byClass.size());
+    classList.addAll(byClass.keySet());
     return classList;
   }
 
@@ -472,11 +513,7 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public Map<String, Object> getPageHeaders (String path) {
-    PageElm page = pageByPathMap.get(path);
-    if (page == null){
-      String jspPath = StringUtils.replace(path, ".htm", ".jsp");
-      page = pageByPathMap.get(jspPath);
-    }
+    PageElm page = routes.get().getPage(path);
 
     if (page != null) {
       return page.getHeaders();
@@ -492,7 +529,7 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public Class<? extends Page> getNotFoundPageClass () {
-    PageElm page = pageByPathMap.get(NOT_FOUND_PATH);
+    PageElm page = routes.get().byPath.get(NOT_FOUND_PATH);
 
     if (page != null) {
       return page.getPageClass();
@@ -509,7 +546,7 @@ public class XmlConfigService implements ConfigService {
    */
   @Override
 	public Class<? extends Page> getErrorPageClass() {
-    PageElm page = pageByPathMap.get(ERROR_PATH);
+    PageElm page = routes.get().byPath.get(ERROR_PATH);
 
     if (page != null) {
       return page.getPageClass();
@@ -538,7 +575,7 @@ public class XmlConfigService implements ConfigService {
    * @return an array public fields for the given page class
    */
   @Override public Field[] getPageFieldArray (Class<? extends Page> pageClass) {
-    Object object = pageByClassMap.get(pageClass);
+    Object object = routes.get().getPageByClass(pageClass);
 
     if (object instanceof PageElm page) {
       return page.getFieldArray();
@@ -552,6 +589,27 @@ public class XmlConfigService implements ConfigService {
     }
   }
 
+  /**
+   * @see ConfigService#getPageBinding(Class)
+   *
+   * @param pageClass the page class
+   * @return the precompiled accessor table for the given page class or null
+   */
+  @Override @Nullable public PageBinding getPageBinding (Class<? extends Page> pageClass) {
+    Object object = routes.get().getPageByClass(pageClass);
+
+    if (object instanceof PageElm page) {
+      return page.getBinding();
+
+    } else if (object instanceof List list) {
+      PageElm page = (PageElm) list.get(0);
+      return page.getBinding();
+
+    } else {
+      return null;
+    }
+  }
+
   /**
    * @see ConfigService#getPageFields(Class)
    *
@@ -559,7 +617,7 @@ public class XmlConfigService implements ConfigService {
    * @return a Map of public fields for the given page class
    */
   @Override public Map<String, Field> getPageFields (Class<? extends Page> pageClass) {
-    Object object = pageByClassMap.get(pageClass);
+    Object object = routes.get().getPageByClass(pageClass);
 
     if (object instanceof PageElm page) {
       return page.getFields();
@@ -705,11 +763,8 @@ public class XmlConfigService implements ConfigService {
     if (pagesList.isEmpty()){
       throw new RuntimeException("required configuration 'pages' element missing.");
     }
-    List<String> templates = getTemplateFiles();
-
     for (String page : pagesList) {
-      // Determine whether to use automapping
-      boolean automap = true;// pagesElm.getAttribute("automapping") "true"
+      // Automapping is always used: pagesElm.getAttribute("automapping") "true"
 
       // Determine whether to use autobinding.
       // String autobindingStr = pagesElm.getAttribute("autobinding"); "annotation" "public"
@@ -728,10 +783,30 @@ public class XmlConfigService implements ConfigService {
 
       // Add the pages package to the list of page packages
       pagePackages.add(pagesPackage);
-
-      if (automap)
-        buildAutoPageMapping(pagesPackage, templates);
     }//f usually 1 package
+
+    // Use the build time page index if it was built for these packages and
+    // is not stale, else scan the web application templates
+    PageIndex index = loadPageIndex();
+    if (index != null && !index.getPackages().equals(new ArrayList<>(pagePackages))){
+      logService.info("loadPages: page index built for " + index.getPackages() + ", not " + pagePackages + ": scanning");
+      index = null;
+    }
+    List<String> templates;
+    if (index != null && buildIndexedPageMapping(index)){
+      // Only list the web application templates to find those added after the index was built
+      templates = "true".equalsIgnoreCase(opt("page-index-check"))
+          ? index.getUnlistedTemplates(getTemplateFiles())
+          : List.of();
+      if (!templates.isEmpty()){
+        logService.info("loadPages: " + templates.size() + " templates not in the page index, e.g. " + templates.get(0) + ": scanning them");
+      }
+    } else {
+      templates = getTemplateFiles();
+    }
+    for (String pagesPackage : pagePackages){
+      buildAutoPageMapping(pagesPackage, templates);
+    }
 		buildManualPageMapping();
 
 		buildClassMap();
@@ -771,11 +846,7 @@ public class XmlConfigService implements ConfigService {
    * @param templates the list of templates to map to Page classes
    */
   void buildAutoPageMapping (final String pagesPackage, List<String> templates) {
-    excludesList.clear();// Build list of automap path page class overrides
-		List<String> excludesStr = Splitter.on(';').omitEmptyStrings().trimResults().splitToList(opt("excludes"));
-		for (String pattern : excludesStr){
-      excludesList.add(new ExcludesElm(pattern));
-    }
+    buildExcludesList();
     logService.debug("buildAutoPageMapping: automapped pages:");
 
     for (String pagePath : templates){
@@ -786,6 +857,85 @@ public class XmlConfigService implements ConfigService {
     }//f
   }
 
+  /**
+   * Build the list of automap path page class overrides.
+   */
+  private void buildExcludesList () {
+    excludesList.clear();
+		List<String> excludesStr = Splitter.on(';').omitEmptyStrings().trimResults().splitToList(opt("excludes"));
+		for (String pattern : excludesStr){
+      excludesList.add(new ExcludesElm(pattern));
+    }
+  }
+
+  /**
+   * Return the build time page index set by the <tt>page-index</tt> init
+   * parameter: a classpath resource (default {@link PageIndex#DEFAULT_RESOURCE}),
+   * a web application path starting with '/' or <tt>none</tt>.
+   *
+   * @return the page index, or null if there is no page index
+   */
+  @Nullable
+  PageIndex loadPageIndex () {
+    String name = opt("page-index");
+    if ("none".equalsIgnoreCase(name)){
+      return null;
+    }
+    if (name.isEmpty()){
+      name = PageIndex.DEFAULT_RESOURCE;
+    }
+    InputStream inputStream = name.startsWith("/")
+        ? servletContext.getResourceAsStream(name)
+        : ClickUtils.getResourceAsStream(name, XmlConfigService.class);
+    if (inputStream == null){
+      return null;
+    }
+    try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)){
+      return PageIndex.read(reader);
+    } catch (IOException | IllegalArgumentException e){
+      logService.warn("loadPageIndex: can't read page index " + name + ": scanning", e);
+      return null;
+    }
+  }
+
+  /**
+   * Add the pages of the given build time page index to the
+   * {@link #pageByPathMap}, applying the excluded paths.
+   *
+   * @param index the page index
+   * @return true if the pages were added, false if the index is stale
+   */
+  boolean buildIndexedPageMapping (PageIndex index) {
+    buildExcludesList();
+    val pages = new LinkedHashMap<String,PageElm>();
+    try {
+      for (PageIndex.Entry entry : index.getEntries()){
+        String path = entry.path();
+        if (pageByPathMap.containsKey(path)){
+          continue;
+        }
+        int dotIndex = path.lastIndexOf('.');
+        Class<? extends Page> pageClass = getExcludesPageClass(dotIndex >= 0 ? path.substring(0, dotIndex) : path);
+        if (pageClass != null){
+          pages.put(path, new PageElm(path, pageClass, commonHeaders, autoBindingMode));
+
+        } else if (entry.className() != null){
+          pageClass = ClickUtils.castUnsafe(ClickUtils.classForName(entry.className()));
+          Field[] fieldArray = autoBindingMode == AutoBinding.DEFAULT
+              ? PageIndex.resolveFields(pageClass, entry.fields())
+              : getBindablePageFields(pageClass, autoBindingMode);
+          pages.put(path, new PageElm(path, pageClass, commonHeaders, fieldArray));
+        }
+      }
+    } catch (ClassNotFoundException | NoSuchFieldException e){
+      logService.warn("buildIndexedPageMapping: stale page index: " + e + ": scanning");
+      return false;
+    }
+    pageByPathMap.putAll(pages);
+    logService.debug("buildIndexedPageMapping: {} indexed pages", pages.size());
+    return true;
+  }
+
 	private void tryCreateAndAddPage (String pagesPackage, String pagePath) {
 		if (!pageByPathMap.containsKey(pagePath)){// for each page package × template.htm
 			Class<? extends Page> pageClass = getPageClass(pagePath, pagesPackage);
@@ -928,48 +1078,14 @@ public class XmlConfigService implements ConfigService {
    * @throws IOException if the resources cannot be deployed
    */
   private void deployResourcesOnClasspath() throws IOException {
-    long startTime = System.currentTimeMillis();
-
     // Find all jars and directories on the classpath that contains the
     // directory "META-INF/resources/", and deploy those resources
     String resourceDirectory = "META-INF/resources";
 
-    List<String> resources = new DeployUtils(logService).findResources(resourceDirectory).getResources();
-    for (String resource : resources) {
-      deployFile(resource, resourceDirectory);
-    }
-
-    logService.trace("deployResourcesOnClasspath: deployed files from jars and folders - {}  ms", System.currentTimeMillis()-startTime);
-  }
-
-  /**
-   * Deploy the specified file.
-   *
-   * @param file the file to deploy
-   * @param prefix the file prefix that must be removed when the file is
-   * deployed
-   */
-  private void deployFile (String file, String prefix) {
-    // Only deploy resources containing the prefix
-    int pathIndex = file.indexOf(prefix);
-    if (pathIndex == 0) {
-      pathIndex += prefix.length();
-
-      // By default deploy to the web root dir
-      String targetDir = "";
-
-      // resourceName example -> click/table.css
-      String resourceName = file.substring(pathIndex);
-      int index = resourceName.lastIndexOf('/');
-
-      if (index != -1) {
-        // targetDir example -> click
-        targetDir = resourceName.substring(0, index);
-      }
-
-      // Copy resources to web folder
-      ClickUtils.deployFile(servletContext, file, targetDir);
-    }
+    // deployFiles=adopt: overwrite the files deployed before the manifest existed, e.g. by an earlier Click version
+    val deployer = new ResourceDeployer(logService, ClickUtils.classLoader(), "adopt".equalsIgnoreCase(opt("deployFiles")));
+    val result = deployer.deploy(resourceDirectory, Paths.get(servletContext.getRealPath("/")));
+    logService.info("deployResourcesOnClasspath: " + result);
   }
 
   private void loadMode () {
@@ -1067,6 +1183,60 @@ public class XmlConfigService implements ConfigService {
     resourceService.onInit(servletContext);
   }
 
+  /**
+   * Load the StateStore from the <tt>state-store</tt> init parameter: <tt>session</tt>
+   * (default), <tt>memory</tt>, <tt>file</tt> or a StateStore classname.
+   */
+  private void loadStateStore () throws Exception {
+    String classname = opt("state-store");
+
+    if (classname.isEmpty() || "session".equalsIgnoreCase(classname)){
+      stateStore = SessionStateStore.DEFAULT;
+    } else if ("memory".equalsIgnoreCase(classname)){
+      stateStore = new MemoryStateStore();
+    } else if ("file".equalsIgnoreCase(classname)){
+      stateStore = new FileStateStore();
+    } else {
+      Class<? extends StateStore> stateStoreClass = ClickUtils.classForName(classname);
+      stateStore = stateStoreClass.newInstance();
+    }
+    logService.debug("initializing StateStore: {}", stateStore.getClass().getName());
+    stateStore.onInit(servletContext);
+  }
+
+  private void loadObjectCodec () throws Exception {
+    String classname = opt("object-codec");
+
+    if (classname.isEmpty()){
+      objectCodec = new DeflaterObjectCodec();
+    } else {
+      Class<? extends ObjectCodec> objectCodecClass = ClickUtils.classForName(classname);
+      objectCodec = objectCodecClass.newInstance();
+    }
+    logService.debug("initializing ObjectCodec: {}", objectCodec.getClass().getName());
+    objectCodec.onInit(servletContext);
+    ClickUtils.setObjectCodec(objectCodec);
+  }
+
+  /**
+   * Load the SubmitTokenService from the <tt>submit-token-service</tt> init
+   * parameter: <tt>session</tt> (default), <tt>hmac</tt> or a SubmitTokenService classname.
+   */
+  private void loadSubmitTokenService () throws Exception {
+    String classname = opt("submit-token-service");
+
+    if (classname.isEmpty() || "session".equalsIgnoreCase(classname)){
+      submitTokenService = SessionSubmitTokenService.DEFAULT;
+    } else if ("hmac".equalsIgnoreCase(classname)){
+      submitTokenService = new HmacSubmitTokenService();
+    } else {
+      Class<? extends SubmitTokenService> submitTokenServiceClass = ClickUtils.classForName(classname);
+      submitTokenService = submitTokenServiceClass.newInstance();
+    }
+    logService.debug("initializing SubmitTokenService: {}", submitTokenService.getClass().getName());
+    submitTokenService.onInit(servletContext);
+  }
+
   private void loadPropertyService () throws Exception {
     String classname = opt("property-service");
 
@@ -1226,7 +1396,7 @@ public class XmlConfigService implements ConfigService {
    * @param mode the binding mode
    * @return the field array of bindable fields
    */
-  private static Field[] getBindablePageFields (Class<? extends Page> pageClass, AutoBinding mode) {
+  static Field[] getBindablePageFields (Class<? extends Page> pageClass, AutoBinding mode) {
     if (mode == AutoBinding.DEFAULT){
       // Get @Bindable fields
       Map<String,Field> fieldMap = getAnnotatedBindableFields(pageClass);
@@ -1330,16 +1500,23 @@ public class XmlConfigService implements ConfigService {
   static final class PageElm {
 		@Getter final Map<String, Field> fields;
 		@Getter final Field[] fieldArray;
+		/** The precompiled accessors of {@link #fieldArray} */
+		@Getter final PageBinding binding;
     @Getter final Map<String,Object> headers;
 		@Getter final Class<? extends Page> pageClass;
 		@Getter final String path;
 
     private PageElm(String path, Class<? extends Page> pageClass, Map<String,Object> commonHeaders, AutoBinding mode){
+      this(path, pageClass, commonHeaders, getBindablePageFields(pageClass, mode));
+    }
+
+    private PageElm(String path, Class<? extends Page> pageClass, Map<String,Object> commonHeaders, Field[] fieldArray){
       headers = Collections.unmodifiableMap(commonHeaders);
       this.pageClass = pageClass;
       this.path = path;
 
-      fieldArray = getBindablePageFields(pageClass, mode);
+      this.fieldArray = fieldArray;
+      binding = new PageBinding(fieldArray);
 
       fields = new HashMap<>();
       for (Field field : fieldArray) {
@@ -1353,6 +1530,7 @@ public class XmlConfigService implements ConfigService {
 			pageClass = ClickUtils.castUnsafe(ClickUtils.classForName(classname));
 
 			fieldArray = getBindablePageFields(pageClass, AutoBinding.DEFAULT);
+			binding = new PageBinding(fieldArray);
 			fields = new HashMap<>();
 			for (Field field : fieldArray){
 				fields.put(field.getName(), field);
@@ -1361,6 +1539,7 @@ public class XmlConfigService implements ConfigService {
 
     public PageElm (String classname, String path) throws ClassNotFoundException {
       this.fieldArray = EMPTY_FIELD_ARRAY;
+      this.binding = PageBinding.EMPTY;
       this.fields = Collections.emptyMap();
       this.headers = Collections.emptyMap();
       pageClass = ClickUtils.castUnsafe(ClickUtils.classForName(classname));
@@ -1368,6 +1547,150 @@ public class XmlConfigService implements ConfigService {
     }//new
   }
 
+  /**
+   * Provides the immutable page routing index: exact page paths, the precomputed
+   * <tt>.htm</tt> aliases of <tt>.jsp</tt> pages, the JSP page flags and the
+   * pages keyed on class.
+   * <p/>
+   * Instances are never modified after construction, a new page is added by
+   * publishing a copy created with {@link #withPage(PageElm)}.
+   */
+  static final class PageRoutes {
+    static final PageRoutes EMPTY = new PageRoutes(Collections.emptyMap(), Collections.emptyMap());
+
+    /** The pages keyed on their exact path. */
+    final Map<String,PageElm> byPath;
+    /** The pages keyed on their exact path and on the .htm paths which resolve to .jsp pages. */
+    final Map<String,PageElm> lookup;
+    /** The lookup paths for which a JSP page exists. */
+    final Set<String> jspPaths;
+    /** The PageElm or List of PageElm keyed on page class. */
+    final Map<Class<? extends Page>,Object> byClass;
+
+    PageRoutes (Map<String,PageElm> pageByPath, Map<Class<? extends Page>,Object> pageByClass){
+      byPath = Collections.unmodifiableMap(new HashMap<>(pageByPath));
+
+      val lookupMap = new HashMap<String,PageElm>(byPath);
+      for (val e : byPath.entrySet()){
+        for (String alias : htmAliases(e.getKey())){
+          lookupMap.putIfAbsent(alias, e.getValue());// exact path wins
+        }
+      }
+      lookup = Collections.unmodifiableMap(lookupMap);
+
+      val jsp = new HashSet<String>();
+      for (String path : lookup.keySet()){
+        if (byPath.containsKey(toJspPath(path))){
+          jsp.add(path);
+        }
+      }
+      jspPaths = Collections.unmodifiableSet(jsp);
+
+      val classMap = new HashMap<Class<? extends Page>,Object>(pageByClass);
+      for (val e : classMap.entrySet()){
+        if (e.getValue() instanceof List<?> list){
+          e.setValue(List.copyOf(list));
+        }
+      }
+      byClass = Collections.unmodifiableMap(classMap);
+    }//new
+
+    /**
+     * Return the page for the given request path, or null if not found.
+     *
+     * @param path the page path, e.g. <tt>/edit-customer.htm</tt>
+     * @return the page for the given path or null
+     */
+    @Nullable PageElm getPage (String path){
+      return lookup.get(path);
+    }
+
+    @Nullable Object getPageByClass (Class<? extends Page> pageClass){
+      return byClass.get(pageClass);
+    }
+
+    boolean isJspPage (String path){
+      if (jspPaths.contains(path)){
+        return true;
+      } else if (lookup.containsKey(path)){
+        return false;
+      }
+      return byPath.containsKey(toJspPath(path));// unknown path
+    }
+
+    /**
+     * Return a copy of this index with the given page added.
+     *
+     * @param page the page to add
+     * @return the new routing index
+     */
+    PageRoutes withPage (PageElm page){
+      val pathMap = new HashMap<String,PageElm>(byPath);
+      pathMap.put(page.getPath(), page);
+
+      val classMap = new HashMap<Class<? extends Page>,Object>(byClass);
+      Object value = classMap.get(page.getPageClass());
+      if (value == null){
+        classMap.put(page.getPageClass(), page);
+      } else {
+        val list = new ArrayList<PageElm>();
+        if (value instanceof List<?> pages){
+          for (Object o : pages){
+            list.add((PageElm) o);
+          }
+        } else {
+          list.add((PageElm) value);
+        }
+        list.add(page);
+        classMap.put(page.getPageClass(), list);
+      }
+      return new PageRoutes(pathMap, classMap);
+    }
+
+    /** path.ext → path.jsp */
+    static String toJspPath (String path){
+      int index = path.lastIndexOf('.');
+      if (index > 0){
+        return path.substring(0, index) +".jsp";
+      } else {
+        return path +".jsp";
+      }
+    }
+
+    /**
+     * Return the request paths which are resolved to the given page path by
+     * replacing <tt>.htm</tt> with <tt>.jsp</tt>.
+     *
+     * @param path the page path, e.g. <tt>/edit-customer.jsp</tt>
+     * @return the .htm aliases of the path, e.g. <tt>/edit-customer.htm</tt>
+     */
+    static List<String> htmAliases (String path){
+      if (!path.contains(".jsp") || path.contains(".htm")){
+        return Collections.emptyList();
+      }
+      val aliases = new ArrayList<String>(1);
+      collectAliases(path, 0, false, aliases);
+      return aliases;
+    }
+
+    private static void collectAliases (String path, int from, boolean replaced, List<String> aliases){
+      int index = path.indexOf(".jsp", from);
+      if (index < 0){
+        if (replaced){
+          aliases.add(path);
+        }
+        return;
+      }
+      collectAliases(path, index + 4, replaced, aliases);// keep .jsp
+      String htm = path.substring(0, index) + ".htm" + path.substring(index + 4);
+      collectAliases(htm, index + 4, true, aliases);// replace .jsp with .htm
+    }
+
+    @Override public String toString (){
+      return "PageRoutes[paths=" + byPath.size() + ",aliases=" + (lookup.size() - byPath.size()) + ",classes=" + byClass.size() + "]";
+    }
+  }
+
 	@EqualsAndHashCode
   static final class ExcludesElm {
     final Set<String> pathSet = new HashSet<>();
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.click.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Provides a HtmlStringBuffer which streams its content to an
+ * <tt>Appendable</tt>, typically the template <tt>Writer</tt>, instead of
+ * growing a character array.
+ * <p/>
+ * The characters are collected in a fixed size chunk which is written to the
+ * appendable when full and by {@link #flush()}, so a control renders its
+ * markup straight into the response without the intermediate buffer copies
+ * and <tt>String</tt> of {@link Object#toString()}:
+ *
+ * <pre class="codeJava">
+ * AppendableHtmlStringBuffer buffer = <span class="kw">new</span> AppendableHtmlStringBuffer(writer);
+ * table.render(buffer);
+ * buffer.flush(); </pre>
+ *
+ * Templates render controls this way through {@link ClickUtils#renderTo(Object, Writer)}.
+ * <p/>
+ * {@link #length()} returns the number of characters appended, including the
+ * characters already written to the appendable, while {@link #toString()}
+ * only returns the characters not yet written.
+ * <p/>
+ * The inherited element and attribute methods, e.g.
+ * {@link #elementStart(String)} and {@link #appendAttribute(String, Object)},
+ * are built on the <tt>append</tt> methods and write through as well. Code
+ * which accesses the {@link #characters} array directly only sees the
+ * current chunk.
+ * <p/>
+ * IO errors of the appendable are thrown as <tt>UncheckedIOException</tt>,
+ * as render methods do not declare <tt>IOException</tt>. Like
+ * HtmlStringBuffer this class is not synchronized.
+ */
+public class AppendableHtmlStringBuffer extends HtmlStringBuffer {
+
+  // -------------------------------------------------------------- Constants
+
+  /** The default chunk size in characters: 1024. */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  // ----------------------------------------------------- Instance Variables
+
+  /** The appendable the characters are written to. */
+  protected final Appendable out;
+
+  /** The number of characters written to the appendable. */
+  protected long written;
+
+  // ----------------------------------------------------------- Constructors
+
+  /**
+   * Create a new HTML StringBuffer writing to the given appendable with
+   * the specified chunk size.
+   *
+   * @param out the appendable to write to
+   * @param chunkSize the number of characters written at once
+   */
+  public AppendableHtmlStringBuffer(Appendable out, int chunkSize) {
+    super(Math.max(chunkSize, 16));
+    if (out == null) {
+      throw new IllegalArgumentException("Null out parameter");
+    }
+    this.out = out;
+  }
+
+  /**
+   * Create a new HTML StringBuffer writing to the given appendable in
+   * chunks of {@link #DEFAULT_CHUNK_SIZE} characters.
+   *
+   * @param out the appendable to write to
+   */
+  public AppendableHtmlStringBuffer(Appendable out) {
+    this(out, DEFAULT_CHUNK_SIZE);
+  }
+
+  // --------------------------------------------------------- Public Methods
+
+  /**
+   * Append the char value to the buffer.
+   *
+   * @param value the char value to append
+   * @return a reference to this <tt>HtmlStringBuffer</tt> object
+   */
+  @Override
+  public HtmlStringBuffer append(char value) {
+    if (count == characters.length) {
+      flush();
+    }
+    characters[count++] = value;
+
+    return this;
+  }
+
+  /**
+   * Append the raw object value of the given object to the buffer.
+   *
+   * @param value the object value to append
+   * @return a reference to this <tt>HtmlStringBuffer</tt> object
+   */
+  @Override
+  public HtmlStringBuffer append(Object value) {
+    return append(String.valueOf(value));
+  }
+
+  /**
+   * Append the raw string value of the given object to the buffer. Strings
+   * longer than the chunk are written directly to the appendable.
+   *
+   * @param value the string value to append
+   * @return a reference to this <tt>HtmlStringBuffer</tt> object
+   */
+  @Override
+  public HtmlStringBuffer append(String value) {
+    String string = (value != null) ? value : "null";
+    int length = string.length();
+
+    if (length > characters.length - count) {
+      flush();
+      if (length > characters.length) {
+        try {
+          out.append(string);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        written += length;
+        return this;
+      }
+    }
+    string.getChars(0, length, characters, count);
+    count += length;
+
+    return this;
+  }
+
+  /**
+   * Write the buffered characters to the appendable. The appendable itself
+   * is not flushed.
+   *
+   * @throws UncheckedIOException if an IO error occurs
+   */
+  public void flush() {
+    if (count == 0) {
+      return;
+    }
+    try {
+      if (out instanceof Writer) {
+        ((Writer) out).write(characters, 0, count);
+      } else if (out instanceof StringBuilder) {
+        ((StringBuilder) out).append(characters, 0, count);
+      } else {
+        out.append(new String(characters, 0, count));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    written += count;
+    count = 0;
+  }
+
+  /**
+   * Return the number of characters appended to the buffer, including the
+   * characters already written to the appendable.
+   *
+   * @return the number of characters appended
+   */
+  @Override
+  public int length() {
+    return (int) Math.min(written + count, Integer.MAX_VALUE);
+  }
+}
@@ -6,6 +6,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
 
 public class ClickTestUtils {
 
@@ -44,6 +47,32 @@ public class ClickTestUtils {
     tmpdir.delete();
   }
 
+  /**
+   * Invoke the given call the given number of times and print the time and
+   * the bytes allocated per call. Used by the <tt>*Benchmark</tt> tests, which
+   * only run with <tt>gradlew test -Pbenchmark</tt>.
+   *
+   * @param name the benchmark name
+   * @param calls the number of calls
+   * @param call the benchmarked call
+   * @return the result of the last call, to check it
+   * @throws Exception if the call fails
+   */
+  public static <T> T benchmark (String name, int calls, @NonNull Callable<T> call) throws Exception {
+    ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+    com.sun.management.ThreadMXBean allocation = mx instanceof com.sun.management.ThreadMXBean m ? m : null;
+    long allocated = allocation != null ? allocation.getCurrentThreadAllocatedBytes() : 0;
+    long start = System.nanoTime();
+    T result = null;
+    for (int i = 0; i < calls; i++) {
+      result = call.call();
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = allocation != null ? (allocation.getCurrentThreadAllocatedBytes() - allocated) / calls : -1;// -1: not supported by the JVM
+    System.err.printf("%s: %,d ns/call, %,d bytes allocated/call%n", name, nanos / calls, bytes);
+    return result;
+  }
+
   static void usedToTest (@NonNull Object value) {}
 
   public static Class<Throwable> detectNonNullException () {
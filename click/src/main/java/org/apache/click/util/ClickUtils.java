@@ -10,13 +10,24 @@ import org.apache.click.Control;
 import org.apache.click.Page;
 import org.apache.click.Stateful;
 import org.apache.click.control.AbstractControl;
+import org.apache.click.control.AbstractContainer;
 import org.apache.click.control.AbstractLink;
 import org.apache.click.control.ActionLink;
+import org.apache.click.control.Cacheable;
 import org.apache.click.control.Container;
 import org.apache.click.control.Field;
+import org.apache.click.control.FieldSet;
 import org.apache.click.control.Form;
+import org.apache.click.control.RadioGroup;
+import org.apache.click.control.Renderable;
+import org.apache.click.control.TablePaginator;
 import org.apache.click.service.ConfigService;
+import org.apache.click.service.DeflaterObjectCodec;
 import org.apache.click.service.LogService;
+import org.apache.click.service.ObjectCodec;
+import org.apache.click.service.OutputCache;
+import org.apache.click.service.SessionStateStore;
+import org.apache.click.service.StateStore;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ClassUtils;
@@ -36,18 +47,17 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -66,8 +76,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPOutputStream;
 
 import static java.lang.Character.toUpperCase;
@@ -108,6 +119,9 @@ public class ClickUtils {
   /** The cached application version indicator string. */
   private static String cachedApplicationVersionIndicator;
 
+  /** The application object codec used outside of a request. */
+  private static volatile ObjectCodec objectCodec = DeflaterObjectCodec.DEFAULT;
+
   /**
    * Character used to separate username and password in persistent cookies.
    * 0x13 == "Device Control 3" non-printing ASCII char. Unlikely to appear
@@ -126,9 +140,33 @@ public class ClickUtils {
   private static final char[] HEXADECIMAL = { '0', '1', '2', '3', '4', '5',
       '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
 
+  /** The number of reserved template model objects: 7 added by ClickUtils, 5 by PageImports. */
+  private static final int TEMPLATE_MODEL_RESERVED = 12;
+
   /** Ajax request header or parameter: "<tt>X-Requested-With</tt>". */
   private static final String X_REQUESTED_WITH = "X-Requested-With";
 
+  /**
+   * The classes which <tt>toString()</tt> method only renders the control to a
+   * new HtmlStringBuffer, see {@link #renderTo(Object, Writer)}.
+   */
+  private static final Set<Class<?>> RENDER_TO_STRING = ConcurrentHashMap.newKeySet();
+  static {
+    Collections.addAll(RENDER_TO_STRING, AbstractControl.class, AbstractContainer.class,
+        FieldSet.class, RadioGroup.class, TablePaginator.class);
+  }
+
+  /** The class declaring the <tt>toString()</tt> method of a class. */
+  private static final ClassValue<Class<?>> TO_STRING_CLASS = new ClassValue<>(){
+    @Override protected Class<?> computeValue (Class<?> type){
+      try {
+        return type.getMethod("toString").getDeclaringClass();
+      } catch (NoSuchMethodException e){
+        return Object.class;
+      }
+    }
+  };
+
   /**
    * The array of escaped HTML character values, indexed on char value.
    * <p/>
@@ -915,7 +953,11 @@ public class ClickUtils {
     ConfigService configService = getConfigService(context.getServletContext());
     LogService logger = configService.getLogService();
 
-    final Map<String, Object> model = new HashMap<>(page.getModel());
+    // Sized for the page model and the reserved objects added here and by
+    // PageImports, so the model is not rehashed while it is populated
+    final Map<String, Object> pageModel = page.getModel();
+    final Map<String, Object> model = new HashMap<>((pageModel.size() + TEMPLATE_MODEL_RESERVED) * 4 / 3 + 1);
+    model.putAll(pageModel);
 
     final HttpServletRequest request = context.getRequest();
 
@@ -1695,7 +1737,8 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
 
   /**
    * Return an encoded version of the <tt>Serializable</tt> object. The object
-   * will be serialized, compressed and Base 64 encoded.
+   * will be serialized, compressed (if large) and Base 64 encoded by the
+   * application {@link ObjectCodec}.
    *
    * @param object the object to encode
    * @return a serialized, compressed and Base 64 string encoding of the
@@ -1709,26 +1752,9 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
       throw new IllegalArgumentException("parameter not Serializable");
     }
 
-    ByteArrayOutputStream bos = null;
-    GZIPOutputStream gos = null;
-    ObjectOutputStream oos = null;
-
+    byte[] data = getObjectCodec().encode(object);
     try {
-      bos = new ByteArrayOutputStream();
-      gos = new GZIPOutputStream(bos);
-      oos = new ObjectOutputStream(gos);
-
-      oos.writeObject(object);
-
-    } finally {
-      close(oos);
-      close(gos);
-      close(bos);
-    }
-
-    Base64.Encoder base64 = Base64.getEncoder();
-    try {
-      return base64.encodeToString(bos.toByteArray());
+      return Base64.getEncoder().encodeToString(data);
 
     } catch (Throwable t) {
       throw new IOException("error occurred Base64 encoding: " + object, t);
@@ -1737,31 +1763,52 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
 
   /**
    * Return an object from the {@link #encode(Object)} string.
+   * <p/>
+   * Only classes allowed by the application {@link ObjectCodec} are
+   * instantiated, see {@link DeflaterObjectCodec}.
    *
    * @param base64String the encoded string
    * @return an object from the encoded
    * @throws ClassNotFoundException if the class could not be instantiated
-   * @throws IOException if an data I/O error occurs
+   * @throws IOException if an data I/O error occurs or a class is not allowed
    */
   public static Object decode (@NonNull String base64String) throws ClassNotFoundException, IOException {
-    Base64.Decoder base64 = Base64.getDecoder();
     byte[] byteData;
     try {
-      byteData = base64.decode(base64String);
+      byteData = Base64.getDecoder().decode(base64String);
     } catch (Throwable t) {
       throw new IOException("error occurred Base64 decoding: "+ base64String, t);
     }
+    return getObjectCodec().decode(byteData);
+  }
 
-    ObjectInputStream ois = null;
-    try {
-      GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(byteData));
-      ois = new ObjectInputStream(gis);
-
-      return ois.readObject();
-
-    } finally {
-      close(ois);
+  /**
+   * Return the application object codec: the {@link ObjectCodec} of the
+   * ConfigService of the current request, or outside of a request the
+   * codec set by {@link #setObjectCodec(ObjectCodec)}.
+   *
+   * @return the application object codec
+   */
+  static ObjectCodec getObjectCodec (){
+    Context context = Context.getThreadLocalContext();
+    if (context != null && context.getServletContext() != null
+        && context.getServletContext().getAttribute(ConfigService.CONTEXT_NAME) instanceof ConfigService cs
+        && cs.getObjectCodec() != null){
+      return cs.getObjectCodec();
     }
+    return objectCodec;
+  }
+
+  /**
+   * Set the object codec used by {@link #encode(Object)} and
+   * {@link #decode(String)} outside of a request, e.g. in a background
+   * thread. The ConfigService sets its initialized codec when the application
+   * starts and resets it when the application stops.
+   *
+   * @param codec the application object codec, or null for the default {@link DeflaterObjectCodec}
+   */
+  public static void setObjectCodec (@Nullable ObjectCodec codec){
+    objectCodec = codec != null ? codec : DeflaterObjectCodec.DEFAULT;
   }
 
   /**
@@ -2534,6 +2581,98 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
 		return null;// not found anywhere
   }
 
+  /**
+   * Render the given control or {@link Renderable} directly to the writer,
+   * through an {@link AppendableHtmlStringBuffer}, instead of writing the
+   * String returned by its <tt>toString()</tt> method. Template services use
+   * this method to render <tt>$form</tt> or <tt>$table</tt> without copying
+   * the control markup into intermediate buffers and Strings.
+   * <p/>
+   * Values are only rendered if their <tt>toString()</tt> method renders the
+   * control, i.e. if it is declared by a class registered with
+   * {@link #addRenderToString(Class)}, such as AbstractControl, Form or Table.
+   * Otherwise, e.g. for a Label which <tt>toString()</tt> returns the label
+   * text, this method returns false and the caller writes <tt>toString()</tt>.
+   * <p/>
+   * Unlike <tt>toString()</tt>, a control failing to render may have written
+   * part of its markup to the writer.
+   * <p/>
+   * If the application output cache is enabled, the output of {@link Cacheable}
+   * controls is written from the cache, see {@link OutputCache#renderFragment(Cacheable, Context)}.
+   *
+   * @param value the template value to render
+   * @param writer the writer to render to
+   * @return true if the value was rendered, or false if the caller must write
+   * its <tt>toString()</tt> value
+   * @throws IOException if an IO error occurs
+   */
+  public static boolean renderTo (@Nullable Object value, @NonNull Writer writer) throws IOException {
+    if (value instanceof Cacheable cacheable){
+      Context context = Context.getThreadLocalContext();
+      OutputCache outputCache = context != null ? context.getClickServlet().getOutputCache() : null;
+      if (outputCache != null){
+        writer.write(outputCache.renderFragment(cacheable, context));
+        return true;
+      }
+    }
+    if (!isRenderedByToString(value)){
+      return false;
+    }
+    Class<?> toStringClass = TO_STRING_CLASS.get(value.getClass());
+    if (toStringClass == AbstractControl.class && ((AbstractControl) value).getTag() == null){
+      return true;// as AbstractControl.toString()
+    }
+    val buffer = new AppendableHtmlStringBuffer(writer);
+    try {
+      if (value instanceof Control control){
+        control.render(buffer);
+      } else {
+        ((Renderable) value).render(buffer);
+      }
+      buffer.flush();
+    } catch (UncheckedIOException e){
+      throw e.getCause();
+    }
+    return true;
+  }
+
+  /**
+   * Return true if {@link #renderTo(Object, Writer)} renders the given value,
+   * so template services only wrap the values they can stream. Cacheable
+   * controls are also rendered when the output cache is enabled.
+   *
+   * @param value the template value
+   * @return true if the value is a control or Renderable which
+   * <tt>toString()</tt> method only renders it
+   */
+  public static boolean canRenderTo (@Nullable Object value) {
+    if (value instanceof Cacheable){
+      Context context = Context.getThreadLocalContext();
+      if (context != null && context.getClickServlet().getOutputCache() != null){
+        return true;
+      }
+    }
+    return isRenderedByToString(value);
+  }
+
+  /** Return true if the value is a control or Renderable which <tt>toString()</tt> is registered with addRenderToString. */
+  private static boolean isRenderedByToString (@Nullable Object value) {
+    return (value instanceof Control || value instanceof Renderable)
+        && RENDER_TO_STRING.contains(TO_STRING_CLASS.get(value.getClass()));
+  }
+
+  /**
+   * Register a control class which <tt>toString()</tt> method only renders
+   * the control to a new HtmlStringBuffer, so its subclasses which do not
+   * override <tt>toString()</tt> are rendered by {@link #renderTo(Object, Writer)},
+   * e.g. in the static initializer of the class.
+   *
+   * @param toStringClass the class declaring <tt>toString()</tt>
+   */
+  public static void addRenderToString (@NonNull Class<?> toStringClass) {
+    RENDER_TO_STRING.add(toStringClass);
+  }
+
   /**
    * Remove the control state from the session for the given stateful control,
    * control name and request context.
@@ -2546,30 +2685,16 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
     if (controlName == null){
       throw new IllegalStateException(ClassUtils.getShortClassName(control.getClass()) +" name has not been set. State cannot be removed until the name is set");
     }
-    String resourcePath = context.getResourcePath();
-    val pageMap = getPageState(resourcePath, context);
-    if (pageMap != null) {
-      Object pop = pageMap.remove(controlName);
-
-      if (pageMap.isEmpty()){// If this was the last state for the page, remove the page state map
-        context.removeSessionAttribute(resourcePath);
-      } else {
-        // Check if control state was removed
-        if (pop != null) {
-          // If control state was removed, set session attribute to force
-          // session replication in a cluster
-          context.setSessionAttribute(resourcePath, pageMap);
-        }
-      }
-    }
+    getStateStore(context).removeState(context, context.getResourcePath(), controlName);
   }
 
   /**
-   * Restore the control state from the session for the given stateful control,
+   * Restore the control state from the application {@link StateStore} for the given stateful control,
    * control name and request context.
    * <p/>
    * This method delegates to {@link org.apache.click.Stateful#setState(java.lang.Object)}
-   * to restore the control state.
+   * to restore the control state. If the page has any stored state, the
+   * control state is restored even if it is null.
    *
    * @param control the stateful control which state to restore
    * @param controlName the name of the control which state to restore
@@ -2580,18 +2705,18 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
       throw new IllegalStateException(ClassUtils.getShortClassName(control.getClass())
           + " name has not been set. State cannot be restored until the name is set");
     }
+    StateStore stateStore = getStateStore(context);
     String resourcePath = context.getResourcePath();
-    val pageMap = getPageState(resourcePath, context);
-    if (pageMap != null){
-      control.setState(pageMap.get(controlName));
+    if (stateStore.hasState(context, resourcePath)){
+      control.setState(stateStore.getState(context, resourcePath, controlName));
     }
   }
 
   /**
-   * Save the control state in the session for the given stateful control,
+   * Save the control state in the application {@link StateStore} for the given stateful control,
    * control name and request context.
    * <p/>
-   * * This method delegates to {@link org.apache.click.Stateful#getState()}
+   * This method delegates to {@link org.apache.click.Stateful#getState()}
    * to retrieve the control state to save.
    *
    * @param control the stateful control which state to save
@@ -2603,23 +2728,24 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
       throw new IllegalStateException(ClassUtils.getShortClassName(control.getClass())
           + " name has not been set. State cannot be saved until the name is set");
     }
-    String resourcePath = context.getResourcePath();
-    val pageMap = getOrCreatePageState(resourcePath, context);
-    Object state = control.getState();
-    if (state == null) {
-      // Set null state to see if it differs from previous state
-      Object pop = pageMap.put(controlName, state);
-      if (pop != null) {
-        // Previous state differs from current state, so set the
-        // session attribute to force session replication in a cluster
-        context.setSessionAttribute(resourcePath, pageMap);
-      }
-    } else {
-      pageMap.put(controlName, state);
-      // After control state has been added to the page state, set the
-      // session attribute to force session replication in a cluster
-      context.setSessionAttribute(resourcePath, pageMap);
+    // The store only writes (and replicates) state which has changed
+    getStateStore(context).saveState(context, context.getResourcePath(), controlName, control.getState());
+  }
+
+  /**
+   * Return the application state store: the {@link StateStore} of the
+   * ConfigService or the default {@link SessionStateStore}.
+   *
+   * @param context the request context
+   * @return the application state store
+   */
+  static StateStore getStateStore (Context context){
+    ServletContext servletContext = context.getServletContext();
+    Object configService = servletContext != null ? servletContext.getAttribute(ConfigService.CONTEXT_NAME) : null;
+    if (configService instanceof ConfigService cs && cs.getStateStore() != null){
+      return cs.getStateStore();
     }
+    return SessionStateStore.DEFAULT;
   }
 
   public static final String GET_GETTER = "get";
@@ -3106,42 +3232,6 @@ To fix, ensure that ClickServlet is loaded at startup by editing your web.xml an
     return true;
   }
 
-  /**
-   * Retrieve or create the map where page state is stored in.
-   *
-   * @see #getPageState(java.lang.String, org.apache.click.Context)
-   *
-   * @param pagePath the path under which the page state is stored in the
-   * session
-   * @param context the request context
-   * @return the map where page state is stored in
-   */
-  private static Map getOrCreatePageState(String pagePath, Context context) {
-    var pageMap = getPageState(pagePath, context);
-    if (pageMap == null) {
-      pageMap = new HashMap<>();
-    }
-    return pageMap;
-  }
-
-  /**
-   * Retrieve the map for the given pagePath from the session where page state
-   * is stored in.
-   *
-   * @param pagePath the path under which the page state is stored in the
-   * session
-   * @param context the request context
-   * @return the map where page state is stored in
-   */
-  private static Map getPageState(String pagePath, Context context) {
-    Object storedPageValue = context.getSessionAttribute(pagePath);
-    Map pageMap = null;
-    if (storedPageValue != null) {
-      pageMap = (Map) storedPageValue;
-    }
-    return pageMap;
-  }
-
   static void setAccessible (Method method){
     try {
       method.setAccessible(true);
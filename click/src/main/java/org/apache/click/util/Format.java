@@ -30,6 +30,11 @@ import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -75,6 +80,10 @@ import java.util.Locale;
  * <p/>
  * When subclassing Format ensure it is light weight object, as a new format
  * object will be created for every new Page.
+ * <p/>
+ * The date and number formatters are cached by pattern and locale in the
+ * {@link FormatterRegistry}, the <tt>date</tt> and <tt>time</tt> methods
+ * also format <tt>java.time</tt> values.
  *
  * @see PageImports
  */
@@ -138,7 +147,7 @@ public class Format implements Serializable {
 	 */
 	public String currency(Number number) {
 		if (number != null) {
-			NumberFormat format = NumberFormat.getCurrencyInstance(getLocale());
+			NumberFormat format = FormatterRegistry.currencyInstance(getLocale());
 
 			return format.format(number.doubleValue());
 
@@ -154,7 +163,7 @@ public class Format implements Serializable {
 	 */
 	public String currentDate() {
 		DateFormat format =
-			DateFormat.getDateInstance(DateFormat.DEFAULT, getLocale());
+			FormatterRegistry.dateInstance(DateFormat.DEFAULT, getLocale());
 
 		return format.format(new Date());
 	}
@@ -174,7 +183,7 @@ public class Format implements Serializable {
 		}
 
 		SimpleDateFormat format =
-			new SimpleDateFormat(pattern, getLocale());
+			FormatterRegistry.simpleDateFormat(pattern, getLocale());
 
 		return format.format(new Date());
 	}
@@ -304,7 +313,7 @@ public class Format implements Serializable {
 			}
 
 			SimpleDateFormat format =
-				new SimpleDateFormat(pattern, getLocale());
+				FormatterRegistry.simpleDateFormat(pattern, getLocale());
 
 			return format.format(date);
 
@@ -326,7 +335,7 @@ public class Format implements Serializable {
 	public String date(Date date) {
 		if (date != null) {
 			DateFormat format =
-				DateFormat.getDateInstance(DateFormat.DEFAULT, getLocale());
+				FormatterRegistry.dateInstance(DateFormat.DEFAULT, getLocale());
 
 			return format.format(date);
 
@@ -335,6 +344,77 @@ public class Format implements Serializable {
 		}
 	}
 
+	/**
+	 * Return a formatted date string using the given <tt>java.time</tt> value
+	 * and DateTimeFormatter pattern, for example:
+	 *
+	 * <pre class="codeHtml">
+	 * $format.date($order.deliveryDate, "dd MMM yyyy") </pre>
+	 *
+	 * The DateTimeFormatter is shared by all pages, see {@link FormatterRegistry}.
+	 * An <tt>Instant</tt> is formatted in the system default time zone.
+	 * <p/>
+	 * The value is declared as Object so that template engines still resolve
+	 * a null value to {@link #date(Date, String)}. A <tt>Date</tt> value is
+	 * formatted by {@link #date(Date, String)}.
+	 * <p/>
+	 * If the value is null this method will return the
+	 * {@link #getEmptyString()} value.
+	 *
+	 * @param value the <tt>TemporalAccessor</tt> value to format
+	 * @param pattern the DateTimeFormatter formatting pattern
+	 * @return a formatted date string
+	 * @throws IllegalArgumentException if the pattern string is null or the
+	 * value is not a TemporalAccessor or Date
+	 */
+	public String date(Object value, String pattern) {
+		if (value instanceof Date date) {
+			return date(date, pattern);
+
+		} else if (value != null) {
+			if (pattern == null) {
+				throw new IllegalArgumentException("Null pattern parameter");
+			}
+
+			DateTimeFormatter formatter =
+				FormatterRegistry.dateTimeFormatter(pattern, getLocale());
+
+			return formatter.format(temporal(value));
+
+		} else {
+			return getEmptyString();
+		}
+	}
+
+	/**
+	 * Return a formatted date string using the given <tt>java.time</tt> value
+	 * and the default (medium) localized date style.
+	 * <p/>
+	 * If the value is null this method will return the
+	 * {@link #getEmptyString()} value.
+	 *
+	 * @see #date(Object, String)
+	 *
+	 * @param value the <tt>TemporalAccessor</tt> value to format
+	 * @return a formatted date string
+	 * @throws IllegalArgumentException if the value is not a TemporalAccessor
+	 * or Date
+	 */
+	public String date(Object value) {
+		if (value instanceof Date date) {
+			return date(date);
+
+		} else if (value != null) {
+			DateTimeFormatter formatter =
+				FormatterRegistry.dateTimeFormatter(FormatStyle.MEDIUM, null, getLocale());
+
+			return formatter.format(temporal(value));
+
+		} else {
+			return getEmptyString();
+		}
+	}
+
 	/**
 	 * Return a decimal formatted string using the given number and pattern.
 	 * See DecimalFormat for information on the format pattern string.
@@ -440,7 +520,7 @@ public class Format implements Serializable {
 				pattern = pattern.replace('N', '#');
 			}
 
-			DecimalFormat format = new DecimalFormat(pattern);
+			DecimalFormat format = FormatterRegistry.decimalFormat(pattern);
 
 			return format.format(number.doubleValue());
 
@@ -460,7 +540,7 @@ public class Format implements Serializable {
 	 */
 	public String decimal(Number number) {
 		if (number != null) {
-			DecimalFormat format = new DecimalFormat();
+			DecimalFormat format = FormatterRegistry.decimalFormat(null);
 
 			return format.format(number.doubleValue());
 
@@ -746,7 +826,7 @@ public class Format implements Serializable {
 	 * @return the formatted string
 	 */
 	public String message(String pattern, Object[] arguments) {
-		MessageFormat format = new MessageFormat(pattern, getLocale());
+		MessageFormat format = FormatterRegistry.messageFormat(pattern, getLocale());
 		return format.format(arguments, new StringBuffer(), null).toString();
 	}
 
@@ -774,7 +854,7 @@ public class Format implements Serializable {
 	 */
 	public String percentage(Number number) {
 		if (number != null) {
-			NumberFormat format = NumberFormat.getPercentInstance(getLocale());
+			NumberFormat format = FormatterRegistry.percentInstance(getLocale());
 
 			return format.format(number.doubleValue());
 
@@ -796,7 +876,7 @@ public class Format implements Serializable {
 	public String time(Date date) {
 		if (date != null) {
 			DateFormat format =
-				DateFormat.getTimeInstance(DateFormat.DEFAULT, getLocale());
+				FormatterRegistry.timeInstance(DateFormat.DEFAULT, getLocale());
 
 			return format.format(date);
 
@@ -805,6 +885,35 @@ public class Format implements Serializable {
 		}
 	}
 
+	/**
+	 * Return a formatted time string using the given <tt>java.time</tt> value
+	 * and the default (medium) localized time style.
+	 * <p/>
+	 * If the value is null this method will return the
+	 * {@link #getEmptyString()} value.
+	 *
+	 * @see #date(Object, String)
+	 *
+	 * @param value the <tt>TemporalAccessor</tt> value to format
+	 * @return a formatted time string
+	 * @throws IllegalArgumentException if the value is not a TemporalAccessor
+	 * or Date
+	 */
+	public String time(Object value) {
+		if (value instanceof Date date) {
+			return time(date);
+
+		} else if (value != null) {
+			DateTimeFormatter formatter =
+				FormatterRegistry.dateTimeFormatter(null, FormatStyle.MEDIUM, getLocale());
+
+			return formatter.format(temporal(value));
+
+		} else {
+			return getEmptyString();
+		}
+	}
+
 	/**
 	 * Return the string representation of the given object.
 	 * <p/>
@@ -831,4 +940,25 @@ public class Format implements Serializable {
 	public String url(Object object) {
 		return ClickUtils.encodeUrl(object, Context.getThreadLocalContext());
 	}
+
+	/**
+	 * Return the given value as a TemporalAccessor, an Instant in the system
+	 * default time zone.
+	 *
+	 * @param value the value to format
+	 * @return the temporal value
+	 * @throws IllegalArgumentException if the value is not a TemporalAccessor
+	 */
+	protected TemporalAccessor temporal(Object value) {
+		if (value instanceof Instant instant) {
+			return instant.atZone(ZoneId.systemDefault());
+
+		} else if (value instanceof TemporalAccessor temporal) {
+			return temporal;
+
+		} else {
+			throw new IllegalArgumentException("Not a date value: "
+				+ value.getClass().getName());
+		}
+	}
 }
\ No newline at end of file
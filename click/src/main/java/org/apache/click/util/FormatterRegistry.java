@@ -0,0 +1,185 @@
+package org.apache.click.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Provides the cached formatters of {@link Format}, keyed by pattern (or
+ * style) and locale.
+ * <p/>
+ * {@link DateTimeFormatter}s are immutable and shared by all threads.
+ * The <tt>java.text</tt> formats are not thread safe: each thread gets its own
+ * instances, kept in a small thread local LRU map of {@link #THREAD_CAPACITY}
+ * entries. Returned <tt>java.text</tt> formats must not be modified or passed
+ * to other threads.
+ * <p/>
+ * ClickServlet {@link #clear() clears} the thread's formats at the end of
+ * each request, so pooled container threads do not pin the webapp class
+ * loader after it is undeployed.
+ */
+public final class FormatterRegistry {
+  /** The maximum number of cached <tt>java.text</tt> formats per thread. */
+  static final int THREAD_CAPACITY = 64;
+
+  /** The shared DateTimeFormatters. */
+  private static final Cache<Key,DateTimeFormatter> DATE_TIME_FORMATTERS = Caffeine.newBuilder()
+      .maximumSize(1000)
+      .build();
+
+  /** The thread confined java.text formats. */
+  private static final ThreadLocal<Map<Key,java.text.Format>> FORMATS = ThreadLocal.withInitial(()->
+      new LinkedHashMap<>(16, 0.75f, true){
+        @Override protected boolean removeEldestEntry (Map.Entry<Key,java.text.Format> eldest){
+          return size() > THREAD_CAPACITY;
+        }
+      });
+
+  private FormatterRegistry (){}
+
+  /**
+   * Return the DateTimeFormatter of the given pattern and locale.
+   *
+   * @param pattern the DateTimeFormatter pattern
+   * @param locale the formatter locale
+   * @return the shared DateTimeFormatter
+   * @throws IllegalArgumentException if the pattern is invalid
+   */
+  public static DateTimeFormatter dateTimeFormatter (String pattern, Locale locale){
+    return DATE_TIME_FORMATTERS.get(new Key('P', pattern, locale), k->DateTimeFormatter.ofPattern(pattern, locale));
+  }
+
+  /**
+   * Return the localized DateTimeFormatter of the given styles and locale.
+   *
+   * @param dateStyle the date style or null to format only the time
+   * @param timeStyle the time style or null to format only the date
+   * @param locale the formatter locale
+   * @return the shared DateTimeFormatter
+   */
+  public static DateTimeFormatter dateTimeFormatter (FormatStyle dateStyle, FormatStyle timeStyle, Locale locale){
+    String styles = dateStyle + "/" + timeStyle;
+    return DATE_TIME_FORMATTERS.get(new Key('S', styles, locale), k->{
+      if (timeStyle == null){
+        return DateTimeFormatter.ofLocalizedDate(dateStyle).withLocale(locale);
+      } else if (dateStyle == null){
+        return DateTimeFormatter.ofLocalizedTime(timeStyle).withLocale(locale);
+      } else {
+        return DateTimeFormatter.ofLocalizedDateTime(dateStyle, timeStyle).withLocale(locale);
+      }
+    });
+  }
+
+  /**
+   * Return the SimpleDateFormat of the given pattern and locale for the
+   * current thread.
+   *
+   * @param pattern the SimpleDateFormat pattern
+   * @param locale the format locale
+   * @return the thread confined SimpleDateFormat
+   */
+  public static SimpleDateFormat simpleDateFormat (String pattern, Locale locale){
+    return format(new Key('D', pattern, locale), ()->new SimpleDateFormat(pattern, locale));
+  }
+
+  /**
+   * Return the {@link DateFormat#getDateInstance(int, Locale)} date format for
+   * the current thread.
+   *
+   * @param style the DateFormat style, e.g. {@link DateFormat#DEFAULT}
+   * @param locale the format locale
+   * @return the thread confined DateFormat
+   */
+  public static DateFormat dateInstance (int style, Locale locale){
+    return format(new Key('d', String.valueOf(style), locale), ()->DateFormat.getDateInstance(style, locale));
+  }
+
+  /**
+   * Return the {@link DateFormat#getTimeInstance(int, Locale)} time format for
+   * the current thread.
+   *
+   * @param style the DateFormat style, e.g. {@link DateFormat#DEFAULT}
+   * @param locale the format locale
+   * @return the thread confined DateFormat
+   */
+  public static DateFormat timeInstance (int style, Locale locale){
+    return format(new Key('t', String.valueOf(style), locale), ()->DateFormat.getTimeInstance(style, locale));
+  }
+
+  /**
+   * Return the DecimalFormat of the given pattern and the default
+   * {@link Locale.Category#FORMAT FORMAT} locale for the current thread.
+   *
+   * @param pattern the DecimalFormat pattern or null for the default pattern
+   * @return the thread confined DecimalFormat
+   */
+  public static DecimalFormat decimalFormat (String pattern){
+    Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    return format(new Key('N', pattern, locale), ()->pattern != null ? new DecimalFormat(pattern) : new DecimalFormat());
+  }
+
+  /**
+   * Return the currency format of the given locale for the current thread.
+   *
+   * @param locale the format locale
+   * @return the thread confined NumberFormat
+   */
+  public static NumberFormat currencyInstance (Locale locale){
+    return format(new Key('C', null, locale), ()->NumberFormat.getCurrencyInstance(locale));
+  }
+
+  /**
+   * Return the percent format of the given locale for the current thread.
+   *
+   * @param locale the format locale
+   * @return the thread confined NumberFormat
+   */
+  public static NumberFormat percentInstance (Locale locale){
+    return format(new Key('%', null, locale), ()->NumberFormat.getPercentInstance(locale));
+  }
+
+  /**
+   * Return the MessageFormat of the given pattern and locale for the current
+   * thread.
+   *
+   * @param pattern the MessageFormat pattern
+   * @param locale the format locale
+   * @return the thread confined MessageFormat
+   */
+  public static MessageFormat messageFormat (String pattern, Locale locale){
+    return format(new Key('M', pattern, locale), ()->new MessageFormat(pattern, locale));
+  }
+
+  /**
+   * Remove the formats cached by the current thread. Called by ClickServlet
+   * at the end of each request and when it is destroyed.
+   */
+  public static void clear (){
+    FORMATS.remove();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <F extends java.text.Format> F format (Key key, Supplier<F> factory){
+    Map<Key,java.text.Format> formats = FORMATS.get();
+    java.text.Format format = formats.get(key);
+    if (format == null){
+      format = factory.get();
+      formats.put(key, format);
+    }
+    return (F) format;
+  }
+
+  /** The formatter kind, pattern (or style) and locale. */
+  record Key (char kind, String pattern, Locale locale) {}
+}
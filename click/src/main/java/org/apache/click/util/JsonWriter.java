@@ -0,0 +1,337 @@
+package org.apache.click.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides the JSON engine of the Click jQuery and Ajax modules.
+ * <p/>
+ * Writes maps, collections, iterators, arrays, strings, numbers, booleans and
+ * beans (their readable properties and public fields) as JSON directly to an
+ * {@link Appendable}, e.g. the response {@link Writer}, without building
+ * intermediate strings. The following non-standard extensions are supported:
+ * <ul>
+ * <li>{@link Literal} values are written as is, e.g. JavaScript functions</li>
+ * <li>map keys are written as JSON values, so non string keys are not quoted</li>
+ * </ul>
+ * The bean properties of a class are introspected once and read with cached
+ * {@link MethodHandle}s. A value which is already being written (a cycle) is
+ * written as <tt>null</tt>. An exception thrown by a getter is rethrown as a
+ * <tt>RuntimeException</tt> caused by an {@link InvocationTargetException}.
+ * <p/>
+ * A JsonWriter is immutable and thread safe; use {@link #DEFAULT} unless the
+ * <tt>class</tt> property of beans must be written.
+ */
+@Slf4j
+public final class JsonWriter {
+  /** The writer which skips the <tt>class</tt> property of beans. */
+  public static final JsonWriter DEFAULT = new JsonWriter(false);
+
+  /** The generic getter type: (Object bean) → Object. */
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  /** The bean properties per class. */
+  private static final ClassValue<Property[]> PROPERTIES = new ClassValue<>(){
+    @Override protected Property[] computeValue (Class<?> type){
+      return introspect(type);
+    }
+  };
+
+  /** Write the <tt>class</tt> property of beans. */
+  private final boolean emitClassName;
+
+  /**
+   * Create a JsonWriter.
+   *
+   * @param emitClassName write the <tt>class</tt> property of beans
+   */
+  public JsonWriter (boolean emitClassName){
+    this.emitClassName = emitClassName;
+  }//new
+
+  /**
+   * Marks a value written as is, by its <tt>toString()</tt>, e.g. a JavaScript
+   * function.
+   */
+  public interface Literal {}
+
+  /**
+   * Write the given value as JSON.
+   *
+   * @param value the value to write
+   * @return the JSON string
+   */
+  public String write (@Nullable Object value){
+    StringBuilder sb = new StringBuilder(128);
+    try {
+      write(value, sb);
+    } catch (IOException e){// StringBuilder does not throw
+      throw new UncheckedIOException(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Write the given value as JSON to the given output.
+   *
+   * @param value the value to write
+   * @param out the output, e.g. a Writer or StringBuilder
+   * @throws IOException if the output can't be written
+   */
+  public void write (@Nullable Object value, Appendable out) throws IOException {
+    new Output(out).value(value);
+  }
+
+  /** The state of a single write: the output and the values being written. */
+  private final class Output {
+    private final Appendable out;
+
+    /** The output as Writer, which writes string runs without substrings. */
+    @Nullable private final Writer writer;
+
+    /** The maps, collections, arrays and beans being written. */
+    private final Set<Object> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Output (Appendable out){
+      this.out = out;
+      this.writer = out instanceof Writer w ? w : null;
+    }//new
+
+    void value (@Nullable Object object) throws IOException {
+      if (object == null){
+        out.append("null");
+      } else if (object instanceof String || object instanceof Character || object instanceof Class){
+        string(object.toString());
+      } else if (object instanceof Boolean || object instanceof Number || object instanceof Literal){
+        out.append(object.toString());
+      } else if (!ancestors.add(object)){
+        out.append("null");// cyclic
+      } else {
+        try {
+          if (object instanceof Map<?,?> map){
+            map(map);
+          } else if (object.getClass().isArray()){
+            array(object);
+          } else if (object instanceof Iterator<?> it){
+            array(it);
+          } else if (object instanceof Collection<?> collection){
+            array(collection.iterator());
+          } else {
+            bean(object);
+          }
+        } finally {
+          ancestors.remove(object);
+        }
+      }
+    }
+
+    private void map (Map<?,?> map) throws IOException {
+      out.append('{');
+      boolean first = true;
+      for (Map.Entry<?,?> e : map.entrySet()){
+        if (!first){
+          out.append(',');
+        }
+        first = false;
+        value(e.getKey());
+        out.append(':');
+        value(e.getValue());
+      }
+      out.append('}');
+    }
+
+    private void array (Iterator<?> it) throws IOException {
+      out.append('[');
+      while (it.hasNext()){
+        value(it.next());
+        if (it.hasNext()){
+          out.append(',');
+        }
+      }
+      out.append(']');
+    }
+
+    private void array (Object array) throws IOException {
+      out.append('[');
+      int length = Array.getLength(array);
+      for (int i = 0; i < length; i++){
+        if (i > 0){
+          out.append(',');
+        }
+        value(Array.get(array, i));
+      }
+      out.append(']');
+    }
+
+    private void bean (Object bean) throws IOException {
+      out.append('{');
+      boolean first = true;
+      for (Property property : PROPERTIES.get(bean.getClass())){
+        if (property.isClass && !emitClassName){
+          continue;
+        }
+        if (!first){
+          out.append(',');
+        }
+        first = false;
+        out.append(property.prefix);
+        value(property.get(bean));
+      }
+      out.append('}');
+    }
+
+    private void string (String str) throws IOException {
+      out.append('"');
+      int len = str.length();
+      int start = 0;// start of the pending unescaped run
+      char prev;
+      char c = 0;
+      for (int i = 0; i < len; i++){
+        prev = c;
+        c = str.charAt(i);
+        String escape;
+        switch (c){
+          case '\b': escape = "\\b"; break;
+          case '\t': escape = "\\t"; break;
+          case '\n': escape = "\\n"; break;
+          case '\f': escape = "\\f"; break;
+          case '\r': escape = "\\r"; break;
+          case '\\': escape = "\\\\"; break;
+          case '"':  escape = "\\\""; break;
+          case '/':  escape = prev == '<' ? "\\/" : null; break;
+          default:   escape = Character.isISOControl(c) ? unicode(c) : null; break;
+        }
+        if (escape != null){
+          append(str, start, i);
+          out.append(escape);
+          start = i + 1;
+        }
+      }
+      append(str, start, len);
+      out.append('"');
+    }
+
+    private void append (String str, int start, int end) throws IOException {
+      if (start == end){
+        return;
+      }
+      if (writer != null){
+        writer.write(str, start, end - start);
+      } else {
+        out.append(str, start, end);
+      }
+    }
+  }//Output
+
+  private static String unicode (char c){
+    return new String(new char[]{'\\', 'u', HEX[(c >> 12) & 0xF], HEX[(c >> 8) & 0xF], HEX[(c >> 4) & 0xF], HEX[c & 0xF]});
+  }
+
+  /** Introspect the readable bean properties and public fields of the given class. */
+  static Property[] introspect (Class<?> type){
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    List<Property> properties = new ArrayList<>();
+    try {
+      for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()){
+        Method accessor = descriptor.getReadMethod();
+        if (accessor == null){
+          continue;
+        }
+        MethodHandle getter = getter(lookup, accessor);
+        if (getter != null){
+          properties.add(new Property(descriptor.getName(), getter));
+        }
+      }
+      for (Field field : type.getFields()){
+        MethodHandle getter = getter(lookup, field);
+        if (getter != null){
+          properties.add(new Property(field.getName(), getter));
+        }
+      }
+    } catch (IntrospectionException e){
+      throw new IllegalStateException("JsonWriter: can't introspect " + type.getName(), e);
+    }
+    return properties.toArray(new Property[0]);
+  }
+
+  /**
+   * Return the (Object bean) → Object getter handle of the given accessor
+   * method or public field, or null if it is not accessible.
+   */
+  @Nullable private static MethodHandle getter (MethodHandles.Lookup lookup, AccessibleObject member){
+    try {
+      MethodHandle handle;
+      try {
+        handle = unreflect(lookup, member);
+      } catch (IllegalAccessException e){// e.g. public getter of a non public class
+        if (!member.trySetAccessible()){
+          log.debug("getter: {} is not accessible", member);
+          return null;
+        }
+        handle = unreflect(lookup, member);
+      }
+      if (member instanceof Field field && Modifier.isStatic(field.getModifiers())){
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle.asType(GETTER_TYPE);
+    } catch (IllegalAccessException e){
+      log.debug("getter: {} is not accessible: {}", member, e.toString());
+      return null;
+    }
+  }
+
+  private static MethodHandle unreflect (MethodHandles.Lookup lookup, AccessibleObject member) throws IllegalAccessException {
+    return member instanceof Method method ? lookup.unreflect(method) : lookup.unreflectGetter((Field) member);
+  }
+
+  /** A bean property or public field with its precomputed <tt>"name":</tt> prefix. */
+  static final class Property {
+    final String name;
+    final String prefix;
+    final boolean isClass;
+    private final MethodHandle getter;
+
+    Property (String name, MethodHandle getter){
+      this.name = name;
+      this.prefix = '"' + name + "\":";
+      this.isClass = "class".equals(name);
+      this.getter = getter;
+    }//new
+
+    @Nullable Object get (Object bean){
+      try {
+        return (Object) getter.invokeExact(bean);
+      } catch (Error e){
+        throw e;
+      } catch (Throwable e){// as Method.invoke
+        throw new RuntimeException(new InvocationTargetException(e));
+      }
+    }
+  }//Property
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.click.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Provides a Page output cache annotation. The rendered template of an
+ * annotated page is stored in the application
+ * {@link org.apache.click.service.OutputCache} and returned to the following
+ * GET requests with the same cache key, without creating the page model,
+ * invoking the page <tt>onInit()</tt>, <tt>onGet()</tt> and
+ * <tt>onRender()</tt> methods or merging the template. The page
+ * <tt>onSecurityCheck()</tt> method is still invoked for every request.
+ * <p/>
+ * The cache key is made of the page path, the request locale and the
+ * declared request parameter values and user roles. Requests with other
+ * parameters, e.g. a form submission or an ActionLink click, are not cached.
+ * <p/>
+ * The output cache is enabled by the <tt>output-cache-size</tt> init parameter.
+ * <p/>
+ * Concurrent requests which miss the same cache key are not coalesced: each
+ * one runs the page and renders its template, and the last one stores its
+ * output. Unlike {@link org.apache.click.control.Cacheable} controls, a page
+ * is rendered by the whole request processing, which can't run in the cache
+ * loader.
+ *
+ * <h3>Example</h3>
+ *
+ * <pre class="prettyprint">
+ * &#64;OutputCached(ttl = 300, params = {"category", "page"}, roles = "admin")
+ * public class CatalogPage extends Page {
+ *   ..
+ * } </pre>
+ *
+ * Pages which output depends on anything else than their cache key, e.g. the
+ * user name, or which set cookies or session attributes while rendering must
+ * not be annotated.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface OutputCached {
+
+  /**
+   * Return the time to live of the cached output in seconds, default 60.
+   *
+   * @return the time to live in seconds
+   */
+  int ttl() default 60;
+
+  /**
+   * Return the names of the request parameters the output depends on.
+   *
+   * @return the request parameter names of the cache key
+   */
+  String[] params() default {};
+
+  /**
+   * Return the user roles the output depends on: the output is cached once
+   * per combination of the roles the user is in.
+   *
+   * @return the user roles of the cache key
+   */
+  String[] roles() default {};
+
+  /**
+   * Return true if the output depends on the request locale, default true.
+   *
+   * @return true if the request locale is part of the cache key
+   */
+  boolean locale() default true;
+}
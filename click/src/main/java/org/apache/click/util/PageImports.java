@@ -16,8 +16,10 @@ import org.apache.click.service.LogService;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides a utility object for rendering a Page's HEAD elements and
@@ -78,6 +80,9 @@ import java.util.Map;
  * <li><span class="st">$jsImports</span> - this variable includes only Javascript elements</li>
  * </ul>
  *
+ * Duplicate JS and CSS imports, and unique JS scripts and CSS styles, are
+ * detected with a hash index of the added elements.
+ * <p/>
  * Please also see {@link org.apache.click.Page#getHeadElements()},
  * {@link org.apache.click.Control#getHeadElements()}.
  */
@@ -101,6 +106,13 @@ public class PageImports {
   /** The list of CSS styles. */
   protected List<CssStyle> cssStyles = new ArrayList<>(2);
 
+  /**
+   * The index of the added imports and unique scripts and styles. A script or
+   * style added without an id is not indexed, so unique scripts and styles
+   * are also checked against their list.
+   */
+  protected Set<Element> uniqueElements = new HashSet<>();
+
   /** The page instance. */
   protected final Page page;
 
@@ -128,33 +140,25 @@ public class PageImports {
       throw new IllegalArgumentException("Null element parameter");
     }
 
-    if (element instanceof JsImport) {
-      if (jsImports.contains(element)) {
-        return;
+    if (element instanceof JsImport jsImport) {
+      if (uniqueElements.add(jsImport)) {
+        jsImports.add(jsImport);
       }
-      jsImports.add((JsImport) element);
 
-    } else if (element instanceof JsScript) {
-      if (((JsScript) element).isUnique()) {
-        if (jsScripts.contains(element)) {
-          return;
-        }
+    } else if (element instanceof JsScript jsScript) {
+      if (!jsScript.isUnique() || (uniqueElements.add(jsScript) && !jsScripts.contains(jsScript))) {
+        jsScripts.add(jsScript);
       }
-      jsScripts.add((JsScript) element);
 
-    } else if (element instanceof CssImport) {
-      if (cssImports.contains(element)) {
-        return;
+    } else if (element instanceof CssImport cssImport) {
+      if (uniqueElements.add(cssImport)) {
+        cssImports.add(cssImport);
       }
-      cssImports.add((CssImport) element);
 
-    } else if (element instanceof CssStyle) {
-      if (((CssStyle) element).isUnique()) {
-        if (cssStyles.contains(element)) {
-          return;
-        }
+    } else if (element instanceof CssStyle cssStyle) {
+      if (!cssStyle.isUnique() || (uniqueElements.add(cssStyle) && !cssStyles.contains(cssStyle))) {
+        cssStyles.add(cssStyle);
       }
-      cssStyles.add((CssStyle) element);
 
     } else {
       headElements.add(element);
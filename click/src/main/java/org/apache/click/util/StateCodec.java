@@ -0,0 +1,287 @@
+package org.apache.click.util;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a compact binary encoding of control state objects.
+ * <p/>
+ * The state of the standard controls is built from a few types: Strings
+ * ({@link org.apache.click.control.Field}), <tt>Object[]</tt> with Integer,
+ * String and Boolean elements ({@link org.apache.click.control.Table}), and
+ * Maps of those ({@link org.apache.click.control.Form},
+ * {@link org.apache.click.control.AbstractLink}). These are written with one
+ * byte tags, variable length integers and UTF-8 Strings, which is several
+ * times smaller and faster than Java serialization. Other
+ * {@link Serializable} values fall back to Java serialization.
+ * <p/>
+ * Only {@link HashMap}, {@link LinkedHashMap} and {@link ArrayList} instances
+ * are encoded with tags, and are decoded as the same type. Other Maps and
+ * Lists, e.g. a <tt>TreeMap</tt> or an unmodifiable List, fall back to Java
+ * serialization so that they keep their type.
+ */
+public final class StateCodec {
+  private static final int NULL = 0;
+  private static final int STRING = 1;
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int TRUE = 4;
+  private static final int FALSE = 5;
+  private static final int DOUBLE = 6;
+  private static final int OBJECT_ARRAY = 7;
+  private static final int STRING_ARRAY = 8;
+  private static final int MAP = 9;
+  private static final int LIST = 10;
+  private static final int SERIALIZED = 11;
+  private static final int HASH_MAP = 12;
+
+  private StateCodec (){}
+
+  /**
+   * Encode the given state object.
+   *
+   * @param state the state object to encode
+   * @return the encoded state
+   * @throws IOException if the state contains a value which can't be encoded
+   */
+  public static byte[] encode (@Nullable Object state) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bos)){
+      write(out, state);
+    }
+    return bos.toByteArray();
+  }
+
+  /**
+   * Decode the state object encoded by {@link #encode(Object)}.
+   *
+   * @param data the encoded state
+   * @return the decoded state object
+   * @throws IOException if the data is corrupted
+   */
+  @Nullable public static Object decode (byte[] data) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))){
+      return read(in);
+    }
+  }
+
+  /**
+   * Write the given state object to the output.
+   *
+   * @param out the data output
+   * @param value the state object
+   * @throws IOException if an I/O error occurs or the value can't be encoded
+   */
+  public static void write (DataOutput out, @Nullable Object value) throws IOException {
+    if (value == null){
+      out.writeByte(NULL);
+    } else if (value instanceof String s){
+      out.writeByte(STRING);
+      writeString(out, s);
+    } else if (value instanceof Integer i){
+      out.writeByte(INT);
+      writeVarLong(out, i);
+    } else if (value instanceof Long l){
+      out.writeByte(LONG);
+      writeVarLong(out, l);
+    } else if (value instanceof Boolean b){
+      out.writeByte(b ? TRUE : FALSE);
+    } else if (value instanceof Double d){
+      out.writeByte(DOUBLE);
+      out.writeDouble(d);
+    } else if (value instanceof String[] array){
+      out.writeByte(STRING_ARRAY);
+      writeVarLong(out, array.length);
+      for (String s : array){
+        if (s == null){
+          writeVarLong(out, -1);
+        } else {
+          writeString(out, s);
+        }
+      }
+    } else if (value.getClass() == Object[].class){
+      Object[] array = (Object[]) value;
+      out.writeByte(OBJECT_ARRAY);
+      writeVarLong(out, array.length);
+      for (Object o : array){
+        write(out, o);
+      }
+    } else if (value.getClass() == LinkedHashMap.class || value.getClass() == HashMap.class){
+      out.writeByte(value.getClass() == HashMap.class ? HASH_MAP : MAP);
+      writeMap(out, (Map<?,?>) value);
+    } else if (value.getClass() == ArrayList.class){
+      List<?> list = (List<?>) value;
+      out.writeByte(LIST);
+      writeVarLong(out, list.size());
+      for (Object o : list){
+        write(out, o);
+      }
+    } else if (value instanceof Serializable){
+      out.writeByte(SERIALIZED);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+      try (ObjectOutputStream oos = new ObjectOutputStream(bos)){
+        oos.writeObject(value);
+      }
+      writeVarLong(out, bos.size());
+      out.write(bos.toByteArray());
+    } else {
+      throw new NotSerializableException(value.getClass().getName());
+    }
+  }
+
+  /**
+   * Read a state object written by {@link #write(DataOutput, Object)}.
+   *
+   * @param in the data input
+   * @return the state object
+   * @throws IOException if an I/O error occurs or the data is corrupted
+   */
+  @Nullable public static Object read (DataInput in) throws IOException {
+    int tag = in.readUnsignedByte();
+    switch (tag){
+      case NULL: return null;
+      case STRING: return readString(in, (int) readVarLong(in));
+      case INT: return (int) readVarLong(in);
+      case LONG: return readVarLong(in);
+      case TRUE: return Boolean.TRUE;
+      case FALSE: return Boolean.FALSE;
+      case DOUBLE: return in.readDouble();
+      case STRING_ARRAY: {
+        String[] array = new String[readLength(in)];
+        for (int i = 0; i < array.length; i++){
+          int len = (int) readVarLong(in);
+          array[i] = len < 0 ? null : readString(in, len);
+        }
+        return array;
+      }
+      case OBJECT_ARRAY: {
+        Object[] array = new Object[readLength(in)];
+        for (int i = 0; i < array.length; i++){
+          array[i] = read(in);
+        }
+        return array;
+      }
+      case MAP: return readMap(in);
+      case HASH_MAP: {
+        int size = readLength(in);
+        Map<Object,Object> map = new HashMap<>(Math.max(size * 4 / 3 + 1, 4));
+        for (int i = 0; i < size; i++){
+          map.put(read(in), read(in));
+        }
+        return map;
+      }
+      case LIST: {
+        int size = readLength(in);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++){
+          list.add(read(in));
+        }
+        return list;
+      }
+      case SERIALIZED: {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))){
+          return ois.readObject();
+        } catch (ClassNotFoundException e){
+          throw new InvalidClassException("StateCodec: " + e.getMessage());
+        }
+      }
+      default: throw new StreamCorruptedException("StateCodec: unknown tag " + tag);
+    }
+  }
+
+  /**
+   * Write the entries of the given Map.
+   *
+   * @param out the data output
+   * @param map the map to write
+   * @throws IOException if an I/O error occurs or a value can't be encoded
+   */
+  public static void writeMap (DataOutput out, Map<?,?> map) throws IOException {
+    writeVarLong(out, map.size());
+    for (Map.Entry<?,?> e : map.entrySet()){
+      write(out, e.getKey());
+      write(out, e.getValue());
+    }
+  }
+
+  /**
+   * Read the Map entries written by {@link #writeMap(DataOutput, Map)}.
+   *
+   * @param in the data input
+   * @return the map
+   * @throws IOException if an I/O error occurs or the data is corrupted
+   */
+  public static Map<Object,Object> readMap (DataInput in) throws IOException {
+    int size = readLength(in);
+    Map<Object,Object> map = new LinkedHashMap<>(Math.max(size * 4 / 3 + 1, 4));
+    for (int i = 0; i < size; i++){
+      map.put(read(in), read(in));
+    }
+    return map;
+  }
+
+  private static void writeString (DataOutput out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString (DataInput in, int len) throws IOException {
+    if (len < 0){
+      throw new StreamCorruptedException("StateCodec: negative length " + len);
+    }
+    byte[] bytes = new byte[len];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int readLength (DataInput in) throws IOException {
+    long len = readVarLong(in);
+    if (len < 0 || len > Integer.MAX_VALUE - 8){
+      throw new StreamCorruptedException("StateCodec: invalid length " + len);
+    }
+    return (int) len;
+  }
+
+  /** Zig-zag + LEB128 variable length encoding: small values (page numbers) take one byte. */
+  static void writeVarLong (DataOutput out, long value) throws IOException {
+    long v = (value << 1) ^ (value >> 63);
+    while ((v & ~0x7FL) != 0){
+      out.writeByte((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.writeByte((int) v);
+  }
+
+  static long readVarLong (DataInput in) throws IOException {
+    long v = 0;
+    for (int shift = 0; shift < 64; shift += 7){
+      int b = in.readUnsignedByte();
+      v |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0){
+        return (v >>> 1) ^ -(v & 1);
+      }
+    }
+    throw new StreamCorruptedException("StateCodec: malformed varint");
+  }
+}
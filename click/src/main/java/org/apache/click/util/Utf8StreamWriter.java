@@ -0,0 +1,282 @@
+package org.apache.click.util;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Provides a reusable, thread confined UTF-8 encoding Writer which writes
+ * directly to an OutputStream (typically the <tt>ServletOutputStream</tt>).
+ * <p/>
+ * Characters are encoded into a single byte buffer without the intermediate
+ * char buffer and {@link java.nio.charset.CharsetEncoder} of the container
+ * <tt>PrintWriter</tt>. The buffer is written to the stream every
+ * <tt>flushThreshold</tt> bytes. If <tt>flushHead</tt> is enabled the stream
+ * is also flushed once right after the <tt>&lt;/head&gt;</tt> tag, so the
+ * browser can start fetching the page CSS and JavaScript while the body is
+ * still being rendered.
+ * <p/>
+ * Use {@link #acquire(OutputStream, int, boolean)} to obtain the writer of the
+ * current thread and {@link #close()} to release it. Closing the writer flushes
+ * the buffer and the stream but does not close the stream. If rendering
+ * fails, {@link #discard()} releases the writer without writing the buffer,
+ * so the response can still be reset.
+ * <p/>
+ * This class is not thread safe.
+ */
+public final class Utf8StreamWriter extends Writer {
+  /** The default flush threshold in bytes. */
+  public static final int DEFAULT_FLUSH_THRESHOLD = 8 * 1024;
+
+  /** The thread confined writer. */
+  private static final ThreadLocal<Utf8StreamWriter> THREAD_WRITER = new ThreadLocal<>();
+
+  private static final char[] HEAD_END = "</head>".toCharArray();
+
+  private byte[] buffer;
+  private int count;
+  @Nullable private OutputStream out;
+  private boolean flushHead;
+  /** The number of chars of <tt>&lt;/head&gt;</tt> matched so far. */
+  private int headMatch;
+  /** The high surrogate of a surrogate pair split between writes, or 0. */
+  private char highSurrogate;
+  /** The number of bytes written since the writer was acquired. */
+  @Getter private long byteCount;
+
+  /**
+   * Create a new (not pooled) UTF-8 writer.
+   *
+   * @param out the output stream to write to
+   * @param flushThreshold the buffer size: the number of bytes written to the stream at once
+   * @param flushHead true if the stream should be flushed after the <tt>&lt;/head&gt;</tt> tag
+   */
+  public Utf8StreamWriter (@NonNull OutputStream out, int flushThreshold, boolean flushHead){
+    buffer = new byte[Math.max(flushThreshold, 64)];
+    init(out, flushHead);
+  }//new
+
+  /**
+   * Return the UTF-8 writer of the current thread writing to the given stream.
+   * If the thread writer is already in use (nested rendering) a new writer is
+   * returned.
+   *
+   * @param out the output stream to write to
+   * @param flushThreshold the buffer size: the number of bytes written to the stream at once
+   * @param flushHead true if the stream should be flushed after the <tt>&lt;/head&gt;</tt> tag
+   * @return the UTF-8 writer of the current thread
+   */
+  public static Utf8StreamWriter acquire (@NonNull OutputStream out, int flushThreshold, boolean flushHead){
+    Utf8StreamWriter writer = THREAD_WRITER.get();
+    if (writer == null){
+      writer = new Utf8StreamWriter(out, flushThreshold, flushHead);
+      THREAD_WRITER.set(writer);
+      return writer;
+
+    } else if (writer.out != null){// in use
+      return new Utf8StreamWriter(out, flushThreshold, flushHead);
+    }
+    if (writer.buffer.length != Math.max(flushThreshold, 64)){
+      writer.buffer = new byte[Math.max(flushThreshold, 64)];
+    }
+    writer.init(out, flushHead);
+    return writer;
+  }
+
+  private void init (OutputStream out, boolean flushHead){
+    this.out = out;
+    this.flushHead = flushHead;
+    count = 0;
+    headMatch = 0;
+    highSurrogate = 0;
+    byteCount = 0;
+  }
+
+  @Override public void write (int c) throws IOException {
+    put((char) c);
+  }
+
+  @Override public void write (char[] cbuf, int off, int len) throws IOException {
+    for (int i = off, end = off + len; i < end; i++){
+      char c = cbuf[i];
+      if (c < 0x80 && highSurrogate == 0 && !flushHead){// ASCII fast path
+        if (count == buffer.length){
+          flushBuffer();
+        }
+        buffer[count++] = (byte) c;
+      } else {
+        put(c);
+      }
+    }
+  }
+
+  @Override public void write (String str, int off, int len) throws IOException {
+    for (int i = off, end = off + len; i < end; i++){
+      char c = str.charAt(i);
+      if (c < 0x80 && highSurrogate == 0 && !flushHead){// ASCII fast path
+        if (count == buffer.length){
+          flushBuffer();
+        }
+        buffer[count++] = (byte) c;
+      } else {
+        put(c);
+      }
+    }
+  }
+
+  @Override public Writer append (@Nullable CharSequence csq) throws IOException {
+    String s = String.valueOf(csq);
+    write(s, 0, s.length());
+    return this;
+  }
+
+  @Override public Writer append (@Nullable CharSequence csq, int start, int end) throws IOException {
+    if (csq == null){
+      csq = "null";
+    }
+    for (int i = start; i < end; i++){
+      put(csq.charAt(i));
+    }
+    return this;
+  }
+
+  private void put (char c) throws IOException {
+    if (c < 0x80 && highSurrogate == 0){
+      if (count == buffer.length){
+        flushBuffer();
+      }
+      buffer[count++] = (byte) c;
+      if (flushHead && matchHead(c)){
+        flushHead = false;
+        flush();
+      }
+      return;
+    }
+    if (count + 4 > buffer.length){
+      flushBuffer();
+    }
+    if (highSurrogate != 0){
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)){
+        int cp = Character.toCodePoint(high, c);
+        buffer[count++] = (byte) (0xF0 | (cp >> 18));
+        buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+        return;
+      }
+      buffer[count++] = '?';// unpaired high surrogate, as the JDK encoder does
+    }
+
+    if (c < 0x80){
+      buffer[count++] = (byte) c;
+      if (flushHead && matchHead(c)){
+        flushHead = false;
+        flush();
+      }
+    } else if (c < 0x800){
+      buffer[count++] = (byte) (0xC0 | (c >> 6));
+      buffer[count++] = (byte) (0x80 | (c & 0x3F));
+      headMatch = 0;
+    } else if (Character.isHighSurrogate(c)){
+      highSurrogate = c;
+      headMatch = 0;
+    } else if (Character.isLowSurrogate(c)){
+      buffer[count++] = '?';
+      headMatch = 0;
+    } else {
+      buffer[count++] = (byte) (0xE0 | (c >> 12));
+      buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      buffer[count++] = (byte) (0x80 | (c & 0x3F));
+      headMatch = 0;
+    }
+  }
+
+  /** Case-insensitive incremental match of <tt>&lt;/head&gt;</tt>. */
+  private boolean matchHead (char c){
+    char lc = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    if (lc == HEAD_END[headMatch]){
+      if (++headMatch == HEAD_END.length){
+        headMatch = 0;
+        return true;
+      }
+    } else {
+      headMatch = lc == '<' ? 1 : 0;
+    }
+    return false;
+  }
+
+  private void flushBuffer () throws IOException {
+    if (out == null){
+      throw new IOException("Utf8StreamWriter is closed");
+    }
+    if (count > 0){
+      out.write(buffer, 0, count);
+      byteCount += count;
+      count = 0;
+    }
+  }
+
+  /**
+   * Write the buffered bytes to the stream and flush the stream.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  @Override public void flush () throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  /**
+   * Flush the writer and release it for reuse by the current thread. The
+   * underlying stream is not closed. Subsequent calls have no effect.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  @Override public void close () throws IOException {
+    if (out == null){
+      return;
+    }
+    try {
+      if (highSurrogate != 0){
+        highSurrogate = 0;
+        put('?');
+      }
+      flush();
+    } finally {
+      out = null;// release
+      count = 0;
+    }
+  }
+
+  /**
+   * Release the writer for reuse by the current thread without writing the
+   * buffered bytes to the stream, e.g. after a rendering error, so the
+   * response is not committed by this writer. Bytes already written to the
+   * stream, when the buffer was full or after the <tt>&lt;/head&gt;</tt> tag,
+   * are not affected. Subsequent calls have no effect.
+   */
+  public void discard (){
+    out = null;// release
+    count = 0;
+    highSurrogate = 0;
+  }
+
+  /**
+   * Return true if the writer is bound to a stream, i.e. has not been closed.
+   *
+   * @return true if the writer is open
+   */
+  public boolean isOpen (){
+    return out != null;
+  }
+
+  @Override public String toString (){
+    return "Utf8StreamWriter[" + (out != null ? out : "closed") + ",buffer=" + buffer.length + ",pending=" + count + ",written=" + byteCount + "]";
+  }
+}
@@ -0,0 +1,122 @@
+package org.apache.click;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.apache.click.control.TextField;
+import org.apache.click.util.ClickUtils;
+
+/**
+ * Provides tests for ActionEventDispatcher.
+ */
+public class ActionEventDispatcherTest extends TestCase {
+
+    /**
+     * Check that action events are fired in registration order, also when the
+     * event ring grows after wrapping around.
+     */
+    public void testFireOrder() {
+        MockContext context = MockContext.initContext();
+        ActionEventDispatcher dispatcher = ActionEventDispatcher.getThreadLocalDispatcher();
+        List<String> fired = new ArrayList<>();
+
+        // advance the ring head
+        for (int i = 0; i < 10; i++) {
+            register(fired, "skip" + i);
+        }
+        assertTrue(dispatcher.fireActionEvents(context));
+        fired.clear();
+
+        int count = ActionEventDispatcher.INITIAL_EVENT_CAPACITY * 5;
+        for (int i = 0; i < count; i++) {
+            register(fired, "field" + i);
+        }
+        assertEquals(count, dispatcher.getActionEventCount());
+        assertEquals("field0", dispatcher.getEventSourceList().get(0).getName());
+        assertEquals(count, dispatcher.getEventListenerList().size());
+
+        assertTrue(dispatcher.fireActionEvents(context));
+        assertEquals(count, fired.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("field" + i, fired.get(i));
+        }
+        assertFalse(dispatcher.hasActionEvents());
+        assertEquals(10 + count, dispatcher.getFiredEventCount());
+        assertTrue(dispatcher.getListenerNanos() >= 0);
+    }
+
+    /**
+     * Check that events registered by a listener are fired by the next
+     * invocation, and that a false listener result stops processing.
+     */
+    public void testNestedRegistration() {
+        MockContext context = MockContext.initContext();
+        ActionEventDispatcher dispatcher = ActionEventDispatcher.getThreadLocalDispatcher();
+        List<String> fired = new ArrayList<>();
+
+        ActionEventDispatcher.dispatchActionEvent(new TextField("outer"), source -> {
+            fired.add(source.getName());
+            register(fired, "inner");
+            return false;
+        });
+
+        assertFalse(dispatcher.fireActionEvents(context));
+        assertEquals(1, dispatcher.getActionEventCount());
+        assertTrue(dispatcher.fireActionEvents(context));
+        assertEquals(List.of("outer", "inner"), fired);
+    }
+
+    /**
+     * Check that clear removes the registered events.
+     */
+    public void testClear() {
+        MockContext context = MockContext.initContext();
+        ActionEventDispatcher dispatcher = ActionEventDispatcher.getThreadLocalDispatcher();
+        List<String> fired = new ArrayList<>();
+
+        register(fired, "field");
+        dispatcher.clear();
+        assertFalse(dispatcher.hasActionEvents());
+        assertTrue(dispatcher.fireActionEvents(context));
+        assertTrue(fired.isEmpty());
+    }
+
+    /**
+     * Check that a subclass overriding the deprecated list based
+     * fireActionEvents still receives the registered events.
+     */
+    @SuppressWarnings("deprecation")
+    public void testListDispatchOverride() {
+        MockContext context = MockContext.initContext();
+        List<String> fired = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        ActionEventDispatcher dispatcher = new ActionEventDispatcher(
+            ClickUtils.getConfigService(context.getServletContext())) {
+            @Override
+            protected boolean fireActionEvents(Context ctx, List<Control> eventSourceList,
+                List<ActionListener> eventListenerList) {
+                sizes.add(eventSourceList.size());
+                return super.fireActionEvents(ctx, eventSourceList, eventListenerList);
+            }
+        };
+        for (String name : new String[] {"a", "b"}) {
+            dispatcher.registerActionEvent(new TextField(name), source -> {
+                fired.add(source.getName());
+                return true;
+            });
+        }
+
+        assertTrue(dispatcher.fireActionEvents(context));
+        assertEquals(List.of(2), sizes);
+        assertEquals(List.of("a", "b"), fired);
+        assertFalse(dispatcher.hasActionEvents());
+        assertEquals(2, dispatcher.getFiredEventCount());
+    }
+
+    private static void register(List<String> fired, String name) {
+        ActionEventDispatcher.dispatchActionEvent(new TextField(name), source -> {
+            fired.add(source.getName());
+            return true;
+        });
+    }
+}
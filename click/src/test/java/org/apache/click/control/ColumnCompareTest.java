@@ -20,8 +20,11 @@ package org.apache.click.control;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -117,6 +120,87 @@ public class ColumnCompareTest extends TestCase {
         Collections.sort(rowList, comparator);
     }
 
+    /**
+     * Check that the TableSorter sorts in the same order as the comparator.
+     */
+    public void test_sorter() {
+        Column column = new Column("name");
+
+        Table table = new Table("table");
+        table.addColumn(column);
+
+        List<List<Map<String, Object>>> rowLists = new ArrayList<List<Map<String, Object>>>();
+        rowLists.add(createRowList1());
+        rowLists.add(createRowList2());
+        rowLists.add(createRowList3());
+
+        List<Map<String, Object>> large = new ArrayList<Map<String, Object>>();
+        Random random = new Random(42);
+        for (int i = 0; i < TableSorter.PARALLEL_THRESHOLD * 2; i++) {
+            large.add(createRow(random.nextInt(10) == 0 ? null : "item " + random.nextInt(5000)));
+        }
+        rowLists.add(large);
+
+        for (List<Map<String, Object>> rowList : rowLists) {
+            for (boolean ascending : new boolean[] {true, false}) {
+                table.setSortedAscending(ascending);
+
+                List<Map<String, Object>> expected = new ArrayList<Map<String, Object>>(rowList);
+                Collections.sort(expected, column.getComparator());
+
+                List<Map<String, Object>> actual = new ArrayList<Map<String, Object>>(rowList);
+                TableSorter.sort(actual, column, ascending);
+                assertEquals(expected, actual);
+
+                // sorted again: same order
+                TableSorter.sort(actual, column, ascending);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Check that a row list sorted again is re-sorted when its rows have changed.
+     */
+    public void test_sorterChangedRows() {
+        Column column = new Column("name");
+        Table table = new Table("table");
+        table.addColumn(column);
+
+        List<Map<String, Object>> rowList = new ArrayList<Map<String, Object>>();
+        for (String name : new String[] {"a", "b", "c", "d"}) {
+            rowList.add(new HashMap<String, Object>(createRow(name)));
+        }
+        TableSorter.sort(rowList, column, true);
+
+        rowList.get(1).put("name", "e");// same first and last row
+        rowList.get(2).put("name", "b");
+        TableSorter.sort(rowList, column, true);
+        assertEquals(1, indexOf("b", rowList));
+        assertEquals(3, indexOf("e", rowList));
+    }
+
+    /**
+     * Check that columns with a custom comparator are sorted with the comparator.
+     */
+    public void test_sorterCustomComparator() {
+        Column column = new Column("name");
+        column.setComparator(new Comparator<Map<String, Object>>() {
+            public int compare(Map<String, Object> row1, Map<String, Object> row2) {
+                return ((String) row2.get("name")).compareTo((String) row1.get("name"));
+            }
+        });
+
+        List<Map<String, Object>> rowList = new ArrayList<Map<String, Object>>();
+        rowList.add(createRow("a"));
+        rowList.add(createRow("c"));
+        rowList.add(createRow("b"));
+        TableSorter.sort(rowList, column, true);
+
+        assertEquals(0, indexOf("c", rowList));
+        assertEquals(2, indexOf("a", rowList));
+    }
+
     /**
      * Create and return a test Table row list.
      *
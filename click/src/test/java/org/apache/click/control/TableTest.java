@@ -24,8 +24,11 @@ import java.util.List;
 import java.util.Locale;
 
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import junit.framework.TestCase;
 import org.apache.click.MockContext;
+import org.apache.click.dataprovider.StreamingDataProvider;
 
 /**
  * Test Table behavior.
@@ -102,6 +105,72 @@ public class TableTest extends TestCase {
         assertTrue(table.toString().indexOf("<strong>100</strong>") > 0);
     }
 
+    /**
+     * Check that a streaming Table only keeps the rows of the current page.
+     */
+    public void testStreamingDataProvider() {
+        MockContext.initContext(Locale.ENGLISH);
+
+        final int[] closed = {0};
+        Table table = new Table("table");
+        table.setDataProvider(new StreamingDataProvider<Foo>() {
+            public Stream<Foo> stream() {
+                return IntStream.range(0, 1000).mapToObj(i -> new Foo("foo" + i)).onClose(() -> closed[0]++);
+            }
+        });
+        table.setPageSize(10);
+        table.setPageNumber(3);
+        Column column = new Column("name");
+        column.setSortable(false);
+        table.addColumn(column);
+
+        String html = table.toString();
+        assertEquals(10, table.getRowList().size());
+        assertEquals(1000, table.getRowCount());
+        assertEquals("foo30", ((Foo) table.getRowList().get(0)).getName());
+        assertTrue(html.contains(">foo39</td>"));
+        assertFalse(html.contains(">foo40</td>"));
+        assertTrue(html.contains("<strong>4</strong>"));
+        assertEquals(1, closed[0]);
+    }
+
+    /**
+     * Check that a sorted streaming Table renders the same page as a sorted row list.
+     */
+    public void testStreamingDataProviderSorted() {
+        MockContext.initContext(Locale.ENGLISH);
+
+        final List<Foo> foos = new ArrayList<Foo>();
+        for (int i = 0; i < 500; i++) {
+            foos.add(new Foo("foo" + ((i * 7919) % 500)));
+        }
+
+        Table table = new Table("table");
+        table.setRowList(new ArrayList<Foo>(foos));
+        table.setPageSize(15);
+        table.setPageNumber(2);
+        table.setSortedColumn("name");
+        table.setSortedAscending(false);
+        table.addColumn(new Column("name"));
+        String expected = table.toString();
+
+        Table streaming = new Table("table");
+        streaming.setDataProvider(new StreamingDataProvider<Foo>() {
+            public Stream<Foo> stream() {
+                return foos.stream();
+            }
+        });
+        streaming.setPageSize(15);
+        streaming.setPageNumber(2);
+        streaming.setSortedColumn("name");
+        streaming.setSortedAscending(false);
+        streaming.addColumn(new Column("name"));
+
+        assertEquals(expected, streaming.toString());
+        assertEquals(15, streaming.getRowList().size());
+        assertEquals(500, streaming.getRowCount());
+    }
+
     /**
      * Check that table row attributes are set.
      */
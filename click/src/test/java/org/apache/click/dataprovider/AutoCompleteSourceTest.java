@@ -0,0 +1,116 @@
+package org.apache.click.dataprovider;
+
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for AutoCompleteSource.
+ */
+public class AutoCompleteSourceTest extends TestCase {
+
+  private static final List<String> COUNTRIES = Arrays.asList(
+      "United States", "United Kingdom", "Germany", "France", "Uganda",
+      "Ukraine", "Uruguay", "Gabon", "Gambia", "Georgia");
+
+  public void testPrefixIndex() {
+    AutoCompleteSource<String> source = AutoCompleteSource.of(COUNTRIES, 3, Duration.ofMinutes(1));
+
+    // The top ranked matches, in rank order
+    assertEquals(Arrays.asList("United States", "United Kingdom", "Uganda"), source.getAutoCompleteList("u"));
+    assertEquals(Arrays.asList("United States", "United Kingdom"), source.getAutoCompleteList(" UNI"));
+    assertEquals(Arrays.asList("Gabon", "Gambia"), source.getAutoCompleteList("ga"));
+    assertEquals(List.of(), source.getAutoCompleteList("x"));
+    assertEquals(List.of(), source.getAutoCompleteList(""));
+    assertEquals(List.of(), source.getAutoCompleteList(null));
+  }
+
+  public void testCache() {
+    AtomicInteger loads = new AtomicInteger();
+    AutoCompleteSource<String> source = new AutoCompleteSource<>(criteria -> {
+      loads.incrementAndGet();
+      return filter(criteria, 2);
+    }, AutoCompleteSource.Match.CONTAINS, 2, Duration.ofMinutes(1));
+
+    assertEquals(Arrays.asList("United States", "United Kingdom"), source.getAutoCompleteList("n"));
+    assertEquals(Arrays.asList("United States", "United Kingdom"), source.getAutoCompleteList("N "));
+    assertEquals(1, loads.get());
+
+    source.invalidateAll();
+    source.getAutoCompleteList("n");
+    assertEquals(2, loads.get());
+  }
+
+  public void testRefinement() {
+    AtomicInteger loads = new AtomicInteger();
+    AutoCompleteSource<String> source = new AutoCompleteSource<>(criteria -> {
+      loads.incrementAndGet();
+      return filter(criteria, 5);
+    }, AutoCompleteSource.Match.CONTAINS, 5, Duration.ofMinutes(1));
+
+    // "ga" has 3 matches (< limit): the result is complete and refined
+    assertEquals(Arrays.asList("Uganda", "Gabon", "Gambia"), source.getAutoCompleteList("ga"));
+    assertEquals(1, loads.get());
+    assertEquals(Arrays.asList("Gambia"), source.getAutoCompleteList("gam"));
+    assertEquals(Arrays.asList("Gabon"), source.getAutoCompleteList("gabo"));
+    assertEquals(1, loads.get());
+
+    // "u" has more matches than the limit: longer criteria are loaded
+    assertEquals(5, source.getAutoCompleteList("u").size());
+    assertEquals(2, loads.get());
+    assertEquals(Arrays.asList("United States", "United Kingdom"), source.getAutoCompleteList("un"));
+    assertEquals(3, loads.get());
+  }
+
+  public void testCoalescing() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AutoCompleteSource<String> source = new AutoCompleteSource<>(criteria -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return filter(criteria, 10);
+    }, AutoCompleteSource.Match.CONTAINS, 10, Duration.ofMinutes(1));
+
+    List<List<String>> results = new ArrayList<>();
+    Thread first = new Thread(() -> add(results, source.getAutoCompleteList("ger")));
+    first.start();
+    loading.await();
+    Thread second = new Thread(() -> add(results, source.getAutoCompleteList("ger")));
+    second.start();
+    // Let the second thread reach the pending load
+    Thread.sleep(50);
+    release.countDown();
+    first.join();
+    second.join();
+
+    assertEquals(1, loads.get());
+    assertEquals(2, results.size());
+    assertEquals(Arrays.asList("Germany"), results.get(0));
+    assertEquals(results.get(0), results.get(1));
+  }
+
+  private static synchronized void add(List<List<String>> results, List<String> result) {
+    results.add(result);
+  }
+
+  private static List<String> filter(String criteria, int limit) {
+    List<String> found = new ArrayList<>();
+    for (String country : COUNTRIES) {
+      if (country.toLowerCase().contains(criteria) && found.size() < limit) {
+        found.add(country);
+      }
+    }
+    return found;
+  }
+}
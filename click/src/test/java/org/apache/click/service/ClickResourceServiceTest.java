@@ -7,12 +7,19 @@ import org.apache.click.servlet.MockResponse;
 import org.junit.Test;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ClickResourceServiceTest {
@@ -42,10 +49,109 @@ public class ClickResourceServiceTest {
     assertTrue(tableCss.contains("th.ascending a, th.descending a, th.sortable a {"));
     assertTrue(tableCss.contains(" * http://displaytag.sourceforge.net"));
 
-    assertEquals(1, clickResourceService.resourceCache.size());
-    assertTrue(clickResourceService.resourceCache.containsKey("/click/table.css"));
-    assertArrayEquals(binaryContent, clickResourceService.resourceCache.get("/click/table.css"));
+    val cache = clickResourceService.resourceCache.asMap();
+    assertEquals(1, cache.size());
+    assertTrue(cache.containsKey("/click/table.css"));
+    assertArrayEquals(binaryContent, cache.get("/click/table.css").getData());
+    assertEquals("text/css", cache.get("/click/table.css").getMimeType());
 
     clickResourceService.onDestroy();
   }
+
+  @Test
+	public void testConditionalGet () throws IOException {
+    val clickResourceService = new ClickResourceService();
+    val context = MockContext.initContext(Map.of("mode", "profile"));
+    clickResourceService.onInit(context.getServletContext());
+
+    val req = new MockRequest();
+    val resp = new MockResponse();
+    req.setPathInfo("/click/table.css");
+
+    clickResourceService.renderResource(req, resp);
+    assertEquals(HttpServletResponse.SC_OK, resp.getStatus());
+    String etag = resp.getHeader("ETag");
+    assertNotNull(etag);
+    assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    byte[] identity = resp.getBinaryContent();
+
+    // revalidation
+    resp.reset();
+    req.setHeader("If-None-Match", "\"other\", W/" + etag);
+    clickResourceService.renderResource(req, resp);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, resp.getStatus());
+    assertEquals(0, resp.getBinaryContent().length);
+    assertEquals(etag, resp.getHeader("ETag"));
+
+    // gzip variant has its own ETag
+    resp.reset();
+    req.setHeader("Accept-Encoding", "deflate, gzip;q=0.8, br;q=0");
+    clickResourceService.renderResource(req, resp);
+    assertEquals(HttpServletResponse.SC_OK, resp.getStatus());
+    assertEquals("gzip", resp.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", resp.getHeader("Vary"));
+    assertFalse(etag.equals(resp.getHeader("ETag")));
+    try (val gzip = new GZIPInputStream(new ByteArrayInputStream(resp.getBinaryContent()))){
+      assertArrayEquals(identity, gzip.readAllBytes());
+    }
+
+    // gzip;q=0 → identity
+    resp.reset();
+    req.setHeader("Accept-Encoding", "gzip;q=0");
+    req.setHeader("If-None-Match", "*");
+    clickResourceService.renderResource(req, resp);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, resp.getStatus());
+    assertNull(resp.getHeader("Content-Encoding"));
+    assertEquals(etag, resp.getHeader("ETag"));
+
+    clickResourceService.onDestroy();
+  }
+
+  @Test
+	public void testModifiedFiles () throws IOException {
+    val clickResourceService = new ClickResourceService();
+    val context = MockContext.initContext(Map.of("mode", "profile"));
+    clickResourceService.onInit(context.getServletContext());
+
+    Path dir = Files.createTempDirectory("click-resources");
+    try {
+      Path small = Files.writeString(dir.resolve("small.css"), "a { color: red }");
+      val resource = clickResourceService.createResource("/small.css", small.toUri().toURL(), null);
+      assertNotNull(resource.getData());
+      assertFalse(resource.isModified());
+      Files.writeString(small, "a { color: blue; }");
+      assertTrue(resource.isModified());
+
+      // Mapped files weigh their full size
+      Path large = Files.write(dir.resolve("large.js"), new byte[(int) ClickResourceService.MAPPED_FILE_THRESHOLD]);
+      val mapped = clickResourceService.createResource("/large.js", large.toUri().toURL(), null);
+      assertNotNull(mapped.getMapped());
+      assertTrue(mapped.getWeight() >= ClickResourceService.MAPPED_FILE_THRESHOLD);
+      assertFalse(mapped.isModified());
+      Files.write(large, new byte[10]);// truncated by a redeployment
+      assertTrue(mapped.isModified());
+
+    } finally {
+      try (val files = Files.list(dir)){
+        files.forEach(file->file.toFile().delete());
+      }
+      Files.delete(dir);
+      clickResourceService.onDestroy();
+    }
+  }
+
+  @Test
+	public void testHeaderParsing () {
+    assertTrue(ClickResourceService.etagMatches("\"a\"", "\"a\""));
+    assertTrue(ClickResourceService.etagMatches(" \"b\" , W/\"a\"", "\"a\""));
+    assertFalse(ClickResourceService.etagMatches("\"ab\"", "\"a\""));
+
+    assertTrue(ClickResourceService.acceptsEncoding("gzip, deflate, br", "br"));
+    assertTrue(ClickResourceService.acceptsEncoding("GZIP;q=0.5", "gzip"));
+    assertFalse(ClickResourceService.acceptsEncoding("gzip;q=0.0", "gzip"));
+    assertFalse(ClickResourceService.acceptsEncoding("identity", "gzip"));
+    assertFalse(ClickResourceService.acceptsEncoding(null, "gzip"));
+
+    assertEquals("\"abc-gzip\"", ClickResourceService.variantEtag("\"abc\"", "gzip"));
+  }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.MockContext;
+import org.apache.click.servlet.MockServletContext;
+import org.apache.click.util.ClickUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * DeflaterObjectCodec test.
+ */
+public class DeflaterObjectCodecTest extends TestCase {
+
+  /** Not in the whitelist. */
+  static class Custom implements Serializable {
+    private static final long serialVersionUID = 1L;
+    String name = "custom";
+  }
+
+  public void testRoundTrip() throws Exception {
+    DeflaterObjectCodec codec = new DeflaterObjectCodec();
+
+    Map<String,Object> small = new HashMap<>();
+    small.put("id", 42);
+    small.put("amount", new BigDecimal("12.50"));
+    small.put("date", new Date(0));
+    byte[] data = codec.encode((Serializable) small);
+    assertEquals((byte) 0xAC, data[0]);// below the threshold: not compressed
+    assertEquals(small, codec.decode(data));
+
+    List<String> large = new ArrayList<>(Collections.nCopies(1000, "repeated value"));
+    data = codec.encode(large);
+    assertEquals(DeflaterObjectCodec.DEFLATED, data[0]);
+    assertEquals(large, codec.decode(data));
+    assertEquals(large, codec.decode(codec.encode(large)));// pooled deflater is reset
+    codec.onDestroy();
+  }
+
+  public void testLegacyFormat() throws Exception {
+    assertEquals("legacy", ClickUtils.decode(Base64.getEncoder().encodeToString(legacyEncode("legacy"))));
+  }
+
+  /** Encode the value as the previous ClickUtils.encode: ObjectOutputStream over a GZIPOutputStream. */
+  static byte[] legacyEncode(Object value) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(bos))) {
+      oos.writeObject(value);
+    }
+    return bos.toByteArray();
+  }
+
+  public void testFilter() throws Exception {
+    DeflaterObjectCodec codec = new DeflaterObjectCodec();
+    byte[] data = codec.encode(new Custom());
+    try {
+      codec.decode(data);
+      fail();
+    } catch (InvalidClassException expected) {}
+
+    // arrays of rejected classes are rejected as well
+    try {
+      codec.decode(codec.encode(new Custom[]{new Custom()}));
+      fail();
+    } catch (InvalidClassException expected) {}
+
+    DeflaterObjectCodec allowing = new DeflaterObjectCodec();
+    MockServletContext servletContext = new MockServletContext();
+    servletContext.addInitParameter(DeflaterObjectCodec.ALLOWED, Custom.class.getName());
+    servletContext.addInitParameter(DeflaterObjectCodec.COMPRESS_THRESHOLD, "0");
+    allowing.onInit(servletContext);
+    assertEquals(0, allowing.getCompressThreshold());
+    data = allowing.encode(new Custom());
+    assertEquals(DeflaterObjectCodec.DEFLATED, data[0]);
+    assertEquals("custom", ((Custom) allowing.decode(data)).name);
+  }
+
+  public void testCorruptedData() throws Exception {
+    DeflaterObjectCodec codec = new DeflaterObjectCodec();
+    byte[] data = codec.encode(new ArrayList<>(Collections.nCopies(1000, "value")));
+    try {
+      codec.decode(Arrays.copyOf(data, data.length / 2));
+      fail();
+    } catch (StreamCorruptedException expected) {}
+
+    data[1] = 0x7F;// length > MAX_DECODED_SIZE
+    try {
+      codec.decode(data);
+      fail();
+    } catch (StreamCorruptedException expected) {}
+
+    try {
+      ClickUtils.decode("not base64!");
+      fail();
+    } catch (IOException expected) {}
+  }
+
+  public void testClickUtils() throws Exception {
+    String encoded = ClickUtils.encode(new Date(1000));
+    assertEquals(new Date(1000), ClickUtils.decode(encoded));
+  }
+
+  /**
+   * Outside of a request ClickUtils uses the initialized application codec.
+   */
+  public void testClickUtilsOutsideRequest() throws Exception {
+    Map<String,String> params = new HashMap<>();
+    params.put(DeflaterObjectCodec.COMPRESS_THRESHOLD, "100000");
+    MockContext context = MockContext.initContext(params);
+    try {
+      String large = "x".repeat(10_000);
+      String[] encoded = new String[1];
+      Thread thread = new Thread(()->{
+        try {
+          encoded[0] = ClickUtils.encode(large);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      thread.start();
+      thread.join();
+      assertTrue(Base64.getDecoder().decode(encoded[0])[0] != DeflaterObjectCodec.DEFLATED);// not compressed
+      assertEquals(large, ClickUtils.decode(encoded[0]));
+    } finally {
+      ClickUtils.getConfigService(context.getServletContext()).onDestroy();
+    }
+  }
+}
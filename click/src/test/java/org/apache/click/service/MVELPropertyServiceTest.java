@@ -2,10 +2,8 @@ package org.apache.click.service;
 
 import lombok.SneakyThrows;
 import org.apache.click.servlet.MockServletContext;
-import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.Serializable;
-import java.lang.reflect.AccessibleObject;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -32,17 +30,16 @@ public class MVELPropertyServiceTest extends PropertyServiceTestCase {
 				return super.cacheOrParse(root, name);
 			}
 
-			@Override protected @Nullable AccessibleObject getCached (CacheKey key) {
+			@Override protected Accessor getAccessor (Class<?> beanClass, String name) {
 				if (testName == null){
 					testName = new RuntimeException("Location");
 				}
 
 				total.incrementAndGet();
-				var cached = super.getCached(key);
-				if (cached != null){
+				if (ACCESSOR_CACHE.asMap().containsKey(new CacheKey(beanClass, name))){
 					hit.incrementAndGet();
 				}
-				return cached;
+				return super.getAccessor(beanClass, name);
 			}
 		};
 
@@ -86,4 +83,26 @@ public class MVELPropertyServiceTest extends PropertyServiceTestCase {
 		System.err.println(className);
 		assertTrue(className, className.startsWith("org.apache.click.service.MVELPropertyServiceTest$$Lambda"));
 	}
+
+	public void testSetValueDirect () {
+		testName = new RuntimeException("testSetValueDirect");
+		var ps = (MVELPropertyService) propertyService;
+		var holder = new TypesHolder();
+
+		assertTrue(ps.setValueDirect(holder, "fint", "42"));
+		assertEquals(Integer.valueOf(42), holder.fint);
+		assertTrue(ps.setValueDirect(holder, " flong ", 7L));
+		assertEquals(Long.valueOf(7), holder.flong);
+		assertTrue(ps.getSetter(TypesHolder.class, "fint").isDirect());
+
+		assertFalse(ps.setValueDirect(holder, "fchar", "4"));// no converter: MVEL
+		assertFalse(ps.setValueDirect(holder, "flong", 7));// Integer → Long: MVEL
+		assertFalse(ps.setValueDirect(holder, "fint", "abc"));
+		assertFalse(ps.setValueDirect(holder, "fint + 1", 1));
+		assertFalse(ps.getSetter(TypesHolder.class, "unknown").isDirect());
+
+		ps.setValue(holder, "fchar", "4");
+		assertEquals(Character.valueOf('4'), holder.fchar);
+		assertEquals(0, ps.EXPRESSION_CACHE.asMap().keySet().stream().filter(k->k.contains("fint")).count());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+import static org.apache.click.util.ClickTestUtils.benchmark;
+
+/**
+ * Compares the encode/decode round-trip of {@link DeflaterObjectCodec} with the
+ * previous <tt>ClickUtils.encode</tt> format (ObjectOutputStream over a new
+ * GZIPOutputStream per call) across payload sizes: time and bytes allocated
+ * per round-trip. Runs with <tt>gradlew test -Pbenchmark</tt>.
+ */
+public class ObjectCodecBenchmark extends TestCase {
+
+  public void testRoundTrip () throws Exception {
+    DeflaterObjectCodec codec = new DeflaterObjectCodec();
+    for (int entries : new int[]{1, 10, 100, 1000, 10_000}){
+      HashMap<String,Object> payload = new HashMap<>();
+      for (int i = 0; i < entries; i++){
+        payload.put("key" + i, i % 3 == 0 ? (Object) ("value " + i) : (Object) i);
+      }
+      int loops = Math.max(20, 200_000 / entries);
+      System.err.printf("%,6d entries: %,d bytes GZIP, %,d bytes DeflaterObjectCodec%n",
+          entries, DeflaterObjectCodecTest.legacyEncode(payload).length, codec.encode(payload).length);
+      for (int round = 0; round < 3; round++){
+        assertEquals(payload, benchmark(entries + " entries GZIP (previous)", loops,
+            ()->codec.decode(DeflaterObjectCodecTest.legacyEncode(payload))));
+        assertEquals(payload, benchmark(entries + " entries DeflaterCodec  ", loops,
+            ()->codec.decode(codec.encode((Serializable) payload))));
+      }
+    }
+    codec.onDestroy();
+  }
+}
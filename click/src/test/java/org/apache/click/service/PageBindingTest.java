@@ -0,0 +1,70 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.pages.RequestBindingPage;
+import org.apache.click.service.PageBinding.FieldAccessor;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Tests for the precompiled page field accessors of {@link PageBinding} */
+public class PageBindingTest extends TestCase {
+
+  public void testFieldRead() {
+    RequestBindingPage page = new RequestBindingPage();
+    PageBinding binding = new PageBinding(RequestBindingPage.class.getFields());
+
+    assertEquals(RequestBindingPage.class.getFields().length, binding.size());
+    for (FieldAccessor accessor : binding.getAccessors()) {
+      switch (accessor.getName()) {
+        case "bigDecimal" -> assertSame(page.bigDecimal, accessor.get(page));
+        case "string" -> assertSame(page.string, accessor.get(page));
+        case "bool" -> assertEquals(Boolean.FALSE, accessor.get(page));
+        default -> {}// Page public fields
+      }
+    }
+  }
+
+  public void testRequestParamConversion() {
+    RequestBindingPage page = new RequestBindingPage();
+    PageBinding binding = new PageBinding(RequestBindingPage.class.getFields());
+
+    assertTrue(binding.hasRequestParamAccessors());
+    assertTrue(binding.getRequestParamAccessor("bigDecimal").setRequestParam(page, "100.99"));
+    assertEquals(new BigDecimal("100.99"), page.getBigDecimal());
+
+    assertTrue(binding.getRequestParamAccessor("string").setRequestParam(page, "hello"));
+    assertEquals("hello", page.getString());
+
+    assertTrue(binding.getRequestParamAccessor("bool").setRequestParam(page, "on"));
+    assertTrue(page.getBoolean());
+
+    // unparsable value is left to the PropertyService
+    assertFalse(binding.getRequestParamAccessor("bigDecimal").setRequestParam(page, "abc"));
+    assertEquals(new BigDecimal("100.99"), page.getBigDecimal());
+
+    assertNull(binding.getRequestParamAccessor("unknown"));
+  }
+
+  public void testEmpty() {
+    assertEquals(0, PageBinding.EMPTY.size());
+    assertFalse(PageBinding.EMPTY.hasRequestParamAccessors());
+  }
+
+  public void testCached() {
+    AtomicInteger calls = new AtomicInteger();
+    PageBinding binding = PageBinding.getCached(RequestBindingPage.class, ()->{
+      calls.incrementAndGet();
+      return RequestBindingPage.class.getFields();
+    });
+    assertNotNull(binding);
+    assertSame(binding, PageBinding.getCached(RequestBindingPage.class, ()->{
+      calls.incrementAndGet();
+      return RequestBindingPage.class.getFields();
+    }));
+    assertEquals(1, calls.get());
+
+    // Not configured page class
+    assertNull(PageBinding.getCached(PageBindingTest.class, ()->null));
+  }
+}
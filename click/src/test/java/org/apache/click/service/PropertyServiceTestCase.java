@@ -286,4 +286,62 @@ public abstract class PropertyServiceTestCase extends TestCase {
   }
 
 
+
+  public static class Boom {
+    public String getFail () {
+      throw new IllegalStateException("getter failed");
+    }
+  }
+
+  public static class Fallback {
+    public String state = "field";
+
+    public String getState () {
+      throw new IllegalStateException("getter failed");
+    }
+  }
+
+  public void testCompiledPath () {
+    val rows = new java.util.ArrayList<Object>();
+    rows.add(new ChildObject("edgar", "medgar@avoka.com"));
+    rows.add(Map.of("name", "map"));
+    rows.add(new HashMap<>(Map.of("name", "entry")).entrySet().iterator().next());// HashMap$Node → Map.Entry.getKey
+    rows.add(new ChildObject("malcolm", null));
+
+    assertEquals("edgar", propertyService.getValue(rows.get(0), "name"));
+    assertEquals("map", propertyService.getValue(rows.get(1), "name"));
+    assertEquals("name", propertyService.getValue(rows.get(2), "key"));
+    assertEquals("malcolm", propertyService.getValue(rows.get(3), " name "));
+    assertNull(propertyService.getValue(rows.get(3), "email.length"));// intermediate null
+
+    try {
+      propertyService.getValue(new Boom(), "fail");
+      fail();
+    } catch (IllegalArgumentException e){
+      assertTrue(e.getMessage(), e.getMessage().startsWith("getObjectPropertyValue: Error getting property 'fail'"));
+      assertEquals("getter failed", e.getCause().getMessage());
+    }
+    assertEquals("field", propertyService.getValue(new Fallback(), "state"));// next getter form
+
+    for (int i = 0; i < 2; i++){// 2nd: negative cache
+      try {
+        propertyService.getValue(rows.get(0), "child.missing");
+        fail();
+      } catch (IllegalArgumentException e){
+        assertTrue(e.getMessage(), e.getMessage().contains("'child'"));
+      }
+    }
+
+    if (propertyService instanceof PropertyServiceBase base){
+      assertNotNull(base.PATH_CACHE.get(ChildObject.class).get("child.missing"));
+      val missing = base.ACCESSOR_CACHE.getIfPresent(new PropertyServiceBase.CacheKey(ChildObject.class, "child"));
+      assertNotNull(missing);
+      assertTrue(missing.isMissing());
+      assertFalse(base.getAccessor(ChildObject.class, "name").isMissing());
+
+      base.onDestroy();
+      assertNull(base.PATH_CACHE.get(ChildObject.class).get("child.missing"));
+      assertNull(base.ACCESSOR_CACHE.getIfPresent(new PropertyServiceBase.CacheKey(ChildObject.class, "child")));
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.util.ClickTestUtils;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests for ResourceDeployer.
+ */
+public class ResourceDeployerTest extends TestCase {
+
+  private File tmpdir;
+  private Path root;
+  private URLClassLoader classLoader;
+
+  @Override protected void setUp () throws Exception {
+    tmpdir = ClickTestUtils.makeTmpDir();
+    root = Files.createDirectories(tmpdir.toPath().resolve("webapp"));
+
+    Path jar = tmpdir.toPath().resolve("resources.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))){
+      // directory entries, as in jars built by Gradle, so ClassLoader.getResources finds the directory
+      out.putNextEntry(new JarEntry("META-INF/resources/"));
+      out.putNextEntry(new JarEntry("META-INF/resources/click/"));
+      add(out, "META-INF/resources/click/a.css", "jar a");
+      add(out, "META-INF/resources/click/c.js", "jar c");
+    }
+    Path dir = tmpdir.toPath().resolve("classes");
+    write(dir.resolve("META-INF/resources/click/a.css"), "dir a");
+    write(dir.resolve("META-INF/resources/click/b.css"), "dir b");
+
+    classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL(), dir.toUri().toURL()}, null);
+  }
+
+  @Override protected void tearDown () throws Exception {
+    classLoader.close();
+    ClickTestUtils.deleteDir(tmpdir);
+  }
+
+  public void testDeploy () throws Exception {
+    ResourceDeployer.Result result = deploy();
+    assertEquals(2, result.locations());
+    assertEquals(3, result.resources());
+    assertEquals(3, result.copied());
+    // The first resource on the classpath wins
+    assertEquals("jar a", read("click/a.css"));
+    assertEquals("dir b", read("click/b.css"));
+    assertEquals("jar c", read("click/c.js"));
+    assertEquals(3, ResourceDeployer.readManifest(root.resolve(ResourceDeployer.MANIFEST)).size());
+
+    // Up-to-date resources are not copied again
+    result = deploy();
+    assertEquals(0, result.copied());
+    assertEquals(3, result.unchanged());
+  }
+
+  public void testModifiedFilesAreKept () throws Exception {
+    deploy();
+    write(root.resolve("click/b.css"), "modified by the application");
+
+    ResourceDeployer.Result result = deploy();
+    assertEquals(0, result.copied());
+    assertEquals(1, result.kept());
+    assertEquals("modified by the application", read("click/b.css"));
+  }
+
+  public void testChangedResourcesAreRefreshed () throws Exception {
+    deploy();
+    // A previous version of c.js: same deployed file state, other source checksum
+    Path manifestFile = root.resolve(ResourceDeployer.MANIFEST);
+    Map<String,ResourceDeployer.Deployed> manifest = ResourceDeployer.readManifest(manifestFile);
+    ResourceDeployer.Deployed deployed = manifest.get("click/c.js");
+    manifest.put("click/c.js", new ResourceDeployer.Deployed(deployed.crc() ^ 1, deployed.size(), deployed.lastModified()));
+    ResourceDeployer.writeManifest(manifestFile, manifest);
+
+    ResourceDeployer.Result result = deploy();
+    assertEquals(1, result.copied());
+    assertEquals(2, result.unchanged());
+    assertEquals(deployed.crc(), ResourceDeployer.readManifest(manifestFile).get("click/c.js").crc());
+  }
+
+  public void testExistingFilesWithoutManifest () throws Exception {
+    // Identical files deployed before the manifest are adopted, others are overrides
+    write(root.resolve("click/a.css"), "jar a");
+    write(root.resolve("click/b.css"), "application b");
+
+    ResourceDeployer.Result result = deploy();
+    assertEquals(1, result.copied());
+    assertEquals(1, result.unchanged());
+    assertEquals(1, result.kept());
+    assertEquals("application b", read("click/b.css"));
+
+    Map<String,ResourceDeployer.Deployed> manifest = ResourceDeployer.readManifest(root.resolve(ResourceDeployer.MANIFEST));
+    assertTrue(manifest.containsKey("click/a.css"));
+    assertFalse(manifest.containsKey("click/b.css"));
+  }
+
+  public void testAdoptExistingFilesWithoutManifest () throws Exception {
+    // Files of an earlier Click version are overwritten by the first deployment
+    write(root.resolve("click/a.css"), "jar a");
+    write(root.resolve("click/b.css"), "earlier b");
+
+    ResourceDeployer.Result result = deploy(true);
+    assertEquals(2, result.copied());
+    assertEquals(1, result.unchanged());
+    assertEquals(0, result.kept());
+    assertEquals("dir b", read("click/b.css"));
+    assertEquals(3, ResourceDeployer.readManifest(root.resolve(ResourceDeployer.MANIFEST)).size());
+
+    // With a manifest, the files which are not in it are application overrides
+    Path manifestFile = root.resolve(ResourceDeployer.MANIFEST);
+    Map<String,ResourceDeployer.Deployed> manifest = ResourceDeployer.readManifest(manifestFile);
+    manifest.remove("click/c.js");
+    ResourceDeployer.writeManifest(manifestFile, manifest);
+    write(root.resolve("click/c.js"), "application c");
+
+    result = deploy(true);
+    assertEquals(0, result.copied());
+    assertEquals(1, result.kept());
+    assertEquals("application c", read("click/c.js"));
+  }
+
+  private ResourceDeployer.Result deploy () throws Exception {
+    return deploy(false);
+  }
+
+  private ResourceDeployer.Result deploy (boolean adopt) throws Exception {
+    return new ResourceDeployer(new Slf4jLogService(), classLoader, adopt).deploy("META-INF/resources", root);
+  }
+
+  private String read (String path) throws Exception {
+    return Files.readString(root.resolve(path));
+  }
+
+  private static void write (Path file, String content) throws Exception {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+
+  private static void add (JarOutputStream out, String name, String content) throws Exception {
+    out.putNextEntry(new JarEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,187 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.Context;
+import org.apache.click.MockContext;
+import org.apache.click.Stateful;
+import org.apache.click.control.Table;
+import org.apache.click.util.ClickUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.click.util.ClickTestUtils.deleteDir;
+import static org.apache.click.util.ClickTestUtils.makeTmpDir;
+
+/**
+ * Tests for the StateStore implementations.
+ */
+public class StateStoreTest extends TestCase {
+
+  /**
+   * The session attribute is only set again when the state has changed.
+   */
+  public void testSessionDirtyTracking() throws Exception {
+    String pagePath = "/page.htm";
+    MockContext context = MockContext.initContext(pagePath);
+    CountingStore store = new CountingStore();
+
+    Table table = new Table("table");
+    table.setPageNumber(2);
+
+    store.saveState(context, pagePath, "table", table.getState());
+    assertEquals(1, store.writes(pagePath));
+
+    store.saveState(context, pagePath, "table", table.getState());// unchanged
+    assertEquals(1, store.writes(pagePath));
+
+    table.setPageNumber(3);
+    store.saveState(context, pagePath, "table", table.getState());
+    assertEquals(2, store.writes(pagePath));
+
+    Table restored = new Table("table");
+    restored.setState(store.getState(context, pagePath, "table"));
+    assertEquals(3, restored.getPageNumber());
+
+    // the page state map is serialized with StateCodec
+    Object pageMap = context.getSessionAttribute(pagePath);
+    assertTrue(pageMap instanceof SessionStateStore.PageState);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(pageMap);
+    }
+    Map<?,?> copy = (Map<?,?>) new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+    Object[] state = (Object[]) copy.get("table");
+    assertEquals(3, state[0]);
+
+    store.removeState(context, pagePath, "table");
+    assertNull(context.getSessionAttribute(pagePath));
+  }
+
+  /**
+   * A legacy page state map is replaced with a PageState.
+   */
+  public void testSessionLegacyMap() {
+    String pagePath = "/page.htm";
+    MockContext context = MockContext.initContext(pagePath);
+    Map<String,Object> legacy = new HashMap<>();
+    legacy.put("other", "value");
+    context.setSessionAttribute(pagePath, legacy);
+
+    SessionStateStore.DEFAULT.saveState(context, pagePath, "field", "Steve");
+    Map<?,?> pageMap = (Map<?,?>) context.getSessionAttribute(pagePath);
+    assertTrue(pageMap instanceof SessionStateStore.PageState);
+    assertEquals("value", pageMap.get("other"));
+    assertEquals("Steve", pageMap.get("field"));
+  }
+
+  public void testMemoryStore() {
+    Map<String,String> params = new HashMap<>();
+    params.put("state-store", "memory");
+    MockContext context = MockContext.initContext(params);
+    StateStore store = ClickUtils.getConfigService(context.getServletContext()).getStateStore();
+    assertTrue(store instanceof MemoryStateStore);
+
+    String pagePath = context.getResourcePath();
+    Table table = new Table("table");
+    table.setPageNumber(4);
+    ClickUtils.saveState(table, "table", context);
+    assertNull(context.getSessionAttribute(pagePath));
+    assertEquals(1, ((MemoryStateStore) store).size());
+
+    Table restored = new Table("table");
+    ClickUtils.restoreState(restored, "table", context);
+    assertEquals(4, restored.getPageNumber());
+
+    List<Object> restoredStates = new ArrayList<>();
+    Stateful other = new Stateful() {
+      public Object getState() {
+        return null;
+      }
+      public void setState(Object state) {
+        restoredStates.add(state);
+      }
+    };
+    ClickUtils.restoreState(other, "other", context);// the page has state: restored with null
+    assertEquals(Collections.singletonList(null), restoredStates);
+
+    ClickUtils.removeState(restored, "table", context);
+    assertNull(store.getState(context, pagePath, "table"));
+    assertEquals(0, ((MemoryStateStore) store).size());
+
+    ClickUtils.restoreState(other, "other", context);// no page state: not restored
+    assertEquals(1, restoredStates.size());
+  }
+
+  public void testFileStore() throws Exception {
+    File dir = makeTmpDir();
+    try {
+      Map<String,String> params = new HashMap<>();
+      params.put("state-store", "file");
+      params.put(FileStateStore.STATE_STORE_DIR, dir.getAbsolutePath());
+      MockContext context = MockContext.initContext(params);
+      FileStateStore store = (FileStateStore) ClickUtils.getConfigService(context.getServletContext()).getStateStore();
+      assertEquals(dir.toPath(), store.getDirectory());
+
+      String pagePath = context.getResourcePath();
+      store.saveState(context, pagePath, "field", "Steve");
+      File[] sessionDirs = dir.listFiles();
+      assertEquals(1, sessionDirs.length);
+      File[] files = sessionDirs[0].listFiles();
+      assertEquals(1, files.length);
+      long modified = files[0].lastModified();
+      files[0].setLastModified(modified - 10_000);
+
+      store.saveState(context, pagePath, "field", "Steve");// unchanged: not rewritten
+      assertEquals(modified - 10_000, files[0].lastModified());
+      assertEquals("Steve", store.getState(context, pagePath, "field"));
+
+      // survives a restart
+      store.onDestroy();
+      store.onInit(context.getServletContext());
+      assertEquals("Steve", store.getState(context, pagePath, "field"));
+
+      store.removeState(context, pagePath, "field");
+      assertFalse(Files.exists(files[0].toPath()));
+      assertNull(store.getState(context, pagePath, "field"));
+
+      // expired files and empty session directories are purged
+      store.saveState(context, "/other.htm", "field", "Steve");
+      store.saveState(context, pagePath, "field", "Steve");
+      File[] stateFiles = sessionDirs[0].listFiles();
+      assertEquals(2, stateFiles.length);
+      for (File f : stateFiles) {
+        f.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(31));
+      }
+      store.purge();
+      assertEquals(0, dir.listFiles().length);
+    } finally {
+      deleteDir(dir);
+    }
+  }
+
+  /** Counts the page state session writes. */
+  static class CountingStore extends SessionStateStore {
+    final Map<String,Integer> writes = new HashMap<>();
+
+    @Override
+    protected void writePageState(Context context, String pagePath, Map<?,?> pageMap) {
+      writes.merge(pagePath, 1, Integer::sum);
+      super.writePageState(context, pagePath, pageMap);
+    }
+
+    int writes(String pagePath) {
+      return writes.getOrDefault(pagePath, 0);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.servlet.MockRequest;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for StreamingFileUploadService.
+ */
+public class StreamingFileUploadServiceTest extends TestCase {
+
+  public void testParseRequest() throws Exception {
+    File upload = createUpload("upload success");
+    MockRequest request = new MockRequest();
+    request.addFile("upload", upload, "text/plain");
+    request.setParameter("firstname", "Steve");
+
+    StreamingFileUploadService service = new StreamingFileUploadService();
+    List<FileItem> items = service.parseRequest(request);
+    assertEquals(2, items.size());
+
+    FileItem field = find(items, "firstname");
+    assertTrue(field.isFormField());
+    assertEquals("Steve", field.getString("UTF-8"));
+
+    StreamedFileItem file = (StreamedFileItem) find(items, "upload");
+    assertFalse(file.isFormField());
+    assertFalse(file.isInMemory());
+    assertEquals(upload.getName(), new File(file.getName()).getName());
+    assertEquals(14, file.getSize());
+    assertEquals("upload success", file.getString("UTF-8"));
+
+    ByteBuffer buffer = ByteBuffer.allocate(32);
+    try (ReadableByteChannel channel = file.getChannel()) {
+      while (channel.read(buffer) > 0) {}
+    }
+    assertEquals("upload success", new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+
+    // Unmoved files are deleted at the end of the request
+    Path stored = file.getFile();
+    assertTrue(Files.exists(stored));
+    service.releaseFileItems(Map.of("upload", new FileItem[] {file}));
+    assertFalse(Files.exists(stored));
+  }
+
+  public void testWriteMovesFile() throws Exception {
+    File upload = createUpload("moved");
+    MockRequest request = new MockRequest();
+    request.addFile("upload", upload, "text/plain");
+
+    StreamingFileUploadService service = new StreamingFileUploadService();
+    StreamedFileItem file = (StreamedFileItem) service.parseRequest(request).get(0);
+    Path stored = file.getFile();
+
+    File target = File.createTempFile("target", ".txt");
+    target.deleteOnExit();
+    file.write(target);
+    assertFalse(Files.exists(stored));
+    assertNull(file.getFile());
+    assertEquals("moved", Files.readString(target.toPath()));
+
+    // Moved files are not deleted
+    service.releaseFileItems(Map.of("upload", new FileItem[] {file}));
+    assertTrue(target.exists());
+  }
+
+  public void testFileSizeLimit() throws Exception {
+    File upload = createUpload("more than ten bytes");
+    MockRequest request = new MockRequest();
+    request.addFile("upload", upload, "text/plain");
+
+    StreamingFileUploadService service = new StreamingFileUploadService();
+    service.setFileSizeMax(10);
+    try {
+      service.parseRequest(request);
+      fail("file size limit not enforced");
+    } catch (FileUploadBase.FileSizeLimitExceededException expected) {
+    }
+
+    // Per request limits
+    service = new StreamingFileUploadService() {
+      @Override
+      protected long getSizeMax(javax.servlet.http.HttpServletRequest request) {
+        return 10;
+      }
+    };
+    try {
+      service.parseRequest(request);
+      fail("request size limit not enforced");
+    } catch (FileUploadException expected) {
+    }
+  }
+
+  private static FileItem find(List<FileItem> items, String fieldName) {
+    for (FileItem item : items) {
+      if (item.getFieldName().equals(fieldName)) {
+        return item;
+      }
+    }
+    throw new AssertionError(fieldName);
+  }
+
+  private static File createUpload(String content) throws Exception {
+    File file = File.createTempFile("upload", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), content);
+    return file;
+  }
+}
@@ -0,0 +1,88 @@
+package org.apache.click.service;
+
+import junit.framework.TestCase;
+import org.apache.click.MockContext;
+import org.apache.click.servlet.MockServletContext;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for the SubmitTokenService implementations.
+ */
+public class SubmitTokenServiceTest extends TestCase {
+
+  public void testHmacToken() {
+    MockContext context = MockContext.initContext("/page.htm");
+    HmacSubmitTokenService service = new HmacSubmitTokenService();
+    String name = "SUBMIT_CHECK_form_page.htm";
+
+    String token = service.createToken(context, name);
+    assertFalse(token.equals(service.createToken(context, name)));
+
+    assertFalse(service.isValidToken(context, "SUBMIT_CHECK_other_page.htm", token));
+    assertTrue(service.isValidToken(context, name, token));
+    assertFalse("replayed", service.isValidToken(context, name, token));
+    assertEquals(1, service.size());
+
+    assertFalse(service.isValidToken(context, name, null));
+    assertFalse(service.isValidToken(context, name, ""));
+    assertFalse(service.isValidToken(context, name, "garbage"));
+    assertFalse(service.isValidToken(context, name, "a.b.c"));
+
+    token = service.createToken(context, name);
+    String tampered = Long.toString(System.currentTimeMillis() + 1, 36) + token.substring(token.indexOf('.'));
+    assertFalse(service.isValidToken(context, name, tampered));
+  }
+
+  public void testHmacSharedSecret() {
+    MockContext context = MockContext.initContext("/page.htm");
+    MockServletContext servletContext = new MockServletContext();
+    servletContext.addInitParameter(HmacSubmitTokenService.SUBMIT_TOKEN_SECRET, "secret");
+    String name = "SUBMIT_CHECK_form_page.htm";
+
+    HmacSubmitTokenService node1 = new HmacSubmitTokenService();
+    node1.onInit(servletContext);
+    HmacSubmitTokenService node2 = new HmacSubmitTokenService();
+    node2.onInit(servletContext);
+    HmacSubmitTokenService other = new HmacSubmitTokenService();
+    other.setSecret("other".getBytes(StandardCharsets.UTF_8));
+
+    String token = node1.createToken(context, name);
+    assertFalse(other.isValidToken(context, name, token));
+    assertTrue(node2.isValidToken(context, name, token));
+  }
+
+  public void testHmacUsedTokenExpiry() {
+    HmacSubmitTokenService service = new HmacSubmitTokenService();
+    long now = System.currentTimeMillis();
+
+    assertTrue(service.markUsed("live", now + 60_000));
+    assertFalse(service.markUsed("live", now + 60_000));
+
+    // an expired token is not remembered
+    assertTrue(service.markUsed("expired", now - 1));
+    assertTrue(service.markUsed("expired", now - 1));
+  }
+
+  public void testHmacTokenDoesNotUseSession() {
+    MockContext context = MockContext.initContext("/page.htm");
+    HmacSubmitTokenService service = new HmacSubmitTokenService();
+    String name = "SUBMIT_CHECK_form_page.htm";
+
+    service.createToken(context, name);
+    assertNull(context.getSessionAttribute(name));
+  }
+
+  public void testSessionToken() {
+    MockContext context = MockContext.initContext("/page.htm");
+    SessionSubmitTokenService service = new SessionSubmitTokenService();
+    String name = "SUBMIT_CHECK_form_page.htm";
+
+    assertTrue("no token registered", service.isValidToken(context, name, null));
+    String token = service.createToken(context, name);
+    assertEquals(token, context.getSessionAttribute(name));
+    assertFalse(service.isValidToken(context, name, null));
+    assertFalse(service.isValidToken(context, name, "other"));
+    assertTrue(service.isValidToken(context, name, token));
+  }
+}
@@ -14,10 +14,18 @@ import org.apache.click.util.ErrorPage;
 import org.apache.click.util.Format;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -603,4 +611,153 @@ public class XmlConfigServiceTest extends TestCase {
     assertEquals("Version 0.21", map.get("version"));
   }
 
-}
\ No newline at end of file
+
+  public void testDevelopmentModePageDiscovery () throws Exception {
+    File tmpdir = makeTmpDir();
+
+    val container = new MockContainer(tmpdir.getAbsolutePath()).pages("org.apache.click.pages");
+    container.getServletContext().addInitParameter("mode", "development");
+    container.start();
+    val config = (XmlConfigService) ClickUtils.getConfigService(container.getServletContext());
+
+    assertNull(config.getPageClass("/BinaryPage.htm"));
+    assertNotNull(config.notFoundPaths.getIfPresent("/BinaryPage.htm"));
+
+    PrintStream f = new PrintStream(makeFile(tmpdir, "ListenerPage.htm"));
+    f.println("template");
+    f.close();
+
+    val before = config.routes.get();
+    assertSame(ListenerPage.class, config.getPageClass("/ListenerPage.htm"));
+    assertNotSame(before, config.routes.get());
+    assertNull(before.getPage("/ListenerPage.htm"));
+    assertEquals("/ListenerPage.htm", config.getPagePath(ListenerPage.class));
+    assertEquals(4, config.getPageFieldArray(ListenerPage.class).length);
+
+    // published index is reused by further lookups
+    val after = config.routes.get();
+    assertSame(ListenerPage.class, config.getPageClass("/ListenerPage.htm"));
+    assertSame(after, config.routes.get());
+
+    container.stop();
+
+    deleteDir(tmpdir);
+  }
+
+  public void testPageRoutesAliases () throws Exception {
+    assertEquals(Collections.singletonList("/a.htm"), XmlConfigService.PageRoutes.htmAliases("/a.jsp"));
+    assertEquals(3, XmlConfigService.PageRoutes.htmAliases("/a.jsp/b.jsp").size());
+    assertTrue(XmlConfigService.PageRoutes.htmAliases("/a.htm").isEmpty());
+    assertTrue(XmlConfigService.PageRoutes.htmAliases("/a.vm").isEmpty());
+
+    val jspPage = new XmlConfigService.PageElm("org.apache.click.pages.JspPage", "/jsp-page.jsp");
+    val htmPage = new XmlConfigService.PageElm("org.apache.click.pages.BinaryPage", "/binary.htm");
+    val routes = XmlConfigService.PageRoutes.EMPTY.withPage(jspPage).withPage(htmPage);
+
+    assertSame(jspPage, routes.getPage("/jsp-page.jsp"));
+    assertSame(jspPage, routes.getPage("/jsp-page.htm"));
+    assertSame(htmPage, routes.getPage("/binary.htm"));
+    assertNull(routes.getPage("/binary.jsp"));
+    assertTrue(routes.isJspPage("/jsp-page.htm"));
+    assertTrue(routes.isJspPage("/jsp-page"));
+    assertFalse(routes.isJspPage("/binary.htm"));
+    assertSame(htmPage, routes.getPageByClass(BinaryPage.class));
+    assertNull(XmlConfigService.PageRoutes.EMPTY.getPage("/binary.htm"));
+  }
+
+  public void testPageIndex () throws Exception {
+    File tmpdir = makeTmpDir();
+    for (String template : new String[]{"ListenerPage.htm", "BinaryPage.htm", "help.htm", "WEB-INF/hidden.htm"}){
+      PrintStream f = new PrintStream(makeFile(tmpdir, template));
+      f.println("template");
+      f.close();
+    }
+
+    // Build time index
+    val indexer = new XmlConfigService();
+    List<String> templates = PageIndex.listTemplates(indexer, tmpdir.toPath());
+    assertEquals(3, templates.size());
+    PageIndex index = PageIndex.build(indexer, List.of("org.apache.click.pages"), templates);
+
+    // Scanned pages
+    val container = new MockContainer(tmpdir.getAbsolutePath()).pages("org.apache.click.pages");
+    container.getServletContext().addInitParameter("excludes", "BinaryPage.htm");
+    container.start();
+    val scanned = (XmlConfigService) ClickUtils.getConfigService(container.getServletContext());
+    container.stop();
+
+    assertEquals(List.of(
+        new PageIndex.Entry("/BinaryPage.htm", BinaryPage.class.getName(), List.of()),
+        new PageIndex.Entry("/ListenerPage.htm", ListenerPage.class.getName(), fieldNames(scanned.getPageFieldArray(ListenerPage.class))),
+        new PageIndex.Entry("/help.htm", null, List.of())), index.getEntries());
+
+    StringWriter out = new StringWriter();
+    index.write(out);
+    PageIndex read = PageIndex.read(new StringReader(out.toString()));
+    assertEquals(index.getPackages(), read.getPackages());
+    assertEquals(index.getEntries(), read.getEntries());
+
+    // Indexed pages: the templates are not scanned
+    File indexdir = makeTmpDir();
+    try (Writer writer = new FileWriter(makeFile(indexdir, "WEB-INF/page-index.txt"), StandardCharsets.UTF_8)){
+      index.write(writer);
+    }
+    val indexedContainer = new MockContainer(indexdir.getAbsolutePath()).pages("org.apache.click.pages");
+    indexedContainer.getServletContext().addInitParameter("excludes", "BinaryPage.htm");
+    indexedContainer.getServletContext().addInitParameter("page-index", "/WEB-INF/page-index.txt");
+    indexedContainer.start();
+    val indexed = (XmlConfigService) ClickUtils.getConfigService(indexedContainer.getServletContext());
+
+    assertSame(ListenerPage.class, indexed.getPageClass("/ListenerPage.htm"));
+    assertEquals(fieldNames(scanned.getPageFieldArray(ListenerPage.class)), fieldNames(indexed.getPageFieldArray(ListenerPage.class)));
+    assertSame(scanned.getPageClass("/BinaryPage.htm"), indexed.getPageClass("/BinaryPage.htm"));
+    assertFalse(BinaryPage.class.isAssignableFrom(indexed.getPageClass("/BinaryPage.htm")));
+    assertNull(indexed.getPageClass("/help.htm"));
+    indexedContainer.stop();
+
+    // Templates added after the index was built are only scanned with page-index-check
+    try (Writer writer = new FileWriter(makeFile(tmpdir, "WEB-INF/page-index.txt"), StandardCharsets.UTF_8)){
+      new PageIndex(List.of("org.apache.click.pages"), List.of(
+          new PageIndex.Entry("/help.htm", null, List.of()))).write(writer);
+    }
+    val partialContainer = new MockContainer(tmpdir.getAbsolutePath()).pages("org.apache.click.pages");
+    partialContainer.getServletContext().addInitParameter("page-index", "/WEB-INF/page-index.txt");
+    partialContainer.getServletContext().addInitParameter("mode", "production");
+    partialContainer.start();
+    val partial = (XmlConfigService) ClickUtils.getConfigService(partialContainer.getServletContext());
+    assertNull(partial.getPageClass("/ListenerPage.htm"));
+    assertNull(partial.getPageClass("/help.htm"));
+    partialContainer.stop();
+
+    val checkedContainer = new MockContainer(tmpdir.getAbsolutePath()).pages("org.apache.click.pages");
+    checkedContainer.getServletContext().addInitParameter("page-index", "/WEB-INF/page-index.txt");
+    checkedContainer.getServletContext().addInitParameter("page-index-check", "true");
+    checkedContainer.start();
+    val checked = (XmlConfigService) ClickUtils.getConfigService(checkedContainer.getServletContext());
+    assertSame(ListenerPage.class, checked.getPageClass("/ListenerPage.htm"));
+    assertSame(BinaryPage.class, checked.getPageClass("/BinaryPage.htm"));
+    assertNull(checked.getPageClass("/help.htm"));
+    checkedContainer.stop();
+
+    // Stale index: the templates are scanned
+    try (Writer writer = new FileWriter(makeFile(tmpdir, "WEB-INF/page-index.txt"), StandardCharsets.UTF_8)){
+      new PageIndex(List.of("org.apache.click.pages"), List.of(
+          new PageIndex.Entry("/Missing.htm", "org.apache.click.pages.Missing", List.of()))).write(writer);
+    }
+    val staleContainer = new MockContainer(tmpdir.getAbsolutePath()).pages("org.apache.click.pages");
+    staleContainer.getServletContext().addInitParameter("page-index", "/WEB-INF/page-index.txt");
+    staleContainer.start();
+    val stale = (XmlConfigService) ClickUtils.getConfigService(staleContainer.getServletContext());
+    assertSame(ListenerPage.class, stale.getPageClass("/ListenerPage.htm"));
+    assertSame(BinaryPage.class, stale.getPageClass("/BinaryPage.htm"));
+    assertNull(stale.getPageClass("/Missing.htm"));
+    staleContainer.stop();
+
+    deleteDir(indexdir);
+    deleteDir(tmpdir);
+  }
+
+  private static List<String> fieldNames (Field[] fields){
+    return Arrays.stream(fields).map(Field::getName).collect(Collectors.toList());
+  }
+}
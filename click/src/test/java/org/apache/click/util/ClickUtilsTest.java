@@ -5,12 +5,14 @@ import lombok.NonNull;
 import org.apache.click.Context;
 import org.apache.click.MockContext;
 import org.apache.click.Page;
+import org.apache.click.control.AbstractControl;
 import org.apache.click.control.Checkbox;
 import org.apache.click.control.Field;
 import org.apache.click.control.FieldSet;
 import org.apache.click.control.FileField;
 import org.apache.click.control.Form;
 import org.apache.click.control.HiddenField;
+import org.apache.click.control.Label;
 import org.apache.click.control.TextField;
 import org.apache.click.fileupload.MockFileItem;
 import org.apache.click.servlet.MockRequest;
@@ -18,6 +20,7 @@ import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.GregorianCalendar;
@@ -743,4 +746,34 @@ public class ClickUtilsTest extends TestCase {
 		assertTrue(IOUtils.toString(ClickUtils.getResourceAsStream("/click/table.css", getClass())).contains("table.blue1"));
 		assertTrue(IOUtils.toString(ClickUtils.getResourceAsStream("click/table.css", getClass())).contains("table.blue1"));// click/src/main/resources/META-INF/resources/click/table.css
 	}
-}
\ No newline at end of file
+
+  /** Sanity checks for ClickUtils.renderTo */
+  public void testRenderTo () throws IOException {
+    Form form = new Form("form");
+    for (int i = 0; i < 10; i++){
+      form.add(new TextField("name" + i));
+    }
+    FieldSet fieldSet = new FieldSet("fieldSet");
+    fieldSet.add(new TextField("address"));
+    form.add(fieldSet);
+
+    StringWriter writer = new StringWriter();
+    assertTrue(ClickUtils.canRenderTo(form));
+    assertTrue(ClickUtils.renderTo(form, writer));
+    assertEquals(form.toString(), writer.toString());
+    assertTrue(writer.toString().length() > AppendableHtmlStringBuffer.DEFAULT_CHUNK_SIZE);
+
+    // toString() is not the rendered control
+    writer = new StringWriter();
+    assertFalse(ClickUtils.canRenderTo(new Label("label", "Label text")));
+    assertFalse(ClickUtils.canRenderTo(null));
+    assertFalse(ClickUtils.renderTo(new Label("label", "Label text"), writer));
+    assertFalse(ClickUtils.renderTo("text", writer));
+    assertFalse(ClickUtils.renderTo(null, writer));
+    assertEquals("", writer.toString());
+
+    // Tagless controls render nothing, as toString()
+    assertTrue(ClickUtils.renderTo(new AbstractControl("tagless"){}, writer));
+    assertEquals("", writer.toString());
+  }
+}
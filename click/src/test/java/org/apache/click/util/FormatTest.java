@@ -18,7 +18,15 @@
  */
 package org.apache.click.util;
 
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
 import junit.framework.TestCase;
 import org.apache.click.MockContext;
 
@@ -46,4 +54,69 @@ public class FormatTest extends TestCase {
         actual = format.message("hello {0} {1}", Arrays.asList(new String[] {"world", "list"}));
         assertEquals(expected, actual);
     }
+
+    public void testDate() {
+        MockContext.initContext(Locale.US);
+        Format format = new Format();
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2004, Calendar.JANUARY, 21, 13, 5);
+        Date date = calendar.getTime();
+
+        assertEquals("21 Jan 2004", format.date(date, "dd MMM yyyy"));
+        assertEquals("21 Jan 2004", format.date(date, "dd MMM yyyy"));
+        assertEquals(DateFormat.getDateInstance(DateFormat.DEFAULT, Locale.US).format(date), format.date(date));
+        assertEquals(DateFormat.getTimeInstance(DateFormat.DEFAULT, Locale.US).format(date), format.time(date));
+        assertEquals("", format.date((Date) null, "dd MMM yyyy"));
+
+        // java.time values
+        assertEquals("21 Jan 2004", format.date(LocalDate.of(2004, 1, 21), "dd MMM yyyy"));
+        assertEquals("21 Jan 2004 13:05", format.date(LocalDateTime.of(2004, 1, 21, 13, 5), "dd MMM yyyy HH:mm"));
+        assertEquals("Jan 21, 2004", format.date((Object) LocalDate.of(2004, 1, 21)));
+        assertEquals("1:05:00 PM", format.time((Object) LocalTime.of(13, 5)).replace('\u202F', ' '));
+        assertEquals("21 Jan 2004", format.date((Object) date, "dd MMM yyyy"));
+        assertEquals("", format.date((Object) null, "dd MMM yyyy"));
+
+        try {
+            format.date("2004-01-21", "dd MMM yyyy");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testNumber() {
+        MockContext.initContext(Locale.US);
+        Format format = new Format();
+
+        assertEquals("$1,234.50", format.currency(1234.5));
+        assertEquals("50%", format.percentage(0.5));
+        String expected = new DecimalFormat("#,##0.00").format(1234.5);
+        assertEquals(expected, format.decimal(1234.5, "N,NN0.00"));
+        assertEquals(expected, format.decimal(1234.5, "#,##0.00"));
+        assertEquals("", format.decimal(null, "#,##0.00"));
+    }
+
+    public void testRegistry() {
+        assertSame(FormatterRegistry.dateTimeFormatter("dd MMM yyyy", Locale.US),
+            FormatterRegistry.dateTimeFormatter("dd MMM yyyy", Locale.US));
+        assertNotSame(FormatterRegistry.dateTimeFormatter("dd MMM yyyy", Locale.US),
+            FormatterRegistry.dateTimeFormatter("dd MMM yyyy", Locale.GERMANY));
+
+        // java.text formats are confined to the current thread
+        assertSame(FormatterRegistry.simpleDateFormat("yyyy", Locale.US),
+            FormatterRegistry.simpleDateFormat("yyyy", Locale.US));
+        Object[] other = new Object[1];
+        Thread thread = new Thread(() -> other[0] = FormatterRegistry.simpleDateFormat("yyyy", Locale.US));
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        assertNotNull(other[0]);
+        assertNotSame(FormatterRegistry.simpleDateFormat("yyyy", Locale.US), other[0]);
+
+        FormatterRegistry.clear();
+    }
 }
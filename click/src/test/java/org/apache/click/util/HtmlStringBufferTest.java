@@ -78,4 +78,33 @@ public class HtmlStringBufferTest extends TestCase {
         assertEquals(" disabled=\"disabled\"", buffer.toString());
     }
 
+    /**
+     * Checks AppendableHtmlStringBuffer writes the HtmlStringBuffer content
+     * to its appendable, across chunks.
+     */
+    public void testAppendable() {
+        StringBuilder out = new StringBuilder();
+        AppendableHtmlStringBuffer buffer = new AppendableHtmlStringBuffer(out, 16);
+        HtmlStringBuffer expected = new HtmlStringBuffer();
+        for (HtmlStringBuffer b : new HtmlStringBuffer[] {buffer, expected}) {
+            b.elementStart("textarea");
+            b.appendAttribute("id", "textarea-id");
+            b.appendAttribute("rows", 2);
+            b.appendAttributeEscaped("title", "the car's \"way\" home");
+            b.closeTag();
+            b.appendEscaped("This is the car's way home today, a text longer than the chunk");
+            b.append('!');
+            b.elementEnd("textarea");
+        }
+        assertTrue(out.length() > 0);
+        assertEquals(expected.length(), buffer.length());
+        // the element and attribute methods don't grow the chunk
+        assertEquals(16, buffer.characters.length);
+        assertEquals(expected.toString(), out.toString() + buffer.toString());
+
+        buffer.flush();
+        assertEquals(expected.toString(), out.toString());
+        assertEquals(expected.length(), buffer.length());
+        assertEquals("", buffer.toString());
+    }
 }
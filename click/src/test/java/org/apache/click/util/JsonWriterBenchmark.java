@@ -0,0 +1,55 @@
+package org.apache.click.util;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.click.util.ClickTestUtils.benchmark;
+
+/**
+ * Measures {@link JsonWriter} writing a bean list to a String and to a Writer
+ * across payload sizes: time and bytes allocated per write. Runs with
+ * <tt>gradlew test -Pbenchmark</tt>.
+ */
+public class JsonWriterBenchmark extends TestCase {
+
+  public void testWrite () throws Exception {
+    for (int rows : new int[]{1, 10, 100, 1000}){
+      List<Object> payload = new ArrayList<>();
+      for (int i = 0; i < rows; i++){
+        payload.add(new Row(i));
+      }
+      Map<String,Object> model = new LinkedHashMap<>();
+      model.put("rows", payload);
+      model.put("total", rows);
+      int loops = Math.max(20, 100_000 / rows);
+      String expected = JsonWriter.DEFAULT.write(model);
+      for (int round = 0; round < 3; round++){
+        assertEquals(expected, benchmark(rows + " rows JsonWriter          ", loops, ()->JsonWriter.DEFAULT.write(model)));
+        assertEquals(expected, benchmark(rows + " rows JsonWriter to Writer", loops, ()->{
+          StringWriter out = new StringWriter(expected.length());
+          JsonWriter.DEFAULT.write(model, out);
+          return out.toString();
+        }));
+      }
+    }
+  }
+
+  public static class Row {
+    private final int id;
+
+    Row (int id){
+      this.id = id;
+    }
+
+    public int getId (){ return id;}
+    public String getName (){ return "Row \"" + id + "\"";}
+    public double getPrice (){ return id * 1.25;}
+    public boolean isActive (){ return id % 2 == 0;}
+    public List<String> getTags (){ return List.of("a", "b");}
+  }
+}
@@ -0,0 +1,118 @@
+package org.apache.click.util;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for JsonWriter.
+ */
+public class JsonWriterTest extends TestCase {
+
+  public void testValues() {
+    JsonWriter writer = JsonWriter.DEFAULT;
+    assertEquals("null", writer.write(null));
+    assertEquals("true", writer.write(true));
+    assertEquals("42", writer.write(42));
+    assertEquals("1.5", writer.write(1.5));
+    assertEquals("\"x\"", writer.write('x'));
+    assertEquals("[1,2,3]", writer.write(new int[]{1, 2, 3}));
+    assertEquals("[\"a\",null]", writer.write(Arrays.asList("a", null)));
+    assertEquals("[\"a\",\"b\"]", writer.write(Arrays.asList("a", "b").iterator()));
+
+    Map<Object,Object> map = new LinkedHashMap<>();
+    map.put("name", "Steve");
+    map.put(1, new String[0]);
+    assertEquals("{\"name\":\"Steve\",1:[]}", writer.write(map));
+  }
+
+  public void testEscaping() {
+    assertEquals("\"a\\\"b\\\\c\\n\\t<\\/script>\\u0001\"",
+        JsonWriter.DEFAULT.write("a\"b\\c\n\t</script>\u0001"));
+    assertEquals("\"plain text\"", JsonWriter.DEFAULT.write("plain text"));
+  }
+
+  public void testLiteral() {
+    Map<String,Object> map = new LinkedHashMap<>();
+    map.put("fn", new Literal("function(){return 1;}"));
+    assertEquals("{\"fn\":function(){return 1;}}", JsonWriter.DEFAULT.write(map));
+  }
+
+  public void testBean() {
+    Bean bean = new Bean();
+    assertEquals("{\"age\":7,\"name\":\"Bob\",\"field\":\"public\"}", JsonWriter.DEFAULT.write(bean));
+    assertTrue(new JsonWriter(true).write(bean).contains("\"class\":\"class org.apache.click.util.JsonWriterTest$Bean\""));
+
+    // Non public bean classes with public getters
+    assertEquals("{\"value\":3}", JsonWriter.DEFAULT.write(new HiddenBean()));
+  }
+
+  public void testGetterException() {
+    try {
+      JsonWriter.DEFAULT.write(new FailingBean());
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof InvocationTargetException);
+      assertEquals("getter failed", e.getCause().getCause().getMessage());
+    }
+  }
+
+  public void testCycle() {
+    List<Object> list = new ArrayList<>();
+    list.add("a");
+    list.add(list);
+    assertEquals("[\"a\",null]", JsonWriter.DEFAULT.write(list));
+
+    // The same value twice is not a cycle
+    List<String> shared = Arrays.asList("x");
+    assertEquals("[[\"x\"],[\"x\"]]", JsonWriter.DEFAULT.write(Arrays.asList(shared, shared)));
+  }
+
+  public void testWriter() throws Exception {
+    StringWriter out = new StringWriter();
+    JsonWriter.DEFAULT.write(Map.of("text", "line\nbreak"), out);
+    assertEquals("{\"text\":\"line\\nbreak\"}", out.toString());
+  }
+
+  static class Literal implements JsonWriter.Literal {
+    private final String value;
+
+    Literal(String value) {
+      this.value = value;
+    }
+
+    @Override public String toString() {
+      return value;
+    }
+  }
+
+  public static class Bean {
+    public String field = "public";
+
+    public String getName() {
+      return "Bob";
+    }
+
+    public int getAge() {
+      return 7;
+    }
+  }
+
+  public static class FailingBean {
+    public String getValue() {
+      throw new IllegalStateException("getter failed");
+    }
+  }
+
+  static class HiddenBean {
+    public int getValue() {
+      return 3;
+    }
+  }
+}
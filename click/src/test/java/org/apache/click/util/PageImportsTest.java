@@ -0,0 +1,104 @@
+package org.apache.click.util;
+
+import java.util.List;
+import junit.framework.TestCase;
+import org.apache.click.MockContext;
+import org.apache.click.Page;
+import org.apache.click.element.CssImport;
+import org.apache.click.element.CssStyle;
+import org.apache.click.element.Element;
+import org.apache.click.element.JsImport;
+import org.apache.click.element.JsScript;
+
+/**
+ * Tests for PageImports.
+ */
+public class PageImportsTest extends TestCase {
+
+    public void testDuplicates() {
+        MockContext.initContext();
+        PageImports pageImports = new PageImports(new Page());
+
+        pageImports.add(new JsImport("a.js"));
+        pageImports.add(new JsImport("b.js"));
+        pageImports.add(new JsImport("a.js"));
+        pageImports.add(new CssImport("a.css"));
+        pageImports.add(new CssImport("a.css"));
+
+        // unique scripts and styles have an id
+        JsScript script = new JsScript("alert(1);");
+        script.setId("script");
+        pageImports.add(script);
+        script = new JsScript("alert(2);");
+        script.setId("script");
+        pageImports.add(script);
+        pageImports.add(new JsScript("alert(3);"));
+        pageImports.add(new JsScript("alert(3);"));
+        pageImports.add(new CssStyle("a {}"));
+        pageImports.add(new CssStyle("a {}"));
+
+        List<Element> jsElements = pageImports.getJsElements();
+        assertEquals(5, jsElements.size());
+        assertEquals("a.js", ((JsImport) jsElements.get(0)).getSrc());
+        assertEquals("b.js", ((JsImport) jsElements.get(1)).getSrc());
+        assertEquals("alert(1);", ((JsScript) jsElements.get(2)).getContent());
+
+        List<Element> headElements = pageImports.getHeadElements();
+        assertEquals(3, headElements.size());
+    }
+
+    public void testMixedUniqueElements() {
+        MockContext.initContext();
+        PageImports pageImports = new PageImports(new Page());
+
+        // added without an id, the id is set once the element is imported
+        JsScript script = new JsScript("alert(1);");
+        pageImports.add(script);
+        script.setId("script");
+        CssStyle style = new CssStyle("a {}");
+        pageImports.add(style);
+        style.setId("style");
+
+        JsScript uniqueScript = new JsScript("alert(2);");
+        uniqueScript.setId("script");
+        pageImports.add(uniqueScript);
+        pageImports.add(script);
+        CssStyle uniqueStyle = new CssStyle("b {}");
+        uniqueStyle.setId("style");
+        pageImports.add(uniqueStyle);
+        pageImports.add(style);
+
+        List<Element> jsElements = pageImports.getJsElements();
+        assertEquals(1, jsElements.size());
+        assertSame(script, jsElements.get(0));
+
+        List<Element> headElements = pageImports.getHeadElements();
+        assertEquals(1, headElements.size());
+        assertSame(style, headElements.get(0));
+    }
+
+    public void testRenderImports() {
+        MockContext.initContext();
+        Page page = new Page();
+
+        PageImports pageImports = new PageImports(page);
+        pageImports.add(new JsImport("a.js"));
+        pageImports.add(new JsImport("b.js"));
+        HtmlStringBuffer buffer = new HtmlStringBuffer();
+        pageImports.renderJsElements(buffer);
+        String first = buffer.toString();
+        assertTrue(first.indexOf("a.js") < first.indexOf("b.js"));
+
+        // changed imports of the same page class
+        pageImports = new PageImports(page);
+        JsImport jsImport = new JsImport("a.js");
+        jsImport.setVersionIndicator("_1");
+        pageImports.add(jsImport);
+        pageImports.add(new JsImport("c.js"));
+        buffer = new HtmlStringBuffer();
+        pageImports.renderJsElements(buffer);
+        String changed = buffer.toString();
+        assertTrue(changed.contains("a_1.js") && changed.contains("c.js"));
+        assertFalse(changed.contains("b.js"));
+    }
+}
@@ -0,0 +1,116 @@
+package org.apache.click.util;
+
+import junit.framework.TestCase;
+import org.apache.click.MockContext;
+import org.apache.click.control.Form;
+import org.apache.click.control.Table;
+import org.apache.click.control.TextField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * StateCodec test.
+ */
+public class StateCodecTest extends TestCase {
+
+  public void testScalars() throws IOException {
+    for (Object value : new Object[]{null, "", "Ünïcödé 😀", 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+        Long.MIN_VALUE, 42L, true, false, 1.5d, new BigDecimal("12.50")}) {
+      assertEquals(value, StateCodec.decode(StateCodec.encode(value)));
+    }
+  }
+
+  public void testCollections() throws IOException {
+    Map<String,Object> params = new HashMap<>();
+    params.put("page", "2");
+    params.put("multi", new String[]{"a", null, "c"});
+    Object[] state = {3, "name", Boolean.FALSE, params};
+
+    Object[] decoded = (Object[]) StateCodec.decode(StateCodec.encode(state));
+    assertEquals(4, decoded.length);
+    assertEquals(3, decoded[0]);
+    assertEquals("name", decoded[1]);
+    assertEquals(Boolean.FALSE, decoded[2]);
+    Map<?,?> map = (Map<?,?>) decoded[3];
+    assertEquals("2", map.get("page"));
+    assertTrue(Arrays.equals(new String[]{"a", null, "c"}, (String[]) map.get("multi")));
+
+    assertEquals(List.of("x", 1), StateCodec.decode(StateCodec.encode(List.of("x", 1))));
+  }
+
+  public void testMapTypes() throws IOException {
+    for (Map<String,Object> map : List.of(new HashMap<String,Object>(), new LinkedHashMap<String,Object>(),
+        new TreeMap<String,Object>())) {
+      map.put("b", 2);
+      map.put("a", "1");
+      Object decoded = StateCodec.decode(StateCodec.encode(map));
+      assertEquals(map.getClass(), decoded.getClass());
+      assertEquals(map, decoded);
+    }
+    Object decoded = StateCodec.decode(StateCodec.encode(new ArrayList<>(List.of("x", 1))));
+    assertEquals(ArrayList.class, decoded.getClass());
+  }
+
+  /**
+   * The encoded Table state is much smaller than its serialized form.
+   */
+  public void testTableState() throws IOException {
+    MockContext.initContext();
+    Table table = new Table("table");
+    table.setPageNumber(5);
+    table.setSortedColumn("name");
+    table.setSortedAscending(false);
+    Object state = table.getState();
+
+    byte[] data = StateCodec.encode(state);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(state);
+    }
+    assertTrue(data.length + " vs " + bos.size(), data.length * 4 < bos.size());
+
+    Table restored = new Table("table");
+    restored.setState(StateCodec.decode(data));
+    assertEquals(5, restored.getPageNumber());
+    assertEquals("name", restored.getSortedColumn());
+    assertFalse(restored.isSortedAscending());
+  }
+
+  public void testFormState() throws IOException {
+    MockContext.initContext();
+    Form form = new Form("form");
+    TextField field = new TextField("name");
+    form.add(field);
+    field.setValue("Steve");
+
+    Form restored = new Form("form");
+    TextField restoredField = new TextField("name");
+    restored.add(restoredField);
+    restored.setState(StateCodec.decode(StateCodec.encode(form.getState())));
+    assertEquals("Steve", restoredField.getValue());
+  }
+
+  public void testErrors() throws IOException {
+    try {
+      StateCodec.encode(new Object());
+      fail();
+    } catch (NotSerializableException expected) {}
+
+    try {
+      StateCodec.decode(new byte[]{99});
+      fail();
+    } catch (StreamCorruptedException expected) {}
+  }
+}
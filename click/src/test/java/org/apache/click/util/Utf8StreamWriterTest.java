@@ -0,0 +1,113 @@
+package org.apache.click.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utf8StreamWriter test.
+ */
+public class Utf8StreamWriterTest extends TestCase {
+
+  public void testEncoding() throws IOException {
+    String text = "ascii <b>Ünïcödé</b> кириллица 中文 emoji 😀 end";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8StreamWriter writer = new Utf8StreamWriter(out, 16, false);
+    writer.write(text);
+    writer.close();
+
+    assertEquals(text, out.toString(StandardCharsets.UTF_8));
+    assertEquals(text.getBytes(StandardCharsets.UTF_8).length, writer.getByteCount());
+    assertFalse(writer.isOpen());
+  }
+
+  public void testSplitSurrogatePair() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8StreamWriter writer = new Utf8StreamWriter(out, 64, false);
+    writer.write('\uD83D');
+    writer.write("\uDE00");
+    writer.write("\uDE00x\uD83D");// unpaired low, then unpaired high at close
+    writer.close();
+
+    assertEquals("😀?x?", out.toString(StandardCharsets.UTF_8));
+  }
+
+  public void testFlushThreshold() throws IOException {
+    CountingStream out = new CountingStream();
+    Utf8StreamWriter writer = new Utf8StreamWriter(out, 100, false);
+    for (int i = 0; i < 99; i++) {
+      writer.write('a');
+    }
+    assertEquals(0, out.size());
+    writer.write("bc");
+    assertEquals(100, out.size());
+    writer.close();
+    assertEquals(101, out.size());
+    assertEquals(1, out.flushes);
+  }
+
+  public void testFlushHead() throws IOException {
+    CountingStream out = new CountingStream();
+    Utf8StreamWriter writer = new Utf8StreamWriter(out, 8192, true);
+    writer.write("<html><head><title>t</title></HEAD><body>");
+    assertEquals("<html><head><title>t</title></HEAD>", out.toString(StandardCharsets.UTF_8));
+    assertEquals(1, out.flushes);
+
+    writer.write("</head>");// flushed only once
+    writer.close();
+    assertEquals(2, out.flushes);
+    assertEquals("<html><head><title>t</title></HEAD><body></head>", out.toString(StandardCharsets.UTF_8));
+  }
+
+  public void testAcquire() throws IOException {
+    ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+    Utf8StreamWriter writer = Utf8StreamWriter.acquire(out1, 1024, false);
+
+    // nested rendering gets its own writer
+    ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+    Utf8StreamWriter nested = Utf8StreamWriter.acquire(out2, 1024, false);
+    assertNotSame(writer, nested);
+    nested.append("nested").close();
+    writer.append("outer").close();
+    assertEquals("nested", out2.toString(StandardCharsets.UTF_8));
+    assertEquals("outer", out1.toString(StandardCharsets.UTF_8));
+
+    // released writer is reused
+    ByteArrayOutputStream out3 = new ByteArrayOutputStream();
+    assertSame(writer, Utf8StreamWriter.acquire(out3, 1024, false));
+    writer.close();
+    writer.close();// no effect
+
+    try {
+      writer.write("closed");
+      writer.flush();
+      fail();
+    } catch (IOException expected) {}
+  }
+
+  public void testDiscard() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8StreamWriter writer = Utf8StreamWriter.acquire(out, 1024, false);
+    writer.write("<html>partial page");
+    writer.discard();
+    assertEquals(0, out.size());
+    assertFalse(writer.isOpen());
+
+    // the discarded writer is reused for the error page
+    assertSame(writer, Utf8StreamWriter.acquire(out, 1024, false));
+    writer.write("error page");
+    writer.close();
+    assertEquals("error page", out.toString(StandardCharsets.UTF_8));
+  }
+
+  private static class CountingStream extends ByteArrayOutputStream {
+    int flushes;
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+}
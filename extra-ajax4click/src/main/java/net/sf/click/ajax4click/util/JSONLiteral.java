@@ -1,7 +1,9 @@
 package net.sf.click.ajax4click.util;
 
+import org.apache.click.util.JsonWriter;
+
 /** Provides a JSON literal which renders its value 'as-is', without quotes. */
-public class JSONLiteral {
+public class JSONLiteral implements JsonWriter.Literal {
 
   private final String value;
 